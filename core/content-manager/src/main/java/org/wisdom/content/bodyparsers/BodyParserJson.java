@@ -19,6 +19,7 @@
  */
 package org.wisdom.content.bodyparsers;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.google.common.collect.ImmutableList;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
@@ -32,6 +33,7 @@ import org.wisdom.api.http.Context;
 import org.wisdom.api.http.MimeTypes;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Type;
 import java.util.List;
 
@@ -73,6 +75,11 @@ public class BodyParserJson implements BodyParser {
     public <T> T invoke(Context context, Class<T> classOfT, Type genericType) {
         T t = null;
         try {
+            final InputStream stream = context.request() == null ? null : context.request().stream();
+            if (stream != null) {
+                // The body is streamed, parse it while it's received.
+                return readValue(stream, classOfT, genericType);
+            }
             final String content = context.body();
             if (content == null || content.length() == 0) {
                 return null;
@@ -91,6 +98,31 @@ public class BodyParserJson implements BodyParser {
     }
 
 
+    /**
+     * Builds an instance of {@literal T} from a stream. The JSON document is parsed incrementally, while being read
+     * from the stream. An empty stream produces {@literal null}.
+     *
+     * @param stream      the stream
+     * @param classOfT    The class we expect
+     * @param genericType the generic type (may be {@literal null})
+     * @param <T>         the type of the object
+     * @return the build object, {@literal null} if the stream is empty.
+     * @throws IOException if the stream cannot be read or parsed
+     */
+    private <T> T readValue(InputStream stream, Class<T> classOfT, Type genericType) throws IOException {
+        try (JsonParser parser = json.mapper().getFactory().createParser(stream)) {
+            if (parser.nextToken() == null) {
+                // Empty body.
+                return null;
+            }
+            if (genericType != null) {
+                return json.mapper().readValue(parser, json.mapper().constructType(genericType));
+            } else {
+                return json.mapper().readValue(parser, classOfT);
+            }
+        }
+    }
+
     /**
      * Builds an instance of {@literal T} from the request payload.
      *
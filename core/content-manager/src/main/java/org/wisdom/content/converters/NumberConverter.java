@@ -0,0 +1,156 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.converters;
+
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.content.ParameterConverter;
+
+/**
+ * Converters for the (boxed) primitive numbers. They call the parsing methods directly instead of looking for and
+ * invoking the 'valueOf' method reflectively, as {@link ValueOfBasedConverter} does. Values between -128 and 127 are
+ * cached by the wrapper classes for integral types, so the most common parameters (page numbers, small identifiers...)
+ * are converted without allocation.
+ *
+ * @param <T> the number type
+ */
+public abstract class NumberConverter<T extends Number> implements ParameterConverter<T> {
+
+    /**
+     * Converts to {@link Integer} (and so {@code int}).
+     */
+    public static final NumberConverter<Integer> INTEGER = new NumberConverter<Integer>(Integer.class) {
+        @Override
+        protected Integer parse(String input) {
+            return Integer.valueOf(input);
+        }
+    };
+
+    /**
+     * Converts to {@link Long} (and so {@code long}).
+     */
+    public static final NumberConverter<Long> LONG = new NumberConverter<Long>(Long.class) {
+        @Override
+        protected Long parse(String input) {
+            return Long.valueOf(input);
+        }
+    };
+
+    /**
+     * Converts to {@link Short} (and so {@code short}).
+     */
+    public static final NumberConverter<Short> SHORT = new NumberConverter<Short>(Short.class) {
+        @Override
+        protected Short parse(String input) {
+            return Short.valueOf(input);
+        }
+    };
+
+    /**
+     * Converts to {@link Byte} (and so {@code byte}).
+     */
+    public static final NumberConverter<Byte> BYTE = new NumberConverter<Byte>(Byte.class) {
+        @Override
+        protected Byte parse(String input) {
+            return Byte.valueOf(input);
+        }
+    };
+
+    /**
+     * Converts to {@link Double} (and so {@code double}).
+     */
+    public static final NumberConverter<Double> DOUBLE = new NumberConverter<Double>(Double.class) {
+        @Override
+        protected Double parse(String input) {
+            return Double.valueOf(input);
+        }
+    };
+
+    /**
+     * Converts to {@link Float} (and so {@code float}).
+     */
+    public static final NumberConverter<Float> FLOAT = new NumberConverter<Float>(Float.class) {
+        @Override
+        protected Float parse(String input) {
+            return Float.valueOf(input);
+        }
+    };
+
+    private final Class<T> clazz;
+
+    private NumberConverter(Class<T> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * Gets the converter handling the given (boxed) type.
+     *
+     * @param clazz the class
+     * @return the converter, {@literal null} if the given class is not a boxed primitive number
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ParameterConverter<T> get(Class<T> clazz) {
+        if (clazz == Integer.class) {
+            return (ParameterConverter<T>) INTEGER;
+        } else if (clazz == Long.class) {
+            return (ParameterConverter<T>) LONG;
+        } else if (clazz == Double.class) {
+            return (ParameterConverter<T>) DOUBLE;
+        } else if (clazz == Float.class) {
+            return (ParameterConverter<T>) FLOAT;
+        } else if (clazz == Short.class) {
+            return (ParameterConverter<T>) SHORT;
+        } else if (clazz == Byte.class) {
+            return (ParameterConverter<T>) BYTE;
+        }
+        return null;
+    }
+
+    /**
+     * Parses the given input.
+     *
+     * @param input the input, can be {@literal null}
+     * @return the number
+     * @throws NumberFormatException if the input is not a valid number
+     */
+    protected abstract T parse(String input);
+
+    /**
+     * Converts the given input to a number. The failures are reported as with the {@link ValueOfBasedConverter}.
+     *
+     * @param input the input, can be {@literal null}
+     * @return the number
+     * @throws IllegalArgumentException if the input is not a valid number
+     */
+    @Override
+    public T fromString(String input) throws IllegalArgumentException {
+        try {
+            return parse(input);
+        } catch (NumberFormatException | NullPointerException e) {
+            LoggerFactory.getLogger(NumberConverter.class)
+                    .error("Cannot create an instance of {} from \"{}\"", clazz.getName(), input, e);
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public Class<T> getType() {
+        return clazz;
+    }
+}
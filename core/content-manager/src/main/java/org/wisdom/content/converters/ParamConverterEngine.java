@@ -19,12 +19,9 @@
  */
 package org.wisdom.content.converters;
 
-import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.primitives.Primitives;
-import org.apache.felix.ipojo.annotations.Component;
-import org.apache.felix.ipojo.annotations.Instantiate;
-import org.apache.felix.ipojo.annotations.Provides;
-import org.apache.felix.ipojo.annotations.Requires;
+import org.apache.felix.ipojo.annotations.*;
 import org.wisdom.api.content.ParameterConverter;
 import org.wisdom.api.content.ParameterFactories;
 import org.wisdom.api.content.ParameterFactory;
@@ -33,6 +30,8 @@ import org.wisdom.api.http.Context;
 import java.lang.reflect.Array;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementation of the {@link org.wisdom.api.content.ParameterFactories} service to convert objects.
@@ -42,11 +41,20 @@ import java.util.*;
 @Instantiate(name = "ParameterConverterEngine")
 public class ParamConverterEngine implements ParameterFactories {
 
-    @Requires(specification = ParameterConverter.class, optional = true)
-    List<ParameterConverter> converters;
+    /**
+     * The available converters. The list is immutable, and replaced when a converter arrives or leaves.
+     */
+    volatile List<ParameterConverter> converters = Collections.emptyList();
 
-    @Requires(specification = ParameterFactory.class, optional = true)
-    List<ParameterFactory> factories;
+    /**
+     * The available factories. The list is immutable, and replaced when a factory arrives or leaves.
+     */
+    volatile List<ParameterFactory> factories = Collections.emptyList();
+
+    /**
+     * The lookup results computed for the current lists of converters and factories.
+     */
+    private volatile Lookup lookup;
 
     /**
      * Creates the singleton instance of {@link org.wisdom.content.converters.ParamConverterEngine} used at runtime.
@@ -66,6 +74,71 @@ public class ParamConverterEngine implements ParameterFactories {
         factories = fact;
     }
 
+    /**
+     * A new converter is available.
+     *
+     * @param converter the converter
+     */
+    @Bind(optional = true, aggregate = true)
+    public synchronized void bindConverter(ParameterConverter converter) {
+        List<ParameterConverter> list = new ArrayList<>(converters);
+        list.add(converter);
+        converters = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * A converter has left.
+     *
+     * @param converter the converter
+     */
+    @Unbind
+    public synchronized void unbindConverter(ParameterConverter converter) {
+        List<ParameterConverter> list = new ArrayList<>(converters);
+        list.remove(converter);
+        converters = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * A new factory is available.
+     *
+     * @param factory the factory
+     */
+    @Bind(optional = true, aggregate = true)
+    public synchronized void bindFactory(ParameterFactory factory) {
+        List<ParameterFactory> list = new ArrayList<>(factories);
+        list.add(factory);
+        factories = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * A factory has left.
+     *
+     * @param factory the factory
+     */
+    @Unbind
+    public synchronized void unbindFactory(ParameterFactory factory) {
+        List<ParameterFactory> list = new ArrayList<>(factories);
+        list.remove(factory);
+        factories = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Gets the lookup results for the current converters and factories. As the lists are replaced on every
+     * modification, a lookup built for other lists is outdated and is replaced.
+     *
+     * @return the lookup
+     */
+    private Lookup lookup() {
+        List<ParameterConverter> currentConverters = converters;
+        List<ParameterFactory> currentFactories = factories;
+        Lookup current = lookup;
+        if (current == null || current.converters != currentConverters || current.factories != currentFactories) {
+            current = new Lookup(currentConverters, currentFactories);
+            lookup = current;
+        }
+        return current;
+    }
+
     @Override
     public <T> T convertValue(String input, Class<T> rawType, Type type, String defaultValue) throws IllegalArgumentException {
         if (rawType.isArray()) {
@@ -138,12 +211,11 @@ public class ParamConverterEngine implements ParameterFactories {
     @Override
     public <T> T newInstance(Context context, Class<T> type) throws IllegalArgumentException {
         // Retrieve the factory
-        for (ParameterFactory factory : factories) {
-            if (factory.getType().equals(type)) {
-                // Factory found - instantiate
-                //noinspection unchecked
-                return (T) factory.newInstance(context);
-            }
+        ParameterFactory factory = lookup().factoriesByType().get(type);
+        if (factory != null) {
+            // Factory found - instantiate
+            //noinspection unchecked
+            return (T) factory.newInstance(context);
         }
         throw new IllegalArgumentException("Unable to find a ParameterFactory able to create instance of "
                 + type.getName());
@@ -159,11 +231,7 @@ public class ParamConverterEngine implements ParameterFactories {
      */
     @Override
     public Set<Class> getTypesHandledByFactories() {
-        final ImmutableSet.Builder<Class> builder = ImmutableSet.builder();
-        for (ParameterFactory factory : factories) {
-            builder.add(factory.getType());
-        }
-        return builder.build();
+        return lookup().factoriesByType().keySet();
     }
 
     private <T> T createCollection(Collection<String> input, Class<T> rawType, Type type) {
@@ -262,7 +330,8 @@ public class ParamConverterEngine implements ParameterFactories {
     }
 
     /**
-     * Searches a suitable converter to convert String to the given type.
+     * Searches a suitable converter to convert String to the given type. The result of the search, including the
+     * absence of converter, is cached until a converter arrives or leaves.
      *
      * @param type the target type
      * @param <T>  the class
@@ -276,6 +345,32 @@ public class ParamConverterEngine implements ParameterFactories {
             return (ParameterConverter<T>) StringConverter.INSTANCE;
         }
 
+        final Lookup current = lookup();
+        ParameterConverter<?> converter = current.resolved().get(type);
+        if (converter == null) {
+            converter = findConverter(current.converters, type);
+            if (converter == null) {
+                converter = MISSING;
+            }
+            current.resolved().putIfAbsent(type, converter);
+        }
+        if (converter == MISSING) {
+            // running out of converters...
+            throw new NoSuchElementException("Cannot find a converter able to create instance of " + type.getName());
+        }
+        return (ParameterConverter<T>) converter;
+    }
+
+    /**
+     * Searches a suitable converter to convert String to the given type, without using the cache.
+     *
+     * @param converters the exposed converters
+     * @param type       the target type
+     * @param <T>        the class
+     * @return the parameter converter, {@literal null} if none
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ParameterConverter<T> findConverter(List<ParameterConverter> converters, Class<T> type) {
         // Search for exposed converters.
         for (ParameterConverter pc : converters) {
             //noinspection EqualsBetweenInconvertibleTypes
@@ -289,12 +384,18 @@ public class ParamConverterEngine implements ParameterFactories {
             return (ParameterConverter<T>) BooleanConverter.INSTANCE;
         }
 
+        // Primitive numbers are common (page numbers, identifiers...), so they don't use reflection.
+        ParameterConverter<T> converter = NumberConverter.get(type);
+        if (converter != null) {
+            return converter;
+        }
+
         // None of them are there, try default converters in the following order:
         // 1. constructor
         // 2. valueOf
         // 3. from
         // 4. fromString
-        ParameterConverter<T> converter = ConstructorBasedConverter.getIfEligible(type);
+        converter = ConstructorBasedConverter.getIfEligible(type);
         if (converter != null) {
             return converter;
         }
@@ -317,8 +418,58 @@ public class ParamConverterEngine implements ParameterFactories {
             return (ParameterConverter<T>) CharacterConverter.INSTANCE;
         }
 
-        // running out of converters...
-        throw new NoSuchElementException("Cannot find a converter able to create instance of " + type.getName());
+        return null;
+    }
+
+    /**
+     * Marks types without converters in the cache.
+     */
+    private static final ParameterConverter<Object> MISSING = new ParameterConverter<Object>() {
+        @Override
+        public Object fromString(String input) {
+            throw new NoSuchElementException("No converter");
+        }
+
+        @Override
+        public Class<Object> getType() {
+            return Object.class;
+        }
+    };
+
+    /**
+     * The converters resolved for each type, and the factories indexed by type, for a specific set of converters
+     * and factories. The cache is filled lazily.
+     */
+    private static final class Lookup {
+        private final List<ParameterConverter> converters;
+        private final List<ParameterFactory> factories;
+        private final ConcurrentMap<Class<?>, ParameterConverter<?>> resolved = new ConcurrentHashMap<>();
+        private volatile Map<Class, ParameterFactory> factoriesByType;
+
+        private Lookup(List<ParameterConverter> converters, List<ParameterFactory> factories) {
+            this.converters = converters;
+            this.factories = factories;
+        }
+
+        private ConcurrentMap<Class<?>, ParameterConverter<?>> resolved() {
+            return resolved;
+        }
+
+        private Map<Class, ParameterFactory> factoriesByType() {
+            Map<Class, ParameterFactory> map = factoriesByType;
+            if (map == null) {
+                // The first factory handling a type wins.
+                Map<Class, ParameterFactory> index = new LinkedHashMap<>();
+                for (ParameterFactory factory : factories) {
+                    if (!index.containsKey(factory.getType())) {
+                        index.put(factory.getType(), factory);
+                    }
+                }
+                map = ImmutableMap.copyOf(index);
+                factoriesByType = map;
+            }
+            return map;
+        }
     }
 
 }
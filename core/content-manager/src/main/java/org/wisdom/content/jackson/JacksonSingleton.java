@@ -68,19 +68,15 @@ import java.util.Set;
 public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
     /**
-     * An object used as lock.
+     * An object used as lock when the set of modules is modified.
      */
     private final Object lock = new Object();
 
     /**
-     * The current object mapper.
+     * The current mappers, readers and writers. The snapshot is immutable and replaced as a whole every time a
+     * module arrives or leaves, so it can be read without locking.
      */
-    private ObjectMapper mapper;
-
-    /**
-     * The current object mapper.
-     */
-    private XmlMapper xml;
+    private volatile Mappers mappers;
 
     /**
      * The document builder factory used to create new document.
@@ -122,9 +118,8 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @return the mapper.
      */
     public ObjectMapper mapper() {
-        synchronized (lock) {
-            return mapper;
-        }
+        Mappers current = mappers;
+        return current == null ? null : current.mapper;
     }
 
     /**
@@ -135,12 +130,27 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @throws java.lang.RuntimeException if the JSON Node cannot be created
      */
     public JsonNode toJson(final Object data) {
-        synchronized (lock) {
-            try {
-                return mapper.valueToTree(data);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        try {
+            return mappers.mapper.valueToTree(data);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the given object as UTF-8 encoded JSON. The object is streamed directly to the output buffer,
+     * without building an intermediate JSON node or String. The buffers used by Jackson are recycled.
+     *
+     * @param data the data to transform to json
+     * @return the UTF-8 encoded json form of the given object
+     * @throws java.lang.RuntimeException if the object cannot be written
+     */
+    @Override
+    public byte[] toJsonBytes(final Object data) {
+        try {
+            return mappers.writer.writeValueAsBytes(data);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -152,12 +162,10 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @return the String built as follows: "callback(json(data))"
      */
     public String toJsonP(final String callback, final Object data) {
-        synchronized (lock) {
-            try {
-                return callback + "(" + stringify((JsonNode) mapper.valueToTree(data)) + ");";
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        try {
+            return callback + "(" + mappers.prettyWriter.writeValueAsString(data) + ");";
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -170,12 +178,10 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @throws java.lang.RuntimeException if the object cannot be created
      */
     public <A> A fromJson(JsonNode json, Class<A> clazz) {
-        synchronized (lock) {
-            try {
-                return mapper.treeToValue(json, clazz);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        try {
+            return mappers.mapper.treeToValue(json, clazz);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -188,13 +194,10 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @throws java.lang.RuntimeException if the object cannot be created
      */
     public <A> A fromJson(String json, Class<A> clazz) {
-        synchronized (lock) {
-            try {
-                JsonNode node = mapper.readTree(json);
-                return mapper.treeToValue(node, clazz);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        try {
+            return mappers.mapper.readValue(json, clazz);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -208,7 +211,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      */
     public String stringify(JsonNode json) {
         try {
-            return mapper().writerWithDefaultPrettyPrinter().writeValueAsString(json);
+            return mappers.prettyWriter.writeValueAsString(json);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Cannot stringify the input json node", e);
         }
@@ -222,12 +225,10 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @throws java.lang.RuntimeException if the given string is not a valid JSON String
      */
     public JsonNode parse(String src) {
-        synchronized (lock) {
-            try {
-                return mapper.readValue(src, JsonNode.class);
-            } catch (Exception t) {
-                throw new RuntimeException(t);
-            }
+        try {
+            return mappers.nodeReader.readValue(src);
+        } catch (Exception t) {
+            throw new RuntimeException(t);
         }
     }
 
@@ -240,12 +241,10 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      * @throws java.lang.RuntimeException if the given stream is not a valid JSON String
      */
     public JsonNode parse(InputStream stream) {
-        synchronized (lock) {
-            try {
-                return mapper.readValue(stream, JsonNode.class);
-            } catch (Exception t) {
-                throw new RuntimeException(t);
-            }
+        try {
+            return mappers.nodeReader.readValue(stream);
+        } catch (Exception t) {
+            throw new RuntimeException(t);
         }
     }
 
@@ -271,27 +270,13 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
 
     /**
      * Starts the JSON and XML support.
-     * An empty mapper is created.
+     * The mappers are created with the currently registered modules.
      */
     @Validate
     public void validate() {
         LOGGER.info("Starting JSON and XML support services");
-        setMappers(new ObjectMapper(), new XmlMapper());
-    }
-
-    /**
-     * Sets the object mapper.
-     *
-     * @param mapper the object mapper to use
-     */
-    private void setMappers(ObjectMapper mapper, XmlMapper xml) {
         synchronized (lock) {
-            this.mapper = mapper;
-            this.xml = xml;
-            // mapper and xml are set to null on invalidation.
-            if (mapper != null && xml != null) {
-                applyMapperConfiguration(mapper, xml);
-            }
+            rebuildMappers();
         }
     }
 
@@ -373,7 +358,7 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      */
     @Invalidate
     public void invalidate() {
-        setMappers(null, null);
+        mappers = null;
     }
 
     /**
@@ -393,18 +378,22 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         }
     }
 
+    /**
+     * Creates new mappers with the current set of modules and publishes them. Must be called while holding the lock.
+     */
     private void rebuildMappers() {
-        mapper = new ObjectMapper();
+        ObjectMapper mapper = new ObjectMapper();
         for (Module module : modules) {
             mapper.registerModule(module);
         }
 
-        xml = new XmlMapper();
+        XmlMapper xml = new XmlMapper();
         for (Module module : modules) {
             xml.registerModule(module);
         }
 
         applyMapperConfiguration(mapper, xml);
+        mappers = new Mappers(mapper, xml);
     }
 
     /**
@@ -434,9 +423,8 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
      */
     @Override
     public XmlMapper xmlMapper() {
-        synchronized (lock) {
-            return xml;
-        }
+        Mappers current = mappers;
+        return current == null ? null : current.xml;
     }
 
     /**
@@ -578,4 +566,26 @@ public class JacksonSingleton implements JacksonModuleRepository, Json, Xml {
         unregister(module);
     }
 
+    /**
+     * An immutable snapshot of the mappers and of the readers and writers derived from them. Readers and writers
+     * are thread-safe and cache their (de)serializers, so they are built once per snapshot.
+     * <p>
+     * The mappers must not be reconfigured once the snapshot is built.
+     */
+    private static final class Mappers {
+        private final ObjectMapper mapper;
+        private final XmlMapper xml;
+        private final ObjectReader nodeReader;
+        private final ObjectWriter writer;
+        private final ObjectWriter prettyWriter;
+
+        private Mappers(ObjectMapper mapper, XmlMapper xml) {
+            this.mapper = mapper;
+            this.xml = xml;
+            this.nodeReader = mapper.readerFor(JsonNode.class);
+            this.writer = mapper.writer();
+            this.prettyWriter = mapper.writerWithDefaultPrettyPrinter();
+        }
+    }
+
 }
@@ -19,7 +19,6 @@
  */
 package org.wisdom.content.serializers;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
@@ -42,7 +41,7 @@ public class JSONSerializer implements ContentSerializer {
     private static final Logger LOGGER = LoggerFactory.getLogger(JSONSerializer.class);
 
     @Requires
-    private Json json;
+    protected Json json;
 
     @Override
     public String getContentType() {
@@ -51,12 +50,14 @@ public class JSONSerializer implements ContentSerializer {
 
     @Override
     public void serialize(Renderable<?> renderable) {
-        JsonNode node = json.toJson(renderable.content());
-        if (node == null) {
-            LOGGER.error("Cannot serialize result - cannot create a JSON Node from the response content");
+        Object content = renderable.content();
+        byte[] bytes = content == null ? null : json.toJsonBytes(content);
+        if (bytes == null) {
+            LOGGER.error("Cannot serialize result - cannot create a JSON form from the response content");
             renderable.setSerializedForm("");
         } else {
-            renderable.setSerializedForm(node.toString());
+            // Streamed directly to UTF-8 bytes, no intermediate node or String.
+            renderable.setSerializedForm(bytes);
         }
     }
 }
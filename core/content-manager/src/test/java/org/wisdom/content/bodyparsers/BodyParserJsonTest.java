@@ -22,14 +22,18 @@ package org.wisdom.content.bodyparsers;
 import com.google.common.base.Charsets;
 import org.junit.Before;
 import org.junit.Test;
+import org.wisdom.api.http.Context;
 import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Request;
 import org.wisdom.content.jackson.JacksonSingleton;
 import org.wisdom.test.parents.FakeContext;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Type;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
 
 /**
  * Check the Body Parser responsible for parsing JSON body.
@@ -111,6 +115,36 @@ public class BodyParserJsonTest {
         assertThat(data).isNull();
     }
 
+    @Test
+    public void testParsingFromStreamedBody() throws NoSuchFieldException {
+        Type type = this.getClass().getDeclaredField("tmp").getGenericType();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                body.append(",");
+            }
+            body.append("{\"name\":\"wisdom-").append(i).append("\",\"friends\":[\"clement\"],\"age\":")
+                    .append(i).append("}");
+        }
+        body.append("]");
+
+        Request request = mock(Request.class);
+        when(request.stream()).thenReturn(new ByteArrayInputStream(body.toString().getBytes(Charsets.UTF_8)));
+        Context context = mock(Context.class);
+        when(context.request()).thenReturn(request);
+
+        List<Data> list = parser.invoke(context, List.class, type);
+        assertThat(list).hasSize(1000);
+        assertThat(list.get(999).getName()).isEqualTo("wisdom-999");
+        assertThat(list.get(999).getAge()).isEqualTo(999);
+        // The raw body is not used.
+        verify(context, never()).body();
+
+        // Empty stream
+        when(request.stream()).thenReturn(new ByteArrayInputStream(new byte[0]));
+        assertThat(parser.invoke(context, Data.class)).isNull();
+    }
+
     @Test
     public void testMimeTypes() {
         assertThat(parser.getContentTypes())
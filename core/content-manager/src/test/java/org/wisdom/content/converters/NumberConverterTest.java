@@ -0,0 +1,74 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.converters;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+
+public class NumberConverterTest {
+
+    @Test
+    public void testConversions() throws Exception {
+        assertThat(NumberConverter.INTEGER.fromString("42")).isEqualTo(42);
+        assertThat(NumberConverter.INTEGER.fromString("-1")).isEqualTo(-1);
+        assertThat(NumberConverter.LONG.fromString("1447865464321")).isEqualTo(1447865464321L);
+        assertThat(NumberConverter.SHORT.fromString("12")).isEqualTo((short) 12);
+        assertThat(NumberConverter.BYTE.fromString("1")).isEqualTo((byte) 1);
+        assertThat(NumberConverter.DOUBLE.fromString("3.14")).isEqualTo(3.14);
+        assertThat(NumberConverter.FLOAT.fromString("2.5")).isEqualTo(2.5f);
+    }
+
+    @Test
+    public void testSmallIntegersAreNotAllocated() throws Exception {
+        assertThat(NumberConverter.INTEGER.fromString("100")).isSameAs(NumberConverter.INTEGER.fromString("100"));
+        assertThat(NumberConverter.LONG.fromString("100")).isSameAs(NumberConverter.LONG.fromString("100"));
+    }
+
+    @Test
+    public void testInvalidInputs() throws Exception {
+        try {
+            NumberConverter.INTEGER.fromString("not a number");
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getCause()).isInstanceOf(NumberFormatException.class);
+        }
+        try {
+            NumberConverter.DOUBLE.fromString(null);
+            fail("Exception expected");
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        assertThat(NumberConverter.get(Integer.class)).isSameAs(NumberConverter.INTEGER);
+        assertThat(NumberConverter.get(Long.class)).isSameAs(NumberConverter.LONG);
+        assertThat(NumberConverter.get(Double.class)).isSameAs(NumberConverter.DOUBLE);
+        assertThat(NumberConverter.get(Float.class)).isSameAs(NumberConverter.FLOAT);
+        assertThat(NumberConverter.get(Short.class)).isSameAs(NumberConverter.SHORT);
+        assertThat(NumberConverter.get(Byte.class)).isSameAs(NumberConverter.BYTE);
+        assertThat(NumberConverter.get(String.class)).isNull();
+        assertThat(NumberConverter.INTEGER.getType()).isEqualTo(Integer.class);
+    }
+}
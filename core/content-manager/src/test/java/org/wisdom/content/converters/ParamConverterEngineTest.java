@@ -329,6 +329,60 @@ public class ParamConverterEngineTest {
         engine.convertValue("hello", Object.class, null, null);
     }
 
+    @Test
+    public void testConverterArrivalAndDeparture() {
+        ParamConverterEngine engine = new ParamConverterEngine();
+        try {
+            engine.convertValue("wisdom-0", Member.class, null, null);
+            fail("exception expected");
+        } catch (NoSuchElementException e) {
+            // OK - the absence of converter is cached.
+        }
+
+        MemberConverter converter = new MemberConverter();
+        engine.bindConverter(converter);
+        assertThat(engine.convertValue("wisdom-0", Member.class, null, null)).isEqualTo(new Member("wisdom", 0));
+
+        engine.unbindConverter(converter);
+        try {
+            engine.convertValue("wisdom-0", Member.class, null, null);
+            fail("exception expected");
+        } catch (NoSuchElementException e) {
+            // OK
+        }
+    }
+
+    @Test
+    public void testFactoryArrivalAndDeparture() {
+        ParamConverterEngine engine = new ParamConverterEngine();
+        assertThat(engine.getTypesHandledByFactories()).isEmpty();
+
+        StuffFactory factory = new StuffFactory();
+        engine.bindFactory(factory);
+        assertThat(engine.getTypesHandledByFactories()).containsExactly(Stuff.class);
+        assertThat(engine.newInstance(new FakeContext().setHeader("X-Stuff", "bar"), Stuff.class).name)
+                .isEqualTo("bar");
+
+        engine.unbindFactory(factory);
+        assertThat(engine.getTypesHandledByFactories()).isEmpty();
+    }
+
+    @Test
+    public void testPrimitiveNumbers() {
+        ParamConverterEngine engine = new ParamConverterEngine();
+        assertThat(engine.convertValue("42", Integer.TYPE, null, null)).isEqualTo(42);
+        assertThat(engine.convertValue(null, Integer.TYPE, null, null)).isEqualTo(0);
+        assertThat(engine.convertValue(null, Long.TYPE, null, "7")).isEqualTo(7L);
+        assertThat(engine.convertValue("1.5", Double.class, null, null)).isEqualTo(1.5);
+        assertThat(engine.convertValues(ImmutableList.of("1", "2"), long[].class, null, null)).containsExactly(1L, 2L);
+        try {
+            engine.convertValue("illegal", Integer.TYPE, null, null);
+            fail("exception expected");
+        } catch (IllegalArgumentException e) {
+            // OK
+        }
+    }
+
     @Test
     public void testEmptyCollectionsAndArrays() throws NoSuchMethodException {
         ParamConverterEngine engine = new ParamConverterEngine();
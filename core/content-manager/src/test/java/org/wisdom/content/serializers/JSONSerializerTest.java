@@ -0,0 +1,158 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.content.serializers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wisdom.api.bodies.RenderableObject;
+import org.wisdom.api.http.RenderableException;
+import org.wisdom.content.jackson.JacksonSingleton;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks JSON Serializer.
+ */
+public class JSONSerializerTest {
+
+    JSONSerializer serializer = new JSONSerializer();
+    JacksonSingleton singleton = new JacksonSingleton();
+
+    @Before
+    public void setUp() {
+        serializer.json = singleton;
+        singleton.validate();
+    }
+
+    @After
+    public void tearDown() {
+        singleton.invalidate();
+    }
+
+    @Test
+    public void testSerialization() throws RenderableException, IOException {
+        Data data = new Data();
+        data.name = "wisdom";
+        data.age = 2;
+        RenderableObject object = new RenderableObject(data);
+        serializer.serialize(object);
+        JsonNode node = singleton.parse(object.render(null, null));
+        assertThat(node.get("name").asText()).isEqualTo("wisdom");
+        assertThat(node.get("age").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSerializationOfNonAsciiCharacters() throws RenderableException, IOException {
+        Data data = new Data();
+        data.name = "çà et là €";
+        RenderableObject object = new RenderableObject(data);
+        serializer.serialize(object);
+        String result = new String(object.renderToBytes(null, null), "UTF-8");
+        assertThat(result).contains("\"name\":\"çà et là €\"");
+    }
+
+    @Test
+    public void testWithNull() throws RenderableException, IOException {
+        RenderableObject object = new RenderableObject(null);
+        serializer.serialize(object);
+        String result = IOUtils.toString(object.render(null, null));
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    public void testModuleArrivalAndDeparture() throws RenderableException {
+        SimpleModule module = new SimpleModule("data");
+        module.addSerializer(Data.class, new StdSerializer<Data>(Data.class) {
+            @Override
+            public void serialize(Data value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeString(value.name);
+            }
+        });
+        Data data = new Data();
+        data.name = "wisdom";
+
+        singleton.register(module);
+        RenderableObject object = new RenderableObject(data);
+        serializer.serialize(object);
+        assertThat(new String(object.renderToBytes(null, null))).isEqualTo("\"wisdom\"");
+
+        singleton.unregister(module);
+        object = new RenderableObject(data);
+        serializer.serialize(object);
+        assertThat(new String(object.renderToBytes(null, null))).contains("\"name\":\"wisdom\"");
+    }
+
+    @Test
+    public void testConcurrentSerialization() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        Data data = new Data();
+                        data.name = "wisdom-" + index;
+                        data.age = index;
+                        RenderableObject object = new RenderableObject(data);
+                        serializer.serialize(object);
+                        return new String(object.renderToBytes(null, null), "UTF-8");
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get())
+                        .contains("\"name\":\"wisdom-" + i + "\"")
+                        .contains("\"age\":" + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private class Data {
+        String name;
+        int age;
+
+        public int getAge() {
+            return age;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.crypto;
+
+import com.google.common.base.Charsets;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.crypto.Hash;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the operations used for each request (session cookie signature, AES with CBC). The
+ * `*WithoutCache` benchmarks replicate the previous implementation, looking up the {@link Mac} / {@link Cipher}
+ * instances and deriving the AES key on every call.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    private static final String SECRET = "JYFVq6:^jrh:KIy:yM5Xb<sH58WW80OLL4_gCL4Ne[PnAJ9QC/Z?LG2dbwoSkiBL";
+
+    private static final String MESSAGE = "___ID=a5fbc8a6-4ea1-4b9a-b0a5-2e0d6a1a8e3c&___TS=1447865464321&user=wisdom";
+
+    private Crypto crypto;
+    private String salt;
+    private String encrypted;
+
+    @Setup
+    public void setUp() {
+        crypto = new CryptoServiceSingleton(SECRET, Hash.MD5, 128, Crypto.AES_CBC_ALGORITHM, 20);
+        salt = crypto.hexToString("benchmark-salt".getBytes(Charsets.UTF_8));
+        encrypted = crypto.encryptAESWithCBC(MESSAGE, salt);
+    }
+
+    @Benchmark
+    public String sign() {
+        return crypto.sign(MESSAGE);
+    }
+
+    @Benchmark
+    public String signWithoutCache() throws Exception {
+        Mac mac = Mac.getInstance(CryptoServiceSingleton.HMAC_SHA_1);
+        mac.init(new SecretKeySpec(SECRET.getBytes(Charsets.UTF_8), CryptoServiceSingleton.HMAC_SHA_1));
+        return Hex.encodeHexString(mac.doFinal(MESSAGE.getBytes(Charsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String decryptAESWithCBC() {
+        return crypto.decryptAESWithCBC(encrypted, salt);
+    }
+
+    @Benchmark
+    public String decryptAESWithCBCWithoutCache() throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(SECRET.substring(0, 16).toCharArray(), Hex.decodeHex(salt.toCharArray()),
+                20, 128);
+        SecretKeyFactory factory = SecretKeyFactory.getInstance(CryptoServiceSingleton.PBKDF_2_WITH_HMAC_SHA_1);
+        SecretKey key = new SecretKeySpec(factory.generateSecret(spec).getEncoded(),
+                CryptoServiceSingleton.AES_ECB_ALGORITHM);
+        Cipher cipher = Cipher.getInstance(Crypto.AES_CBC_ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(
+                SECRET.substring(16, 32).getBytes(Charsets.UTF_8)));
+        return new String(cipher.doFinal(crypto.decodeBase64(encrypted)), Charsets.UTF_8);
+    }
+
+    @Benchmark
+    public String hash() {
+        return crypto.hash(MESSAGE, Hash.SHA256);
+    }
+}
@@ -21,6 +21,8 @@ package org.wisdom.crypto;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
@@ -40,6 +42,8 @@ import java.nio.charset.Charset;
 import java.security.*;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * An implementation of the crypto service.
@@ -51,6 +55,10 @@ import java.security.spec.KeySpec;
  * the 256+ keys require runtime adaption because of legal limitations (see unlimited crypto package JCE)</li>
  * <li><code>crypto.aes.iterations</code>: the number of iterations used to generate the key (20 by default)</li>
  * </ul>
+ * <p>
+ * The keys derived for the AES with CBC methods are cached (they only depend on the private key and the salt). The
+ * {@link Mac}, {@link Cipher} and {@link MessageDigest} instances are not thread-safe, so each thread reuses its own
+ * instances instead of looking them up for each call.
  */
 @Component
 @Provides
@@ -69,6 +77,50 @@ public class CryptoServiceSingleton implements Crypto {
     private final String secret;
     private final SecureRandom random = new SecureRandom();
 
+    /**
+     * The maximum number of derived AES keys kept in the cache.
+     */
+    private static final int KEY_CACHE_SIZE = 1000;
+
+    /**
+     * The AES keys derived from a private key and a salt (PBKDF2 is, on purpose, expensive).
+     */
+    private final Cache<String, SecretKey> derivedKeys = CacheBuilder.newBuilder()
+            .maximumSize(KEY_CACHE_SIZE)
+            .build();
+
+    /**
+     * The per-thread Mac instance initialized with the application secret.
+     */
+    private final ThreadLocal<Mac> secretMac;
+
+    /**
+     * The per-thread Mac instance used for other keys, initialized before each use.
+     */
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA_1);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(e);
+        }
+    });
+
+    /**
+     * The per-thread Cipher instances used by the AES with CBC methods, initialized before each use.
+     */
+    private final ThreadLocal<Cipher> cbcCipher;
+
+    /**
+     * The per-thread Cipher instances used by the AES (ECB) methods, initialized before each use.
+     */
+    private final ThreadLocal<Cipher> ecbCipher = ThreadLocal.withInitial(() -> cipher(AES_ECB_ALGORITHM));
+
+    /**
+     * The per-thread MessageDigest instances.
+     */
+    private final ThreadLocal<Map<Hash, MessageDigest>> digests = ThreadLocal.withInitial(() -> new EnumMap<>(Hash
+            .class));
+
     @SuppressWarnings("UnusedDeclaration")
     public CryptoServiceSingleton(@Requires ApplicationConfiguration configuration) {
         this(
@@ -86,9 +138,66 @@ public class CryptoServiceSingleton implements Crypto {
         this.keySize = keySize;
         this.iterationCount = iterationCount;
         this.transformation = transformation;
+
+        this.secretMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(HMAC_SHA_1);
+                instance.init(new SecretKeySpec(secret.getBytes(UTF_8), HMAC_SHA_1));
+                return instance;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+        this.cbcCipher = ThreadLocal.withInitial(() -> cipher(transformation));
     }
 
 
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets the (per-thread) message digest for the given algorithm. The returned digest is reset.
+     *
+     * @param hash the algorithm
+     * @return the message digest
+     * @throws NoSuchAlgorithmException if the algorithm is not supported
+     */
+    private MessageDigest digest(Hash hash) throws NoSuchAlgorithmException {
+        Map<Hash, MessageDigest> map = digests.get();
+        MessageDigest digest = map.get(hash);
+        if (digest == null) {
+            digest = MessageDigest.getInstance(hash.toString());
+            map.put(hash, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
+    /**
+     * Gets the AES key generated from the salt and the private key. Keys are computed once, and then retrieved
+     * from a cache.
+     *
+     * @param salt       the salt (hexadecimal)
+     * @param privateKey the private key
+     * @return the generated key.
+     */
+    private SecretKey getAESKey(String privateKey, String salt) {
+        // The length prefix avoids collisions between (key, salt) couples.
+        String cacheKey = privateKey.length() + ":" + privateKey + salt;
+        SecretKey key = derivedKeys.getIfPresent(cacheKey);
+        if (key == null) {
+            key = generateAESKey(privateKey, salt);
+            derivedKeys.put(cacheKey, key);
+        }
+        return key;
+    }
+
     /**
      * Generate the AES key from the salt and the private key.
      *
@@ -135,7 +244,7 @@ public class CryptoServiceSingleton implements Crypto {
      */
     @Override
     public String encryptAESWithCBC(String value, String privateKey, String salt, String iv) {
-        SecretKey genKey = generateAESKey(privateKey, salt);
+        SecretKey genKey = getAESKey(privateKey, salt);
         byte[] encrypted = doFinal(Cipher.ENCRYPT_MODE, genKey, iv, value.getBytes(UTF_8));
         return encodeBase64(encrypted);
     }
@@ -168,7 +277,7 @@ public class CryptoServiceSingleton implements Crypto {
      */
     @Override
     public String decryptAESWithCBC(String value, String privateKey, String salt, String iv) {
-        SecretKey key = generateAESKey(privateKey, salt);
+        SecretKey key = getAESKey(privateKey, salt);
         byte[] decrypted = doFinal(Cipher.DECRYPT_MODE, key, iv, decodeBase64(value));
         return new String(decrypted, UTF_8);
     }
@@ -187,11 +296,11 @@ public class CryptoServiceSingleton implements Crypto {
     private byte[] doFinal(int encryptMode, SecretKey generatedKey, String vector, byte[] message) {
         try {
             byte[] raw = decodeHex(vector);
-            Cipher cipher = Cipher.getInstance(transformation);
+            Cipher cipher = cbcCipher.get();
             cipher.init(encryptMode, generatedKey, new IvParameterSpec(raw));
             return cipher.doFinal(message);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException | InvalidKeyException |
-                InvalidAlgorithmParameterException | IllegalBlockSizeException | BadPaddingException e) {
+        } catch (InvalidKeyException | InvalidAlgorithmParameterException | IllegalBlockSizeException |
+                BadPaddingException e) {
             throw new IllegalStateException(e);
         }
     }
@@ -201,7 +310,9 @@ public class CryptoServiceSingleton implements Crypto {
      */
     @Override
     public String sign(String message) {
-        return sign(message, secret.getBytes(Charsets.UTF_8));
+        Preconditions.checkNotNull(message);
+        // doFinal resets the Mac, so it can be reused for the next message.
+        return hexToString(secretMac.get().doFinal(message.getBytes(Charsets.UTF_8)));
     }
 
     /**
@@ -219,12 +330,12 @@ public class CryptoServiceSingleton implements Crypto {
             // Get an hmac_sha1 key from the raw key bytes
             SecretKeySpec signingKey = new SecretKeySpec(key, HMAC_SHA_1);
 
-            // Get an hmac_sha1 Mac instance and initialize with the signing key
-            Mac mac = Mac.getInstance(HMAC_SHA_1);
-            mac.init(signingKey);
+            // Get the hmac_sha1 Mac instance of this thread and initialize with the signing key
+            Mac instance = mac.get();
+            instance.init(signingKey);
 
             // Compute the hmac on input data bytes
-            byte[] rawHmac = mac.doFinal(message.getBytes(Charsets.UTF_8));
+            byte[] rawHmac = instance.doFinal(message.getBytes(Charsets.UTF_8));
 
             // Convert raw bytes to Hex
             return hexToString(rawHmac);
@@ -256,7 +367,7 @@ public class CryptoServiceSingleton implements Crypto {
         Preconditions.checkNotNull(input);
         Preconditions.checkNotNull(hashType);
         try {
-            MessageDigest m = MessageDigest.getInstance(hashType.toString());
+            MessageDigest m = digest(hashType);
             byte[] out = m.digest(input.getBytes(Charsets.UTF_8));
             return encodeBase64(out);
         } catch (NoSuchAlgorithmException e) {
@@ -288,11 +399,10 @@ public class CryptoServiceSingleton implements Crypto {
         try {
             byte[] raw = privateKey.getBytes(UTF_8);
             SecretKeySpec skeySpec = new SecretKeySpec(raw, AES_ECB_ALGORITHM);
-            Cipher cipher = Cipher.getInstance(AES_ECB_ALGORITHM);
+            Cipher cipher = ecbCipher.get();
             cipher.init(Cipher.ENCRYPT_MODE, skeySpec);
             return hexToString(cipher.doFinal(value.getBytes(Charsets.UTF_8)));
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException |
-                InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
+        } catch (InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
             throw new IllegalStateException(e);
         }
     }
@@ -322,11 +432,10 @@ public class CryptoServiceSingleton implements Crypto {
         try {
             byte[] raw = privateKey.getBytes(UTF_8);
             SecretKeySpec skeySpec = new SecretKeySpec(raw, AES_ECB_ALGORITHM);
-            Cipher cipher = Cipher.getInstance(AES_ECB_ALGORITHM);
+            Cipher cipher = ecbCipher.get();
             cipher.init(Cipher.DECRYPT_MODE, skeySpec);
             return new String(cipher.doFinal(decodeHex(value)), Charsets.UTF_8);
-        } catch (NoSuchAlgorithmException | NoSuchPaddingException |
-                InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
+        } catch (InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
             throw new IllegalStateException(e);
         }
     }
@@ -497,8 +606,7 @@ public class CryptoServiceSingleton implements Crypto {
     @Override
     public byte[] md5(String toHash) {
         try {
-            MessageDigest messageDigest = MessageDigest.getInstance(Hash.MD5.toString());
-            messageDigest.reset();
+            MessageDigest messageDigest = digest(Hash.MD5);
             messageDigest.update(toHash.getBytes(UTF_8));
             return messageDigest.digest();
         } catch (NoSuchAlgorithmException e) {
@@ -516,8 +624,7 @@ public class CryptoServiceSingleton implements Crypto {
     @Override
     public byte[] sha1(String toHash) {
         try {
-            MessageDigest messageDigest = MessageDigest.getInstance(Hash.SHA1.toString());
-            messageDigest.reset();
+            MessageDigest messageDigest = digest(Hash.SHA1);
             messageDigest.update(toHash.getBytes(UTF_8));
             return messageDigest.digest();
         } catch (NoSuchAlgorithmException e) {
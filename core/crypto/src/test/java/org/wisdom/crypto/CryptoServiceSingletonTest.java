@@ -25,6 +25,12 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.crypto.Hash;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -189,4 +195,44 @@ public class CryptoServiceSingletonTest {
 
         assertThat(crypto.compareSignedTokens(token2, token)).isFalse();
     }
+
+    @Test
+    public void testAESWithCBCWithSeveralSalts() {
+        String salt1 = crypto.hexToString("salt-1".getBytes());
+        String salt2 = crypto.hexToString("salt-2".getBytes());
+        // The derived keys are cached, check that they are not mixed up.
+        String e1 = crypto.encryptAESWithCBC("hello", salt1);
+        String e2 = crypto.encryptAESWithCBC("hello", salt2);
+        assertThat(e1).isNotEqualTo(e2);
+        assertThat(crypto.encryptAESWithCBC("hello", salt1)).isEqualTo(e1);
+        assertThat(crypto.decryptAESWithCBC(e1, salt1)).isEqualTo("hello");
+        assertThat(crypto.decryptAESWithCBC(e2, salt2)).isEqualTo("hello");
+    }
+
+    @Test
+    public void testConcurrentUsage() throws Exception {
+        final String signature = crypto.sign("message");
+        final String hash = crypto.hash("message", Hash.SHA256);
+        final String salt = crypto.hexToString("salt".getBytes());
+        final String encrypted = crypto.encryptAESWithCBC("message", salt);
+        final String aes = crypto.encryptAES("message");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() ->
+                        crypto.sign("message").equals(signature)
+                                && crypto.hash("message", Hash.SHA256).equals(hash)
+                                && crypto.encryptAESWithCBC("message", salt).equals(encrypted)
+                                && crypto.decryptAESWithCBC(encrypted, salt).equals("message")
+                                && crypto.decryptAES(aes).equals("message")));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.parameters.ActionParameter;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.test.parents.FakeContext;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the invocation of action methods having 0, 3 and 8 parameters. The `reflective` benchmark replicates
+ * the previous implementation, looking up the parameter handler of each argument and calling
+ * {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionInvokerBenchmark {
+
+    @Param({"0", "3", "8"})
+    public int parameters;
+
+    private final ParameterFactories engine = new ParamConverterEngine(
+            Collections.<ParameterConverter>emptyList(),
+            Collections.<ParameterFactory>emptyList());
+
+    private Route route;
+    private ActionInvoker invoker;
+    private FakeContext context;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        Method method;
+        switch (parameters) {
+            case 0:
+                method = BenchmarkController.class.getMethod("zero");
+                break;
+            case 3:
+                method = BenchmarkController.class.getMethod("three", String.class, Integer.TYPE, Boolean.TYPE);
+                break;
+            default:
+                method = BenchmarkController.class.getMethod("eight", String.class, Integer.TYPE, Boolean.TYPE,
+                        Long.TYPE, String.class, Integer.class, Double.TYPE, String.class);
+        }
+        route = new Route(HttpMethod.GET, "/", new BenchmarkController(), method);
+        invoker = ActionInvoker.create(route);
+        context = new FakeContext()
+                .setParameter("a", "wisdom")
+                .setParameter("b", "42")
+                .setParameter("c", "true")
+                .setParameter("d", "1447865464321")
+                .setParameter("e", "framework")
+                .setParameter("f", "7")
+                .setParameter("g", "3.14")
+                .setParameter("h", "benchmark");
+    }
+
+    @Benchmark
+    public Result compiled() throws Exception {
+        return invoker.invoke(invoker.parameters(context, engine));
+    }
+
+    @Benchmark
+    public Result reflective() throws Exception {
+        final List<ActionParameter> arguments = route.getArguments();
+        Object[] values = new Object[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            values[i] = Bindings.create(arguments.get(i), context, engine);
+        }
+        return (Result) route.getControllerMethod().invoke(route.getControllerObject(), values);
+    }
+
+    public static class BenchmarkController extends DefaultController {
+
+        private static final Result OK = new Result(200);
+
+        public Result zero() {
+            return OK;
+        }
+
+        public Result three(@QueryParameter("a") String a, @QueryParameter("b") int b,
+                            @QueryParameter("c") boolean c) {
+            return OK;
+        }
+
+        public Result eight(@QueryParameter("a") String a, @QueryParameter("b") int b,
+                            @QueryParameter("c") boolean c, @QueryParameter("d") long d,
+                            @QueryParameter("e") String e, @QueryParameter("f") Integer f,
+                            @QueryParameter("g") double g, @QueryParameter("h") String h) {
+            return OK;
+        }
+    }
+}
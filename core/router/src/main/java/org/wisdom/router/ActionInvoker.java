@@ -0,0 +1,152 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.parameters.ActionParameter;
+import org.wisdom.router.parameter.Bindings;
+import org.wisdom.router.parameter.RouteParameterHandler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Invokes the action method of a bound route. Instances are created once, when the route is bound, and so resolve
+ * everything that does not depend on the request beforehand: the handler creating the value of each parameter and
+ * a {@link MethodHandle} calling the action method on the controller object.
+ * <p>
+ * Exceptions thrown by the action method are wrapped into {@link InvocationTargetException}, as with
+ * {@link Method#invoke(Object, Object...)}, so callers can unwrap them the same way.
+ */
+final class ActionInvoker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionInvoker.class);
+
+    /**
+     * The type of the spread handles: a single array containing the parameters, returning the action's result.
+     */
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * The parameters of action methods without parameters, an empty array can be shared.
+     */
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private final Route route;
+
+    private final ActionParameter[] arguments;
+
+    /**
+     * The handler creating the value of each parameter, {@literal null} for unsupported sources.
+     */
+    private final RouteParameterHandler[] handlers;
+
+    /**
+     * The handle calling the action method on the controller object, {@literal null} if it cannot be created,
+     * in this case reflection is used.
+     */
+    private final MethodHandle handle;
+
+    private ActionInvoker(Route route, List<ActionParameter> arguments) {
+        this.route = route;
+        this.arguments = arguments.toArray(new ActionParameter[arguments.size()]);
+        this.handlers = new RouteParameterHandler[this.arguments.length];
+        for (int i = 0; i < this.arguments.length; i++) {
+            handlers[i] = Bindings.handler(this.arguments[i].getSource());
+            if (handlers[i] == null) {
+                LOGGER.warn("Unsupported route parameter {} in method {}", this.arguments[i].getSource().name(),
+                        route.getControllerMethod().getName());
+            }
+        }
+        this.handle = createHandle(route.getControllerObject(), route.getControllerMethod(), this.arguments.length);
+    }
+
+    /**
+     * Creates the invoker of the given (bound) route.
+     *
+     * @param route the route, must be bound
+     * @return the invoker
+     */
+    static ActionInvoker create(Route route) {
+        return new ActionInvoker(route, route.getArguments());
+    }
+
+    private static MethodHandle createHandle(Object controller, Method method, int parameters) {
+        try {
+            MethodHandle mh = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                mh = mh.bindTo(controller);
+            }
+            return mh.asSpreader(Object[].class, parameters).asType(INVOKER_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) { //NOSONAR
+            LOGGER.debug("Cannot create a method handle for {}, using reflection instead", method, e);
+            return null;
+        }
+    }
+
+    /**
+     * Computes the values of the action method parameters from the given HTTP context.
+     *
+     * @param context the HTTP context
+     * @param engine  the converter engine
+     * @return the parameters, an empty array if the action method does not have parameters
+     */
+    Object[] parameters(Context context, ParameterFactories engine) {
+        if (arguments.length == 0) {
+            return NO_PARAMETERS;
+        }
+        Object[] parameters = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            if (handlers[i] != null) {
+                parameters[i] = handlers[i].create(arguments[i], context, engine);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Calls the action method with the given parameters.
+     *
+     * @param parameters the parameters computed by {@link #parameters(Context, ParameterFactories)}
+     * @return the result of the action method
+     * @throws InvocationTargetException if the action method throws an exception
+     * @throws IllegalAccessException    if the action method cannot be called
+     */
+    Result invoke(Object[] parameters) throws InvocationTargetException, IllegalAccessException {
+        if (handle == null) {
+            return (Result) route.getControllerMethod().invoke(route.getControllerObject(), parameters);
+        }
+        try {
+            return (Result) (Object) handle.invokeExact(parameters);
+        } catch (Throwable e) { //NOSONAR the action may throw anything, it is wrapped as with reflection.
+            throw new InvocationTargetException(e);
+        }
+    }
+}
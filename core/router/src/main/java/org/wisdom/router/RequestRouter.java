@@ -21,7 +21,6 @@ package org.wisdom.router;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.net.MediaType;
 import org.apache.felix.ipojo.annotations.*;
@@ -40,10 +39,9 @@ import org.wisdom.api.router.RouteUtils;
 import org.wisdom.api.router.RoutingException;
 
 import javax.validation.Validator;
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The request router responsible for handling request and invoke the action methods.
@@ -55,38 +53,18 @@ public class RequestRouter extends AbstractRouter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestRouter.class);
 
-    private static final Map<String, String> PERCENT_ENCODING_MAP = new TreeMap<>();
-
-    static {
-        // Reserved characters.
-        PERCENT_ENCODING_MAP.put("/", "%2F");
-
-        // Common characters
-        PERCENT_ENCODING_MAP.put(" ", "%20");
-        PERCENT_ENCODING_MAP.put("\"", "%22");
-        PERCENT_ENCODING_MAP.put("%", "%25");
-        PERCENT_ENCODING_MAP.put("-", "%2D");
-        PERCENT_ENCODING_MAP.put("<", "%3C");
-        PERCENT_ENCODING_MAP.put(">", "%3E");
-        PERCENT_ENCODING_MAP.put("\\", "%5C");
-        PERCENT_ENCODING_MAP.put("ˆ", "%5E");
-        PERCENT_ENCODING_MAP.put("_", "%5F");
-        PERCENT_ENCODING_MAP.put("`", "%60");
-        PERCENT_ENCODING_MAP.put("{", "%7B");
-        PERCENT_ENCODING_MAP.put("|", "%7C");
-        PERCENT_ENCODING_MAP.put("}", "%7D");
-
-        // New line
-        PERCENT_ENCODING_MAP.put("\n", "%0A");
-    }
-
     /**
      * The comparator used to sort filters.
      */
     private Set<Filter> filters = new FilterSet();
 
-    @Requires(optional = true, specification = Interceptor.class)
-    private List<Interceptor<?>> interceptors;
+    private final List<Interceptor<?>> interceptors = new CopyOnWriteArrayList<>();
+
+    /**
+     * The version of the set of filters and interceptors. It is incremented every time a filter or an interceptor
+     * arrives or leaves, letting the route delegates know their cached interception chain is outdated.
+     */
+    private final AtomicLong interceptionVersion = new AtomicLong();
 
     @Requires(optional = true, proxy = false)
     private Validator validator;
@@ -96,6 +74,12 @@ public class RequestRouter extends AbstractRouter {
 
     private Set<RouteDelegate> routes = new LinkedHashSet<>();
 
+    /**
+     * The index used to find the route handling a request, and the url of action methods (reverse routing). It is
+     * rebuilt every time the set of routes changes, and read without lock.
+     */
+    private volatile RouteIndex index = RouteIndex.EMPTY;
+
     /**
      * Binds a new controller.
      *
@@ -126,6 +110,7 @@ public class RequestRouter extends AbstractRouter {
             // remove all new routes as one has failed
             routes.removeAll(newRoutes); //NOSONAR
         }
+        reindex();
     }
 
     /**
@@ -142,6 +127,14 @@ public class RequestRouter extends AbstractRouter {
                 routes.remove(r);
             }
         }
+        reindex();
+    }
+
+    /**
+     * Rebuilds the route index from the current set of routes.
+     */
+    private synchronized void reindex() {
+        index = new RouteIndex(routes);
     }
 
     private void ensureNoConflicts(List<Route> newRoutes) {
@@ -217,8 +210,9 @@ public class RequestRouter extends AbstractRouter {
      * Stopping the router. All routes are cleared.
      */
     @Invalidate
-    public void stop() {
+    public synchronized void stop() {
         routes.clear();
+        reindex();
     }
 
     private synchronized Set<Route> copy() {
@@ -235,22 +229,9 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public Route getRouteFor(HttpMethod method, String uri, Request request) {
-        // Compute the list of matching routes - only the path is check in this first stage
-        List<Route> list = new ArrayList<>(1);
-        //TODO This can be faster by using an immutable list.
-        list.addAll(copy().stream()
-                .filter(route -> route.matches(method, uri))
-                .sorted((r1, r2) -> {
-                    // Exact match first.
-                    if (r1.getUrl().equalsIgnoreCase(uri)) {
-                        return -1;
-                    } else if (r2.getUrl().equalsIgnoreCase(uri)) {
-                        return 1;
-                    }
-                    // Not comparable
-                    return 0;
-                })
-                .collect(Collectors.toList()));
+        // Compute the list of matching routes - only the path is check in this first stage.
+        // Exact matches are placed first.
+        List<Route> list = index.lookup(method, uri);
 
         if (list.isEmpty()) {
             // Creates an unbound route - 404
@@ -303,13 +284,11 @@ public class RequestRouter extends AbstractRouter {
      */
     @Override
     public String getReverseRouteFor(String className, String method, Map<String, Object> params) {
-        for (Route route : copy()) {
-            if (route.getControllerClass().getName().equals(className)
-                    && route.getControllerMethod().getName().equals(method)) {
-                return computeUrlForRoute(route, params);
-            }
+        UrlTemplate template = index.reverse(className, method);
+        if (template == null) {
+            return null;
         }
-        return null;
+        return template.build(params);
     }
 
     /**
@@ -320,87 +299,6 @@ public class RequestRouter extends AbstractRouter {
         return copy();
     }
 
-    private String computeUrlForRoute(Route route, Map<String, Object> params) {
-        if (params == null) {
-            // No variables, return the raw url.
-            return route.getUrl();
-        }
-
-        // The original url. Something like route/user/{id}/{email}/userDashboard
-        String urlWithReplacedPlaceholders = route.getUrl();
-
-        Map<String, Object> queryParameterMap = Maps.newHashMap();
-
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String originalRegexEscaped = String.format("\\{%s(\\+)?\\}", entry.getKey());
-            // If regex is in the url as placeholder we replace the placeholder
-            final boolean containVar = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "}");
-            final boolean containAndCanSpreadOnSeveralSegment
-                    = urlWithReplacedPlaceholders.contains("{" + entry.getKey() + "+}");
-            if (containVar || containAndCanSpreadOnSeveralSegment) {
-                urlWithReplacedPlaceholders = urlWithReplacedPlaceholders.replaceAll(
-                        originalRegexEscaped,
-                        pathEncode(entry.getValue().toString(), containAndCanSpreadOnSeveralSegment));
-                // If the parameter is not there as placeholder we add it as queryParameter
-            } else {
-                queryParameterMap.put(entry.getKey(), entry.getValue());
-            }
-        }
-
-        // now prepare the query string for this url if we got some query params
-        if (!queryParameterMap.entrySet().isEmpty()) {
-
-            StringBuilder queryParameterStringBuffer = new StringBuilder();
-
-            // The uri is now replaced => we now have to add potential query parameters
-            for (Iterator<Map.Entry<String, Object>> iterator = queryParameterMap.entrySet().iterator();
-                 iterator.hasNext(); ) {
-
-                Map.Entry<String, Object> queryParameterEntry = iterator.next();
-                queryParameterStringBuffer.append(queryParameterEntry.getKey());
-                queryParameterStringBuffer.append("=");
-                // Don't forget to encode the value.
-                queryParameterStringBuffer.append(encode(queryParameterEntry.getValue().toString()));
-
-                if (iterator.hasNext()) {
-                    queryParameterStringBuffer.append("&");
-                }
-
-            }
-
-            urlWithReplacedPlaceholders = urlWithReplacedPlaceholders
-                    + "?"
-                    + queryParameterStringBuffer.toString();
-        }
-
-
-        return urlWithReplacedPlaceholders;
-    }
-
-    private String pathEncode(String s, boolean canSpreadOnSeveralSegments) {
-        String copy = s;
-        for (Map.Entry<String, String> c : PERCENT_ENCODING_MAP.entrySet()) {
-            if (s.contains(c.getKey())) {
-                if (c.getKey().endsWith("/") && canSpreadOnSeveralSegments) {
-                    // The canSpreadOnSeveralSegments parameter is true when the uri contains + such as in {path+}. In this
-                    // case, we must not convert "/" by the percent value.
-                    continue;
-                }
-                copy = copy.replace(c.getKey(), c.getValue());
-            }
-        }
-        return copy;
-    }
-
-    private String encode(String v) {
-        try {
-            return URLEncoder.encode(v, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            // UTF-8 is part of the JVM specification.
-            throw new IllegalArgumentException("UTF-8 not supported", e);
-        }
-    }
-
     /**
      * @return the validator object used to validate parameters.
      */
@@ -433,6 +331,16 @@ public class RequestRouter extends AbstractRouter {
         return interceptors;
     }
 
+    /**
+     * Gets the current version of the set of filters and interceptors. Route delegates compare this version with the
+     * one of their cached interception chain to decide whether or not the chain needs to be recomputed.
+     *
+     * @return the version
+     */
+    protected long getInterceptionVersion() {
+        return interceptionVersion.get();
+    }
+
     protected ParameterFactories getParameterConverterEngine() {
         return engine;
     }
@@ -445,6 +353,7 @@ public class RequestRouter extends AbstractRouter {
     @Bind(aggregate = true, optional = true)
     public void bindFilter(Filter filter) {
         filters.add(filter);
+        interceptionVersion.incrementAndGet();
     }
 
     /**
@@ -455,6 +364,29 @@ public class RequestRouter extends AbstractRouter {
     @Unbind
     public synchronized void unbindFilter(Filter filter) {
         filters.remove(filter);
+        interceptionVersion.incrementAndGet();
+    }
+
+    /**
+     * Binds an interceptor.
+     *
+     * @param interceptor the interceptor
+     */
+    @Bind(aggregate = true, optional = true, specification = Interceptor.class)
+    public void bindInterceptor(Interceptor<?> interceptor) {
+        interceptors.add(interceptor);
+        interceptionVersion.incrementAndGet();
+    }
+
+    /**
+     * Unbinds an interceptor.
+     *
+     * @param interceptor the interceptor
+     */
+    @Unbind
+    public void unbindInterceptor(Interceptor<?> interceptor) {
+        interceptors.remove(interceptor);
+        interceptionVersion.incrementAndGet();
     }
 
     /**
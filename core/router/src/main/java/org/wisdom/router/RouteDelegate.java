@@ -29,7 +29,6 @@ import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 import org.wisdom.api.router.Route;
 import org.wisdom.api.router.parameters.ActionParameter;
-import org.wisdom.router.parameter.Bindings;
 
 import javax.validation.Constraint;
 import javax.validation.ConstraintViolation;
@@ -40,7 +39,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Delegated route used for interception purpose.
@@ -52,6 +50,21 @@ public class RouteDelegate extends Route {
     private final boolean mustValidate;
     private final Map<String, Object> interceptors;
 
+    /**
+     * The invoker of the action method, created when the route is bound. {@literal null} for unbound routes.
+     */
+    private final ActionInvoker invoker;
+
+    /**
+     * The filter invoking the action method, ending the interception chain.
+     */
+    private final Filter endOfChain = new EndOfChainInvoker();
+
+    /**
+     * The cached interception chain. It is recomputed when the filters or interceptors bound to the router change.
+     */
+    private volatile Chain chain;
+
     /**
      * Creates a new instance of {@link org.wisdom.router.RouteDelegate}.
      *
@@ -64,9 +77,11 @@ public class RouteDelegate extends Route {
         if (!route.isUnbound()) {
             this.mustValidate = detectValidationRequirement(route.getControllerMethod());
             this.interceptors = extractInterceptors();
+            this.invoker = ActionInvoker.create(route);
         } else {
             this.mustValidate = false;
             this.interceptors = Collections.emptyMap();
+            this.invoker = null;
         }
     }
 
@@ -218,30 +233,71 @@ public class RouteDelegate extends Route {
         Context context = Context.CONTEXT.get();
         Preconditions.checkNotNull(context);
 
-        // Build chain if needed.
+        Chain current = getChain();
+        if (current.missing != null) {
+            return Results.badRequest("Missing interceptor handling " + current.missing);
+        }
+
+        // Ready to call the action.
+        RequestContext ctx = new RequestContext(this, current.filters, current.configuration);
+        final RequestTimings timings = context.timings();
+        if (timings == null) {
+            return ctx.proceed();
+        }
+
+        // The time spent in the chain, minus the time spent in the action, is the time spent in the filters.
+        final long action = timings.get(RequestTimings.Phase.ACTION);
+        final long start = System.nanoTime();
+        try {
+            return ctx.proceed();
+        } finally {
+            timings.add(RequestTimings.Phase.FILTERS,
+                    System.nanoTime() - start - (timings.get(RequestTimings.Phase.ACTION) - action));
+        }
+    }
+
+    /**
+     * Gets the interception chain of the route. The chain is computed on the first call, and then reused until
+     * the set of filters or interceptors bound to the router changes.
+     *
+     * @return the chain
+     */
+    private Chain getChain() {
+        // The version must be read before the filters and interceptors, so a modification happening during the
+        // computation leads to a new computation on the next invocation.
+        final long version = router.getInterceptionVersion();
+        Chain current = chain;
+        if (current == null || current.version != version) {
+            current = computeChain(version);
+            chain = current;
+        }
+        return current;
+    }
+
+    private Chain computeChain(long version) {
         // We get an immutable copy of the set.
         Set<Filter> filters = router.getFilters();
         // Interceptors will be handled after filters.
-        List<Filter> chain = filters.stream()
-                .filter(filter -> !(filter instanceof Interceptor)  && filter.uri().matcher(route.getUrl()).matches())
-                .collect(Collectors.toList());
+        List<Filter> list = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (!(filter instanceof Interceptor) && filter.uri().matcher(route.getUrl()).matches()) {
+                list.add(filter);
+            }
+        }
 
         Map<Interceptor<?>, Object> itcpConfiguration = new LinkedHashMap<>();
-        if (!interceptors.isEmpty()) {
-            for (Map.Entry<String, Object> entry : interceptors.entrySet()) {
-                final Interceptor<?> interceptor = getInterceptorForAnnotation(entry.getKey());
-                if (interceptor == null) {
-                    return Results.badRequest("Missing interceptor handling " + entry.getKey());
-                }
-                itcpConfiguration.put(interceptor, entry.getValue());
-                chain.add(interceptor);
+        for (Map.Entry<String, Object> entry : interceptors.entrySet()) {
+            final Interceptor<?> interceptor = getInterceptorForAnnotation(entry.getKey());
+            if (interceptor == null) {
+                return new Chain(version, entry.getKey());
             }
+            itcpConfiguration.put(interceptor, entry.getValue());
+            list.add(interceptor);
         }
 
-        // Ready to call the action.
-        Filter endOfChain = new EndOfChainInvoker();
-        RequestContext ctx = new RequestContext(this, chain, itcpConfiguration, null, endOfChain);
-        return ctx.proceed();
+        list.add(endOfChain);
+        return new Chain(version, list.toArray(new Filter[list.size()]),
+                Collections.unmodifiableMap(itcpConfiguration));
     }
 
     private Interceptor<?> getInterceptorForAnnotation(String className) {
@@ -283,6 +339,45 @@ public class RouteDelegate extends Route {
         return route.isUnbound();
     }
 
+    @Override
+    public Boolean isBlocking() {
+        return route.isBlocking();
+    }
+
+    @Override
+    public boolean hasStreamedBody() {
+        return route.hasStreamedBody();
+    }
+
+    /**
+     * The resolved interception chain of a route, valid for a specific version of the set of filters and
+     * interceptors. The filter array and the configuration map are never modified once created.
+     */
+    private static final class Chain {
+        private final long version;
+        private final Filter[] filters;
+        private final Map<Interceptor<?>, Object> configuration;
+        /**
+         * The class name of the interception annotation without interceptor, {@literal null} if all
+         * interceptors are available.
+         */
+        private final String missing;
+
+        private Chain(long version, Filter[] filters, Map<Interceptor<?>, Object> configuration) {
+            this.version = version;
+            this.filters = filters;
+            this.configuration = configuration;
+            this.missing = null;
+        }
+
+        private Chain(long version, String missing) {
+            this.version = version;
+            this.filters = null;
+            this.configuration = null;
+            this.missing = missing;
+        }
+    }
+
     private class EndOfChainInvoker implements Filter {
         /**
          * We are the end of the chain, so we call the action method.
@@ -298,73 +393,78 @@ public class RouteDelegate extends Route {
         public Result call(Route route, RequestContext context) throws InvocationTargetException, IllegalAccessException {
             if (isUnbound()) {
                 return new Result().status(route.getUnboundStatus()).noContentIfNone();
-            } else {
-
-                // The interceptor and filter may have change some values, compute the parameters.
-                final List<ActionParameter> arguments = getArguments();
-                Object[] parameters = new Object[arguments.size()];
-                for (int i = 0; i < arguments.size(); i++) {
-                    ActionParameter argument = arguments.get(i);
-                    parameters[i] = Bindings.create(argument, context.context(),
-                            router.getParameterConverterEngine());
-                }
+            }
 
-                // Validate if needed.
-                if (mustValidate) {
-                    Validator validator = router.getValidator();
-                    if (validator != null) {
-                        Set<ConstraintViolation<Controller>> violations =
-                                validator.forExecutables().validateParameters(getControllerObject(), getControllerMethod(),
-                                        parameters);
-
-                        if (!violations.isEmpty()) {
-                            return Results.badRequest(violations).json();
-                        }
+            final RequestTimings timings = context.context().timings();
+            if (timings == null) {
+                return invokeAction(context);
+            }
+            final long start = System.nanoTime();
+            try {
+                return invokeAction(context);
+            } finally {
+                timings.addSince(RequestTimings.Phase.ACTION, start);
+            }
+        }
+
+        private Result invokeAction(RequestContext context) throws InvocationTargetException,
+                IllegalAccessException {
+            // The interceptor and filter may have change some values, compute the parameters.
+            Object[] parameters = invoker.parameters(context.context(), router.getParameterConverterEngine());
+
+            // Validate if needed.
+            if (mustValidate) {
+                Validator validator = router.getValidator();
+                if (validator != null) {
+                    Set<ConstraintViolation<Controller>> violations =
+                            validator.forExecutables().validateParameters(getControllerObject(), getControllerMethod(),
+                                    parameters);
+
+                    if (!violations.isEmpty()) {
+                        return Results.badRequest(violations).json();
                     }
                 }
+            }
 
-                // Sets the parameters.
-                context.setParameters(parameters);
+            // Sets the parameters.
+            context.setParameters(parameters);
 
-                // Invoke the action method.
-                final Result result = (Result) getControllerMethod().invoke(
-                        getControllerObject(), parameters);
+            // Invoke the action method.
+            final Result result = invoker.invoke(parameters);
 
-                // Manage the VARY header if the route has a 'consume' set:
-                if (! result.getHeaders().containsKey(HeaderNames.VARY)) {
-                    String headers = null;
-                    if (! getAcceptedMediaTypes().isEmpty()) {
-                        headers = HeaderNames.CONTENT_TYPE;
-                    }
-                    if (! getProducedMediaTypes().isEmpty()) {
-                        if (headers == null) {
-                            headers = HeaderNames.ACCEPT;
-                        } else {
-                            headers += ", " + HeaderNames.ACCEPT;
-                        }
-                    }
-                    if (headers != null) {
-                        result.with(HeaderNames.VARY, headers);
-                    }
+            // Manage the VARY header if the route has a 'consume' set:
+            if (! result.getHeaders().containsKey(HeaderNames.VARY)) {
+                String headers = null;
+                if (! getAcceptedMediaTypes().isEmpty()) {
+                    headers = HeaderNames.CONTENT_TYPE;
                 }
-
-                // Manage produced types
-                final Set<MediaType> mediaTypes = route.getProducedMediaTypes();
-                if (mediaTypes.isEmpty()  || result.getContentType() != null
-                        || result.getRenderable() != null  && result.getRenderable().mimetype() != null) {
-                    return result;
+                if (! getProducedMediaTypes().isEmpty()) {
+                    if (headers == null) {
+                        headers = HeaderNames.ACCEPT;
+                    } else {
+                        headers += ", " + HeaderNames.ACCEPT;
+                    }
                 }
-
-                // check whether we can set the produced media type
-                if (mediaTypes.size() == 1) {
-                    // Only one
-                    result.as(mediaTypes.iterator().next().toString());
+                if (headers != null) {
+                    result.with(HeaderNames.VARY, headers);
                 }
-                // Else we cannot do anything.
+            }
 
+            // Manage produced types
+            final Set<MediaType> mediaTypes = route.getProducedMediaTypes();
+            if (mediaTypes.isEmpty()  || result.getContentType() != null
+                    || result.getRenderable() != null  && result.getRenderable().mimetype() != null) {
                 return result;
+            }
 
+            // check whether we can set the produced media type
+            if (mediaTypes.size() == 1) {
+                // Only one
+                result.as(mediaTypes.iterator().next().toString());
             }
+            // Else we cannot do anything.
+
+            return result;
         }
 
         /**
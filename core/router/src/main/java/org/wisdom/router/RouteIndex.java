@@ -0,0 +1,290 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.router.Route;
+
+import java.util.*;
+
+/**
+ * An immutable index of the routes, organized as a segment trie per HTTP method. Each node of the trie has literal
+ * children (keyed by the segment value), an optional 'parameter' child (segments containing simple placeholders such
+ * as {@code {id}}), and a list of 'wildcard' routes whose remaining part can span several segments (such as
+ * {@code {path+}}, {@code {path*}}, regex placeholders or segments containing regex characters).
+ * <p>
+ * The index is only used to select the candidate routes, the candidates are then checked using the route regex.
+ * Thus, the lookup cost depends on the depth of the path and not on the number of routes.
+ * <p>
+ * The index also maps the action methods (controller class and method names) to the compiled url of the first
+ * route they are bound to, so reverse routing is a lookup instead of a scan of all routes.
+ * <p>
+ * Instances are never modified once built. The router builds a new index every time the set of routes changes
+ * (copy-on-write), and the request path reads it without locking.
+ */
+final class RouteIndex {
+
+    /**
+     * An empty index.
+     */
+    static final RouteIndex EMPTY = new RouteIndex(Collections.<Route>emptyList());
+
+    /**
+     * Characters having a meaning in the regex generated from the route's uri.
+     */
+    private static final String REGEX_CHARACTERS = ".[]()?*+\\|^$";
+
+    private final Map<HttpMethod, Node> roots = new EnumMap<>(HttpMethod.class);
+
+    /**
+     * Controller class name -&gt; action method name -&gt; compiled url.
+     */
+    private final Map<String, Map<String, UrlTemplate>> reverse = new HashMap<>();
+
+    /**
+     * Builds the index.
+     *
+     * @param routes the routes, the iteration order is used as registration order
+     */
+    RouteIndex(Collection<? extends Route> routes) {
+        int rank = 0;
+        for (Route route : routes) {
+            if (!route.isUnbound() && route.getUrl() != null) {
+                Map<String, UrlTemplate> actions = reverse.get(route.getControllerClass().getName());
+                if (actions == null) {
+                    actions = new HashMap<>();
+                    reverse.put(route.getControllerClass().getName(), actions);
+                }
+                final String action = route.getControllerMethod().getName();
+                if (!actions.containsKey(action)) {
+                    // The first route wins.
+                    actions.put(action, UrlTemplate.compile(route.getUrl()));
+                }
+            }
+            if (route.isUnbound() || route.getHttpMethod() == null || route.getUrl() == null) {
+                continue;
+            }
+            Node root = roots.get(route.getHttpMethod());
+            if (root == null) {
+                root = new Node();
+                roots.put(route.getHttpMethod(), root);
+            }
+            insert(root, new Entry(route, rank++));
+        }
+    }
+
+    /**
+     * Gets the routes matching the given method and uri. Exact matches are placed first, then the routes are
+     * sorted following the registration order.
+     *
+     * @param method the method
+     * @param uri    the uri
+     * @return the list of matching routes, empty if none
+     */
+    List<Route> lookup(HttpMethod method, String uri) {
+        Node root = roots.get(method);
+        if (root == null || uri == null) {
+            return new ArrayList<>(1);
+        }
+
+        List<Entry> candidates = new ArrayList<>(4);
+        collect(root, uri, 0, candidates);
+        if (candidates.size() > 1) {
+            Collections.sort(candidates);
+        }
+
+        List<Route> exact = new ArrayList<>(1);
+        List<Route> others = new ArrayList<>(1);
+        for (Entry candidate : candidates) {
+            final Route route = candidate.route;
+            if (route.matches(method, uri)) {
+                if (route.getUrl().equalsIgnoreCase(uri)) {
+                    exact.add(route);
+                } else {
+                    others.add(route);
+                }
+            }
+        }
+        exact.addAll(others);
+        return exact;
+    }
+
+    /**
+     * Gets the compiled url of the route invoking the given action method.
+     *
+     * @param className the controller class name
+     * @param method    the action method name
+     * @return the compiled url, {@literal null} if no route invokes the given action method
+     */
+    UrlTemplate reverse(String className, String method) {
+        Map<String, UrlTemplate> actions = reverse.get(className);
+        if (actions == null) {
+            return null;
+        }
+        return actions.get(method);
+    }
+
+    /**
+     * Collects the candidates.
+     *
+     * @param node  the current node
+     * @param uri   the uri
+     * @param start the index of the beginning of the next segment, {@literal -1} if all segments have been consumed
+     * @param out   the list of candidates
+     */
+    private static void collect(Node node, String uri, int start, List<Entry> out) {
+        out.addAll(node.wildcards);
+        if (start < 0) {
+            out.addAll(node.terminals);
+            return;
+        }
+
+        final int end = uri.indexOf('/', start);
+        final String segment;
+        final int next;
+        if (end < 0) {
+            segment = uri.substring(start);
+            next = -1;
+        } else {
+            segment = uri.substring(start, end);
+            next = end + 1;
+        }
+
+        Node literal = node.literals.get(segment);
+        if (literal != null) {
+            collect(literal, uri, next, out);
+        }
+        if (node.parameter != null) {
+            collect(node.parameter, uri, next, out);
+        }
+    }
+
+    private static void insert(Node root, Entry entry) {
+        final String url = entry.route.getUrl();
+        Node node = root;
+        int start = 0;
+        boolean inPlaceholder = false;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '{') {
+                inPlaceholder = true;
+            } else if (c == '}') {
+                inPlaceholder = false;
+            } else if (c == '<' && inPlaceholder) {
+                // Regex placeholder, we can't know what is going to be matched.
+                node.wildcards.add(entry);
+                return;
+            } else if (c == '/' && !inPlaceholder) {
+                final String segment = url.substring(start, i);
+                final SegmentType type = classify(segment);
+                if (type == SegmentType.WILDCARD) {
+                    node.wildcards.add(entry);
+                    return;
+                }
+                node = node.child(segment, type);
+                start = i + 1;
+            }
+        }
+
+        // Last segment
+        final String segment = url.substring(start);
+        final SegmentType type = classify(segment);
+        if (type == SegmentType.WILDCARD) {
+            node.wildcards.add(entry);
+        } else {
+            node.child(segment, type).terminals.add(entry);
+        }
+    }
+
+    private static SegmentType classify(String segment) {
+        boolean placeholder = false;
+        boolean inPlaceholder = false;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '{') {
+                inPlaceholder = true;
+                placeholder = true;
+            } else if (c == '}') {
+                inPlaceholder = false;
+            } else if (inPlaceholder) {
+                if (c == '*' || c == '+' || c == '<') {
+                    // {path*} and {path+} can spread on several segments
+                    return SegmentType.WILDCARD;
+                }
+            } else if (REGEX_CHARACTERS.indexOf(c) != -1) {
+                // The character has a meaning in the regex (such as '.'), it may match '/'.
+                return SegmentType.WILDCARD;
+            }
+        }
+        return placeholder ? SegmentType.PARAMETER : SegmentType.LITERAL;
+    }
+
+    private enum SegmentType {
+        LITERAL,
+        PARAMETER,
+        WILDCARD
+    }
+
+    /**
+     * A node of the trie.
+     */
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private Node parameter;
+        private final List<Entry> terminals = new ArrayList<>(1);
+        private final List<Entry> wildcards = new ArrayList<>(1);
+
+        /**
+         * Gets the child node for the given segment, creating it if needed.
+         */
+        Node child(String segment, SegmentType type) {
+            if (type == SegmentType.PARAMETER) {
+                if (parameter == null) {
+                    parameter = new Node();
+                }
+                return parameter;
+            }
+            Node child = literals.get(segment);
+            if (child == null) {
+                child = new Node();
+                literals.put(segment, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * A route with its registration rank.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final Route route;
+        private final int rank;
+
+        private Entry(Route route, int rank) {
+            this.route = route;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Integer.compare(rank, o.rank);
+        }
+    }
+}
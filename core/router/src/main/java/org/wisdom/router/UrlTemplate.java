@@ -0,0 +1,246 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.*;
+
+/**
+ * A route's url compiled for reverse routing. The url is split into literal segments and placeholders (such as
+ * {@code {id}} or {@code {path+}}), so building an url is a single pass appending the literal segments and the
+ * encoded values. Parameters that do not match a placeholder are appended to the query string.
+ * <p>
+ * Only simple placeholders are replaced. Regex placeholders (such as {@code {id<[0-9]+>}}) and {@code {path*}}
+ * placeholders are kept as they are.
+ * <p>
+ * Instances are immutable.
+ */
+final class UrlTemplate {
+
+    /**
+     * The percent-encoded value of the characters that must be encoded in the path, indexed by character.
+     */
+    private static final String[] PERCENT_ENCODING = new String[128];
+
+    /**
+     * The modifier letter circumflex accent, encoded as {@code ^}.
+     */
+    private static final char CIRCUMFLEX = 'ˆ';
+
+    static {
+        // Reserved characters.
+        PERCENT_ENCODING['/'] = "%2F";
+
+        // Common characters
+        PERCENT_ENCODING[' '] = "%20";
+        PERCENT_ENCODING['"'] = "%22";
+        PERCENT_ENCODING['%'] = "%25";
+        PERCENT_ENCODING['-'] = "%2D";
+        PERCENT_ENCODING['<'] = "%3C";
+        PERCENT_ENCODING['>'] = "%3E";
+        PERCENT_ENCODING['\\'] = "%5C";
+        PERCENT_ENCODING['_'] = "%5F";
+        PERCENT_ENCODING['`'] = "%60";
+        PERCENT_ENCODING['{'] = "%7B";
+        PERCENT_ENCODING['|'] = "%7C";
+        PERCENT_ENCODING['}'] = "%7D";
+
+        // New line
+        PERCENT_ENCODING['\n'] = "%0A";
+    }
+
+    private final String url;
+
+    /**
+     * The literal parts of the url. {@code literals[i]} precedes {@code placeholders[i]}, and the last literal ends
+     * the url, so there is one more literal than placeholders.
+     */
+    private final String[] literals;
+
+    /**
+     * The placeholders, in the url order.
+     */
+    private final Placeholder[] placeholders;
+
+    /**
+     * The names of the placeholders.
+     */
+    private final Set<String> names;
+
+    private UrlTemplate(String url, String[] literals, Placeholder[] placeholders, Set<String> names) {
+        this.url = url;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.names = names;
+    }
+
+    /**
+     * Compiles the given url.
+     *
+     * @param url the route's url
+     * @return the compiled template
+     */
+    static UrlTemplate compile(String url) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        Set<String> spreading = new HashSet<>();
+
+        int start = 0;
+        int open = url.indexOf('{');
+        while (open != -1) {
+            int close = url.indexOf('}', open);
+            if (close == -1) {
+                break;
+            }
+            String name = url.substring(open + 1, close);
+            boolean spread = name.endsWith("+");
+            if (spread) {
+                name = name.substring(0, name.length() - 1);
+            }
+            if (isSimpleName(name)) {
+                literals.add(url.substring(start, open));
+                placeholders.add(new Placeholder(name, url.substring(open, close + 1)));
+                if (spread) {
+                    spreading.add(name);
+                }
+                start = close + 1;
+            }
+            open = url.indexOf('{', close);
+        }
+        literals.add(url.substring(start));
+
+        Set<String> names = new HashSet<>();
+        Placeholder[] array = new Placeholder[placeholders.size()];
+        for (int i = 0; i < array.length; i++) {
+            Placeholder placeholder = placeholders.get(i);
+            // As soon as one of the occurrences can spread on several segments, "/" is not encoded.
+            array[i] = placeholder.spread(spreading.contains(placeholder.name));
+            names.add(placeholder.name);
+        }
+        return new UrlTemplate(url, literals.toArray(new String[literals.size()]), array, names);
+    }
+
+    private static boolean isSimpleName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '{' || c == '<' || c == '>' || c == '*' || c == '+') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the raw url.
+     */
+    String url() {
+        return url;
+    }
+
+    /**
+     * Builds the url. Placeholders are replaced by the path-encoded value of the parameter having the same name.
+     * Placeholders without value are kept as they are. The other parameters are URL-encoded and appended to the
+     * query string.
+     *
+     * @param params the parameters, may be {@literal null}
+     * @return the url, the raw url if {@code params} is {@literal null}
+     */
+    String build(Map<String, Object> params) {
+        if (params == null) {
+            // No variables, return the raw url.
+            return url;
+        }
+
+        StringBuilder builder = new StringBuilder(url.length() + 16 * params.size());
+        for (int i = 0; i < placeholders.length; i++) {
+            builder.append(literals[i]);
+            final Placeholder placeholder = placeholders[i];
+            final Object value = params.get(placeholder.name);
+            if (value == null) {
+                builder.append(placeholder.raw);
+            } else {
+                appendPathEncoded(builder, value.toString(), placeholder.spread);
+            }
+        }
+        builder.append(literals[placeholders.length]);
+
+        char separator = '?';
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            if (!names.contains(entry.getKey())) {
+                builder.append(separator).append(entry.getKey()).append('=')
+                        // Don't forget to encode the value.
+                        .append(encode(entry.getValue().toString()));
+                separator = '&';
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void appendPathEncoded(StringBuilder builder, String value, boolean canSpreadOnSeveralSegments) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final String encoded;
+            if (c < PERCENT_ENCODING.length) {
+                // When the placeholder can spread on several segments (such as {path+}), we must not encode "/".
+                encoded = c == '/' && canSpreadOnSeveralSegments ? null : PERCENT_ENCODING[c];
+            } else {
+                encoded = c == CIRCUMFLEX ? "%5E" : null;
+            }
+            if (encoded == null) {
+                builder.append(c);
+            } else {
+                builder.append(encoded);
+            }
+        }
+    }
+
+    private static String encode(String v) {
+        try {
+            return URLEncoder.encode(v, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // UTF-8 is part of the JVM specification.
+            throw new IllegalArgumentException("UTF-8 not supported", e);
+        }
+    }
+
+    private static final class Placeholder {
+        private final String name;
+        private final String raw;
+        private final boolean spread;
+
+        private Placeholder(String name, String raw) {
+            this(name, raw, false);
+        }
+
+        private Placeholder(String name, String raw, boolean spread) {
+            this.name = name;
+            this.raw = raw;
+            this.spread = spread;
+        }
+
+        private Placeholder spread(boolean spread) {
+            return new Placeholder(name, raw, spread);
+        }
+    }
+}
@@ -61,6 +61,17 @@ public class Bindings {
         BINDINGS.put(source, handler);
     }
 
+    /**
+     * Gets the handler associated with the given source. Callers creating values for the same parameter several
+     * times can retrieve the handler once and call it directly.
+     *
+     * @param source the source
+     * @return the handler, {@code null} if the source is not supported
+     */
+    public static RouteParameterHandler handler(Source source) {
+        return BINDINGS.get(source);
+    }
+
     /**
      * Creates the value to be injected.
      *
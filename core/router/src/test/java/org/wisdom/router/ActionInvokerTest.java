@@ -0,0 +1,107 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.router;
+
+import org.junit.Test;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.QueryParameter;
+import org.wisdom.api.content.ParameterConverter;
+import org.wisdom.api.content.ParameterFactories;
+import org.wisdom.api.content.ParameterFactory;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.content.converters.ParamConverterEngine;
+import org.wisdom.test.parents.FakeContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the {@link ActionInvoker}.
+ */
+public class ActionInvokerTest {
+
+    private ParameterFactories engine =
+            new ParamConverterEngine(
+                    Collections.<ParameterConverter>emptyList(),
+                    Collections.<ParameterFactory>emptyList());
+
+    private MyController controller = new MyController();
+
+    @Test
+    public void testInvocationWithoutParameters() throws Exception {
+        ActionInvoker invoker = ActionInvoker.create(route("none"));
+        Object[] parameters = invoker.parameters(new FakeContext(), engine);
+        assertThat(parameters).isEmpty();
+        assertThat(invoker.invoke(parameters).getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testInvocationWithParameters() throws Exception {
+        ActionInvoker invoker = ActionInvoker.create(route("three", String.class, Integer.TYPE, Boolean.TYPE));
+        FakeContext context = new FakeContext()
+                .setParameter("s", "hello")
+                .setParameter("i", "42")
+                .setParameter("b", "on");
+        Object[] parameters = invoker.parameters(context, engine);
+        assertThat(parameters).containsExactly("hello", 42, true);
+        assertThat(invoker.invoke(parameters).getRenderable().content()).isEqualTo("hello-42-true");
+
+        // Missing values use the defaults.
+        parameters = invoker.parameters(new FakeContext(), engine);
+        assertThat(parameters).containsExactly(null, 0, false);
+        assertThat(invoker.invoke(parameters).getRenderable().content()).isEqualTo("null-0-false");
+    }
+
+    @Test
+    public void testExceptionsAreWrapped() throws Exception {
+        ActionInvoker invoker = ActionInvoker.create(route("failing"));
+        try {
+            invoker.invoke(invoker.parameters(new FakeContext(), engine));
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getTargetException()).isInstanceOf(IllegalStateException.class).hasMessage("bad");
+        }
+    }
+
+    private Route route(String method, Class<?>... types) throws NoSuchMethodException {
+        return new Route(HttpMethod.GET, "/", controller, MyController.class.getMethod(method, types));
+    }
+
+    public static class MyController extends DefaultController {
+
+        public Result none() {
+            return ok();
+        }
+
+        public Result three(@QueryParameter("s") String s, @QueryParameter("i") int i,
+                            @QueryParameter("b") boolean b) {
+            return ok(s + "-" + i + "-" + b);
+        }
+
+        public Result failing() {
+            throw new IllegalStateException("bad");
+        }
+    }
+}
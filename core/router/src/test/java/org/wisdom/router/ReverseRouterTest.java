@@ -102,6 +102,55 @@ public class ReverseRouterTest {
 
     }
 
+    @Test
+    public void routeWithRepeatedAndRegexPlaceholders() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}/{id}/{n<[0-9]+>}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        // Regex placeholders are not replaced, the parameter is added to the query string.
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "w", "n", "1"))
+                .isEqualTo("/foo/w/w/{n<[0-9]+>}?n=1");
+    }
+
+    @Test
+    public void firstRouteWins() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}").to(controller, "foo"),
+                new RouteBuilder().route(HttpMethod.POST).on("/bar/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "w")).isEqualTo("/foo/w");
+    }
+
+    @Test
+    public void queryParametersKeepTheGivenOrder() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getReverseRouteFor(controller, "foo", "c", "3", "id", "w", "a", "1", "b", "2"))
+                .isEqualTo("/foo/w?c=3&a=1&b=2");
+    }
+
+    @Test
+    public void specialCharactersInPathParameters() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo/{id}/{path+}").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getReverseRouteFor(controller, "foo", "id", "a b%$1", "path", "x/{y}"))
+                .isEqualTo("/foo/a%20b%25$1/x/%7By%7D");
+    }
+
     @Test
     public void testURLEncoding() throws Exception {
         router.bindController(new UrlCodingController());
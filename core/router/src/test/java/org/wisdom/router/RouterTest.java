@@ -534,6 +534,103 @@ public class RouterTest {
         assertThat(result.getStatusCode()).isEqualTo(Status.OK);
     }
 
+    @Test
+    public void testRoutesWithMixedSegmentsAndRegexCharacters() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/files/{name}.json").to(controller, "foo"),
+                new RouteBuilder().route(HttpMethod.GET).on("/files/item-{id}").to(controller, "bar"),
+                new RouteBuilder().route(HttpMethod.GET).on("/robots.txt").to(controller, "foo"),
+                new RouteBuilder().route(HttpMethod.GET).on("/{a}/{b}/end").to(controller, "bar")
+        ));
+        router.bindController(controller);
+
+        assertThat(router.getRouteFor(HttpMethod.GET, "/files/x.json", request).getUrl())
+                .isEqualTo("/files/{name}.json");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/files/item-1", request).getUrl())
+                .isEqualTo("/files/item-{id}");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/robots.txt", request).getUrl())
+                .isEqualTo("/robots.txt");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/x/y/end", request).getUrl())
+                .isEqualTo("/{a}/{b}/end");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/files/item-1/end", request).getUrl())
+                .isEqualTo("/{a}/{b}/end");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/files", request).isUnbound()).isTrue();
+        assertThat(router.getRouteFor(HttpMethod.GET, "/x/y/z/end", request).isUnbound()).isTrue();
+        assertThat(router.getRouteFor(HttpMethod.POST, "/robots.txt", request).isUnbound()).isTrue();
+    }
+
+    @Test
+    public void testLookupWithManyRoutes() throws Exception {
+        FakeController controller = new FakeController();
+        ImmutableList.Builder<Route> builder = ImmutableList.builder();
+        for (int i = 0; i < 500; i++) {
+            builder.add(new RouteBuilder().route(HttpMethod.GET).on("/api/" + i + "/{id}").to(controller, "foo"));
+        }
+        builder.add(new RouteBuilder().route(HttpMethod.GET).on("/assets/{path+}").to(controller, "bar"));
+        controller.setRoutes(builder.build());
+        router.bindController(controller);
+
+        assertThat(router.getRoutes()).hasSize(501);
+        Route route = router.getRouteFor(HttpMethod.GET, "/api/42/foo", request);
+        assertThat(route.getUrl()).isEqualTo("/api/42/{id}");
+        assertThat(route.getPathParametersEncoded("/api/42/foo").get("id")).isEqualTo("foo");
+        assertThat(router.getRouteFor(HttpMethod.GET, "/api/500/foo", request).isUnbound()).isTrue();
+        assertThat(router.getRouteFor(HttpMethod.GET, "/assets/js/app.js", request).getUrl())
+                .isEqualTo("/assets/{path+}");
+
+        router.unbindController(controller);
+        assertThat(router.getRouteFor(HttpMethod.GET, "/api/42/foo", request).isUnbound()).isTrue();
+    }
+
+    @Test
+    public void testThatTheInterceptionChainIsComputedOnceAndInvalidatedOnFilterChanges() throws Exception {
+        FakeController controller = new FakeController();
+        controller.setRoutes(ImmutableList.of(
+                new RouteBuilder().route(HttpMethod.GET).on("/foo").to(controller, "foo")
+        ));
+        router.bindController(controller);
+
+        AtomicInteger matching = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        Filter filter = new Filter() {
+            @Override
+            public Result call(Route route, RequestContext context) throws Exception {
+                calls.incrementAndGet();
+                return context.proceed();
+            }
+
+            @Override
+            public Pattern uri() {
+                matching.incrementAndGet();
+                return Pattern.compile("/foo");
+            }
+
+            @Override
+            public int priority() {
+                return 0;
+            }
+        };
+
+        router.bindFilter(filter);
+        Route route = router.getRouteFor(HttpMethod.GET, "/foo", request);
+        for (int i = 0; i < 10; i++) {
+            assertThat(route.invoke().getStatusCode()).isEqualTo(Status.CREATED);
+        }
+        assertThat(calls.get()).isEqualTo(10);
+        // The filter pattern is only evaluated when the chain is computed.
+        assertThat(matching.get()).isEqualTo(1);
+
+        router.unbindFilter(filter);
+        assertThat(route.invoke().getStatusCode()).isEqualTo(Status.CREATED);
+        assertThat(calls.get()).isEqualTo(10);
+
+        router.bindFilter(filter);
+        assertThat(route.invoke().getStatusCode()).isEqualTo(Status.CREATED);
+        assertThat(calls.get()).isEqualTo(11);
+        assertThat(matching.get()).isEqualTo(2);
+    }
+
     @Test
     public void testConcurrencyForFilters() throws InterruptedException {
         RequestRouter router = new RequestRouter();
@@ -577,6 +674,46 @@ public class RouterTest {
         assertThat(router.getFilters().size()).isEqualTo(num);
     }
 
+    @Test
+    public void testTimingsOfTheFiltersAndTheAction() throws Exception {
+        Controller controller = new DefaultController() {
+            @org.wisdom.api.annotations.Route(method = HttpMethod.GET, uri = "/timed")
+            public Result timed() throws InterruptedException {
+                Thread.sleep(50);
+                return ok();
+            }
+        };
+        router.bindController(controller);
+        router.bindFilter(new Filter() {
+            @Override
+            public Result call(Route route, RequestContext context) throws Exception {
+                Thread.sleep(20);
+                return context.proceed();
+            }
+
+            @Override
+            public Pattern uri() {
+                return Pattern.compile("/timed");
+            }
+
+            @Override
+            public int priority() {
+                return 0;
+            }
+        });
+
+        RequestTimings timings = new RequestTimings();
+        when(Context.CONTEXT.get().timings()).thenReturn(timings);
+        Route route = router.getRouteFor(HttpMethod.GET, "/timed");
+        assertThat(route.invoke().getStatusCode()).isEqualTo(Status.OK);
+
+        final long ms = TimeUnit.MILLISECONDS.toNanos(1);
+        assertThat(timings.get(RequestTimings.Phase.ACTION)).isGreaterThanOrEqualTo(50 * ms);
+        assertThat(timings.get(RequestTimings.Phase.FILTERS)).isGreaterThanOrEqualTo(20 * ms)
+                .isLessThan(timings.get(RequestTimings.Phase.ACTION));
+        assertThat(timings.get(RequestTimings.Phase.QUEUE)).isZero();
+    }
+
     private Filter createFakeFilter(int priority) {
         return new Filter() {
             @Override
@@ -0,0 +1,41 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that an action method consumes the request body as a stream. The body is not read in memory before
+ * invoking the action; instead the action reads it from {@link org.wisdom.api.http.Request#stream()} while it is
+ * being received. The client is slowed down (back-pressure) when the action does not read fast enough, so payloads
+ * larger than {@literal request.body.max.size} can be accepted with a constant memory footprint.
+ * <p/>
+ * As reading the stream blocks until data is received, the action is always executed by a worker thread. Multipart
+ * bodies are not decoded, and so file uploads and form attributes are not available.
+ * <p/>
+ * This annotation is retrieved and analyzed at runtime (by the engine).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamedBody {
+}
@@ -35,6 +35,23 @@ public interface Assets {
      */
     Asset assetAt(String path);
 
+    /**
+     * Gets the url to use to retrieve the asset identified by its file name. Unlike {@link Asset#getPath()},
+     * the returned url may contain a fingerprint of the asset content, so the asset can be cached by the browsers
+     * until the content changes.
+     *
+     * @param path the path
+     * @return the url of the asset or {@literal null} if not found. If there are several matches, return the url
+     * of the first one.
+     */
+    default String url(String path) {
+        Asset asset = assetAt(path);
+        if (asset == null) {
+            return null;
+        }
+        return asset.getPath();
+    }
+
     /**
      * @return the list of all assets currently available. This lookup is done on demand,
      * ignoring cached value. So it can be very expensive.
@@ -27,7 +27,7 @@ import java.io.InputStream;
 /**
  * Empty body.
  */
-public class NoHttpBody implements Renderable<Void> {
+public class NoHttpBody implements InMemoryRenderable<Void> {
 
     /**
      * The singleton instance.
@@ -56,6 +56,11 @@ public class NoHttpBody implements Renderable<Void> {
         return new ByteArrayInputStream(EMPTY);
     }
 
+    @Override
+    public byte[] renderToBytes(Context context, Result result) {
+        return EMPTY;
+    }
+
     @Override
     public long length() {
         return 0;
@@ -20,7 +20,7 @@
 package org.wisdom.api.bodies;
 
 import org.wisdom.api.http.Context;
-import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.InMemoryRenderable;
 import org.wisdom.api.http.RenderableException;
 import org.wisdom.api.http.Result;
 
@@ -32,7 +32,7 @@ import java.io.InputStream;
  *
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
-public class RenderableByteArray implements Renderable<byte[]> {
+public class RenderableByteArray implements InMemoryRenderable<byte[]> {
 
     private final byte[] bytes;
     private final boolean mustBeChunked;
@@ -73,6 +73,18 @@ public class RenderableByteArray implements Renderable<byte[]> {
         return new ByteArrayInputStream(bytes);
     }
 
+    /**
+     * Gets the wrapped array directly.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the wrapped array (not a copy)
+     */
+    @Override
+    public byte[] renderToBytes(Context context, Result result) {
+        return bytes;
+    }
+
     /**
      * @return as the length of the byte array
      */
@@ -32,7 +32,7 @@ import java.io.InputStream;
 /**
  * A renderable object taking an ObjectNode as parameter.
  */
-public class RenderableJson implements Renderable<JsonNode> {
+public class RenderableJson implements InMemoryRenderable<JsonNode> {
 
     private static ObjectWriter OBJECT_WRITER = new ObjectMapper().writer().withDefaultPrettyPrinter();
 
@@ -50,10 +50,15 @@ public class RenderableJson implements Renderable<JsonNode> {
 
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
+        return new ByteArrayInputStream(renderToBytes(context, result));
+    }
+
+    @Override
+    public byte[] renderToBytes(Context context, Result result) throws RenderableException {
         if (rendered == null) {
             render();
         }
-        return new ByteArrayInputStream(rendered);
+        return rendered;
     }
 
     /**
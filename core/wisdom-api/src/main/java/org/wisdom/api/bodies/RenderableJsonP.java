@@ -49,7 +49,7 @@ import java.io.InputStream;
  *   foo({...});
  * </pre>
  */
-public class RenderableJsonP implements Renderable<String> {
+public class RenderableJsonP implements InMemoryRenderable<String> {
 
     private static final ObjectWriter OBJECT_WRITER = new ObjectMapper().writer().withDefaultPrettyPrinter();
 
@@ -70,10 +70,15 @@ public class RenderableJsonP implements Renderable<String> {
 
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
+        return new ByteArrayInputStream(renderToBytes(context, result));
+    }
+
+    @Override
+    public byte[] renderToBytes(Context context, Result result) throws RenderableException {
         if (rendered == null) {
             _render();
         }
-        return new ByteArrayInputStream(rendered);
+        return rendered;
     }
 
     private void _render() throws RenderableException {
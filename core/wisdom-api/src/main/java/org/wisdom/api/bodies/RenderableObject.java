@@ -21,7 +21,7 @@ package org.wisdom.api.bodies;
 
 import com.google.common.base.Charsets;
 import org.wisdom.api.http.Context;
-import org.wisdom.api.http.Renderable;
+import org.wisdom.api.http.InMemoryRenderable;
 import org.wisdom.api.http.RenderableException;
 import org.wisdom.api.http.Result;
 
@@ -31,10 +31,10 @@ import java.io.InputStream;
 /**
  * Render any object, but it requires serialization.
  */
-public class RenderableObject implements Renderable<Object> {
+public class RenderableObject implements InMemoryRenderable<Object> {
 
     private final Object object;
-    private String serialized;
+    private byte[] serialized;
 
     public RenderableObject(Object o) {
         this.object = o;
@@ -42,14 +42,24 @@ public class RenderableObject implements Renderable<Object> {
 
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
+        return new ByteArrayInputStream(renderToBytes(context, result));
+    }
+
+    @Override
+    public byte[] renderToBytes(Context context, Result result) throws RenderableException {
         if (serialized == null) {
             throw new RenderableException("Serialization required before rendering");
         }
-        return new ByteArrayInputStream(serialized.getBytes(Charsets.UTF_8));
+        return serialized;
     }
 
     @Override
     public void setSerializedForm(String serialized) {
+        this.serialized = serialized == null ? null : serialized.getBytes(Charsets.UTF_8);
+    }
+
+    @Override
+    public void setSerializedForm(byte[] serialized) {
         this.serialized = serialized;
     }
 
@@ -31,7 +31,7 @@ import java.io.StringWriter;
  * HTML, plain text... So the mime-type should be specified. Notice that if the mime-type of the content is not
  * specified, {@literal text/html} is used.
  */
-public class RenderableString implements Renderable<String> {
+public class RenderableString implements InMemoryRenderable<String> {
 
     /**
      * The rendered content.
@@ -126,6 +126,19 @@ public class RenderableString implements Renderable<String> {
      */
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
+        return new ByteArrayInputStream(renderToBytes(context, result));
+    }
+
+    /**
+     * Retrieves the content encoded using the charset of the given result. If the result has no charset,
+     * {@literal UTF-8} is used and set on the result.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the encoded content.
+     */
+    @Override
+    public byte[] renderToBytes(Context context, Result result) {
         byte[] bytes;
 
         // We have a result, charset have to be provided
@@ -140,7 +153,7 @@ public class RenderableString implements Renderable<String> {
             bytes = rendered.getBytes(Charsets.UTF_8);
         }
 
-        return new ByteArrayInputStream(bytes);
+        return bytes;
     }
 
     /**
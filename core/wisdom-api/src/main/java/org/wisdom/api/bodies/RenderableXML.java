@@ -37,7 +37,7 @@ import java.io.StringWriter;
 /**
  * A renderable object taking an Document as parameter.
  */
-public class RenderableXML implements Renderable<Document> {
+public class RenderableXML implements InMemoryRenderable<Document> {
 
     private final Document document;
     private byte[] rendered;
@@ -52,10 +52,15 @@ public class RenderableXML implements Renderable<Document> {
 
     @Override
     public InputStream render(Context context, Result result) throws RenderableException {
+        return new ByteArrayInputStream(renderToBytes(context, result));
+    }
+
+    @Override
+    public byte[] renderToBytes(Context context, Result result) throws RenderableException {
         if (rendered == null) {
             render();
         }
-        return new ByteArrayInputStream(rendered);
+        return rendered;
     }
 
     private void render() throws RenderableException {
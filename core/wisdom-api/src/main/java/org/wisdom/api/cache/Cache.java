@@ -21,8 +21,19 @@ package org.wisdom.api.cache;
 
 import org.joda.time.Duration;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
 /**
  * Interface of the case service.
+ * <p>
+ * Besides the basic operations, the cache provides bulk operations, computation of missing values and asynchronous
+ * variants. Their default implementations rely on the basic operations (the asynchronous variants complete
+ * synchronously). The cache can also be split into named regions, isolating unrelated data sets.
  */
 public interface Cache {
 
@@ -62,4 +73,139 @@ public interface Cache {
      * @return {@literal true} if the value was effectively removed form the cache, {@literal false} otherwise.
      */
     public boolean remove(String key);
+
+    /**
+     * Gets the region having the given name. The entries of a region are isolated from the other regions (and from
+     * the default region, being this cache). Implementations should store each region separately, so they do not
+     * evict each other entries. The default implementation returns a view over this cache prefixing the keys with
+     * the region name, so the regions share the storage of this cache.
+     *
+     * @param name the name of the region
+     * @return the region
+     */
+    default Cache region(String name) {
+        return new PrefixedRegion(this, name);
+    }
+
+    /**
+     * Retrieves several values from the cache.
+     *
+     * @param keys the keys
+     * @param <T>  the expected type of the values
+     * @return the map containing the cached values by key, keys not cached are not in the map
+     */
+    default <T> Map<String, T> getAll(Collection<String> keys) {
+        Map<String, T> values = new HashMap<>();
+        for (String key : keys) {
+            T value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Sets several values into the cache.
+     *
+     * @param values     the values by key
+     * @param expiration Expiration time.
+     * @param <T>        the type of the values.
+     */
+    default <T> void setAll(Map<String, ? extends T> values, Duration expiration) {
+        for (Map.Entry<String, ? extends T> entry : values.entrySet()) {
+            set(entry.getKey(), entry.getValue(), expiration);
+        }
+    }
+
+    /**
+     * Removes several values from the cache.
+     *
+     * @param keys the keys
+     */
+    default void removeAll(Collection<String> keys) {
+        for (String key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Retrieves a value from the cache, computing and caching it if not cached. Implementations should ensure that
+     * concurrent calls for the same key invoke the loader only once, the other callers waiting for its result. The
+     * default implementation does not.
+     *
+     * @param key        Item key.
+     * @param expiration Expiration time of the computed value.
+     * @param loader     the function computing the value, if it returns {@literal null} nothing is cached
+     * @param <T>        the type of the value.
+     * @return the cached or computed value
+     */
+    default <T> T getOrCompute(String key, Duration expiration, Function<String, ? extends T> loader) {
+        T value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                set(key, value, expiration);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves a value from the cache asynchronously.
+     *
+     * @param key Item key.
+     * @param <T> the expected type of result.
+     * @return a stage completed with the cached value, or {@literal null} if not cached.
+     */
+    default <T> CompletionStage<T> getAsync(String key) {
+        return CompletableFuture.completedFuture(get(key));
+    }
+
+    /**
+     * Sets a value into the cache asynchronously.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time.
+     * @param <T>        the type of the value.
+     * @return a stage completed once the value is stored
+     */
+    default <T> CompletionStage<Void> setAsync(String key, T value, Duration expiration) {
+        set(key, value, expiration);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Retrieves a value from the cache, computing it asynchronously if not cached. Implementations should ensure
+     * that concurrent calls for the same key invoke the loader only once, the other callers receiving its result.
+     * The default implementation does not.
+     *
+     * @param key        Item key.
+     * @param expiration Expiration time of the computed value.
+     * @param loader     the function computing the value, if the value is {@literal null} nothing is cached
+     * @param <T>        the type of the value.
+     * @return a stage completed with the cached or computed value
+     */
+    default <T> CompletionStage<T> getOrComputeAsync(String key, Duration expiration,
+                                                     Function<String, ? extends CompletionStage<? extends T>> loader) {
+        T value = get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return loader.apply(key).thenApply(computed -> {
+            if (computed != null) {
+                set(key, computed, expiration);
+            }
+            return computed;
+        });
+    }
+
+    /**
+     * @return a snapshot of the statistics of the cache, {@literal null} if the implementation does not collect
+     * statistics
+     */
+    default CacheStatistics statistics() {
+        return null;
+    }
 }
@@ -0,0 +1,91 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+/**
+ * A snapshot of the statistics of a {@link Cache} (or of a region).
+ */
+public final class CacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param hits      the number of lookups having found a value
+     * @param misses    the number of lookups not having found a value
+     * @param evictions the number of entries evicted to free space
+     * @param size      the current number of entries
+     */
+    public CacheStatistics(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * @return the number of lookups having found a value
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups not having found a value
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of entries evicted to free space (expired entries are not counted)
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the current number of entries
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return the ratio of lookups having found a value, {@literal 0} if there were no lookups
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        if (lookups == 0) {
+            return 0;
+        }
+        return (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", size=" + size + "}";
+    }
+}
@@ -30,6 +30,10 @@ import java.lang.annotation.Target;
  * Mark an action to be cached on server side using the Cache Service.
  * So the result of the action is stored in the cache service for the specified time. All requests on this action
  * reuse this stored result (until it is invalidated).
+ * <p>
+ * When the result sets the {@literal Vary} header, or when its content type is negotiated from the {@literal
+ * Accept} header, one result is cached per variant. Concurrent requests missing the cache wait for a single
+ * invocation of the action instead of invoking it themselves.
  */
 @Interception
 @Target({ElementType.TYPE, ElementType.METHOD})
@@ -47,4 +51,10 @@ public @interface Cached {
      */
     int duration() default 0;
 
+    /**
+     * The time (in second) during which an expired result is still returned to the requests arriving while another
+     * request refreshes it. Defaults to 0, meaning that expired results are never returned.
+     */
+    int staleWhileRevalidate() default 0;
+
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import org.wisdom.api.bodies.RenderableByteArray;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.RequestHeader;
+import org.wisdom.api.http.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A fully rendered response, storable in a {@link Cache}. It holds the status, the headers and the serialized body,
+ * and so serving it costs neither serialization nor rendering. Unless disabled by the result, the body is also
+ * stored gzipped, and served as is to clients accepting the {@literal gzip} encoding.
+ * <p>
+ * Instances are immutable and {@link java.io.Serializable}, so can be stored off-heap or on disk by cache
+ * implementations. Cookies are not part of the response, results setting cookies must not be cached.
+ */
+public final class CachedResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Bodies smaller than this length (in bytes) are not gzipped.
+     */
+    static final int GZIP_MIN_LENGTH = 256;
+
+    private static final String GZIP = "gzip";
+
+    private final int status;
+    private final HashMap<String, String> headers;
+    private final byte[] body;
+    private final byte[] gzipped;
+
+    /**
+     * Creates a cached response from the given result and rendered body.
+     *
+     * @param result   the result, its headers and its content type are copied, its cookies are ignored
+     * @param body     the rendered body, the array is not copied and must not be modified
+     * @param mimetype the mime type of the body, used if the result does not set the content type, may be
+     *                 {@literal null}
+     */
+    public CachedResponse(Result result, byte[] body, String mimetype) {
+        this.status = result.getStatusCode();
+        this.body = body;
+        this.headers = new HashMap<>(result.getHeaders());
+        // The length is computed when the response is written, and depends on the encoding.
+        this.headers.remove(HeaderNames.CONTENT_LENGTH);
+        String contentType = result.getFullContentType();
+        if (contentType == null) {
+            contentType = mimetype;
+        }
+        if (contentType != null) {
+            this.headers.put(HeaderNames.CONTENT_TYPE, contentType);
+        }
+        if (mustBeGzipped(result, body)) {
+            byte[] compressed = gzip(body);
+            this.gzipped = compressed.length < body.length ? compressed : null;
+        } else {
+            this.gzipped = null;
+        }
+    }
+
+    private static boolean mustBeGzipped(Result result, byte[] body) {
+        return body.length >= GZIP_MIN_LENGTH
+                && result.getHeaders().get(HeaderNames.CONTENT_ENCODING) == null
+                && !"true".equals(result.getHeaders().get(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER));
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // Cannot happen with in-memory streams.
+            throw new IllegalStateException("Cannot compress the response", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Checks whether the given {@literal Accept-Encoding} header accepts {@literal gzip}.
+     *
+     * @param acceptEncoding the value of the header, may be {@literal null}
+     * @return {@literal true} if {@literal gzip} is accepted
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        return RequestHeader.acceptsEncoding(acceptEncoding, GZIP);
+    }
+
+    /**
+     * Creates a new result serving this response. The body is not copied.
+     *
+     * @param gzip whether or not the client accepts the {@literal gzip} encoding
+     * @return a new result, serving the gzipped body if {@code gzip} is {@literal true} and if the body was
+     * compressed
+     */
+    public Result toResult(boolean gzip) {
+        Result result = new Result(status);
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            result.with(header.getKey(), header.getValue());
+        }
+        if (gzipped == null) {
+            return result.render(new RenderableByteArray(body, false));
+        }
+        String vary = headers.get(HeaderNames.VARY);
+        result.with(HeaderNames.VARY, vary == null ? HeaderNames.ACCEPT_ENCODING
+                : vary + ", " + HeaderNames.ACCEPT_ENCODING);
+        if (gzip) {
+            // Already compressed, so the server must not compress it again.
+            return result.with(HeaderNames.CONTENT_ENCODING, GZIP).withoutCompression()
+                    .render(new RenderableByteArray(gzipped, false));
+        }
+        return result.render(new RenderableByteArray(body, false));
+    }
+
+    /**
+     * @return the status code
+     */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * @return the headers, including the content type
+     */
+    public Map<String, String> headers() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * @return the body, must not be modified
+     */
+    public byte[] body() {
+        return body;
+    }
+
+    /**
+     * @return the gzipped body, {@literal null} if the body was not compressed. The array must not be modified
+     */
+    public byte[] gzippedBody() {
+        return gzipped;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import org.joda.time.Duration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * The default implementation of {@link Cache#region(String)}: a view over a cache prefixing the keys with the region
+ * name. The entries of the region are isolated from the other regions, but share the storage (and so the eviction)
+ * of the underlying cache.
+ */
+final class PrefixedRegion implements Cache {
+
+    private final Cache cache;
+
+    private final String prefix;
+
+    /**
+     * Creates the region.
+     *
+     * @param cache the underlying cache
+     * @param name  the region name
+     */
+    PrefixedRegion(Cache cache, String name) {
+        this.cache = cache;
+        this.prefix = name + ":";
+    }
+
+    private String key(String key) {
+        return prefix + key;
+    }
+
+    @Override
+    public <T> void set(String key, T value, int expiration) {
+        cache.set(key(key), value, expiration);
+    }
+
+    @Override
+    public <T> void set(String key, T value, Duration expiration) {
+        cache.set(key(key), value, expiration);
+    }
+
+    @Override
+    public <T> T get(String key) {
+        return cache.get(key(key));
+    }
+
+    @Override
+    public boolean remove(String key) {
+        return cache.remove(key(key));
+    }
+
+    @Override
+    public <T> Map<String, T> getAll(Collection<String> keys) {
+        Map<String, String> prefixed = new HashMap<>();
+        for (String key : keys) {
+            prefixed.put(key(key), key);
+        }
+        Map<String, T> values = new HashMap<>();
+        for (Map.Entry<String, T> entry : cache.<T>getAll(prefixed.keySet()).entrySet()) {
+            values.put(prefixed.get(entry.getKey()), entry.getValue());
+        }
+        return values;
+    }
+
+    @Override
+    public <T> void setAll(Map<String, ? extends T> values, Duration expiration) {
+        Map<String, T> prefixed = new HashMap<>();
+        for (Map.Entry<String, ? extends T> entry : values.entrySet()) {
+            prefixed.put(key(entry.getKey()), entry.getValue());
+        }
+        cache.setAll(prefixed, expiration);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        for (String key : keys) {
+            cache.remove(key(key));
+        }
+    }
+
+    @Override
+    public <T> T getOrCompute(String key, Duration expiration, Function<String, ? extends T> loader) {
+        return cache.getOrCompute(key(key), expiration, k -> loader.apply(key));
+    }
+
+    @Override
+    public <T> CompletionStage<T> getAsync(String key) {
+        return cache.getAsync(key(key));
+    }
+
+    @Override
+    public <T> CompletionStage<Void> setAsync(String key, T value, Duration expiration) {
+        return cache.setAsync(key(key), value, expiration);
+    }
+
+    @Override
+    public <T> CompletionStage<T> getOrComputeAsync(String key, Duration expiration,
+                                                    Function<String, ? extends CompletionStage<? extends T>> loader) {
+        return cache.getOrComputeAsync(key(key), expiration, k -> loader.apply(key));
+    }
+}
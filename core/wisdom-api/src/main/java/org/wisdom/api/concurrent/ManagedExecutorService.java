@@ -26,6 +26,8 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Executor Service exposed as a service to execute tasks. This interface
@@ -52,7 +54,13 @@ public interface ManagedExecutorService extends ListeningExecutorService {
      */
     enum ThreadType {
         POOLED,
-        DAEMON
+        DAEMON,
+        /**
+         * Each task runs on its own virtual thread (platform daemon thread on JVMs not supporting virtual threads),
+         * the number of tasks running concurrently being limited. Only supported by executors, schedulers use
+         * pooled threads instead.
+         */
+        VIRTUAL
     }
 
     /**
@@ -188,13 +196,17 @@ public interface ManagedExecutorService extends ListeningExecutorService {
 
     /**
      * Represents execution statistics of a thread pool.
+     * <p>
+     * Recording a value does not lock: the count and the sum are kept in {@link LongAdder}s and the extrema in
+     * {@link LongAccumulator}s, so tasks completing concurrently do not contend. As a consequence, the values read
+     * while tasks are completing may come from slightly different instants.
      */
     public static class ExecutionStatistics {
 
-        private long count;
-        private long sum;
-        private long min = Long.MAX_VALUE;
-        private long max = Long.MIN_VALUE;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
 
         /**
          * Records a new {@code int} value into the statistics.
@@ -210,11 +222,11 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @param value the input value
          */
-        public synchronized void accept(long value) {
-            ++count;
-            sum += value;
-            min = Math.min(min, value);
-            max = Math.max(max, value);
+        public void accept(long value) {
+            count.increment();
+            sum.add(value);
+            min.accumulate(value);
+            max.accumulate(value);
         }
 
         /**
@@ -224,11 +236,11 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * @param other another {@code ExecutionStatistics}
          * @throws NullPointerException if {@code other} is null
          */
-        public synchronized void combine(final ExecutionStatistics other) {
-            count += other.getCount();
-            sum += other.getTotalExecutionTime();
-            min = Math.min(min, other.getMinimumExecutionTime());
-            max = Math.max(max, other.getMaximumExecutionTime());
+        public void combine(final ExecutionStatistics other) {
+            count.add(other.getCount());
+            sum.add(other.getTotalExecutionTime());
+            min.accumulate(other.getMinimumExecutionTime());
+            max.accumulate(other.getMaximumExecutionTime());
         }
 
         /**
@@ -236,7 +248,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the copied object
          */
-        public synchronized ExecutionStatistics copy() {
+        public ExecutionStatistics copy() {
             ExecutionStatistics statistics = new ExecutionStatistics();
             statistics.combine(this);
             return statistics;
@@ -247,8 +259,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the count of values
          */
-        public final synchronized long getCount() {
-            return count;
+        public final long getCount() {
+            return count.sum();
         }
 
         /**
@@ -256,7 +268,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the number of tasks
          */
-        public final synchronized long getNumberOfTasks() {
+        public final long getNumberOfTasks() {
             return getCount();
         }
 
@@ -266,8 +278,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the sum of values, or zero if none
          */
-        public final synchronized long getTotalExecutionTime() {
-            return sum;
+        public final long getTotalExecutionTime() {
+            return sum.sum();
         }
 
         /**
@@ -276,8 +288,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the minimum value, or {@code Long.MAX_VALUE} if none
          */
-        public final synchronized long getMinimumExecutionTime() {
-            return min;
+        public final long getMinimumExecutionTime() {
+            return min.get();
         }
 
         /**
@@ -286,8 +298,8 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return the maximum value, or {@code Long.MIN_VALUE} if none
          */
-        public final synchronized long getMaximumExecutionTime() {
-            return max;
+        public final long getMaximumExecutionTime() {
+            return max.get();
         }
 
         /**
@@ -296,8 +308,9 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          *
          * @return The arithmetic mean of values, or zero if none
          */
-        public final synchronized double getAverageExecutionTime() {
-            return getCount() > 0 ? (double) getTotalExecutionTime() / getNumberOfTasks() : 0.0d;
+        public final double getAverageExecutionTime() {
+            final long tasks = getCount();
+            return tasks > 0 ? (double) getTotalExecutionTime() / tasks : 0.0d;
         }
 
         @Override
@@ -308,7 +321,7 @@ public interface ManagedExecutorService extends ListeningExecutorService {
          * debugging. The exact presentation format is unspecified and may vary
          * between implementations and versions.
          */
-        public synchronized String toString() {
+        public String toString() {
             return String.format(
                     "%s{count=%d, sum=%d, min=%d, average=%f, max=%d}",
                     this.getClass().getSimpleName(),
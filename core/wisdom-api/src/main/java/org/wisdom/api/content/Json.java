@@ -19,6 +19,7 @@
  */
 package org.wisdom.api.content;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -49,6 +50,24 @@ public interface Json {
      */
     public JsonNode toJson(final Object data);
 
+    /**
+     * Writes the given object as UTF-8 encoded JSON, without building an intermediate json node or String.
+     * In addition to the default Jackson transformation, serializer dynamically added to the Json support are used.
+     * <p>
+     * The default implementation uses the mapper returned by {@link #mapper()}.
+     *
+     * @param data the data to transform to json
+     * @return the UTF-8 encoded json form of the given object
+     * @throws java.lang.RuntimeException if the object cannot be written
+     */
+    default byte[] toJsonBytes(final Object data) {
+        try {
+            return mapper().writeValueAsBytes(data);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Cannot write the JSON form of " + data, e);
+        }
+    }
+
     /**
      * Builds a new instance of the given class <em>clazz</em> from the given Json object.
      *
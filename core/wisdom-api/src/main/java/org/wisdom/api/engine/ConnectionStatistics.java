@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.engine;
+
+/**
+ * A snapshot of the statistics about the connections of a {@link WisdomEngine}. It lets you check that the clients
+ * use persistent connections, and so do not establish (and for HTTPS, handshake) a new connection per request.
+ */
+public final class ConnectionStatistics {
+
+    private final long requests;
+    private final long opened;
+    private final long active;
+    private final long closed;
+
+    /**
+     * Creates a new snapshot.
+     *
+     * @param requests the number of requests received
+     * @param opened   the number of connections opened by the clients
+     * @param active   the number of connections currently open
+     * @param closed   the number of connections closed by the server once the response has been sent
+     */
+    public ConnectionStatistics(long requests, long opened, long active, long closed) {
+        this.requests = requests;
+        this.opened = opened;
+        this.active = active;
+        this.closed = closed;
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of connections opened by the clients
+     */
+    public long getOpenedConnections() {
+        return opened;
+    }
+
+    /**
+     * @return the number of connections currently open
+     */
+    public long getActiveConnections() {
+        return active;
+    }
+
+    /**
+     * @return the number of connections closed by the server once the response has been sent
+     */
+    public long getClosedConnections() {
+        return closed;
+    }
+
+    /**
+     * @return the number of requests received on a connection that has already served a request
+     */
+    public long getReusedConnections() {
+        return Math.max(0, requests - opened);
+    }
+
+    /**
+     * @return the average number of requests served per connection, {@literal 0} if no connections have been opened
+     */
+    public double getRequestsPerConnection() {
+        if (opened == 0) {
+            return 0;
+        }
+        return (double) requests / opened;
+    }
+
+    /**
+     * Creates a snapshot summing the values of this snapshot and the given one.
+     *
+     * @param other the other snapshot, must not be {@literal null}
+     * @return the new snapshot
+     */
+    public ConnectionStatistics plus(ConnectionStatistics other) {
+        return new ConnectionStatistics(requests + other.requests, opened + other.opened,
+                active + other.active, closed + other.closed);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionStatistics{requests=" + requests + ", opened=" + opened + ", active=" + active
+                + ", closed=" + closed + "}";
+    }
+}
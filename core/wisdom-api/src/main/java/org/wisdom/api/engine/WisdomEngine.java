@@ -43,4 +43,12 @@ public interface WisdomEngine {
      */
     public int httpsPort();
 
+    /**
+     * @return a snapshot of the statistics about the connections of the engine, {@literal null} if the engine does
+     * not collect them
+     */
+    default ConnectionStatistics connectionStatistics() {
+        return null;
+    }
+
 }
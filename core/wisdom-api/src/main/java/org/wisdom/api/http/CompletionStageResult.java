@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An extension of result instructing the engine to send the result computed by a {@link CompletionStage}. Unlike
+ * {@link AsyncResult}, no thread is used while waiting for the completion: as soon as the stage completes, the
+ * response is written from the Vert.x context of the request (and not from the thread completing the stage), which
+ * makes this result the right choice for action methods waiting for non-blocking I/O (such as calls to remote
+ * services).
+ * <p>
+ * The computation is cancelled if the client closes the connection before the completion, or if the result is not
+ * available before the timeout. In the latter case, a {@literal 504 - GATEWAY TIMEOUT} result is returned.
+ */
+public class CompletionStageResult extends Result {
+
+    /**
+     * The stage computing the result.
+     */
+    private final CompletionStage<? extends Result> stage;
+
+    /**
+     * The timeout in milliseconds, {@literal 0} or negative to wait forever.
+     */
+    private final long timeout;
+
+    /**
+     * Creates a new result waiting until the given stage completes.
+     *
+     * @param stage the stage computing the result, must not be {@literal null}.
+     */
+    public CompletionStageResult(CompletionStage<? extends Result> stage) {
+        this(stage, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new result waiting at most the given time for the completion of the given stage.
+     *
+     * @param stage   the stage computing the result, must not be {@literal null}.
+     * @param timeout the timeout, {@literal 0} or negative to wait forever
+     * @param unit    the unit of the timeout
+     */
+    public CompletionStageResult(CompletionStage<? extends Result> stage, long timeout, TimeUnit unit) {
+        if (stage == null) {
+            throw new IllegalArgumentException("The completion stage must not be null");
+        }
+        this.stage = stage;
+        this.timeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * @return the stage computing the result.
+     */
+    public CompletionStage<? extends Result> stage() {
+        return stage;
+    }
+
+    /**
+     * @return the timeout in milliseconds, {@literal 0} or negative if there are no timeout.
+     */
+    public long timeout() {
+        return timeout;
+    }
+
+    /**
+     * Cancels the computation of the result. This method is called by the engine when the result is not needed
+     * anymore. It has no effect if the stage is already completed, or if it does not support cancellation.
+     */
+    public void cancel() {
+        try {
+            stage.toCompletableFuture().cancel(true);
+        } catch (UnsupportedOperationException e) { //NOSONAR
+            // The stage cannot be cancelled, just ignore its result.
+        }
+    }
+}
@@ -347,6 +347,16 @@ public interface Context {
      */
     void route(Route route);
 
+    /**
+     * Gets the timings of the current request. Timings are only recorded when at least one
+     * {@link RequestTimingListener} is available.
+     *
+     * @return the timings, {@literal null} if not recorded
+     */
+    default RequestTimings timings() {
+        return null;
+    }
+
     /**
      * Check if request is of type multipart. Important when you want to process
      * uploads for instance.
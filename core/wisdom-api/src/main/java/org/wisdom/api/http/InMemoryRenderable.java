@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+/**
+ * A {@link Renderable} keeping its rendered content in memory. Servers can retrieve the content as a byte array
+ * directly instead of reading the stream returned by {@link #render(Context, Result)}, avoiding intermediate copies.
+ *
+ * @param <T> the type of content.
+ */
+public interface InMemoryRenderable<T> extends Renderable<T> {
+
+    /**
+     * Retrieves the rendered content as a byte array. This method follows the same rules as
+     * {@link #render(Context, Result)}, and so may update the given result (to set the charset for instance).
+     * <p>
+     * The returned array may be shared with the renderable object and must not be modified.
+     *
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the rendered content
+     * @throws RenderableException if the content cannot be rendered
+     */
+    byte[] renderToBytes(Context context, Result result) throws RenderableException;
+}
@@ -19,6 +19,8 @@
  */
 package org.wisdom.api.http;
 
+import com.google.common.base.Charsets;
+
 import java.io.InputStream;
 
 /**
@@ -79,6 +81,19 @@ public interface Renderable<T> {
      */
     void setSerializedForm(String serialized);
 
+    /**
+     * Variant of {@link #setSerializedForm(String)} receiving the serialized form as UTF-8 encoded bytes. Serializers
+     * writing their output directly as bytes use this method to avoid building an intermediate String. The given
+     * array must not be modified once passed to this method.
+     * <p>
+     * The default implementation decodes the bytes and delegates to {@link #setSerializedForm(String)}.
+     *
+     * @param serialized the serialized form, encoded in UTF-8
+     */
+    default void setSerializedForm(byte[] serialized) {
+        setSerializedForm(new String(serialized, Charsets.UTF_8));
+    }
+
     /**
      * Checks whether the current renderable must be sent as chunk to the client. It's often the case for large
      * files, or content with unknown length.
@@ -19,6 +19,7 @@
  */
 package org.wisdom.api.http;
 
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
@@ -214,4 +215,15 @@ public abstract class Request extends RequestHeader {
      */
     public abstract Map<String, Object> data();
 
+    /**
+     * Gets the stream to read the request body, when the invoked action consumes the body as a stream (see
+     * {@link org.wisdom.api.annotations.StreamedBody}). Reading from this stream blocks until data is received from
+     * the client. In this mode, the body is not available as a String or byte array.
+     *
+     * @return the stream to read the body, {@literal null} if the body is not streamed.
+     */
+    public InputStream stream() {
+        return null;
+    }
+
 }
@@ -37,6 +37,11 @@ public abstract class RequestHeader {
      */
     private static final Pattern LANGUAGE_SEGMENT_PATTERN = Pattern.compile("([a-zA-Z]+(-[a-zA-Z]+)?(-[a-zA-Z]+)?)(;q=(.*))?");
 
+    /**
+     * Regex matching a `q` parameter with a {@literal 0} value, i.e. an encoding rejected by the client.
+     */
+    private static final Pattern ZERO_QUALITY_PATTERN = Pattern.compile("q\\s*=\\s*0(\\.0*)?");
+
     /**
      * @return the complete request URI, containing both path and query string.
      */
@@ -238,4 +243,40 @@ public abstract class RequestHeader {
         }
         return list.toArray(new Locale[list.size()]);
     }
+
+    /**
+     * Checks whether the given encoding is accepted according to the ACCEPT-ENCODING header value. An entry naming
+     * the encoding takes precedence over the `*` entry, and an entry with a {@literal 0} `q` value rejects the
+     * encoding.
+     *
+     * @param acceptEncoding the ACCEPT-ENCODING header value, may be {@literal null}
+     * @param encoding       the encoding, such as {@literal gzip}, must not be {@literal null}
+     * @return {@literal true} if the encoding is accepted
+     */
+    public static boolean acceptsEncoding(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String value : acceptEncoding.split(",")) {
+            String[] segments = value.split(";");
+            String name = segments[0].trim();
+            if (encoding.equalsIgnoreCase(name)) {
+                return isAccepted(segments);
+            }
+            if ("*".equals(name)) {
+                wildcard = isAccepted(segments);
+            }
+        }
+        return wildcard;
+    }
+
+    private static boolean isAccepted(String[] segments) {
+        for (int i = 1; i < segments.length; i++) {
+            if (ZERO_QUALITY_PATTERN.matcher(segments[i].trim()).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
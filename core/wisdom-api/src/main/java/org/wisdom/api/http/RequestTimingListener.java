@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import org.wisdom.api.router.Route;
+
+/**
+ * Services implementing this interface are notified of the timings of each request once the response has been
+ * written. Recording the timings has a cost, so the engine only records them when at least one listener is
+ * available.
+ * <p>
+ * Listeners are called from the engine threads, they must return quickly and must not block.
+ */
+public interface RequestTimingListener {
+
+    /**
+     * A request has been handled.
+     *
+     * @param route   the route that has handled the request, may be unbound (the url of unbound routes is the
+     *                requested path, not a template)
+     * @param status  the status of the response
+     * @param timings the time spent in each phase
+     */
+    void onRequestCompleted(Route route, int status, RequestTimings timings);
+}
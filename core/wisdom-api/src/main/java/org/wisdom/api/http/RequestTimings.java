@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+/**
+ * The time spent in each phase of the processing of a request. The engine attaches an instance to the context of
+ * each request (see {@link Context#timings()}) when at least one {@link RequestTimingListener} is available. The
+ * engine and the router record the duration of the phases they handle, and the listeners are notified once the
+ * response has been written.
+ * <p>
+ * The phases are recorded one after the other, possibly from different threads, so instances are not thread-safe.
+ */
+public final class RequestTimings {
+
+    /**
+     * The phases of the processing of a request.
+     */
+    public enum Phase {
+        /**
+         * From the dispatch of the request (once read) to the invocation of the route, including the time spent
+         * waiting for a worker thread.
+         */
+        QUEUE,
+        /**
+         * The time spent in the filters and interceptors, before and after the action method.
+         */
+        FILTERS,
+        /**
+         * The time spent in the action method, including the computation of its parameters and,
+         * for asynchronous results, the computation of the result.
+         */
+        ACTION,
+        /**
+         * The serialization and rendering of the result.
+         */
+        SERIALIZATION,
+        /**
+         * The writing of the response, until the last byte is handed to the connection.
+         */
+        WRITE
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] durations = new long[PHASES.length];
+
+    /**
+     * The phase started by {@link #begin(Phase)} and not ended yet, {@literal null} if none.
+     */
+    private Phase current;
+
+    /**
+     * The beginning of the current phase.
+     */
+    private long start;
+
+    /**
+     * Adds the given duration to the given phase.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds
+     */
+    public void add(Phase phase, long nanos) {
+        durations[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Adds the time elapsed since the given instant to the given phase.
+     *
+     * @param phase the phase
+     * @param start the beginning of the phase, as given by {@link System#nanoTime()}
+     */
+    public void addSince(Phase phase, long start) {
+        add(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Starts measuring the given phase. The phase started previously, if any, is ended.
+     *
+     * @param phase the phase
+     */
+    public void begin(Phase phase) {
+        final long now = System.nanoTime();
+        if (current != null) {
+            add(current, now - start);
+        }
+        current = phase;
+        start = now;
+    }
+
+    /**
+     * Ends the phase started by {@link #begin(Phase)}. Does nothing if there are no started phase.
+     */
+    public void end() {
+        if (current != null) {
+            add(current, System.nanoTime() - start);
+            current = null;
+        }
+    }
+
+    /**
+     * @param phase the phase
+     * @return the time spent in the given phase in nanoseconds
+     */
+    public long get(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * @return the time spent in all the phases in nanoseconds
+     */
+    public long total() {
+        long total = 0;
+        for (long duration : durations) {
+            total += duration;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : PHASES) {
+            if (builder.length() != 0) {
+                builder.append(", ");
+            }
+            builder.append(phase.name().toLowerCase()).append('=').append(durations[phase.ordinal()]).append("ns");
+        }
+        return builder.toString();
+    }
+}
@@ -28,6 +28,8 @@ import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -491,4 +493,28 @@ public abstract class Results {
         return new AsyncResult(task);
     }
 
+    /**
+     * Creates a new result sent once the given stage completes. Unlike {@link #async(Callable)}, no thread is
+     * used while waiting for the completion.
+     *
+     * @param stage the stage computing the result.
+     * @return the result.
+     */
+    public static CompletionStageResult async(CompletionStage<? extends Result> stage) {
+        return new CompletionStageResult(stage);
+    }
+
+    /**
+     * Creates a new result sent once the given stage completes. If the stage does not complete within the given
+     * time, the computation is cancelled and a {@literal 504 - GATEWAY TIMEOUT} result is sent.
+     *
+     * @param stage   the stage computing the result.
+     * @param timeout the timeout
+     * @param unit    the unit of the timeout
+     * @return the result.
+     */
+    public static CompletionStageResult async(CompletionStage<? extends Result> stage, long timeout, TimeUnit unit) {
+        return new CompletionStageResult(stage, timeout, unit);
+    }
+
 }
@@ -25,6 +25,9 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.net.MediaType;
 import org.wisdom.api.Controller;
+import org.wisdom.api.annotations.Blocking;
+import org.wisdom.api.annotations.NonBlocking;
+import org.wisdom.api.annotations.StreamedBody;
 import org.wisdom.api.http.*;
 import org.wisdom.api.router.parameters.ActionParameter;
 
@@ -95,6 +98,24 @@ public class Route {
      */
     protected int unboundStatus;
 
+    private static final int DISPATCH_UNRESOLVED = 0;
+    private static final int DISPATCH_BLOCKING = 1;
+    private static final int DISPATCH_NON_BLOCKING = 2;
+    private static final int DISPATCH_UNSPECIFIED = 3;
+
+    /**
+     * The dispatch requested by the {@link Blocking} and {@link NonBlocking} annotations, resolved on first use.
+     * One of {@link #DISPATCH_UNRESOLVED}, {@link #DISPATCH_BLOCKING}, {@link #DISPATCH_NON_BLOCKING} or
+     * {@link #DISPATCH_UNSPECIFIED}.
+     */
+    private volatile int dispatch = DISPATCH_UNRESOLVED;
+
+    /**
+     * Whether the action method is annotated with {@link StreamedBody}, resolved on first use ({@literal null} until
+     * then).
+     */
+    private volatile Boolean streamedBody;
+
     /**
      * Constructor used in case of delegation.
      */
@@ -435,6 +456,63 @@ public class Route {
         return controllerMethod == null;
     }
 
+    /**
+     * Checks whether the action method is annotated with {@link Blocking} or {@link NonBlocking}. Annotations on the
+     * method win over annotations on the controller class. The annotations are looked up once, the first time this
+     * method is called.
+     *
+     * @return {@link Boolean#TRUE} if the action is blocking, {@link Boolean#FALSE} if it is non-blocking,
+     * {@literal null} if not specified (or if the route is unbound)
+     */
+    public Boolean isBlocking() {
+        int current = dispatch;
+        if (current == DISPATCH_UNRESOLVED) {
+            current = resolveDispatch();
+            dispatch = current;
+        }
+        if (current == DISPATCH_UNSPECIFIED) {
+            return null;
+        }
+        return current == DISPATCH_BLOCKING;
+    }
+
+    /**
+     * Checks whether the action method is annotated with {@link StreamedBody}. The annotation is looked up once, the
+     * first time this method is called.
+     *
+     * @return {@literal true} if the action reads the request body as a stream, {@literal false} otherwise (or if the
+     * route is unbound)
+     */
+    public boolean hasStreamedBody() {
+        Boolean current = streamedBody;
+        if (current == null) {
+            current = !isUnbound() && getControllerMethod().isAnnotationPresent(StreamedBody.class);
+            streamedBody = current;
+        }
+        return current;
+    }
+
+    private int resolveDispatch() {
+        if (isUnbound()) {
+            return DISPATCH_UNSPECIFIED;
+        }
+        final Method method = getControllerMethod();
+        if (method.isAnnotationPresent(NonBlocking.class)) {
+            return DISPATCH_NON_BLOCKING;
+        }
+        if (method.isAnnotationPresent(Blocking.class)) {
+            return DISPATCH_BLOCKING;
+        }
+        final Class<?> clazz = getControllerClass();
+        if (clazz.isAnnotationPresent(NonBlocking.class)) {
+            return DISPATCH_NON_BLOCKING;
+        }
+        if (clazz.isAnnotationPresent(Blocking.class)) {
+            return DISPATCH_BLOCKING;
+        }
+        return DISPATCH_UNSPECIFIED;
+    }
+
     /**
      * Gets the HTTP Status to return for this unbound route. This method is meaningful only if the route is unbound
      * (and so cannot be served).
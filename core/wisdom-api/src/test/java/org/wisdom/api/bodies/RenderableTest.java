@@ -250,6 +250,11 @@ public class RenderableTest {
         body.setSerializedForm("a,b,c");
         byte[] bytes = IOUtils.toByteArray(body.render(null, null));
         assertThat(new String(bytes, Charsets.UTF_8)).isEqualTo("a,b,c");
+
+        // Serialized form given as bytes
+        byte[] form = "[\"a\",\"b\",\"c\"]".getBytes(Charsets.UTF_8);
+        body.setSerializedForm(form);
+        assertThat(body.renderToBytes(null, null)).isSameAs(form);
     }
 
 }
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+import org.wisdom.api.bodies.RenderableByteArray;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Results;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the {@link CachedResponse}.
+ */
+public class CachedResponseTest {
+
+    @Test
+    public void testSmallResponse() {
+        Result result = Results.ok("hello").with("X-Custom", "value").with(HeaderNames.CONTENT_LENGTH, "5");
+        CachedResponse response = new CachedResponse(result, "hello".getBytes(Charsets.UTF_8), null);
+        assertThat(response.status()).isEqualTo(200);
+        assertThat(response.gzippedBody()).isNull();
+        assertThat(response.headers()).containsEntry("X-Custom", "value")
+                .containsEntry(HeaderNames.CONTENT_TYPE, result.getFullContentType())
+                .doesNotContainKey(HeaderNames.CONTENT_LENGTH);
+
+        Result copy = response.toResult(true);
+        assertThat(copy.getStatusCode()).isEqualTo(200);
+        assertThat(copy.getHeaders()).containsEntry("X-Custom", "value")
+                .doesNotContainKey(HeaderNames.CONTENT_ENCODING)
+                .doesNotContainKey(HeaderNames.VARY);
+        assertThat(copy.getFullContentType()).isEqualTo(result.getFullContentType());
+        assertThat(copy.getRenderable()).isInstanceOf(RenderableByteArray.class);
+        assertThat(((RenderableByteArray) copy.getRenderable()).content()).isSameAs(response.body());
+    }
+
+    @Test
+    public void testGzippedResponse() throws IOException {
+        String content = Strings.repeat("hello wisdom ", 100);
+        Result result = Results.ok(content).with(HeaderNames.VARY, HeaderNames.ACCEPT_LANGUAGE);
+        CachedResponse response = new CachedResponse(result, content.getBytes(Charsets.UTF_8), null);
+        assertThat(response.gzippedBody()).isNotNull();
+        assertThat(response.gzippedBody().length).isLessThan(response.body().length);
+
+        Result gzipped = response.toResult(true);
+        assertThat(gzipped.getHeaders())
+                .containsEntry(HeaderNames.CONTENT_ENCODING, "gzip")
+                .containsEntry(HeaderNames.VARY, HeaderNames.ACCEPT_LANGUAGE + ", " + HeaderNames.ACCEPT_ENCODING)
+                .containsEntry(HeaderNames.X_WISDOM_DISABLED_ENCODING_HEADER, "true");
+        byte[] bytes = ((RenderableByteArray) gzipped.getRenderable()).content();
+        assertThat(new String(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes))),
+                Charsets.UTF_8)).isEqualTo(content);
+
+        Result plain = response.toResult(false);
+        assertThat(plain.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_ENCODING)
+                .containsEntry(HeaderNames.VARY, HeaderNames.ACCEPT_LANGUAGE + ", " + HeaderNames.ACCEPT_ENCODING);
+        assertThat(((RenderableByteArray) plain.getRenderable()).content()).isSameAs(response.body());
+    }
+
+    @Test
+    public void testThatCompressionCanBeDisabled() {
+        String content = Strings.repeat("hello wisdom ", 100);
+        Result result = Results.ok(content).withoutCompression();
+        CachedResponse response = new CachedResponse(result, content.getBytes(Charsets.UTF_8), null);
+        assertThat(response.gzippedBody()).isNull();
+    }
+
+    @Test
+    public void testThatTheMimeTypeIsUsedWhenTheContentTypeIsNotSet() {
+        Result result = new Result(200);
+        CachedResponse response = new CachedResponse(result, new byte[0], MimeTypes.BINARY);
+        assertThat(response.headers()).containsEntry(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        String content = Strings.repeat("hello wisdom ", 100);
+        CachedResponse response = new CachedResponse(Results.ok(content), content.getBytes(Charsets.UTF_8), null);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(response);
+        }
+        CachedResponse copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (CachedResponse) in.readObject();
+        }
+        assertThat(copy.status()).isEqualTo(response.status());
+        assertThat(copy.headers()).isEqualTo(response.headers());
+        assertThat(copy.body()).isEqualTo(response.body());
+        assertThat(copy.gzippedBody()).isEqualTo(response.gzippedBody());
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertThat(CachedResponse.acceptsGzip(null)).isFalse();
+        assertThat(CachedResponse.acceptsGzip("gzip")).isTrue();
+        assertThat(CachedResponse.acceptsGzip("deflate, gzip;q=0.8")).isTrue();
+        assertThat(CachedResponse.acceptsGzip("GZIP")).isTrue();
+        assertThat(CachedResponse.acceptsGzip("*")).isTrue();
+        assertThat(CachedResponse.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(CachedResponse.acceptsGzip("identity")).isFalse();
+    }
+}
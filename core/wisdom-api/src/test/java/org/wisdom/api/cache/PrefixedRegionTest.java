@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.Duration;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the default implementation of {@link Cache#region(String)}.
+ */
+public class PrefixedRegionTest {
+
+    /**
+     * A cache implementing only the basic operations.
+     */
+    private static class MapCache implements Cache {
+
+        private final Map<String, Object> map = new ConcurrentHashMap<>();
+
+        @Override
+        public <T> void set(String key, T value, int expiration) {
+            map.put(key, value);
+        }
+
+        @Override
+        public <T> void set(String key, T value, Duration expiration) {
+            map.put(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(String key) {
+            return (T) map.get(key);
+        }
+
+        @Override
+        public boolean remove(String key) {
+            return map.remove(key) != null;
+        }
+    }
+
+    private final MapCache cache = new MapCache();
+
+    @Test
+    public void testThatRegionsAreIsolated() {
+        Cache users = cache.region("users");
+        Cache products = cache.region("products");
+
+        cache.set("1", "default", 0);
+        users.set("1", "user", 0);
+        products.set("1", "product", Duration.standardMinutes(1));
+
+        assertThat(cache.<String>get("1")).isEqualTo("default");
+        assertThat(users.<String>get("1")).isEqualTo("user");
+        assertThat(products.<String>get("1")).isEqualTo("product");
+        assertThat(cache.region("users").<String>get("1")).isEqualTo("user");
+
+        assertThat(users.remove("1")).isTrue();
+        assertThat(users.<String>get("1")).isNull();
+        assertThat(cache.<String>get("1")).isEqualTo("default");
+        assertThat(products.<String>get("1")).isEqualTo("product");
+    }
+
+    @Test
+    public void testBulkOperations() {
+        Cache users = cache.region("users");
+        users.setAll(ImmutableMap.of("a", 1, "b", 2), Duration.ZERO);
+        cache.set("c", 3, 0);
+
+        Map<String, Integer> values = users.getAll(ImmutableList.of("a", "b", "c"));
+        assertThat(values).hasSize(2).containsEntry("a", 1).containsEntry("b", 2);
+
+        users.removeAll(ImmutableList.of("a", "c"));
+        assertThat(users.<Integer>get("a")).isNull();
+        assertThat(users.<Integer>get("b")).isEqualTo(2);
+        assertThat(cache.<Integer>get("c")).isEqualTo(3);
+    }
+
+    @Test
+    public void testComputations() throws Exception {
+        Cache users = cache.region("users");
+        assertThat(users.<String>getOrCompute("a", Duration.ZERO, key -> key + "-computed")).isEqualTo("a-computed");
+        assertThat(users.<String>get("a")).isEqualTo("a-computed");
+        assertThat(cache.<String>get("a")).isNull();
+
+        String computed = users.<String>getOrComputeAsync("b", Duration.ZERO,
+                key -> CompletableFuture.completedFuture(key + "-async")).toCompletableFuture()
+                .get(1, TimeUnit.SECONDS);
+        assertThat(computed).isEqualTo("b-async");
+        String cached = users.<String>getAsync("b").toCompletableFuture().get(1, TimeUnit.SECONDS);
+        assertThat(cached).isEqualTo("b-async");
+        assertThat(cache.<String>get("b")).isNull();
+    }
+}
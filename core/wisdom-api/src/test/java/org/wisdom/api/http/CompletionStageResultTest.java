@@ -0,0 +1,66 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.api.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the syntax to build a result from a completion stage.
+ */
+public class CompletionStageResultTest {
+
+    @Test
+    public void testCreation() throws Exception {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletionStageResult result = Results.async(future);
+        assertThat(result.stage()).isSameAs(future);
+        assertThat(result.timeout()).isEqualTo(0);
+
+        result = Results.async(future, 2, TimeUnit.SECONDS);
+        assertThat(result.timeout()).isEqualTo(2000);
+
+        future.complete(Results.ok());
+        assertThat(result.stage().toCompletableFuture().get().getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testCancellation() {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletionStageResult result = new CompletionStageResult(future);
+        result.cancel();
+        assertThat(future.isCancelled()).isTrue();
+
+        // Cancelling a completed stage has no effect.
+        future = CompletableFuture.completedFuture(Results.ok());
+        result = new CompletionStageResult(future);
+        result.cancel();
+        assertThat(future.isCancelled()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreationWithoutStage() {
+        new CompletionStageResult(null);
+    }
+}
@@ -29,6 +29,21 @@ import static org.assertj.core.api.Assertions.assertThat;
  * Check the implemented methods from RequestHeader.
  */
 public class RequestHeaderTest {
+    @Test
+    public void testAcceptsEncoding() throws Exception {
+        assertThat(RequestHeader.acceptsEncoding(null, "gzip")).isFalse();
+        assertThat(RequestHeader.acceptsEncoding("gzip, deflate", "gzip")).isTrue();
+        assertThat(RequestHeader.acceptsEncoding("deflate, GZIP;q=0.8", "gzip")).isTrue();
+        assertThat(RequestHeader.acceptsEncoding("gzip;q=0", "gzip")).isFalse();
+        assertThat(RequestHeader.acceptsEncoding("gzip; q=0.0", "gzip")).isFalse();
+        assertThat(RequestHeader.acceptsEncoding("identity", "gzip")).isFalse();
+        assertThat(RequestHeader.acceptsEncoding("*", "br")).isTrue();
+        assertThat(RequestHeader.acceptsEncoding("*;q=0", "br")).isFalse();
+        // An entry naming the encoding takes precedence over the wildcard.
+        assertThat(RequestHeader.acceptsEncoding("*, br;q=0", "br")).isFalse();
+        assertThat(RequestHeader.acceptsEncoding("*;q=0, gzip", "gzip")).isTrue();
+    }
+
     @Test
     public void testGetLocaleList() throws Exception {
 
@@ -22,6 +22,9 @@ package org.wisdom.api.router;
 import org.junit.Test;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Blocking;
+import org.wisdom.api.annotations.NonBlocking;
+import org.wisdom.api.annotations.StreamedBody;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Request;
 import org.wisdom.api.http.Result;
@@ -105,7 +108,65 @@ public class RouteTest {
         assertThat(route1.isCompliantWithRequestContentType(request1)).isEqualTo(2);
     }
 
+    @Test
+    public void testBlockingAnnotations() throws Exception {
+        Controller blocking = new BlockingController();
+        assertThat(new RouteBuilder().route(HttpMethod.GET).on("/").to(blocking, "byDefault").isBlocking())
+                .isTrue();
+        assertThat(new RouteBuilder().route(HttpMethod.GET).on("/").to(blocking, "nonBlocking").isBlocking())
+                .isFalse();
+
+        Controller controller = new DefaultController() {
+            public Result byDefault() {
+                return null;
+            }
+
+            @Blocking
+            public Result blocking() {
+                return null;
+            }
+        };
+        assertThat(new RouteBuilder().route(HttpMethod.GET).on("/").to(controller, "byDefault").isBlocking())
+                .isNull();
+        Route route = new RouteBuilder().route(HttpMethod.GET).on("/").to(controller, "blocking");
+        assertThat(route.isBlocking()).isTrue();
+        // Resolved once.
+        assertThat(route.isBlocking()).isTrue();
+
+        assertThat(new Route(HttpMethod.GET, "/", 404).isBlocking()).isNull();
+    }
 
+    @Test
+    public void testStreamedBodyAnnotation() throws Exception {
+        Controller controller = new DefaultController() {
+            public Result buffered() {
+                return null;
+            }
+
+            @StreamedBody
+            public Result streamed() {
+                return null;
+            }
+        };
+        assertThat(new RouteBuilder().route(HttpMethod.POST).on("/").to(controller, "buffered").hasStreamedBody())
+                .isFalse();
+        Route route = new RouteBuilder().route(HttpMethod.POST).on("/").to(controller, "streamed");
+        assertThat(route.hasStreamedBody()).isTrue();
+        // Resolved once.
+        assertThat(route.hasStreamedBody()).isTrue();
+
+        assertThat(new Route(HttpMethod.POST, "/", 404).hasStreamedBody()).isFalse();
+    }
 
+    @Blocking
+    public static class BlockingController extends DefaultController {
+        public Result byDefault() {
+            return null;
+        }
 
-}
\ No newline at end of file
+        @NonBlocking
+        public Result nonBlocking() {
+            return null;
+        }
+    }
+}
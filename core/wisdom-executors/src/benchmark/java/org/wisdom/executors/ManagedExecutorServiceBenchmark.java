@@ -0,0 +1,118 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import org.openjdk.jmh.annotations.*;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the submission throughput of the {@link ManagedExecutorServiceImpl} when 1, 4, 16 and 64 threads submit
+ * tasks concurrently. Each benchmark submits a trivial task and waits for its completion, so the tracking of tasks,
+ * the preparation of the execution context and the statistics are part of the measure.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagedExecutorServiceBenchmark {
+
+    private static final Callable<String> TASK = () -> "hello";
+
+    private ManagedExecutorServiceImpl executor;
+
+    @Setup
+    public void setUp() {
+        executor = new ManagedExecutorServiceImpl(
+                "benchmark",
+                ManagedExecutorService.ThreadType.DAEMON,
+                60000,
+                Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().availableProcessors(),
+                5000,
+                false,
+                Integer.MAX_VALUE,
+                Thread.NORM_PRIORITY,
+                null);
+        executor.setExecutionContextService(new NoopExecutionContextService(), new NoopExecutionContextService());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String submit1() throws Exception {
+        return executor.submit(TASK).get();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String submit4() throws Exception {
+        return executor.submit(TASK).get();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String submit16() throws Exception {
+        return executor.submit(TASK).get();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String submit64() throws Exception {
+        return executor.submit(TASK).get();
+    }
+
+    private static class NoopExecutionContextService implements ExecutionContextService {
+
+        private static final ExecutionContext CONTEXT = new ExecutionContext() {
+            @Override
+            public void apply() {
+                // Nothing to apply.
+            }
+
+            @Override
+            public void unapply() {
+                // Nothing to remove.
+            }
+        };
+
+        @Override
+        public String name() {
+            return "noop";
+        }
+
+        @Override
+        public ExecutionContext prepare() {
+            return CONTEXT;
+        }
+    }
+}
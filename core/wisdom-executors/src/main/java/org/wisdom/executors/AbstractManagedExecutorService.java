@@ -42,19 +42,41 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     protected ListeningExecutorService executor;
     protected ThreadPoolExecutor internalPool;
 
-    protected final Set<Task<?>> tasks = new LinkedHashSet<>();
+    /**
+     * The submitted tasks that are not completed yet. It's a concurrent set, so submitting threads do not contend
+     * on a single lock.
+     */
+    protected final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
     protected final Logger logger;
 
-    protected ExecutionStatistics statistics = new ExecutionStatistics();
+    protected final ExecutionStatistics statistics = new ExecutionStatistics();
 
-    protected List<ExecutionContextService> ecs;
+    /**
+     * The execution context services, as an array replaced (never modified) when services arrive or leave. Each
+     * task prepares its context by calling them in order. {@literal null} if there are none.
+     */
+    private volatile ExecutionContextService[] contextServices;
 
     protected AbstractManagedExecutorService(String name, long hungTime, List<ExecutionContextService> ecs) {
         Preconditions.checkNotNull(name);
         this.name = name;
         this.logger = LoggerFactory.getLogger("executor-" + name);
         this.hungTime = hungTime;
-        this.ecs = ecs;
+        setExecutionContextServices(ecs);
+    }
+
+    /**
+     * Sets the execution context services used to prepare the context of the submitted tasks. The list is copied,
+     * later modifications of the list are not taken into account.
+     *
+     * @param ecs the services, may be {@literal null}
+     */
+    protected final void setExecutionContextServices(List<ExecutionContextService> ecs) {
+        if (ecs == null || ecs.isEmpty()) {
+            this.contextServices = null;
+        } else {
+            this.contextServices = ecs.toArray(new ExecutionContextService[ecs.size()]);
+        }
     }
 
     protected AbstractManagedExecutorService setInternalPool(ThreadPoolExecutor executor) {
@@ -81,38 +103,38 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
     }
 
     @Override
-    public synchronized Collection<ManagedFutureTask> getHungTasks() {
+    public Collection<ManagedFutureTask> getHungTasks() {
         return tasks.stream().filter(task -> task.isTaskHang()).collect(Collectors.toList());
     }
 
     @Override
-    public synchronized void shutdown() {
+    public void shutdown() {
         executor.shutdown();
     }
 
 
     @Override
-    public synchronized List<Runnable> shutdownNow() {
+    public List<Runnable> shutdownNow() {
         for (Task task : tasks) {
             task.cancel(true);
         }
         return executor.shutdownNow();
     }
 
-    protected synchronized ExecutionContext createExecutionContext() {
-        if (ecs == null) {
+    protected ExecutionContext createExecutionContext() {
+        final ExecutionContextService[] services = contextServices;
+        if (services == null) {
             return null;
         }
-        List<ExecutionContextService> copy = new ArrayList<>(ecs);
-        List<ExecutionContext> ec = new ArrayList<>();
-        for (ExecutionContextService svc : copy) {
-            ec.add(svc.prepare());
+        ExecutionContext[] contexts = new ExecutionContext[services.length];
+        for (int i = 0; i < services.length; i++) {
+            contexts[i] = services[i].prepare();
         }
-        return CompositeExecutionContext.create(ec);
+        return CompositeExecutionContext.create(contexts);
     }
 
     @Override
-    public synchronized boolean isShutdown() {
+    public boolean isShutdown() {
         return executor.isShutdown();
     }
 
@@ -124,18 +146,18 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if all tasks have completed following shut down
      */
     @Override
-    public synchronized boolean isTerminated() {
+    public boolean isTerminated() {
         return executor.isTerminated();
     }
 
     @Override
-    public synchronized boolean awaitTermination(long timeout, TimeUnit unit)
+    public boolean awaitTermination(long timeout, TimeUnit unit)
             throws InterruptedException {
         return executor.awaitTermination(timeout, unit);
     }
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -154,7 +176,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
         List<Future<T>> futures = executor.invokeAll(tasks, timeout, unit);
         List<Future<T>> manageable = new ArrayList<>(futures.size());
         int i = 0;
@@ -169,22 +191,21 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
 
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
             throws InterruptedException, ExecutionException {
         return executor.invokeAny(tasks);
     }
 
     @Override
-    public synchronized <T> T invokeAny(Collection<? extends Callable<T>> tasks,
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks,
                            long timeout, TimeUnit unit)
             throws InterruptedException, ExecutionException, TimeoutException {
         return executor.invokeAny(tasks, timeout, unit);
     }
 
     @Override
-    public synchronized void execute(Runnable command) {
-        Task<Void> task = getNewTaskFor(command, null);
-        task.execute();
+    public void execute(Runnable command) {
+        track(getNewTaskFor(command, null));
     }
 
 
@@ -195,7 +216,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getLargestPoolSize() {
+    public int getLargestPoolSize() {
         return internalPool.getLargestPoolSize();
     }
 
@@ -205,7 +226,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the maximum allowed number of threads
      */
     @Override
-    public synchronized int getMaximumPoolSize() {
+    public int getMaximumPoolSize() {
         return internalPool.getMaximumPoolSize();
     }
 
@@ -215,7 +236,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getPoolSize() {
+    public int getPoolSize() {
         return internalPool.getPoolSize();
     }
 
@@ -225,7 +246,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the core number of threads
      */
     @Override
-    public synchronized int getCorePoolSize() {
+    public int getCorePoolSize() {
         return internalPool.getCorePoolSize();
     }
 
@@ -239,7 +260,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getCompletedTaskCount() {
+    public long getCompletedTaskCount() {
         return internalPool.getCompletedTaskCount();
     }
 
@@ -250,7 +271,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of threads
      */
     @Override
-    public synchronized int getActiveCount() {
+    public int getActiveCount() {
         return internalPool.getActiveCount();
     }
 
@@ -263,7 +284,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the task queue
      */
     @Override
-    public synchronized BlockingQueue<Runnable> getQueue() {
+    public BlockingQueue<Runnable> getQueue() {
         return internalPool.getQueue();
     }
 
@@ -278,7 +299,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * the presence of interference by other threads.
      */
     @Override
-    public synchronized void purge() {
+    public void purge() {
         internalPool.purge();
     }
 
@@ -299,7 +320,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return {@code true} if the task was removed
      */
     @Override
-    public synchronized boolean remove(Runnable task) {
+    public boolean remove(Runnable task) {
         return internalPool.remove(task);
     }
 
@@ -312,7 +333,7 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the number of tasks
      */
     @Override
-    public synchronized long getTaskCount() {
+    public long getTaskCount() {
         return internalPool.getTaskCount();
     }
 
@@ -325,27 +346,24 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
      * @return the time limit
      */
     @Override
-    public synchronized long getKeepAliveTime(TimeUnit unit) {
+    public long getKeepAliveTime(TimeUnit unit) {
         return internalPool.getKeepAliveTime(unit);
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Callable<T> task) {
+    public <T> ManagedFutureTask<T> submit(Callable<T> task) {
         if (task == null) {
             throw new NullPointerException();
         }
-        return getNewTaskFor(task).execute();
+        return track(getNewTaskFor(task));
     }
 
     @Override
-    public synchronized <T> ManagedFutureTask<T> submit(Runnable task, T result) {
+    public <T> ManagedFutureTask<T> submit(Runnable task, T result) {
         if (task == null) {
             throw new NullPointerException();
         }
-        final Task t = getNewTaskFor(task, result).execute();
-        t.addListener(() -> tasks.remove(t));
-        tasks.add(t);
-        return t;
+        return track(getNewTaskFor(task, result));
     }
 
     @Override
@@ -354,12 +372,33 @@ public abstract class AbstractManagedExecutorService implements ManagedExecutorS
         return submit(task, null); //NOSONAR
     }
 
+    /**
+     * Executes the given task, and keeps track of it until its completion (to detect hung tasks and cancel them on
+     * {@link #shutdownNow()}). The task is registered before being executed, so its removal, done by the thread
+     * completing it, cannot happen before.
+     *
+     * @param task the task
+     * @param <T>  the type of result
+     * @return the executed task
+     */
+    protected <T> Task<T> track(final Task<T> task) {
+        tasks.add(task);
+        try {
+            task.execute();
+        } catch (RuntimeException e) {
+            tasks.remove(task);
+            throw e;
+        }
+        task.addListener(() -> tasks.remove(task), MoreExecutors.sameThreadExecutor());
+        return task;
+    }
+
     /**
      * Computes the execution time of the completed task (given), and add it to the statistics.
      *
      * @param task the completed task
      */
-    protected synchronized void addToStatistics(Task task) {
+    protected void addToStatistics(Task task) {
         statistics.accept(task.getTaskCompletionTime() - task.getTaskStartTime());
     }
 }
@@ -59,16 +59,49 @@ public class Creator {
     @Context
     BundleContext context;
 
-    @Requires(specification = ExecutionContextService.class)
-    List<ExecutionContextService> ecs;
+    /**
+     * The execution context services, replaced (never modified) when a service arrives or leaves.
+     */
+    private volatile List<ExecutionContextService> ecs = Collections.emptyList();
 
-    private final Map<ServiceRegistration, ExecutorService> instances = new HashMap<>();
+    private final Map<ServiceRegistration, AbstractManagedExecutorService> instances = new HashMap<>();
+
+    /**
+     * A new execution context service is available. The created executors are updated.
+     *
+     * @param service the service
+     */
+    @Bind(aggregate = true)
+    public synchronized void bindExecutionContextService(ExecutionContextService service) {
+        List<ExecutionContextService> list = new ArrayList<>(ecs);
+        list.add(service);
+        updateExecutionContextServices(list);
+    }
+
+    /**
+     * An execution context service has left. The created executors are updated.
+     *
+     * @param service the service
+     */
+    @Unbind
+    public synchronized void unbindExecutionContextService(ExecutionContextService service) {
+        List<ExecutionContextService> list = new ArrayList<>(ecs);
+        list.remove(service);
+        updateExecutionContextServices(list);
+    }
+
+    private void updateExecutionContextServices(List<ExecutionContextService> list) {
+        ecs = Collections.unmodifiableList(list);
+        for (AbstractManagedExecutorService executor : instances.values()) {
+            executor.setExecutionContextServices(ecs);
+        }
+    }
 
     /**
      * Creates the system executors and the others specified executors.
      */
     @Validate
-    public void start() {
+    public synchronized void start() {
         Configuration conf = configuration.getConfiguration("pools");
 
         createExecutor(ManagedExecutorService.SYSTEM,
@@ -112,10 +145,12 @@ public class Creator {
 
     private void createExecutor(String name, Configuration conf) {
         LOGGER.info("Creating executor {}", name);
-        ManagedExecutorServiceImpl executor;
-        if (conf != null) {
+        AbstractManagedExecutorService executor;
+        if (conf != null && conf.get("threadType", ManagedExecutorService.ThreadType.class,
+                ManagedExecutorService.ThreadType.POOLED) == ManagedExecutorService.ThreadType.VIRTUAL) {
+            executor = new VirtualManagedExecutorServiceImpl(name, conf, ecs);
+        } else if (conf != null) {
             executor = new ManagedExecutorServiceImpl(name, conf, ecs);
-
         } else {
             executor = new ManagedExecutorServiceImpl(
                     ManagedExecutorService.SYSTEM,
@@ -167,8 +202,8 @@ public class Creator {
      * Shutdown all created executors.
      */
     @Invalidate
-    public void stop() {
-        for (Map.Entry<ServiceRegistration, ExecutorService> entry : instances.entrySet()) {
+    public synchronized void stop() {
+        for (Map.Entry<ServiceRegistration, AbstractManagedExecutorService> entry : instances.entrySet()) {
             entry.getKey().unregister();
             entry.getValue().shutdownNow();
         }
@@ -89,6 +89,17 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
     }
 
     protected BlockingQueue<Runnable> createWorkQueue(int workQueueCapacity) {
+        return newWorkQueue(workQueueCapacity);
+    }
+
+    /**
+     * Creates the work queue: unbound for {@link Integer#MAX_VALUE}, a synchronous queue for {@literal 0},
+     * and a bounded queue otherwise.
+     *
+     * @param workQueueCapacity the capacity
+     * @return the queue
+     */
+    static BlockingQueue<Runnable> newWorkQueue(int workQueueCapacity) {
         if (workQueueCapacity < 0) {
             throw new IllegalArgumentException();
         }
@@ -103,7 +114,7 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
         return queue;
     }
 
-    protected synchronized <V> Task<V> getNewTaskFor(Runnable task, V result) {
+    protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
         return new Task<>(executor, task, result, createExecutionContext(),
                 hungTime, this);
     }
@@ -120,8 +131,9 @@ public class ManagedExecutorServiceImpl extends AbstractManagedExecutorService
      * @param services the context services
      */
     public void setExecutionContextService(ExecutionContextService... services) {
-        ecs = new ArrayList<>();
-        Collections.addAll(ecs, services);
+        List<ExecutionContextService> list = new ArrayList<>();
+        Collections.addAll(list, services);
+        setExecutionContextServices(list);
     }
 
 }
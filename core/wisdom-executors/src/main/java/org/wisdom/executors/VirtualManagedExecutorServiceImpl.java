@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the {@link org.wisdom.api.concurrent.ManagedExecutorService} running each task on its own
+ * virtual thread ({@link org.wisdom.api.concurrent.ManagedExecutorService.ThreadType#VIRTUAL}). Unlike
+ * {@link org.wisdom.executors.ManagedExecutorServiceImpl}, threads are not pooled, so tasks blocking on I/O do not
+ * exhaust a pool. The number of tasks running concurrently is limited by {@code maxSize}, other tasks are queued
+ * until a running task completes.
+ * <p>
+ * On JVMs not supporting virtual threads, each task runs on a new platform daemon thread.
+ */
+public class VirtualManagedExecutorServiceImpl extends AbstractManagedExecutorService
+        implements ManagedExecutorService {
+
+    private final VirtualThreadExecutor pool;
+
+    public VirtualManagedExecutorServiceImpl(String name, Configuration configuration,
+                                             List<ExecutionContextService> ecs) {
+        this(
+                name,
+                configuration.getDuration("hungTime", TimeUnit.MILLISECONDS, 60000),
+                configuration.getIntegerWithDefault("maxSize", 25),
+                configuration.getIntegerWithDefault("workQueueCapacity", Integer.MAX_VALUE),
+                ecs);
+    }
+
+    public VirtualManagedExecutorServiceImpl(
+            String name,
+            long hungTime,
+            int maxSize,
+            int workQueueCapacity,
+            List<ExecutionContextService> ecs) {
+        super(name, hungTime, ecs);
+        BlockingQueue<Runnable> queue = ManagedExecutorServiceImpl.newWorkQueue(workQueueCapacity);
+        this.pool = new VirtualThreadExecutor(name, maxSize, queue);
+        this.executor = MoreExecutors.listeningDecorator(pool);
+    }
+
+    protected <V> Task<V> getNewTaskFor(Runnable task, V result) {
+        return new Task<>(executor, task, result, createExecutionContext(),
+                hungTime, this);
+    }
+
+    protected <V> Task<V> getNewTaskFor(Callable<V> callable) {
+        return new Task<>(executor, callable, createExecutionContext(), hungTime, this);
+    }
+
+    /**
+     * @return whether or not the tasks are executed on virtual threads. If not, platform threads are used.
+     */
+    public boolean isUsingVirtualThreads() {
+        return VirtualThreadExecutor.isVirtualThreadSupported();
+    }
+
+    /**
+     * Threads are not pooled, so this is the number of tasks currently running.
+     *
+     * @return the number of threads
+     */
+    @Override
+    public int getPoolSize() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * Threads are not pooled, so there are no core threads.
+     *
+     * @return {@literal 0}
+     */
+    @Override
+    public int getCorePoolSize() {
+        return 0;
+    }
+
+    /**
+     * @return the maximum number of tasks running concurrently
+     */
+    @Override
+    public int getMaximumPoolSize() {
+        return pool.getMaxConcurrency();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return pool.getLargestPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    @Override
+    public long getTaskCount() {
+        return pool.getTaskCount();
+    }
+
+    /**
+     * @return the queue of tasks waiting for a running task to complete
+     */
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        return pool.getQueue();
+    }
+
+    @Override
+    public void purge() {
+        pool.purge();
+    }
+
+    @Override
+    public boolean remove(Runnable task) {
+        return pool.remove(task);
+    }
+
+    /**
+     * Threads are not kept alive once their task is completed.
+     *
+     * @param unit the desired time unit of the result
+     * @return {@literal 0}
+     */
+    @Override
+    public long getKeepAliveTime(TimeUnit unit) {
+        return 0;
+    }
+
+    /**
+     * Set the context services. For testing purpose only.
+     *
+     * @param services the context services
+     */
+    public void setExecutionContextService(ExecutionContextService... services) {
+        List<ExecutionContextService> list = new ArrayList<>();
+        Collections.addAll(list, services);
+        setExecutionContextServices(list);
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link java.util.concurrent.ExecutorService} running each task on its own (new) thread, limiting the number of
+ * tasks running concurrently using a {@link java.util.concurrent.Semaphore}. Tasks submitted while all permits are
+ * taken wait in a queue, without holding a thread.
+ * <p>
+ * On JVMs supporting virtual threads, the threads are virtual threads, making blocking tasks (such as blocking I/O)
+ * cheap. On other JVMs, platform daemon threads are used.
+ */
+class VirtualThreadExecutor extends AbstractExecutorService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    /**
+     * The {@code Thread.ofVirtual()} method, {@literal null} if virtual threads are not supported.
+     */
+    private static final Method OF_VIRTUAL;
+
+    static {
+        Method method;
+        try {
+            method = Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) { //NOSONAR
+            method = null;
+        }
+        OF_VIRTUAL = method;
+    }
+
+    private final ThreadFactory factory;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final BlockingQueue<Runnable> queue;
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger largest = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final CountDownLatch termination = new CountDownLatch(1);
+
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new executor.
+     *
+     * @param name           the name of the executor, used as thread name prefix
+     * @param maxConcurrency the maximum number of tasks running concurrently
+     * @param queue          the queue storing the tasks waiting for a permit
+     */
+    VirtualThreadExecutor(String name, int maxConcurrency, BlockingQueue<Runnable> queue) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("The maximum concurrency must be strictly positive");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.queue = queue;
+        ThreadFactory virtual = createVirtualThreadFactory(name);
+        if (virtual == null) {
+            LOGGER.debug("Virtual threads are not supported by this JVM, the executor {} uses platform threads", name);
+            this.factory = createPlatformThreadFactory(name);
+        } else {
+            this.factory = virtual;
+        }
+    }
+
+    /**
+     * @return whether or not the running JVM supports virtual threads.
+     */
+    static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String name) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> clazz = Class.forName("java.lang.Thread$Builder");
+            builder = clazz.getMethod("name", String.class, Long.TYPE).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) clazz.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Cannot create the virtual thread factory for the executor {}", name, e);
+            return null;
+        }
+    }
+
+    private static ThreadFactory createPlatformThreadFactory(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("The executor is shut down");
+        }
+        submitted.increment();
+        if (permits.tryAcquire()) {
+            start(command);
+        } else if (queue.offer(command)) {
+            // A permit may have been released between the tryAcquire and the offer.
+            dispatch();
+        } else {
+            submitted.decrement();
+            throw new RejectedExecutionException("The work queue is full");
+        }
+    }
+
+    /**
+     * Starts the queued tasks while permits are available.
+     */
+    private void dispatch() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                permits.release();
+            } else if (!tryStart(next)) {
+                // Keep the task, it is retried on the next dispatch.
+                permits.release();
+                if (!queue.offer(next)) {
+                    reject(next);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts the given task on a new thread. The caller must own a permit, released when the task completes.
+     *
+     * @param task the task
+     */
+    private void start(final Runnable task) {
+        if (!tryStart(task)) {
+            permits.release();
+            throw new RejectedExecutionException("Cannot start a thread to execute the task");
+        }
+    }
+
+    /**
+     * Tries to start the given task on a new thread. The caller must own a permit. If the thread cannot be started,
+     * the caller keeps the permit.
+     *
+     * @param task the task
+     * @return {@code true} if the thread has been started
+     */
+    private boolean tryStart(final Runnable task) {
+        Thread thread = null;
+        try {
+            thread = factory.newThread(() -> run(task));
+            threads.add(thread);
+            updateLargest();
+            thread.start();
+            return true;
+        } catch (Throwable e) { //NOSONAR
+            if (thread != null) {
+                threads.remove(thread);
+            }
+            LOGGER.error("Cannot start a thread to execute a task", e);
+            return false;
+        }
+    }
+
+    /**
+     * Completes a task that cannot be executed. Futures are cancelled, so their callers are not blocked forever.
+     *
+     * @param task the task
+     */
+    private static void reject(Runnable task) {
+        LOGGER.error("The task {} cannot be executed and is discarded", task);
+        if (task instanceof Future) {
+            ((Future) task).cancel(false);
+        }
+    }
+
+    private void updateLargest() {
+        int size = getActiveCount();
+        int current = largest.get();
+        while (size > current && !largest.compareAndSet(current, size)) {
+            current = largest.get();
+        }
+    }
+
+    /**
+     * Runs the given task, then hands over the permit to the next queued task. If no thread can be started for the
+     * next task, it is executed by the current thread.
+     *
+     * @param first the task
+     */
+    private void run(Runnable first) {
+        Runnable task = first;
+        try {
+            while (task != null) {
+                task.run();
+                completed.increment();
+                task = handOver();
+            }
+        } finally {
+            // The thread is removed once the next task is started, so the executor never looks terminated in between.
+            threads.remove(Thread.currentThread());
+            if (task != null) {
+                // The task has thrown an exception, we still own the permit.
+                completed.increment();
+                permits.release();
+                dispatch();
+            }
+            tryTerminate();
+        }
+    }
+
+    /**
+     * Hands over the permit of the calling thread to the next queued task, if any.
+     *
+     * @return the next task if no thread can be started to execute it (the calling thread keeps the permit and must
+     * execute it), {@literal null} otherwise
+     */
+    private Runnable handOver() {
+        Runnable next = queue.poll();
+        if (next == null) {
+            permits.release();
+            dispatch();
+            return null;
+        }
+        return tryStart(next) ? null : next;
+    }
+
+    private void tryTerminate() {
+        if (shutdown && threads.isEmpty() && queue.isEmpty()) {
+            termination.countDown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        tryTerminate();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        tryTerminate();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return termination.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return termination.await(timeout, unit);
+    }
+
+    /**
+     * @return the maximum number of tasks running concurrently.
+     */
+    int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * The number of permits in use. A permit is handed over from a completed task to the next queued task, so the
+     * count never exceeds the maximum concurrency, even while the thread of the completed task terminates.
+     *
+     * @return the number of tasks currently executing.
+     */
+    int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return the largest number of tasks that have ever been executed simultaneously.
+     */
+    int getLargestPoolSize() {
+        return largest.get();
+    }
+
+    /**
+     * @return the number of completed tasks.
+     */
+    long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    /**
+     * @return the number of tasks accepted by this executor.
+     */
+    long getTaskCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * @return the queue of tasks waiting for a permit.
+     */
+    BlockingQueue<Runnable> getQueue() {
+        return queue;
+    }
+
+    /**
+     * Removes the cancelled futures from the queue.
+     */
+    void purge() {
+        queue.removeIf(r -> r instanceof Future && ((Future) r).isCancelled());
+    }
+
+    /**
+     * Removes the given task from the queue, so it won't be executed if it was not started yet.
+     *
+     * @param task the task
+     * @return {@code true} if the task was removed
+     */
+    boolean remove(Runnable task) {
+        boolean removed = queue.remove(task);
+        tryTerminate();
+        return removed;
+    }
+}
@@ -56,7 +56,7 @@ public class ManagedExecutorServiceImplTest {
     @Before
     public void setUp() {
         counter.set(0);
-        executor.ecs = new ArrayList<>();
+        executor.setExecutionContextService();
     }
 
     @Test
@@ -176,6 +176,51 @@ public class ManagedExecutorServiceImplTest {
         assertThat(executor.getTaskCount()).isBetween(90l, 110l);
     }
 
+    @Test
+    public void testConcurrentSubmissions() throws InterruptedException, ExecutionException {
+        final ManagedExecutorServiceImpl service = new ManagedExecutorServiceImpl(
+                "concurrent",
+                ManagedExecutorService.ThreadType.POOLED,
+                60000,
+                4,
+                4,
+                1000,
+                true,
+                Integer.MAX_VALUE,
+                Thread.NORM_PRIORITY,
+                null);
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Future<String>>>> batches = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                batches.add(submitters.submit(() -> {
+                    List<Future<String>> futures = new ArrayList<>();
+                    for (int j = 0; j < 200; j++) {
+                        futures.add(service.submit(new MyCallable()));
+                    }
+                    return futures;
+                }));
+            }
+            for (Future<List<Future<String>>> batch : batches) {
+                for (Future<String> future : batch.get()) {
+                    assertThat(future.get()).isEqualTo("hello");
+                }
+            }
+            assertThat(counter.get()).isEqualTo(1600);
+
+            // Tasks are removed from the tracked tasks once completed, and the statistics are computed.
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!service.tasks.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(service.tasks).isEmpty();
+            assertThat(service.getExecutionTimeStatistics().getNumberOfTasks()).isEqualTo(1600);
+        } finally {
+            submitters.shutdownNow();
+            service.shutdownNow();
+        }
+    }
+
     @Test
     public void testHungTaskDetection() throws InterruptedException {
         ManagedFutureTask<?> future = executor.submit(new Runnable() {
@@ -207,7 +252,7 @@ public class ManagedExecutorServiceImplTest {
         final ThreadLocal<String> context = new ThreadLocal();
         final Semaphore semaphore = new Semaphore(0);
         final StringBuilder builder = new StringBuilder();
-        executor.ecs = new ArrayList<>();
+        executor.setExecutionContextService();
 
 
         // First call without context
@@ -225,7 +270,7 @@ public class ManagedExecutorServiceImplTest {
 
         // Then, set a context service, but nothing in the context.
 
-        executor.ecs.add(new ExecutionContextService() {
+        executor.setExecutionContextService(new ExecutionContextService() {
 
             @Override
             public String name() {
@@ -277,6 +322,41 @@ public class ManagedExecutorServiceImplTest {
         semaphore.acquire();
 
         assertThat(builder.toString()).isEqualTo("nullnullStuff");
+
+        // Replace the context service by another one, the number of services does not change.
+        executor.setExecutionContextService(new ExecutionContextService() {
+
+            @Override
+            public String name() {
+                return "other";
+            }
+
+            @Override
+            public ExecutionContext prepare() {
+                return new ExecutionContext() {
+                    @Override
+                    public void apply() {
+                        context.set("Other");
+                    }
+
+                    @Override
+                    public void unapply() {
+                        context.remove();
+                    }
+                };
+            }
+        });
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                builder.append(context.get());
+                semaphore.release();
+            }
+        });
+
+        semaphore.acquire();
+
+        assertThat(builder.toString()).isEqualTo("nullnullStuffOther");
     }
 
     @Test
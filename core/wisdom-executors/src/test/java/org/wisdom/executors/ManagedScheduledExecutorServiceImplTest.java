@@ -27,7 +27,6 @@ import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.concurrent.ManagedScheduledFutureTask;
 import org.wisdom.test.parents.FakeConfiguration;
 
-import java.util.ArrayList;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
@@ -50,7 +49,7 @@ public class ManagedScheduledExecutorServiceImplTest {
     @Before
     public void setUp() {
         counter.set(0);
-        executor.ecs = new ArrayList<>();
+        executor.setExecutionContextServices(null);
     }
 
     @Test
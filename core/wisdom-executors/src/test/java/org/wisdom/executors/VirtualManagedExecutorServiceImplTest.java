@@ -0,0 +1,221 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2015 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.executors;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Test;
+import org.wisdom.api.concurrent.ExecutionContext;
+import org.wisdom.api.concurrent.ExecutionContextService;
+import org.wisdom.api.concurrent.ManagedFutureTask;
+import org.wisdom.test.parents.FakeConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VirtualManagedExecutorServiceImplTest {
+
+    VirtualManagedExecutorServiceImpl executor = new VirtualManagedExecutorServiceImpl("virtual", 10, 3,
+            Integer.MAX_VALUE, null);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCreation() throws ExecutionException, InterruptedException {
+        Future<String> future = executor.submit(() -> "hello");
+        assertThat(future.get()).isEqualTo("hello");
+        assertThat(future).isInstanceOf(Task.class);
+        assertThat(executor.getExecutor()).isNotNull();
+    }
+
+    @Test
+    public void testThatConcurrencyIsLimited() throws InterruptedException, ExecutionException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Ignore it.
+                }
+                running.decrementAndGet();
+            }));
+        }
+
+        // Only 3 tasks are running, the others are waiting in the queue.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (running.get() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(running.get()).isEqualTo(3);
+        assertThat(executor.getActiveCount()).isEqualTo(3);
+        assertThat(executor.getQueue()).hasSize(17);
+
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertThat(maxRunning.get()).isEqualTo(3);
+        assertThat(executor.getTaskCount()).isEqualTo(20);
+        assertThat(executor.getLargestPoolSize()).isEqualTo(3);
+
+        // Tasks are removed from the tracked tasks once completed, and the statistics are computed.
+        deadline = System.currentTimeMillis() + 5000;
+        while ((!executor.tasks.isEmpty() || executor.getCompletedTaskCount() < 20)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.tasks).isEmpty();
+        assertThat(executor.getCompletedTaskCount()).isEqualTo(20);
+        assertThat(executor.getExecutionTimeStatistics().getNumberOfTasks()).isEqualTo(20);
+    }
+
+    @Test
+    public void testHungTaskDetection() throws InterruptedException {
+        ManagedFutureTask<?> future = executor.submit(() -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                // Ignore it.
+            }
+        });
+
+        assertThat(future.getHungTaskThreshold()).isEqualTo(10);
+        Thread.sleep(100);
+        assertThat(future.isTaskHang()).isTrue();
+        assertThat(executor.getHungTasks()).hasSize(1).contains(future);
+        assertThat(executor.getActiveCount()).isEqualTo(1);
+        assertThat(executor.getQueue()).isEmpty();
+    }
+
+    @Test
+    public void testExecutionContextPropagation() throws InterruptedException, ExecutionException {
+        final ThreadLocal<String> context = new ThreadLocal<>();
+        executor.setExecutionContextService(new ExecutionContextService() {
+            @Override
+            public String name() {
+                return "context";
+            }
+
+            @Override
+            public ExecutionContext prepare() {
+                return new ExecutionContext() {
+
+                    private String local = context.get();
+
+                    @Override
+                    public void apply() {
+                        context.set(local);
+                    }
+
+                    @Override
+                    public void unapply() {
+                        context.remove();
+                    }
+                };
+            }
+        });
+
+        context.set("Stuff");
+        try {
+            assertThat(executor.submit(context::get).get()).isEqualTo("Stuff");
+        } finally {
+            context.remove();
+        }
+    }
+
+    @Test
+    public void testThatTasksAreRejectedWhenTheQueueIsFull() throws InterruptedException {
+        VirtualManagedExecutorServiceImpl service = new VirtualManagedExecutorServiceImpl("bounded", 60000, 1, 1,
+                null);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<String> blocking = () -> {
+            release.await();
+            return "done";
+        };
+        try {
+            service.submit(blocking);
+            service.submit(blocking);
+            try {
+                service.submit(blocking);
+                throw new AssertionError("Rejected execution expected");
+            } catch (RejectedExecutionException e) {
+                // Expected.
+            }
+            // The rejected task is not tracked.
+            assertThat(service.tasks).hasSize(2);
+        } finally {
+            release.countDown();
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException, ExecutionException {
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<String> running = executor.submit(() -> {
+            release.await();
+            return "first";
+        });
+        Future<String> queued = executor.submit(() -> "second");
+        Future<String> other = executor.submit(() -> "third");
+        Future<String> last = executor.submit(() -> "fourth");
+
+        executor.shutdown();
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(executor.isTerminated()).isFalse();
+
+        // Already submitted tasks are still executed.
+        release.countDown();
+        assertThat(running.get()).isEqualTo("first");
+        assertThat(queued.get()).isEqualTo("second");
+        assertThat(other.get()).isEqualTo("third");
+        assertThat(last.get()).isEqualTo("fourth");
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.isTerminated()).isTrue();
+    }
+
+    @Test
+    public void testCreationWithDefaultConfiguration() {
+        FakeConfiguration configuration = new FakeConfiguration(ImmutableMap.<String, Object>of("name", "default"));
+        VirtualManagedExecutorServiceImpl service = new VirtualManagedExecutorServiceImpl("default", configuration,
+                null);
+        try {
+            assertThat(service.getCorePoolSize()).isEqualTo(0);
+            assertThat(service.getMaximumPoolSize()).isEqualTo(25);
+            assertThat(service.getActiveCount()).isEqualTo(0);
+            assertThat(service.getKeepAliveTime(TimeUnit.MILLISECONDS)).isEqualTo(0);
+            assertThat(service.getQueue()).isInstanceOf(LinkedBlockingQueue.class);
+        } finally {
+            service.shutdownNow();
+        }
+    }
+}
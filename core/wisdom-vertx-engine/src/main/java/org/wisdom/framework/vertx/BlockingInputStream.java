@@ -0,0 +1,251 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Exposes a Vert.X stream (generally the body of a request) as a blocking input stream. It's the counterpart of
+ * {@link AsyncInputStream}.
+ * <p>
+ * Received buffers are queued until they are read. When the amount of queued data reaches the given limit, the
+ * source is paused, and is resumed once half of the queued data has been consumed. So, the memory used to read the
+ * body does not depend on the body size.
+ * <p>
+ * The {@link #push(Buffer)}, {@link #end()} and {@link #fail(Throwable)} methods must be called from the Vert.X
+ * context given in the constructor. The stream itself must be read from another thread, as read methods block until
+ * data is available.
+ */
+public class BlockingInputStream extends InputStream {
+
+    /**
+     * The source.
+     */
+    private final ReadStream<Buffer> source;
+
+    /**
+     * The Vert.X context, used to resume the source.
+     */
+    private final Context context;
+
+    /**
+     * The amount of queued data pausing the source.
+     */
+    private final int highWaterMark;
+
+    /**
+     * The amount of queued data resuming the source.
+     */
+    private final int lowWaterMark;
+
+    /**
+     * The received buffers not read yet.
+     */
+    private final Deque<ByteBuf> queue = new ArrayDeque<>();
+
+    /**
+     * The amount of bytes received and not read yet.
+     */
+    private int queued;
+
+    /**
+     * Whether or not the source is paused. Only modified from the Vert.X context.
+     */
+    private boolean paused;
+
+    /**
+     * Whether or not a resume of the source has been scheduled.
+     */
+    private boolean resuming;
+
+    /**
+     * Whether or not the end of the source has been reached.
+     */
+    private boolean ended;
+
+    /**
+     * Whether or not this stream has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * The failure reported by the source, if any.
+     */
+    private Throwable failure;
+
+    /**
+     * Creates a new {@link BlockingInputStream}.
+     *
+     * @param source        the source
+     * @param context       the Vert.X context on which the source delivers its data
+     * @param highWaterMark the amount of queued bytes pausing the source
+     */
+    public BlockingInputStream(ReadStream<Buffer> source, Context context, int highWaterMark) {
+        this.source = source;
+        this.context = context;
+        this.highWaterMark = Math.max(1, highWaterMark);
+        this.lowWaterMark = this.highWaterMark / 2;
+    }
+
+    /**
+     * Enqueues a received buffer. If too much data is queued, the source is paused.
+     *
+     * @param buffer the buffer
+     */
+    public synchronized void push(Buffer buffer) {
+        if (closed || buffer.length() == 0) {
+            // Nobody is going to read it.
+            return;
+        }
+        queue.add(buffer.getByteBuf());
+        queued += buffer.length();
+        if (!paused && queued >= highWaterMark) {
+            paused = true;
+            source.pause();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Notifies the stream that the end of the source has been reached.
+     */
+    public synchronized void end() {
+        ended = true;
+        notifyAll();
+    }
+
+    /**
+     * Notifies the stream that the source has failed. The failure is reported to the reader.
+     *
+     * @param cause the failure
+     */
+    public synchronized void fail(Throwable cause) {
+        failure = cause;
+        notifyAll();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int read = read(b, 0, 1);
+        if (read == -1) {
+            return -1;
+        }
+        return b[0] & 0xFF;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        ByteBuf current = awaitData();
+        if (current == null) {
+            return -1;
+        }
+        int read = Math.min(len, current.readableBytes());
+        current.readBytes(b, off, read);
+        if (!current.isReadable()) {
+            queue.poll();
+        }
+        queued -= read;
+        resumeIfNeeded();
+        return read;
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        return queued;
+    }
+
+    /**
+     * Closes the stream. The data received after the closing are discarded, and the source is not paused anymore.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.clear();
+        queued = 0;
+        resumeIfNeeded();
+        notifyAll();
+    }
+
+    /**
+     * Waits until data is available.
+     *
+     * @return the buffer to read, {@literal null} if the end of the stream has been reached
+     * @throws IOException if the stream has been closed, if the source has failed or if the thread is interrupted
+     */
+    private ByteBuf awaitData() throws IOException {
+        while (true) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (!queue.isEmpty()) {
+                return queue.peek();
+            }
+            if (failure != null) {
+                throw new IOException("Cannot read the stream", failure);
+            }
+            if (ended) {
+                return null;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for data", e);
+            }
+        }
+    }
+
+    /**
+     * Schedules the resume of the source if it's paused and enough data has been consumed. Must be called with the
+     * monitor lock.
+     */
+    private void resumeIfNeeded() {
+        if (paused && !resuming && queued <= lowWaterMark) {
+            resuming = true;
+            context.runOnContext(v -> {
+                synchronized (BlockingInputStream.this) {
+                    resuming = false;
+                    if (paused && queued <= lowWaterMark) {
+                        paused = false;
+                        source.resume();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.impl.HttpServerRequestImpl;
+import io.vertx.core.net.impl.ConnectionBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.engine.ConnectionStatistics;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects statistics about the reuse of the connections of a server. It lets you check that the clients use
+ * persistent connections, and so do not establish (and for HTTPS, handshake) a new connection per request.
+ * <p>
+ * Vert.X 3.1 does not notify when a connection is opened or closed, so connections are tracked from the Netty
+ * channel carrying the requests: the first request received on a channel marks it (using a channel attribute) and
+ * registers a listener on its close future. The public API does not expose the connection of a request
+ * ({@code HttpServer.connectionHandler} does not exist in this version, and {@code netSocket()} takes the connection
+ * over), so the channel is read by reflection from the Vert.X request implementation (embedded in this bundle). If it
+ * cannot be retrieved, a warning is logged (once) and the request is counted as a new connection.
+ */
+public class ConnectionMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionMetrics.class);
+
+    private static final AttributeKey<Boolean> TRACKED = AttributeKey.valueOf("wisdom.connection.tracked");
+
+    /**
+     * Whether or not the failure to retrieve the channel of a request has already been logged.
+     */
+    private static final AtomicBoolean DEGRADED = new AtomicBoolean();
+
+    private static final Field CONNECTION = field(HttpServerRequestImpl.class, "conn");
+
+    private static final Field CHANNEL = field(ConnectionBase.class, "channel");
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder active = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+
+    /**
+     * Records a new request.
+     *
+     * @param request the request
+     */
+    public void onRequest(HttpServerRequest request) {
+        requests.increment();
+        Channel channel = channel(request);
+        if (channel == null) {
+            opened.increment();
+        } else if (channel.attr(TRACKED).setIfAbsent(Boolean.TRUE) == null) {
+            opened.increment();
+            active.increment();
+            channel.closeFuture().addListener(future -> active.decrement());
+        }
+    }
+
+    /**
+     * Records that the server closes the connection used by the given request.
+     *
+     * @param request the request
+     */
+    public void onClose(HttpServerRequest request) {
+        closed.increment();
+    }
+
+    private static Channel channel(HttpServerRequest request) {
+        if (CONNECTION == null || CHANNEL == null) {
+            // The failed lookup has already been logged.
+            return null;
+        }
+        if (!(request instanceof HttpServerRequestImpl)) {
+            degraded("the request is not a Vert.X server request but a " + request.getClass().getName(), null);
+            return null;
+        }
+        try {
+            Channel channel = (Channel) CHANNEL.get(CONNECTION.get(request));
+            if (channel == null) {
+                degraded("the request is not attached to a channel", null);
+            }
+            return channel;
+        } catch (IllegalAccessException | RuntimeException e) {
+            degraded("the channel of the request cannot be read", e);
+            return null;
+        }
+    }
+
+    private static Field field(Class<?> clazz, String name) {
+        try {
+            Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | RuntimeException e) {
+            degraded("the field " + name + " of " + clazz.getName() + " cannot be accessed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Logs that the connections cannot be tracked. Only the first failure is logged, as it would happen for every
+     * request.
+     *
+     * @param reason the reason
+     * @param cause  the cause, {@literal null} if none
+     */
+    private static void degraded(String reason, Exception cause) {
+        if (DEGRADED.compareAndSet(false, true)) {
+            LOGGER.warn("Cannot track the HTTP connections, {}: the connection statistics are inaccurate, every "
+                    + "request whose connection cannot be retrieved is counted as a new connection", reason, cause);
+        }
+    }
+
+    /**
+     * @return the number of requests received.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of connections opened by the clients.
+     */
+    public long getOpenedConnections() {
+        return opened.sum();
+    }
+
+    /**
+     * @return the number of connections currently open.
+     */
+    public long getActiveConnections() {
+        return active.sum();
+    }
+
+    /**
+     * @return the number of requests received on a connection that has already served a request.
+     */
+    public long getReusedConnections() {
+        return statistics().getReusedConnections();
+    }
+
+    /**
+     * @return the number of connections closed by the server once the response has been sent.
+     */
+    public long getClosedConnections() {
+        return closed.sum();
+    }
+
+    /**
+     * @return the average number of requests served per connection, {@literal 0} if no requests have been received.
+     */
+    public double getRequestsPerConnection() {
+        return statistics().getRequestsPerConnection();
+    }
+
+    /**
+     * @return a snapshot of the collected statistics.
+     */
+    public ConnectionStatistics statistics() {
+        return new ConnectionStatistics(requests.sum(), opened.sum(), active.sum(), closed.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "requests=" + getRequests() + ", connections=" + getOpenedConnections()
+                + ", active=" + getActiveConnections() + ", reused=" + getReusedConnections()
+                + ", closed by server=" + getClosedConnections();
+    }
+}
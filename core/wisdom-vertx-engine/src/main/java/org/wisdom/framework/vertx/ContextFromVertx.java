@@ -62,6 +62,11 @@ public class ContextFromVertx implements Context {
 
 
     private /*not final*/ Route route;
+
+    /**
+     * The timings of the request, {@literal null} if not recorded.
+     */
+    private RequestTimings timings;
     /**
      * the request object, created lazily.
      */
@@ -519,6 +524,9 @@ public class ContextFromVertx implements Context {
      */
     @Override
     public BufferedReader reader() throws IOException {
+        if (request.stream() != null) {
+            return IOUtils.toBufferedReader(new InputStreamReader(request.stream()));
+        }
         byte[] raw = request.getRawBody();
         if (raw != null) {
             return IOUtils.toBufferedReader(new InputStreamReader(new ByteArrayInputStream(raw)));
@@ -548,6 +556,24 @@ public class ContextFromVertx implements Context {
         this.route = route;
     }
 
+    /**
+     * @return the timings of the request, {@literal null} if not recorded
+     */
+    @Override
+    public RequestTimings timings() {
+        return timings;
+    }
+
+    /**
+     * Sets the object recording the timings of the request.
+     * Must only be called by the engine.
+     *
+     * @param timings the timings
+     */
+    public void timings(RequestTimings timings) {
+        this.timings = timings;
+    }
+
     /**
      * Check if request is of type multipart. Important when you want to process
      * uploads for instance.
@@ -593,6 +619,10 @@ public class ContextFromVertx implements Context {
      */
     public void cleanup() {
         request.getFiles().forEach(VertxFileUpload::cleanup);
+        if (request.stream() != null) {
+            // Discard the part of the body that has not been read.
+            request.stream().close();
+        }
     }
 
     /**
@@ -0,0 +1,64 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+/**
+ * Defines where the action methods are invoked.
+ * <p>
+ * The mode is configured globally using the `vertx.dispatch` key, and per server using the `dispatch` key. It can be
+ * overridden per action using the {@link org.wisdom.api.annotations.Blocking} and
+ * {@link org.wisdom.api.annotations.NonBlocking} annotations.
+ */
+public enum DispatchMode {
+
+    /**
+     * The action methods are invoked on the event loop (default). Actions must not block.
+     */
+    EVENT_LOOP,
+
+    /**
+     * The action methods are invoked by a thread of the system executor, the response is then written from the
+     * event loop.
+     */
+    WORKER;
+
+    /**
+     * Parses the given value.
+     *
+     * @param value        the value, such as {@code event-loop} or {@code worker}, may be {@literal null}
+     * @param defaultValue the value returned if the given value is {@literal null}
+     * @return the dispatch mode
+     * @throws IllegalArgumentException if the value is not a valid dispatch mode
+     */
+    public static DispatchMode from(String value, DispatchMode defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        String normalized = value.trim().replace("-", "").replace("_", "");
+        if ("eventloop".equalsIgnoreCase(normalized)) {
+            return EVENT_LOOP;
+        }
+        if ("worker".equalsIgnoreCase(normalized)) {
+            return WORKER;
+        }
+        throw new IllegalArgumentException("Invalid dispatch mode '" + value + "', supported values are " +
+                "'event-loop' and 'worker'");
+    }
+}
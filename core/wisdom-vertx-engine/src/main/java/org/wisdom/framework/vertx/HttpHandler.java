@@ -21,6 +21,7 @@ package org.wisdom.framework.vertx;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -31,7 +32,9 @@ import io.vertx.core.streams.Pump;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.annotations.StreamedBody;
 import org.wisdom.api.bodies.NoHttpBody;
+import org.wisdom.api.bodies.RenderableFile;
 import org.wisdom.api.concurrent.ManagedFutureTask;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.exceptions.HttpException;
@@ -41,10 +44,12 @@ import org.wisdom.framework.vertx.cookies.CookieHelper;
 import org.wisdom.framework.vertx.file.DiskFileUpload;
 import org.wisdom.framework.vertx.file.MixedFileUpload;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -89,7 +94,11 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     @Override
     public void handle(final HttpServerRequest request) {
         LOGGER.debug("A request has arrived on the server : {} {}", request.method(), request.path());
+        server.connectionMetrics().onRequest(request);
         final ContextFromVertx context = new ContextFromVertx(vertx, vertx.getOrCreateContext(), accessor, request);
+        if (!accessor.getTimingListeners().isEmpty()) {
+            context.timings(new RequestTimings());
+        }
 
         if (!server.accept(request.path())) {
             LOGGER.warn("Request on {} denied by {}", request.path(), server.name());
@@ -98,8 +107,15 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                     false,
                     true);
         } else {
-            Buffer raw = Buffer.buffer(0);
             RequestFromVertx req = (RequestFromVertx) context.request();
+            // When the request has a body, the route is needed to know how the body must be read.
+            final Route route = HttpUtils.isPostOrPut(request) ? findRoute(context, req) : null;
+            if (route != null && route.hasStreamedBody()) {
+                dispatchWithStreamedBody(context, req, route);
+                return;
+            }
+
+            Buffer raw = Buffer.buffer(0);
             AtomicBoolean error = new AtomicBoolean();
             if (HttpUtils.isPostOrPut(request)) {
                 request.setExpectMultipart(true);
@@ -149,8 +165,13 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 req.setRawBody(raw);
                 // Notifies the context that the request has been read, we start the dispatching.
                 if (context.ready()) {
-                    // Dispatch.
-                    dispatch(context, (RequestFromVertx) context.request());
+                    begin(context, RequestTimings.Phase.QUEUE);
+                    // Dispatch, reusing the route if already computed.
+                    if (route != null) {
+                        dispatch(context, req, route);
+                    } else {
+                        dispatch(context, req);
+                    }
                 } else {
                     writeResponse(context, req,
                             Results.badRequest("Request processing failed"), false, true);
@@ -159,6 +180,37 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         }
     }
 
+    /**
+     * Dispatches a request whose body is consumed as a stream by the action method. The action is invoked
+     * immediately, and reads the body from {@link RequestFromVertx#stream()} while it is received. As reading blocks,
+     * the action is always invoked from a worker thread.
+     *
+     * @param context the context
+     * @param req     the request
+     * @param route   the route, handled by an action annotated with {@link StreamedBody}
+     */
+    private void dispatchWithStreamedBody(ContextFromVertx context, RequestFromVertx req, Route route) {
+        final HttpServerRequest request = req.getVertxRequest();
+        int bufferSize = accessor.getConfiguration().getIntegerWithDefault("request.body.stream.buffer.size",
+                64 * 1024);
+        final BlockingInputStream stream = new BlockingInputStream(request, vertx.getOrCreateContext(), bufferSize);
+        req.setStream(stream);
+        request.handler(stream::push);
+        request.endHandler(v -> stream.end());
+        request.exceptionHandler(stream::fail);
+        // Unblock the reader if the client goes away.
+        request.response().closeHandler(v -> stream.fail(new IOException("Connection closed by the client")));
+
+        if (context.ready()) {
+            LOGGER.debug("Dispatching {} {} with a streamed body", req.method(), context.path());
+            context.route(route);
+            begin(context, RequestTimings.Phase.QUEUE);
+            dispatchOnWorker(context, req, route);
+        } else {
+            writeResponse(context, req, Results.badRequest("Request processing failed"), false, true);
+        }
+    }
+
     /**
      * The request is now completed, clean everything.
      *
@@ -173,12 +225,67 @@ public class HttpHandler implements Handler<HttpServerRequest> {
     }
 
 
+    /**
+     * Starts measuring the given phase of the request, if its timings are recorded. The previous phase is ended.
+     *
+     * @param context the context
+     * @param phase   the phase
+     */
+    private static void begin(ContextFromVertx context, RequestTimings.Phase phase) {
+        final RequestTimings timings = context.timings();
+        if (timings != null) {
+            timings.begin(phase);
+        }
+    }
+
+    /**
+     * The response has been written, notifies the timing listeners. Requests without route (denied or rejected
+     * before the dispatch) are not reported.
+     *
+     * @param context  the context
+     * @param response the response
+     */
+    private void completed(ContextFromVertx context, HttpServerResponse response) {
+        final RequestTimings timings = context.timings();
+        final Route route = context.route();
+        if (timings == null || route == null) {
+            return;
+        }
+        timings.end();
+        for (RequestTimingListener listener : accessor.getTimingListeners()) {
+            try {
+                listener.onRequestCompleted(route, response.getStatusCode(), timings);
+            } catch (RuntimeException e) {
+                LOGGER.error("The request timing listener {} has thrown an exception", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Looks for the route handling the given request.
+     *
+     * @param context the context
+     * @param request the request
+     * @return the route, may be unbound
+     */
+    private Route findRoute(ContextFromVertx context, RequestFromVertx request) {
+        Context.CONTEXT.set(context);
+        try {
+            return accessor.getRouter().getRouteFor(request.method(), context.path(), request);
+        } finally {
+            Context.CONTEXT.remove();
+        }
+    }
+
     private void dispatch(ContextFromVertx context, RequestFromVertx request) {
+        // 3 Get route for context
+        dispatch(context, request, findRoute(context, request));
+    }
+
+    private void dispatch(ContextFromVertx context, RequestFromVertx request, Route route) {
         LOGGER.debug("Dispatching {} {}", context.request().method(), context.path());
         // 2 Register context
         Context.CONTEXT.set(context);
-        // 3 Get route for context
-        Route route = accessor.getRouter().getRouteFor(context.request().method(), context.path(), request);
         Result result;
 
         if (route == null) {
@@ -189,16 +296,92 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         } else {
             // 3.2 : route found
             context.route(route);
-            result = invoke(route);
+            if (mustBeInvokedOnWorker(route)) {
+                // The action may block, invoke it from a worker thread.
+                dispatchOnWorker(context, request, route);
+                return;
+            }
+
+            result = invoke(context, route);
 
             if (result instanceof AsyncResult) {
                 // Asynchronous operation in progress.
                 handleAsyncResult(context, request, (AsyncResult) result);
                 return;
             }
+            if (result instanceof CompletionStageResult) {
+                // Non-blocking operation in progress.
+                handleCompletionStageResult(context, request, (CompletionStageResult) result);
+                return;
+            }
         }
 
-        // Synchronous processing or not found.
+        writeResult(context, request, result);
+    }
+
+    /**
+     * Checks whether the action method must be invoked by a worker thread instead of the event loop. Annotations on
+     * the method win over annotations on the controller class, which win over the server configuration. The
+     * annotations are resolved once per route (see {@link Route#isBlocking()}).
+     *
+     * @param route the route
+     * @return {@code true} if the action must be invoked on a worker thread
+     */
+    private boolean mustBeInvokedOnWorker(Route route) {
+        if (route.isUnbound()) {
+            return false;
+        }
+        final Boolean blocking = route.isBlocking();
+        if (blocking == null) {
+            return server.dispatchMode() == DispatchMode.WORKER;
+        }
+        return blocking;
+    }
+
+    /**
+     * Invokes the action method from a thread of the system executor. Once computed, the result is written from the
+     * Vert.x context of the request.
+     *
+     * @param context the context
+     * @param request the request
+     * @param route   the route
+     */
+    private void dispatchOnWorker(ContextFromVertx context, RequestFromVertx request, Route route) {
+        final io.vertx.core.Context vertxContext = context.vertxContext();
+        try {
+            accessor.getExecutor().execute(() -> {
+                Context.CONTEXT.set(context);
+                final Result result;
+                try {
+                    result = invoke(context, route);
+                } finally {
+                    Context.CONTEXT.remove();
+                }
+                vertxContext.runOnContext(v -> {
+                    Context.CONTEXT.set(context);
+                    if (result instanceof AsyncResult) {
+                        handleAsyncResult(context, request, (AsyncResult) result);
+                    } else if (result instanceof CompletionStageResult) {
+                        handleCompletionStageResult(context, request, (CompletionStageResult) result);
+                    } else {
+                        writeResult(context, request, result);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.error("Cannot invoke the action handling {} - the executor rejected the task", request.uri(), e);
+            writeResponse(context, request, Results.status(Status.SERVICE_UNAVAILABLE), false, false);
+        }
+    }
+
+    /**
+     * Writes the result of a synchronous processing (or not found).
+     *
+     * @param context the context
+     * @param request the request
+     * @param result  the result
+     */
+    private void writeResult(ContextFromVertx context, RequestFromVertx request, Result result) {
         try {
             writeResponse(context, request, result, true, false);
         } catch (Exception e) {
@@ -211,10 +394,14 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 // Ignore.
             }
         }
-        // If we reach this point, it means we did not write anything... Annoying.
     }
 
-    private Result invoke(Route route) {
+    private Result invoke(ContextFromVertx context, Route route) {
+        // The request is not waiting anymore, the router records the time spent in the filters and the action.
+        final RequestTimings timings = context.timings();
+        if (timings != null) {
+            timings.end();
+        }
         try {
             return route.invoke();
         } catch (Throwable e) { //NOSONAR
@@ -233,45 +420,132 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final ContextFromVertx context,
             final RequestFromVertx request,
             final AsyncResult asyncResult) {
-
+        // The computation of the result is part of the action.
+        begin(context, RequestTimings.Phase.ACTION);
         ManagedFutureTask<Result> future = accessor.getExecutor().submit(asyncResult.callable());
         Futures.addCallback(future, new FutureCallback<Result>() {
             @Override
             public void onSuccess(Result result) {
                 // We got a result, write it here.
-                // Merge the headers of the initial result and the async results.
-                final Map<String, String> headers = result.getHeaders();
-                for (Map.Entry<String, String> header : asyncResult.getHeaders().entrySet()) {
-                    if (!headers.containsKey(header.getKey())) {
-                        headers.put(header.getKey(), header.getValue());
-                    }
-                }
-                writeResponse(context, request, result, true, false);
+                writeAsyncResponse(context, request, asyncResult, result);
             }
 
             @Override
             public void onFailure(Throwable t) {
                 //We got a failure, handle it here
+                writeFailure(context, request, t);
+            }
+        }/*, MoreExecutors.directExecutor()*/);
+        //TODO Which executor should we use here ?
+    }
 
-                // Check whether it's a HTTPException
-                if (t instanceof HttpException) {
-                    writeResponse(context, request, ((HttpException) t).toResult(), false, false);
-                    return;
+    /**
+     * Waits for the completion of the stage computing the result, without holding a thread. The response is written
+     * from the Vert.x context of the request once the stage completes. The stage is cancelled when the client closes
+     * the connection before the completion, or when the timeout is reached (a {@literal 504 - GATEWAY TIMEOUT} is
+     * sent in this case). Only the first of these events is taken into account.
+     *
+     * @param context the context
+     * @param request the request
+     * @param result  the result wrapping the stage
+     */
+    private void handleCompletionStageResult(
+            final ContextFromVertx context,
+            final RequestFromVertx request,
+            final CompletionStageResult result) {
+        final io.vertx.core.Context vertxContext = context.vertxContext();
+        final AtomicBoolean done = new AtomicBoolean();
+        // The completion of the stage is part of the action.
+        begin(context, RequestTimings.Phase.ACTION);
+
+        final long timer;
+        if (result.timeout() > 0) {
+            timer = vertx.setTimer(result.timeout(), id -> {
+                if (done.compareAndSet(false, true)) {
+                    LOGGER.warn("The result of {} {} has not been computed in {} ms", request.method(), request.uri(),
+                            result.timeout());
+                    result.cancel();
+                    Context.CONTEXT.set(context);
+                    writeResult(context, request, Results.status(Status.GATEWAY_TIMEOUT));
                 }
+            });
+        } else {
+            timer = -1;
+        }
 
-                // Check if we have a mapper
-                if (t instanceof Exception) {
-                    ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
-                    if (mapper != null) {
-                        writeResponse(context, request, mapper.toResult((Exception) t), false, false);
-                        return;
-                    }
-                }
+        request.getVertxRequest().response().closeHandler(v -> {
+            if (done.compareAndSet(false, true)) {
+                LOGGER.debug("Connection closed before the completion of {} {}", request.method(), request.uri());
+                vertx.cancelTimer(timer);
+                result.cancel();
+                cleanup(context);
+            }
+        });
 
-                writeResponse(context, request, Results.internalServerError(t), false, false);
+        result.stage().whenComplete((computed, failure) -> vertxContext.runOnContext(v -> {
+            if (!done.compareAndSet(false, true)) {
+                // Timeout or connection closed, the response is already handled.
+                return;
             }
-        }/*, MoreExecutors.directExecutor()*/);
-        //TODO Which executor should we use here ?
+            vertx.cancelTimer(timer);
+            Context.CONTEXT.set(context);
+            if (failure != null) {
+                writeFailure(context, request, failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            } else if (computed == null) {
+                writeFailure(context, request, new IllegalStateException("The completion stage has computed a null " +
+                        "result"));
+            } else {
+                writeAsyncResponse(context, request, result, computed);
+            }
+        }));
+    }
+
+    /**
+     * Writes the result computed asynchronously. The headers set on the initial result and not on the computed
+     * result are added to the response.
+     *
+     * @param context the context
+     * @param request the request
+     * @param initial the result returned by the action method
+     * @param result  the computed result
+     */
+    private void writeAsyncResponse(ContextFromVertx context, RequestFromVertx request, Result initial,
+                                    Result result) {
+        // Merge the headers of the initial result and the async results.
+        final Map<String, String> headers = result.getHeaders();
+        for (Map.Entry<String, String> header : initial.getHeaders().entrySet()) {
+            if (!headers.containsKey(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        writeResponse(context, request, result, true, false);
+    }
+
+    /**
+     * Writes the response for a failed asynchronous computation.
+     *
+     * @param context the context
+     * @param request the request
+     * @param t       the failure
+     */
+    private void writeFailure(ContextFromVertx context, RequestFromVertx request, Throwable t) {
+        // Check whether it's a HTTPException
+        if (t instanceof HttpException) {
+            writeResponse(context, request, ((HttpException) t).toResult(), false, false);
+            return;
+        }
+
+        // Check if we have a mapper
+        if (t instanceof Exception) {
+            ExceptionMapper mapper = accessor.getExceptionMapper((Exception) t);
+            if (mapper != null) {
+                writeResponse(context, request, mapper.toResult((Exception) t), false, false);
+                return;
+            }
+        }
+
+        writeResponse(context, request, Results.internalServerError(t), false, false);
     }
 
     private void writeResponse(
@@ -280,21 +554,33 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             Result result,
             boolean handleFlashAndSessionCookie,
             boolean closeConnection) {
+        begin(context, RequestTimings.Phase.SERIALIZATION);
         //Retrieve the renderable object.
         Renderable<?> renderable = result.getRenderable();
         if (renderable == null) {
             renderable = NoHttpBody.INSTANCE;
         }
 
-        InputStream stream;
+        InputStream stream = null;
+        Buffer content = null;
         boolean success = true;
-        try {
-            // Process the result, and apply serialization if required.
-            stream = HttpUtils.processResult(accessor, context, renderable, result);
-        } catch (Exception e) {
-            LOGGER.error("Cannot render the response to " + request.uri(), e);
-            stream = new ByteArrayInputStream(NoHttpBody.empty());
-            success = false;
+        // Files are sent directly by the server, there is nothing to render.
+        if (getFileToSend(renderable) == null) {
+            try {
+                // Process the result, and apply serialization if required.
+                Renderable<?> processed = HttpUtils.serialize(accessor, context, renderable, result);
+                if (!processed.mustBeChunked() && processed instanceof InMemoryRenderable) {
+                    // The content is already in memory, wrap it without copy.
+                    content = Buffer.buffer(Unpooled.wrappedBuffer(
+                            ((InMemoryRenderable<?>) processed).renderToBytes(context, result)));
+                } else {
+                    stream = processed.render(context, result);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Cannot render the response to " + request.uri(), e);
+                content = Buffer.buffer(NoHttpBody.empty());
+                success = false;
+            }
         }
 
         // If the content is too big or too small, disable encoding.
@@ -313,7 +599,7 @@ public class HttpHandler implements Handler<HttpServerRequest> {
         }
 
         finalizeWriteReponse(context, request.getVertxRequest(),
-                result, stream, success, handleFlashAndSessionCookie, closeConnection);
+                result, stream, content, success, handleFlashAndSessionCookie, closeConnection);
     }
 
     /**
@@ -322,7 +608,10 @@ public class HttpHandler implements Handler<HttpServerRequest> {
      * @param context                     the HTTP context
      * @param request                     the Vert.x request
      * @param result                      the computed result
-     * @param stream                      the stream of the result
+     * @param stream                      the stream of the result, {@literal null} if the content is given as a buffer
+     *                                    or if the result is a file
+     * @param content                     the content of the result, {@literal null} if the content is given as a
+     *                                    stream or if the result is a file
      * @param success                     a flag indicating whether or not the request was successfully handled
      * @param handleFlashAndSessionCookie if the flash and session cookie need to be send with the response
      * @param closeConnection             whehter or not the (underlying) TCP connection must be closed
@@ -332,16 +621,17 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             final HttpServerRequest request,
             Result result,
             InputStream stream,
+            Buffer content,
             boolean success,
             boolean handleFlashAndSessionCookie,
             boolean closeConnection) {
-
+        begin(context, RequestTimings.Phase.WRITE);
         Renderable<?> renderable = result.getRenderable();
         if (renderable == null) {
             renderable = NoHttpBody.INSTANCE;
         }
         // Decide whether to close the connection or not.
-        boolean keepAlive = HttpUtils.isKeepAlive(request);
+        final boolean close = closeConnection || !HttpUtils.isKeepAlive(request);
 
         // Build the response object.
         final HttpServerResponse response = request.response();
@@ -380,7 +670,25 @@ public class HttpHandler implements Handler<HttpServerRequest> {
             response.headers().add(HeaderNames.SET_COOKIE, encoded);
         }
         response.setStatusCode(HttpUtils.getStatusFromResult(result, success));
-        if (renderable.mustBeChunked()) {
+
+        // Add the connection header as per:
+        // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
+        response.putHeader(HeaderNames.CONNECTION, close ? HttpUtils.CLOSE : HttpUtils.KEEP_ALIVE);
+        final File file = getFileToSend(renderable);
+        if (file != null && content == null) {
+            LOGGER.debug("Sending file {} for {} {} ({})", file, request.method(), request.uri(), context);
+            // The file is sent without being copied in user space if the connection allows it.
+            response.sendFile(file.getAbsolutePath(), ar -> {
+                if (ar.failed()) {
+                    LOGGER.error("Cannot send the file {}", file.getAbsolutePath(), ar.cause());
+                    closeConnection(request);
+                } else if (close) {
+                    closeConnection(request);
+                }
+                completed(context, response);
+                cleanup(context);
+            });
+        } else if (renderable.mustBeChunked() && content == null) {
             LOGGER.debug("Building the chunked response for {} {} ({})", request.method(), request.uri(), context);
             if (renderable.length() > 0 && !response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
                 response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(renderable.length()));
@@ -391,60 +699,89 @@ public class HttpHandler implements Handler<HttpServerRequest> {
                 response.putHeader(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
             }
 
-            // Can't determine the size, so switch to chunked.
-            response.setChunked(true);
-            response.putHeader(HeaderNames.TRANSFER_ENCODING, "chunked");
-            // In addition, we can't keep the connection open.
-            response.putHeader(HeaderNames.CONNECTION, "close");
+            if (!response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
+                // Can't determine the size, so switch to chunked. The last chunk delimits the end of the response,
+                // so the connection can be kept open.
+                response.setChunked(true);
+            }
 
+            // The pump pauses the stream when the write queue of the connection is full.
             final AsyncInputStream s = new AsyncInputStream(vertx, accessor.getExecutor(), stream);
             s.setContext(context.vertxContext());
             final Pump pump = Pump.pump(s, response);
             s.endHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.debug("Ending chunked response for {}", request.uri());
                         response.end();
-                        response.close();
+                        if (close) {
+                            closeConnection(request);
+                        }
+                        completed(context, response);
                         cleanup(context);
                     })
             );
             s.exceptionHandler(event -> context.vertxContext().runOnContext(event1 -> {
                         LOGGER.error("Cannot read the result stream", event1);
-                        response.close();
+                        // The response is incomplete, the connection cannot be reused.
+                        closeConnection(request);
+                        completed(context, response);
                         cleanup(context);
                     })
             );
             context.vertxContext().runOnContext(event -> pump.start());
 
         } else {
-            byte[] cont = new byte[0];
-            try {
-                cont = IOUtils.toByteArray(stream);
-            } catch (IOException e) {
-                LOGGER.error("Cannot copy the response to {}", request.uri(), e);
+            if (content == null) {
+                byte[] cont = NoHttpBody.empty();
+                try {
+                    cont = IOUtils.toByteArray(stream);
+                } catch (IOException e) {
+                    LOGGER.error("Cannot copy the response to {}", request.uri(), e);
+                }
+                content = Buffer.buffer(Unpooled.wrappedBuffer(cont));
             }
 
             if (!response.headers().contains(HeaderNames.CONTENT_LENGTH)) {
                 // Because of the HEAD implementation, if the length is already set, do not update it.
                 // (HEAD would mean no content)
-                response.putHeader(HeaderNames.CONTENT_LENGTH, Long.toString(cont.length));
+                response.putHeader(HeaderNames.CONTENT_LENGTH, Integer.toString(content.length()));
             }
 
-            if (keepAlive) {
-                // Add keep alive header as per:
-                // - http://www.w3.org/Protocols/HTTP/1.1/draft-ietf-http-v11-spec-01.html#Connection
-                response.putHeader(HeaderNames.CONNECTION, "keep-alive");
-            }
-            response.write(Buffer.buffer(cont));
-            if (HttpUtils.isKeepAlive(request) && !closeConnection) {
-                response.end();
-            } else {
-                response.end();
-                response.close();
+            response.end(content);
+            if (close) {
+                closeConnection(request);
             }
+            completed(context, response);
             cleanup(context);
         }
     }
 
+    /**
+     * Closes the connection used by the given request.
+     *
+     * @param request the request
+     */
+    private void closeConnection(HttpServerRequest request) {
+        server.connectionMetrics().onClose(request);
+        request.response().close();
+    }
+
+    /**
+     * Gets the file to send directly for the given renderable.
+     *
+     * @param renderable the renderable
+     * @return the file if the renderable is a {@link RenderableFile} serving an existing file, {@literal null}
+     * otherwise
+     */
+    private static File getFileToSend(Renderable<?> renderable) {
+        if (renderable instanceof RenderableFile) {
+            File file = ((RenderableFile) renderable).content();
+            if (file != null && file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
     private boolean shouldEncodingBeDisabledForResponse(long length, Result result) {
         return server.hasCompressionEnabled()
                 && (
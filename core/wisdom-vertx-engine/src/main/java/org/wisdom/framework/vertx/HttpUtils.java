@@ -90,6 +90,22 @@ public class HttpUtils {
      */
     public static InputStream processResult(ServiceAccessor accessor, Context context, Renderable renderable,
                                             Result result) throws Exception {
+        return serialize(accessor, context, renderable, result).render(context, result);
+    }
+
+    /**
+     * Applies the serialization required by the given renderable if any. The returned renderable is ready to be
+     * rendered. It is generally the given renderable, but may be {@link NoHttpBody#INSTANCE} if there are no
+     * serializer for the renderable and the renderable has no content.
+     *
+     * @param accessor   the service accessor
+     * @param context    the current HTTP context
+     * @param renderable the renderable object
+     * @param result     the computed result
+     * @return the renderable to render
+     */
+    public static Renderable<?> serialize(ServiceAccessor accessor, Context context, Renderable renderable,
+                                          Result result) {
         if (renderable.requireSerializer()) {
             ContentSerializer serializer = null;
             if (result.getContentType() != null) {
@@ -122,7 +138,7 @@ public class HttpUtils {
                 }
             }
         }
-        return renderable.render(context, result);
+        return renderable;
     }
 
     /**
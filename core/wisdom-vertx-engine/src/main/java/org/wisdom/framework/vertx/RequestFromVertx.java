@@ -58,6 +58,11 @@ public class RequestFromVertx extends Request {
      */
     private Buffer raw = Buffer.factory.buffer(0);
 
+    /**
+     * The stream to read the body, when the body is streamed.
+     */
+    private BlockingInputStream stream;
+
     /**
      * The map used to store data shared in the request scope.
      */
@@ -594,4 +599,18 @@ public class RequestFromVertx extends Request {
     protected void setRawBody(Buffer raw) {
         this.raw = raw;
     }
+
+    /**
+     * Gets the stream to read the request body, when the invoked action consumes the body as a stream.
+     *
+     * @return the stream, {@literal null} if the body is not streamed
+     */
+    @Override
+    public BlockingInputStream stream() {
+        return stream;
+    }
+
+    protected void setStream(BlockingInputStream stream) {
+        this.stream = stream;
+    }
 }
@@ -36,6 +36,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -82,9 +84,27 @@ public class Server {
     private final ApplicationConfiguration configuration;
 
     /**
-     * The listened port, updated once the server is bound (that's why the field is not final).
+     * The listened port, updated once the server is bound (that's why the field is not final). The field is volatile
+     * as the server instances are bound from different event loops.
      */
-    private int port;
+    private volatile int port;
+
+    /**
+     * The number of verticle instances serving the requests for this server. Each instance has its own event loop
+     * and shares the listening socket with the other instances.
+     */
+    private final int instances;
+
+    /**
+     * Where the action methods are invoked.
+     */
+    private final DispatchMode dispatch;
+
+    /**
+     * The number of instances already bound (or being bound). This is also the reference count of the instances
+     * that are not closed yet.
+     */
+    private final AtomicInteger bound = new AtomicInteger();
 
     /**
      * whether or not SSL is enabled.
@@ -113,11 +133,20 @@ public class Server {
     private String onDenied;
 
     /**
-     * The HTTP server.
+     * The HTTP servers, one per bound instance.
      */
-    private HttpServer http;
+    private final List<HttpServer> http = new CopyOnWriteArrayList<>();
 
-    private Context context;
+    /**
+     * The statistics about the reuse of the connections.
+     */
+    private final ConnectionMetrics connections = new ConnectionMetrics();
+
+    /**
+     * The configuration of the server, overriding the `vertx.*` transport settings. {@literal null} for the default
+     * servers.
+     */
+    private final Configuration settings;
 
     /**
      * Creates the default HTTP server (listening on port 9000 / `http.port`), no SSL, no mutual authentication,
@@ -135,7 +164,9 @@ public class Server {
                 accessor.getConfiguration().getIntegerWithDefault("http.port", 9000),
                 false, false,
                 null,
-                Collections.<String>emptyList(), Collections.<String>emptyList(), null);
+                Collections.<String>emptyList(), Collections.<String>emptyList(), null,
+                defaultNumberOfInstances(accessor.getConfiguration()),
+                defaultDispatchMode(accessor.getConfiguration()));
     }
 
     /**
@@ -154,7 +185,9 @@ public class Server {
                 accessor.getConfiguration().getIntegerWithDefault("https.port", 9001),
                 true, false,
                 null,
-                Collections.<String>emptyList(), Collections.<String>emptyList(), null);
+                Collections.<String>emptyList(), Collections.<String>emptyList(), null,
+                defaultNumberOfInstances(accessor.getConfiguration()),
+                defaultDispatchMode(accessor.getConfiguration()));
     }
 
     /**
@@ -180,10 +213,36 @@ public class Server {
                 configuration.get("host"),
                 configuration.getList("allow"),
                 configuration.getList("deny"),
-                configuration.get("onDenied")
+                configuration.get("onDenied"),
+                configuration.getIntegerWithDefault("instances",
+                        defaultNumberOfInstances(accessor.getConfiguration())),
+                DispatchMode.from(configuration.get("dispatch"), defaultDispatchMode(accessor.getConfiguration())),
+                configuration
         );
     }
 
+    /**
+     * Gets the default dispatch mode, configured using the `vertx.dispatch` key. By default, actions are invoked on
+     * the event loop.
+     *
+     * @param configuration the application configuration
+     * @return the default dispatch mode
+     */
+    public static DispatchMode defaultDispatchMode(ApplicationConfiguration configuration) {
+        return DispatchMode.from(configuration.get("vertx.dispatch"), DispatchMode.EVENT_LOOP);
+    }
+
+    /**
+     * Gets the default number of instances, configured using the `vertx.instances` key. By default, one instance per
+     * core is used.
+     *
+     * @param configuration the application configuration
+     * @return the default number of instances
+     */
+    public static int defaultNumberOfInstances(ApplicationConfiguration configuration) {
+        return configuration.getIntegerWithDefault("vertx.instances", Runtime.getRuntime().availableProcessors());
+    }
+
     /**
      * Creates a new server.
      *
@@ -204,9 +263,76 @@ public class Server {
                   boolean ssl, boolean authentication,
                   String host,
                   List<String> allow, List<String> deny, String onDenied) {
+        this(accessor, vertx, name, port, ssl, authentication, host, allow, deny, onDenied, 1,
+                DispatchMode.EVENT_LOOP);
+    }
+
+    /**
+     * Creates a new server.
+     *
+     * @param accessor       the service accessor
+     * @param vertx          the vertx singleton
+     * @param name           the server name
+     * @param port           the port
+     * @param ssl            whether or not SSL is enabled
+     * @param host           the listened interface
+     * @param allow          the set of path with wildcards accepted by the server
+     * @param deny           the set of path with wildcards rejected by the server
+     * @param authentication whether or not mutual authentication is enabled
+     * @param onDenied       the redirection URL if a request is denied by the server
+     * @param instances      the number of instances (event loops) serving the requests, values lower than 1 are
+     *                       replaced by 1
+     * @param dispatch       where the action methods are invoked, {@link DispatchMode#EVENT_LOOP} if
+     *                       {@literal null}
+     */
+    public Server(ServiceAccessor accessor,
+                  Vertx vertx,
+                  String name, int port,
+                  boolean ssl, boolean authentication,
+                  String host,
+                  List<String> allow, List<String> deny, String onDenied,
+                  int instances, DispatchMode dispatch) {
+        this(accessor, vertx, name, port, ssl, authentication, host, allow, deny, onDenied, instances, dispatch,
+                null);
+    }
+
+    /**
+     * Creates a new server.
+     *
+     * @param accessor       the service accessor
+     * @param vertx          the vertx singleton
+     * @param name           the server name
+     * @param port           the port
+     * @param ssl            whether or not SSL is enabled
+     * @param host           the listened interface
+     * @param allow          the set of path with wildcards accepted by the server
+     * @param deny           the set of path with wildcards rejected by the server
+     * @param authentication whether or not mutual authentication is enabled
+     * @param onDenied       the redirection URL if a request is denied by the server
+     * @param instances      the number of instances (event loops) serving the requests, values lower than 1 are
+     *                       replaced by 1
+     * @param dispatch       where the action methods are invoked, {@link DispatchMode#EVENT_LOOP} if
+     *                       {@literal null}
+     * @param settings       the configuration of the server overriding the `vertx.*` transport settings,
+     *                       {@literal null} to only use the application configuration
+     * @throws IllegalArgumentException if the settings enable HTTP/2, which is not supported
+     */
+    public Server(ServiceAccessor accessor,
+                  Vertx vertx,
+                  String name, int port,
+                  boolean ssl, boolean authentication,
+                  String host,
+                  List<String> allow, List<String> deny, String onDenied,
+                  int instances, DispatchMode dispatch,
+                  Configuration settings) {
         Preconditions.checkNotNull(accessor);
         Preconditions.checkNotNull(vertx);
         Preconditions.checkNotNull(name);
+        if (settings != null
+                && (settings.getBooleanWithDefault("http2", false) || settings.getBooleanWithDefault("h2c", false))) {
+            throw new IllegalArgumentException("Cannot create the server '" + name + "': HTTP/2 ('http2' and 'h2c') "
+                    + "is not supported by the embedded Vert.x version, only HTTP/1.1 can be served");
+        }
         this.accessor = accessor;
         this.configuration = accessor.getConfiguration();
         this.vertx = vertx;
@@ -221,6 +347,8 @@ public class Server {
         this.port = port;
         this.ssl = ssl;
         this.authentication = authentication;
+        this.instances = Math.max(1, instances);
+        this.dispatch = dispatch == null ? DispatchMode.EVENT_LOOP : dispatch;
 
         List<Pattern> allowedPatterns = new ArrayList<>();
         List<Pattern> deniedPatterns = new ArrayList<>();
@@ -236,6 +364,7 @@ public class Server {
         this.allow = allowedPatterns;
         this.deny = deniedPatterns;
         this.onDenied = onDenied;
+        this.settings = settings;
 
         this.logger = LoggerFactory.getLogger("server-" + name);
     }
@@ -243,14 +372,40 @@ public class Server {
     /**
      * Starts the server. The server is going to try to listen on the given host / port. Startup is asynchronous. You
      * can pull {@link #port()} to know when the server has successfully be bound (in case of a random port).
+     * <p>
+     * This method is called once per instance, from the instance's context. All instances share the same listening
+     * socket, so the connections are distributed among the event loops. When a random port is used, the first
+     * instance must be bound before the others.
+     * <p>
+     * On success, the completion handler receives the {@link HttpServer} created for the calling instance. This
+     * server must be passed to {@link #close(HttpServer, Handler)} when the instance stops. On failure, the instance
+     * slot reserved using {@link #reserveInstance()} is released.
+     *
+     * @param completion the completion handler
      */
-    public void bind(Handler<AsyncResult<Void>> completion) {
+    public void bind(Handler<AsyncResult<HttpServer>> completion) {
         logger.info("Starting server {}", name);
-        context = vertx.getOrCreateContext();
         bind(port, completion);
     }
 
-    private void bind(int p, Handler<AsyncResult<Void>> completion) {
+    /**
+     * Reserves an instance slot for the calling verticle.
+     *
+     * @return {@code true} if the verticle must bind the server, {@code false} if enough instances are already
+     * bound.
+     */
+    public boolean reserveInstance() {
+        int current;
+        do {
+            current = bound.get();
+            if (current >= instances) {
+                return false;
+            }
+        } while (!bound.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void bind(int p, Handler<AsyncResult<HttpServer>> completion) {
         // Get port number.
         final int thePort = pickAPort(port);
         HttpServerOptions options = new HttpServerOptions();
@@ -267,11 +422,13 @@ public class Server {
             options.setCompressionSupported(true);
         }
 
-        if (configuration.getIntegerWithDefault("vertx.acceptBacklog", -1) != -1) {
-            options.setAcceptBacklog(configuration.getInteger("vertx.acceptBacklog"));
+        int value = getIntegerSetting("acceptBacklog");
+        if (value != -1) {
+            options.setAcceptBacklog(value);
         }
-        if (configuration.getIntegerWithDefault("vertx.maxWebSocketFrameSize", -1) != -1) {
-            options.setMaxWebsocketFrameSize(configuration.getInteger("vertx.maxWebSocketFrameSize"));
+        value = getIntegerSetting("maxWebSocketFrameSize");
+        if (value != -1) {
+            options.setMaxWebsocketFrameSize(value);
         }
         if (configuration.getStringArray("wisdom.websocket.subprotocols").length > 0) {
             options.setWebsocketSubProtocols(configuration.get("wisdom.websocket.subprotocols"));
@@ -279,32 +436,58 @@ public class Server {
         if (configuration.getStringArray("vertx.websocket-subprotocols").length > 0) {
             options.setWebsocketSubProtocols(configuration.get("vertx.websocket-subprotocols"));
         }
-        if (configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1) != -1) {
-            options.setReceiveBufferSize(configuration.getInteger("vertx.receiveBufferSize"));
+        value = getIntegerSetting("receiveBufferSize");
+        if (value != -1) {
+            options.setReceiveBufferSize(value);
         }
-        if (configuration.getIntegerWithDefault("vertx.sendBufferSize", -1) != -1) {
-            options.setSendBufferSize(configuration.getInteger("vertx.sendBufferSize"));
+        value = getIntegerSetting("sendBufferSize");
+        if (value != -1) {
+            options.setSendBufferSize(value);
+        }
+        value = getIntegerSetting("idleTimeout");
+        if (value > 0) {
+            // Idle persistent connections are closed after this delay (in seconds).
+            options.setIdleTimeout(value);
         }
 
-        http = vertx.createHttpServer(options)
+        HttpServer server = vertx.createHttpServer(options)
                 .requestHandler(new HttpHandler(vertx, accessor, this))
                 .websocketHandler(new WebSocketHandler(accessor, this));
+        http.add(server);
 
-        http.listen(thePort, host, event -> {
+        server.listen(thePort, host, event -> {
             if (event.succeeded()) {
                 logger.info("Wisdom is going to serve HTTP requests on port {}.", thePort);
                 port = thePort;
-                completion.handle(Future.succeededFuture());
+                completion.handle(Future.succeededFuture(server));
             } else if (port == 0) {
                 logger.debug("Cannot bind on port {} (port already used probably)", thePort, event.cause());
+                http.remove(server);
                 bind(0, completion);
             } else {
                 logger.error("Cannot bind on port {} (port already used probably)", thePort, event.cause());
+                http.remove(server);
+                bound.decrementAndGet();
                 completion.handle(Future.failedFuture("Cannot bind on port " + thePort));
             }
         });
     }
 
+    /**
+     * Gets the value of a transport setting. The value set in the server configuration is used if any, otherwise
+     * the value of the `vertx.` + key key from the application configuration is returned.
+     *
+     * @param key the key
+     * @return the value, {@literal -1} if not set
+     */
+    private int getIntegerSetting(String key) {
+        Integer value = configuration.getIntegerWithDefault("vertx." + key, -1);
+        if (settings != null) {
+            value = settings.getIntegerWithDefault(key, value);
+        }
+        return value == null ? -1 : value;
+    }
+
     /**
      * Checks whether the given path is accepted or rejected by the current server.
      *
@@ -360,20 +543,24 @@ public class Server {
     }
 
     /**
-     * Stops / Closes the server.
+     * Stops / Closes the instance of the server bound by the calling verticle. Only the given {@link HttpServer} is
+     * closed, the other instances keep serving the requests. Once the last instance is closed, the server can be
+     * bound again.
+     *
+     * @param server     the server created for the calling instance (given to the {@link #bind(Handler)}
+     *                   completion handler)
+     * @param completion the completion handler
      */
-    public void close(Handler<AsyncResult<Void>> completion) {
-        if (context == null) {
-            context = vertx.getOrCreateContext();
+    public void close(HttpServer server, Handler<AsyncResult<Void>> completion) {
+        if (server == null || !http.remove(server)) {
+            completion.handle(Future.<Void>succeededFuture());
+            return;
         }
-
-        context.runOnContext(v -> {
-            if (http != null) {
-                http.close(event -> {
-                    logger.info("The server '{}' has been stopped (bound port: {})", name, port);
-                    completion.handle(Future.<Void>succeededFuture());
-                });
+        server.close(event -> {
+            if (bound.decrementAndGet() == 0) {
+                logger.info("The server '{}' has been stopped (bound port: {}, {})", name, port, connections);
             }
+            completion.handle(Future.<Void>succeededFuture());
         });
     }
 
@@ -386,6 +573,33 @@ public class Server {
         return ssl;
     }
 
+    /**
+     * Gets the number of instances (event loops) serving the requests received by this server.
+     *
+     * @return the number of instances, at least 1
+     */
+    public int instances() {
+        return instances;
+    }
+
+    /**
+     * Gets where the action methods handling the requests received by this server are invoked.
+     *
+     * @return the dispatch mode
+     */
+    public DispatchMode dispatchMode() {
+        return dispatch;
+    }
+
+    /**
+     * Gets the statistics about the reuse of the connections accepted by this server.
+     *
+     * @return the connection metrics
+     */
+    public ConnectionMetrics connectionMetrics() {
+        return connections;
+    }
+
     /**
      * Gets the port listen by the server.
      *
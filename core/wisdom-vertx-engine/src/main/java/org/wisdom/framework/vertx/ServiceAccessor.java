@@ -24,9 +24,11 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.RequestTimingListener;
 import org.wisdom.api.router.Router;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * A structure to access services.
@@ -40,10 +42,18 @@ public class ServiceAccessor {
     private final ManagedExecutorService executor;
     private final WisdomVertxServer dispatcher;
     private final Collection<ExceptionMapper> mappers;
+    private final Collection<RequestTimingListener> timingListeners;
 
     public ServiceAccessor(Crypto crypto, ApplicationConfiguration configuration, Router router,
                            ContentEngine engine, ManagedExecutorService executor, WisdomVertxServer dispatcher,
                            Collection<ExceptionMapper> mappers) {
+        this(crypto, configuration, router, engine, executor, dispatcher, mappers,
+                Collections.<RequestTimingListener>emptyList());
+    }
+
+    public ServiceAccessor(Crypto crypto, ApplicationConfiguration configuration, Router router,
+                           ContentEngine engine, ManagedExecutorService executor, WisdomVertxServer dispatcher,
+                           Collection<ExceptionMapper> mappers, Collection<RequestTimingListener> timingListeners) {
         this.crypto = crypto;
         this.configuration = configuration;
         this.router = router;
@@ -51,6 +61,7 @@ public class ServiceAccessor {
         this.executor = executor;
         this.dispatcher = dispatcher;
         this.mappers = mappers;
+        this.timingListeners = timingListeners;
     }
 
     public Crypto getCrypto() {
@@ -77,6 +88,16 @@ public class ServiceAccessor {
         return dispatcher;
     }
 
+    /**
+     * @return the listeners notified of the timings of the requests, empty if none
+     */
+    public Collection<RequestTimingListener> getTimingListeners() {
+        if (timingListeners == null) {
+            return Collections.emptyList();
+        }
+        return timingListeners;
+    }
+
     public ExceptionMapper getExceptionMapper(Exception t) {
         for (ExceptionMapper mapper : mappers) {
             if (mapper.getExceptionClass().getName().equals(t.getClass().getName())) {
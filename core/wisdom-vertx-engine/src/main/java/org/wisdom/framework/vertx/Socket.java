@@ -20,9 +20,17 @@
 package org.wisdom.framework.vertx;
 
 
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
-import io.vertx.core.eventbus.EventBus;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.impl.FrameType;
+import io.vertx.core.http.impl.ws.WebSocketFrameImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
 
 /**
  * A class abstracting the differences between the WebSocket API and the SockJs API.
@@ -30,28 +38,77 @@ import io.vertx.core.http.ServerWebSocket;
  */
 public class Socket {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Socket.class);
+
+    /**
+     * What to do when a message is sent to a client that does not read the previous ones fast enough (the write
+     * queue of the socket is full).
+     */
+    public enum SlowConsumerPolicy {
+        /**
+         * The message is not sent to this client.
+         */
+        DROP,
+        /**
+         * The socket is closed.
+         */
+        DISCONNECT;
+
+        /**
+         * Gets the policy from its (case-insensitive) name.
+         *
+         * @param value        the name, may be {@literal null}
+         * @param defaultValue the policy returned if the value is {@literal null} or empty
+         * @return the policy
+         * @throws IllegalArgumentException if the value is not a valid policy name
+         */
+        public static SlowConsumerPolicy from(String value, SlowConsumerPolicy defaultValue) {
+            if (value == null || value.trim().isEmpty()) {
+                return defaultValue;
+            }
+            return valueOf(value.trim().toUpperCase());
+        }
+    }
+
     /**
      * The underlying socket, a {@link ServerWebSocket} instance.
      */
     private final ServerWebSocket delegate;
 
+    /**
+     * The context (event loop) owning the socket. All the writes are made from this context. {@literal null} if the
+     * socket was not created from a Vert.x context, writes are then made from the caller thread.
+     */
+    private final Context context;
+
+    /**
+     * What to do when the write queue of the socket is full.
+     */
+    private final SlowConsumerPolicy policy;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
-     * a {@link ServerWebSocket} instance.
+     * a {@link ServerWebSocket} instance. The socket is owned by the current Vert.x context (if any), and messages
+     * are dropped if the client is too slow.
      *
      * @param delegate the delegate
      */
     public Socket(ServerWebSocket delegate) {
-        this.delegate = delegate;
-    }
-
-
-    private String getWriteHandlerId() {
-        return delegate.textHandlerID();
+        this(delegate, Vertx.currentContext(), SlowConsumerPolicy.DROP);
     }
 
-    private String getBinaryWriteHandlerId() {
-        return delegate.binaryHandlerID();
+    /**
+     * Creates an instance of {@link org.wisdom.framework.vertx.Socket} delegating to
+     * a {@link ServerWebSocket} instance.
+     *
+     * @param delegate the delegate
+     * @param context  the context owning the socket
+     * @param policy   what to do when the client does not read the messages fast enough
+     */
+    public Socket(ServerWebSocket delegate, Context context, SlowConsumerPolicy policy) {
+        this.delegate = delegate;
+        this.context = context;
+        this.policy = policy;
     }
 
     @Override
@@ -77,22 +134,64 @@ public class Socket {
     }
 
     /**
-     * Sends a text frame on the socket.
+     * @return the context owning the socket, {@literal null} if none.
+     */
+    public Context context() {
+        return context;
+    }
+
+    /**
+     * Encodes a text message. The returned buffer can be written to several sockets.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @return the frame payload
      */
-    public void publish(String message, EventBus bus) {
-        bus.publish(getWriteHandlerId(), message);
+    public static Buffer encode(String message) {
+        return encode(message.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
-     * Sends a binary frame on the socket.
+     * Wraps a binary message. The returned buffer can be written to several sockets.
      *
      * @param message the message
-     * @param bus     the Vert.x event bus.
+     * @return the frame payload
+     */
+    public static Buffer encode(byte[] message) {
+        // Buffers created from a byte buffer are not released once written, so they can be shared.
+        return Buffer.buffer(Unpooled.wrappedBuffer(message));
+    }
+
+    /**
+     * Sends a frame on the socket. This method must be called from the context owning the socket.
+     *
+     * @param payload the payload created by {@link #encode(String)} or {@link #encode(byte[])}
+     * @param text    whether the payload is sent in a text or in a binary frame
+     * @return {@code true} if the frame was written, {@code false} if it was dropped (socket closed or slow client)
      */
-    public void publish(byte[] message, EventBus bus) {
-        bus.publish(getBinaryWriteHandlerId(), Buffer.buffer(message));
+    public boolean write(Buffer payload, boolean text) {
+        if (delegate.writeQueueFull()) {
+            if (policy == SlowConsumerPolicy.DISCONNECT) {
+                LOGGER.warn("Closing the web socket {} - the client does not read the messages fast enough",
+                        path());
+                delegate.close();
+            } else {
+                LOGGER.debug("Dropping a message sent to {} - the client does not read the messages fast enough",
+                        path());
+            }
+            return false;
+        }
+        try {
+            if (text) {
+                // getByteBuf returns a duplicate, so the payload can be shared among sockets.
+                delegate.writeFrame(new WebSocketFrameImpl(FrameType.TEXT, payload.getByteBuf(), true));
+            } else {
+                delegate.writeFinalBinaryFrame(payload);
+            }
+            return true;
+        } catch (IllegalStateException e) {
+            // The socket has been closed concurrently.
+            LOGGER.debug("Cannot write on the web socket {}", path(), e);
+            return false;
+        }
     }
 }
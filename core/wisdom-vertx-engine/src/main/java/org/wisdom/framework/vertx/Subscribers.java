@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of the sockets subscribed to a web socket url, grouped by the context (event loop) owning
+ * them. Subscriptions and un-subscriptions create new snapshots (copy-on-write), so publishers never lock nor copy
+ * the set of sockets.
+ */
+final class Subscribers {
+
+    /**
+     * The sockets per owning context. The {@literal null} key contains the sockets without context.
+     */
+    private final Map<Context, Socket[]> sockets;
+
+    /**
+     * The number of sockets.
+     */
+    private final int size;
+
+    private Subscribers(Map<Context, Socket[]> sockets) {
+        this.sockets = sockets;
+        int count = 0;
+        for (Socket[] group : sockets.values()) {
+            count += group.length;
+        }
+        this.size = count;
+    }
+
+    /**
+     * Creates a snapshot containing a single socket.
+     *
+     * @param socket the socket
+     * @return the new snapshot
+     */
+    static Subscribers of(Socket socket) {
+        return new Subscribers(Collections.singletonMap(socket.context(), new Socket[]{socket}));
+    }
+
+    /**
+     * Creates a new snapshot containing the current sockets and the given one.
+     *
+     * @param socket the socket to add
+     * @return the new snapshot
+     */
+    Subscribers with(Socket socket) {
+        Map<Context, Socket[]> copy = new HashMap<>(sockets);
+        Socket[] group = copy.get(socket.context());
+        if (group == null) {
+            copy.put(socket.context(), new Socket[]{socket});
+        } else {
+            Socket[] newGroup = Arrays.copyOf(group, group.length + 1);
+            newGroup[group.length] = socket;
+            copy.put(socket.context(), newGroup);
+        }
+        return new Subscribers(copy);
+    }
+
+    /**
+     * Creates a new snapshot containing the current sockets except the given one.
+     *
+     * @param socket the socket to remove
+     * @return the new snapshot, {@literal null} if it would be empty
+     */
+    Subscribers without(Socket socket) {
+        Socket[] group = sockets.get(socket.context());
+        if (group == null) {
+            return this;
+        }
+        List<Socket> remaining = new ArrayList<>(Arrays.asList(group));
+        if (!remaining.remove(socket)) {
+            return this;
+        }
+        Map<Context, Socket[]> copy = new HashMap<>(sockets);
+        if (remaining.isEmpty()) {
+            copy.remove(socket.context());
+        } else {
+            copy.put(socket.context(), remaining.toArray(new Socket[remaining.size()]));
+        }
+        if (copy.isEmpty()) {
+            return null;
+        }
+        return new Subscribers(copy);
+    }
+
+    /**
+     * @return the number of sockets.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return all the sockets.
+     */
+    List<Socket> all() {
+        List<Socket> list = new ArrayList<>(size);
+        for (Socket[] group : sockets.values()) {
+            Collections.addAll(list, group);
+        }
+        return list;
+    }
+
+    /**
+     * Finds a socket from its id.
+     *
+     * @param id the id
+     * @return the socket, {@literal null} if not found
+     */
+    Socket find(String id) {
+        for (Socket[] group : sockets.values()) {
+            for (Socket socket : group) {
+                if (id.equals(WisdomVertxServer.id(socket))) {
+                    return socket;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the given payload to all the sockets. A single task is submitted to each context, writing the payload
+     * to all the sockets owned by this context.
+     *
+     * @param payload the payload, shared by all the sockets
+     * @param text    whether the payload is sent in a text or in a binary frame
+     */
+    void write(Buffer payload, boolean text) {
+        for (Map.Entry<Context, Socket[]> entry : sockets.entrySet()) {
+            final Socket[] group = entry.getValue();
+            if (entry.getKey() == null) {
+                write(group, payload, text);
+            } else {
+                entry.getKey().runOnContext(v -> write(group, payload, text));
+            }
+        }
+    }
+
+    private static void write(Socket[] group, Buffer payload, boolean text) {
+        for (Socket socket : group) {
+            socket.write(payload, text);
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.core.http.ServerWebSocket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +45,16 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
      */
     private final Server configuration;
 
+    /**
+     * What to do when a client does not read the messages fast enough.
+     */
+    private final Socket.SlowConsumerPolicy policy;
+
+    /**
+     * The maximum size (in bytes) of the write queue of the sockets, {@literal -1} to use the Vert.x default.
+     */
+    private final int writeQueueMaxSize;
+
     /**
      * Creates an instance of {@link org.wisdom.framework.vertx.WebSocketHandler}
      *
@@ -54,6 +65,10 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
     public WebSocketHandler(ServiceAccessor accessor, Server server) {
         this.accessor = accessor;
         this.configuration = server;
+        this.policy = Socket.SlowConsumerPolicy.from(
+                accessor.getConfiguration().get("vertx.websocket.slow-consumer"), Socket.SlowConsumerPolicy.DROP);
+        Integer size = accessor.getConfiguration().getIntegerWithDefault("vertx.websocket.write-queue-max-size", -1);
+        this.writeQueueMaxSize = size == null || size <= 0 ? -1 : size;
     }
 
     /**
@@ -70,7 +85,11 @@ public class WebSocketHandler implements Handler<ServerWebSocket> {
             return;
         }
 
-        final Socket sock = new Socket(socket);
+        if (writeQueueMaxSize != -1) {
+            socket.setWriteQueueMaxSize(writeQueueMaxSize);
+        }
+        // The socket is owned by the event loop of the current server instance.
+        final Socket sock = new Socket(socket, Vertx.currentContext(), policy);
         accessor.getDispatcher().addSocket(socket.path(), sock);
 
         socket.closeHandler(event -> {
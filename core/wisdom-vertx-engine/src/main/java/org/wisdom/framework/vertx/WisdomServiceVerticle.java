@@ -21,16 +21,29 @@ package org.wisdom.framework.vertx;
 
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
+import io.vertx.core.http.HttpServer;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
 /**
+ * The verticle binding the servers. Several instances of this verticle are deployed, each of them binds the servers
+ * that still need instances (see {@link Server#instances()}), so the requests are handled by several event loops.
+ *
  * @author <a href="http://escoffier.me">Clement Escoffier</a>
  */
 public class WisdomServiceVerticle extends AbstractVerticle {
     private final List<Server> servers;
 
+    /**
+     * The servers bound by this instance, associated with the HTTP server created by this instance. Only these HTTP
+     * servers are closed when this instance stops.
+     */
+    private final Map<Server, HttpServer> bound = new ConcurrentHashMap<>();
+
     public WisdomServiceVerticle(ServiceAccessor accessor, List<Server> servers) {
         this.servers = servers;
     }
@@ -46,12 +59,20 @@ public class WisdomServiceVerticle extends AbstractVerticle {
      */
     @Override
     public void start(Future<Void> startFuture) throws Exception {
-        CountDownLatch latch = new CountDownLatch(servers.size());
-        final boolean[] inError = {false};
+        List<Server> reserved = new ArrayList<>();
         for (Server server : servers) {
+            if (server.reserveInstance()) {
+                reserved.add(server);
+            }
+        }
+        CountDownLatch latch = new CountDownLatch(reserved.size());
+        final boolean[] inError = {false};
+        for (Server server : reserved) {
             server.bind(ar -> {
                 if (ar.failed()) {
                     inError[0] = true;
+                } else {
+                    bound.put(server, ar.result());
                 }
                 latch.countDown();
             });
@@ -62,6 +83,7 @@ public class WisdomServiceVerticle extends AbstractVerticle {
             } catch (InterruptedException e) {
                 // Ignore it.
             }
+            f.complete();
         }, ar -> {
             if (inError[0]) {
                 startFuture.fail("One of the server was not able to start correctly");
@@ -83,10 +105,10 @@ public class WisdomServiceVerticle extends AbstractVerticle {
      */
     @Override
     public void stop(Future<Void> future) throws Exception {
-        CountDownLatch latch = new CountDownLatch(servers.size());
+        CountDownLatch latch = new CountDownLatch(bound.size());
         final boolean[] inError = {false};
-        for (Server server : servers) {
-            server.close(ar -> {
+        for (Map.Entry<Server, HttpServer> entry : bound.entrySet()) {
+            entry.getKey().close(entry.getValue(), ar -> {
                 if (ar.failed()) {
                     inError[0] = true;
                 }
@@ -100,7 +122,9 @@ public class WisdomServiceVerticle extends AbstractVerticle {
             } catch (InterruptedException e) {
                 // ignore it.
             }
+            f.complete();
         }, ar -> {
+            bound.clear();
             if (inError[0]) {
                 future.fail("One of the server did not stopped correctly");
             } else {
@@ -19,7 +19,9 @@
  */
 package org.wisdom.framework.vertx;
 
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.spi.VerticleFactory;
 import org.apache.felix.ipojo.annotations.*;
 import org.slf4j.Logger;
@@ -29,14 +31,19 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.configuration.Configuration;
 import org.wisdom.api.content.ContentEngine;
 import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.engine.ConnectionStatistics;
 import org.wisdom.api.engine.WisdomEngine;
 import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.RequestTimingListener;
 import org.wisdom.api.http.websockets.WebSocketDispatcher;
 import org.wisdom.api.http.websockets.WebSocketListener;
 import org.wisdom.api.router.Router;
 
 import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 /**
@@ -55,12 +62,13 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     /**
      * The set of Web Socket Listeners used to dispatch data received on web sockets.
      */
-    private List<WebSocketListener> listeners = new ArrayList<>();
+    private final List<WebSocketListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
-     * The map of uri / list of channel context keeping a reference on all opened web sockets.
+     * The map of uri / subscribed sockets keeping a reference on all opened web sockets. The values are immutable
+     * snapshots replaced atomically on each subscription change.
      */
-    private Map<String, List<Socket>> socketsByUri = new HashMap<>();
+    private final ConcurrentMap<String, Subscribers> socketsByUri = new ConcurrentHashMap<>();
 
     /**
      * The vertx singleton.
@@ -104,16 +112,23 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
     @Requires(specification = ExceptionMapper.class, optional = true)
     private Collection<ExceptionMapper> mappers;
 
+    /**
+     * The listeners notified of the timings of the requests.
+     */
+    @Requires(specification = RequestTimingListener.class, optional = true)
+    private Collection<RequestTimingListener> timingListeners;
+
     /**
      * The accessor to get all the services.
      */
     ServiceAccessor accessor = new ServiceAccessor(crypto, configuration, router,
-            engine, executor, this, mappers); //NOSONAR
+            engine, executor, this, mappers, timingListeners); //NOSONAR
 
     private InetAddress address;
 
     protected List<Server> servers = new ArrayList<>(2);
     private String deploymentId;
+    private String additionalDeploymentId;
 
     /**
      * Starts the servers (HTTP and HTTPS).
@@ -167,12 +182,34 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
             vertx.registerVerticleFactory(new WisdomInternalVerticleFactory(accessor, this.servers));
         }
 
+        // The first instance is deployed alone, so random ports are picked before the other instances share them.
+        final int instances = getNumberOfInstances();
         vertx.runOnContext(v -> vertx.deployVerticle("wisdom-internal:wisdom", ar -> {
             LOGGER.info("Wisdom verticle deployed : " + ar.result());
             deploymentId = ar.result();
+            if (ar.succeeded() && instances > 1) {
+                vertx.deployVerticle("wisdom-internal:wisdom", new DeploymentOptions().setInstances(instances - 1),
+                        ar2 -> {
+                            LOGGER.info("{} additional Wisdom verticle instances deployed : {}", instances - 1,
+                                    ar2.result());
+                            additionalDeploymentId = ar2.result();
+                        });
+            }
         }));
     }
 
+    /**
+     * @return the number of verticle instances to deploy, i.e. the highest number of instances required by the
+     * servers.
+     */
+    private int getNumberOfInstances() {
+        int instances = 1;
+        for (Server server : servers) {
+            instances = Math.max(instances, server.instances());
+        }
+        return instances;
+    }
+
     private void initializeInetAddress() {
         address = null;
         try {
@@ -198,8 +235,14 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
         LOGGER.info("Stopping the vert.x server");
 
         vertx.runOnContext(v -> {
+            if (additionalDeploymentId != null) {
+                vertx.undeploy(additionalDeploymentId,
+                        ar -> LOGGER.info("Additional Wisdom verticle instances un-deployed"));
+                additionalDeploymentId = null;
+            }
             if (deploymentId != null) {
                 vertx.undeploy(deploymentId, ar -> LOGGER.info("Wisdom verticle un-deployed"));
+                deploymentId = null;
             }
         });
 
@@ -242,26 +285,33 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
         return -1;
     }
 
+    /**
+     * @return the statistics about the connections, summed over all the servers.
+     */
+    @Override
+    public synchronized ConnectionStatistics connectionStatistics() {
+        ConnectionStatistics statistics = new ConnectionStatistics(0, 0, 0, 0);
+        for (Server server : servers) {
+            statistics = statistics.plus(server.connectionMetrics().statistics());
+        }
+        return statistics;
+    }
+
     /**
      * Publishes the given message to all clients subscribed to the socket (either a web socket of a SockJS socket)
      * specified using its url. For SockJS, it must match one of the configured prefix.
+     * <p>
+     * The message is encoded once, and written to the sockets from the event loops owning them (one task per event
+     * loop).
      *
      * @param url  the url of the web socket, must not be {@literal null}
      * @param data the data, must not be {@literal null}
      */
     @Override
     public void publish(String url, String data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+        Subscribers subscribers = socketsByUri.get(url);
+        if (subscribers != null) {
+            subscribers.write(Socket.encode(data), true);
         }
     }
 
@@ -273,18 +323,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * @param data the data, must not be {@literal null}
      */
     @Override
-    public synchronized void publish(String url, byte[] data) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(url);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            socket.publish(data, vertx.eventBus());
+    public void publish(String url, byte[] data) {
+        Subscribers subscribers = socketsByUri.get(url);
+        if (subscribers != null) {
+            subscribers.write(Socket.encode(data), false);
         }
     }
 
@@ -296,18 +338,9 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void addSocket(String url, Socket socket) {
         LOGGER.info("Adding web socket on {} bound to {}", url, socket);
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels == null) {
-                channels = new ArrayList<>();
-            }
-            channels.add(socket);
-            socketsByUri.put(url, channels);
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+        socketsByUri.compute(url, (key, current) -> current == null ? Subscribers.of(socket) : current.with(socket));
 
-        for (WebSocketListener listener : webSocketListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.opened(url, id(socket));
         }
     }
@@ -320,19 +353,10 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     public void removeSocket(String url, Socket socket) {
         LOGGER.info("Removing web socket on {} bound to {}", url, socket.path());
-        List<WebSocketListener> webSocketListeners;
-        synchronized (this) {
-            List<Socket> channels = socketsByUri.get(url);
-            if (channels != null) {
-                channels.remove(socket);
-                if (channels.isEmpty()) {
-                    socketsByUri.remove(url);
-                }
-            }
-            webSocketListeners = new ArrayList<>(this.listeners);
-        }
+        // Returning null removes the entry.
+        socketsByUri.computeIfPresent(url, (key, current) -> current.without(socket));
 
-        for (WebSocketListener listener : webSocketListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.closed(url, id(socket));
         }
     }
@@ -345,15 +369,11 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void register(WebSocketListener listener) {
-        Map<String, List<Socket>> copy;
-        synchronized (this) {
-            listeners.add(listener);
-            copy = new HashMap<>(socketsByUri);
-        }
+        listeners.add(listener);
 
         // Call open on each opened web socket
-        for (Map.Entry<String, List<Socket>> entry : copy.entrySet()) {
-            for (Socket client : entry.getValue()) {
+        for (Map.Entry<String, Subscribers> entry : socketsByUri.entrySet()) {
+            for (Socket client : entry.getValue().all()) {
                 listener.opened(entry.getKey(), id(client));
             }
         }
@@ -366,9 +386,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void unregister(WebSocketListener listener) {
-        synchronized (this) {
-            listeners.remove(listener);
-        }
+        listeners.remove(listener);
     }
 
     /**
@@ -381,20 +399,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, String message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
-        }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
-        }
+        send(uri, client, Socket.encode(message), true);
     }
 
     /**
@@ -417,19 +422,22 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      */
     @Override
     public void send(String uri, String client, byte[] message) {
-        List<Socket> sockets;
-        synchronized (this) {
-            List<Socket> ch = this.socketsByUri.get(uri);
-            if (ch != null) {
-                sockets = new ArrayList<>(ch);
-            } else {
-                sockets = Collections.emptyList();
-            }
+        send(uri, client, Socket.encode(message), false);
+    }
+
+    private void send(String uri, String client, Buffer payload, boolean text) {
+        Subscribers subscribers = socketsByUri.get(uri);
+        if (subscribers == null) {
+            return;
         }
-        for (Socket socket : sockets) {
-            if (client.equals(id(socket))) {
-                socket.publish(message, vertx.eventBus());
-            }
+        Socket socket = subscribers.find(client);
+        if (socket == null) {
+            return;
+        }
+        if (socket.context() == null) {
+            socket.write(payload, text);
+        } else {
+            socket.context().runOnContext(v -> socket.write(payload, text));
         }
     }
 
@@ -441,12 +449,7 @@ public class WisdomVertxServer implements WebSocketDispatcher, WisdomEngine {
      * @param socket  the client channel
      */
     public void received(String uri, byte[] content, Socket socket) {
-        List<WebSocketListener> localListeners;
-        synchronized (this) {
-            localListeners = new ArrayList<>(this.listeners);
-        }
-
-        for (WebSocketListener listener : localListeners) {
+        for (WebSocketListener listener : listeners) {
             listener.received(uri, id(socket), content);
         }
     }
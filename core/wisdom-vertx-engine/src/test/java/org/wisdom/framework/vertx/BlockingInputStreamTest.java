@@ -0,0 +1,183 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Checks the behavior of the {@link BlockingInputStream}.
+ */
+public class BlockingInputStreamTest {
+
+    private static final int CHUNK = 1024;
+
+    Vertx vertx = Vertx.vertx();
+
+    @After
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testReadingWithBackPressure() throws IOException {
+        byte[] content = new byte[1024 * CHUNK];
+        new Random().nextBytes(content);
+
+        Context context = vertx.getOrCreateContext();
+        FakeSource source = new FakeSource(context, content);
+        BlockingInputStream stream = new BlockingInputStream(source, context, 8 * CHUNK);
+        source.stream = stream;
+        context.runOnContext(v -> source.resume());
+
+        byte[] read = IOUtils.toByteArray(stream);
+        assertThat(read).isEqualTo(content);
+        // The source has been paused, and the queue has never exceeded the limit (plus the last received chunk).
+        assertThat(source.pauses.get()).isGreaterThan(0);
+        assertThat(source.maxQueued).isLessThanOrEqualTo(9 * CHUNK);
+    }
+
+    @Test
+    public void testFailure() throws IOException {
+        Context context = vertx.getOrCreateContext();
+        BlockingInputStream stream = new BlockingInputStream(new FakeSource(context, new byte[0]), context, CHUNK);
+        stream.push(Buffer.buffer("hello"));
+        stream.fail(new Exception("bad"));
+
+        // Data received before the failure can be read.
+        byte[] buffer = new byte[10];
+        assertThat(stream.read(buffer)).isEqualTo(5);
+        try {
+            stream.read(buffer);
+            fail("Exception expected");
+        } catch (IOException e) {
+            assertThat(e.getCause()).hasMessage("bad");
+        }
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        Context context = vertx.getOrCreateContext();
+        BlockingInputStream stream = new BlockingInputStream(new FakeSource(context, new byte[0]), context, CHUNK);
+        stream.push(Buffer.buffer("hello"));
+        stream.close();
+        stream.push(Buffer.buffer("world"));
+        assertThat(stream.available()).isEqualTo(0);
+        try {
+            stream.read();
+            fail("Exception expected");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testEnd() throws IOException {
+        Context context = vertx.getOrCreateContext();
+        BlockingInputStream stream = new BlockingInputStream(new FakeSource(context, new byte[0]), context, CHUNK);
+        stream.push(Buffer.buffer("hello"));
+        stream.end();
+        assertThat(IOUtils.toString(stream)).isEqualTo("hello");
+        assertThat(stream.read()).isEqualTo(-1);
+    }
+
+    /**
+     * A source emitting the given content chunk by chunk, from the Vert.X context, while not paused.
+     */
+    private static class FakeSource implements ReadStream<Buffer> {
+
+        private final Context context;
+        private final byte[] content;
+        private int position;
+        private boolean paused = true;
+        private BlockingInputStream stream;
+        private final AtomicInteger pauses = new AtomicInteger();
+        private int maxQueued;
+
+        private FakeSource(Context context, byte[] content) {
+            this.context = context;
+            this.content = content;
+        }
+
+        private void emit() {
+            if (paused || stream == null) {
+                return;
+            }
+            if (position == content.length) {
+                stream.end();
+                return;
+            }
+            int length = Math.min(CHUNK, content.length - position);
+            stream.push(Buffer.buffer(Arrays.copyOfRange(content, position, position + length)));
+            position += length;
+            try {
+                maxQueued = Math.max(maxQueued, stream.available());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            context.runOnContext(v -> emit());
+        }
+
+        @Override
+        public FakeSource exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public FakeSource handler(Handler<Buffer> handler) {
+            return this;
+        }
+
+        @Override
+        public FakeSource pause() {
+            paused = true;
+            pauses.incrementAndGet();
+            return this;
+        }
+
+        @Override
+        public FakeSource resume() {
+            if (paused) {
+                paused = false;
+                emit();
+            }
+            return this;
+        }
+
+        @Override
+        public FakeSource endHandler(Handler<Void> endHandler) {
+            return this;
+        }
+    }
+}
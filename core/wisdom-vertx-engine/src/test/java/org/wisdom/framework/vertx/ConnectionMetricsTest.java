@@ -0,0 +1,48 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.http.HttpServerRequest;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the {@link ConnectionMetrics}.
+ */
+public class ConnectionMetricsTest {
+
+    @Test
+    public void testThatRequestsWithoutChannelAreCountedAsNewConnections() {
+        ConnectionMetrics metrics = new ConnectionMetrics();
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        metrics.onRequest(request);
+        metrics.onRequest(request);
+        metrics.onClose(request);
+
+        assertThat(metrics.getRequests()).isEqualTo(2);
+        assertThat(metrics.getOpenedConnections()).isEqualTo(2);
+        assertThat(metrics.getReusedConnections()).isEqualTo(0);
+        // The connections are not tracked, so they are never considered as active.
+        assertThat(metrics.getActiveConnections()).isEqualTo(0);
+        assertThat(metrics.getClosedConnections()).isEqualTo(1);
+    }
+}
@@ -21,6 +21,7 @@ package org.wisdom.framework.vertx;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.vertx.core.http.HttpServer;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -31,6 +32,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -54,9 +56,16 @@ import javax.net.ssl.SSLContext;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.cert.CertificateException;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
@@ -470,4 +479,174 @@ public class ServerTest extends VertxBaseTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testServersWithSeveralInstances() throws InterruptedException, IOException {
+        FakeConfiguration s1 = new FakeConfiguration(ImmutableMap.<String, Object>builder()
+                .put("port", 0)
+                .put("instances", 3)
+                .build());
+
+        FakeConfiguration s2 = new FakeConfiguration(ImmutableMap.<String, Object>builder()
+                .put("port", 0)
+                .build());
+
+        when(application.getIntegerWithDefault(eq("vertx.instances"), anyInt())).thenReturn(1);
+        when(application.getConfiguration("vertx.servers")).thenReturn(
+                new FakeConfiguration(
+                        ImmutableMap.<String, Object>of(
+                                "s1", s1,
+                                "s2", s2
+                        )
+                ));
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(Thread.currentThread().getName());
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        wisdom.start();
+        waitForStart(wisdom);
+
+        assertThat(wisdom.servers).hasSize(2);
+        for (Server server : wisdom.servers) {
+            if (server.name().equals("s1")) {
+                assertThat(server.instances()).isEqualTo(3);
+                // New connections are dispatched among the event loops of the different instances.
+                Set<String> threads = new HashSet<>();
+                for (int i = 0; i < 30 && threads.size() < 2; i++) {
+                    threads.add(org.apache.http.client.fluent.Request.Get("http://localhost:" + server.port())
+                            .addHeader("Connection", "close")
+                            .execute().returnContent().asString());
+                    Thread.sleep(100);
+                }
+                assertThat(threads.size()).isGreaterThan(1);
+            } else {
+                assertThat(server.instances()).isEqualTo(1);
+                assertThat(org.apache.http.client.fluent.Request.Get("http://localhost:" + server.port())
+                        .execute().returnContent().asString()).startsWith("vert.x-eventloop-thread");
+            }
+        }
+    }
+
+    @Test
+    public void testThatEachInstanceClosesItsOwnHttpServer() throws Exception {
+        when(application.getIntegerWithDefault(eq("vertx.instances"), anyInt())).thenReturn(1);
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok("Alright");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        Server server = new Server(wisdom.accessor, vertx, "s1", 0, false, false, null,
+                Collections.<String>emptyList(), Collections.<String>emptyList(), null, 2, null);
+        assertThat(server.reserveInstance()).isTrue();
+        assertThat(server.reserveInstance()).isTrue();
+        assertThat(server.reserveInstance()).isFalse();
+        HttpServer first = bind(server);
+        HttpServer second = bind(server);
+        assertThat(first).isNotSameAs(second);
+
+        // Closing the first instance does not stop the second one.
+        close(server, first);
+        assertThat(org.apache.http.client.fluent.Request.Get("http://localhost:" + server.port())
+                .addHeader("Connection", "close")
+                .execute().returnContent().asString()).isEqualTo("Alright");
+
+        // Once the last instance is closed, the server can be bound again.
+        close(server, second);
+        assertThat(server.reserveInstance()).isTrue();
+        close(server, bind(server));
+    }
+
+    private HttpServer bind(Server server) throws Exception {
+        CompletableFuture<HttpServer> future = new CompletableFuture<>();
+        server.bind(ar -> {
+            if (ar.succeeded()) {
+                future.complete(ar.result());
+            } else {
+                future.completeExceptionally(ar.cause());
+            }
+        });
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private void close(Server server, HttpServer http) throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        server.close(http, ar -> future.complete(null));
+        future.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testServerWithTransportSettings() throws InterruptedException, IOException {
+        FakeConfiguration s1 = new FakeConfiguration(ImmutableMap.<String, Object>builder()
+                .put("port", 0)
+                .put("idleTimeout", 1)
+                .put("receiveBufferSize", 8192)
+                .build());
+
+        when(application.getIntegerWithDefault(eq("vertx.instances"), anyInt())).thenReturn(1);
+        when(application.getConfiguration("vertx.servers")).thenReturn(
+                new FakeConfiguration(ImmutableMap.<String, Object>of("s1", s1)));
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok("Alright");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        wisdom.start();
+        waitForStart(wisdom);
+
+        Server server = wisdom.servers.get(0);
+        try (Socket socket = new Socket("localhost", server.port())) {
+            socket.getOutputStream().write(("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[1024];
+            StringBuilder response = new StringBuilder();
+            while (!response.toString().contains("Alright")) {
+                int read = in.read(buffer);
+                assertThat(read).isGreaterThan(0);
+                response.append(new String(buffer, 0, read, StandardCharsets.US_ASCII));
+            }
+            assertThat(response.toString()).startsWith("HTTP/1.1 200").contains("Connection: keep-alive");
+
+            // The connection is persistent, but closed once idle for more than a second.
+            socket.setSoTimeout(10000);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void testThatHttp2IsRejected() {
+        for (String key : new String[]{"http2", "h2c"}) {
+            FakeConfiguration configuration = new FakeConfiguration(ImmutableMap.<String, Object>of(
+                    "port", 0,
+                    key, true));
+            try {
+                Server.from(wisdom.accessor, vertx, "s1", configuration);
+                Assert.fail("HTTP/2 is not supported, the creation of the server must fail");
+            } catch (IllegalArgumentException e) {
+                assertThat(e.getMessage()).contains("s1").contains("HTTP/2");
+            }
+        }
+    }
+
+}
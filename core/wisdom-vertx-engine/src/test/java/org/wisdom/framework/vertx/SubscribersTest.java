@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the {@link Subscribers} snapshots and the fan-out of messages.
+ */
+public class SubscribersTest {
+
+    @Test
+    public void testSubscriptionsAreCopyOnWrite() {
+        Socket s1 = new Socket(mock(ServerWebSocket.class), null, Socket.SlowConsumerPolicy.DROP);
+        Socket s2 = new Socket(mock(ServerWebSocket.class), null, Socket.SlowConsumerPolicy.DROP);
+
+        Subscribers one = Subscribers.of(s1);
+        Subscribers two = one.with(s2);
+        assertThat(one.size()).isEqualTo(1);
+        assertThat(two.size()).isEqualTo(2);
+        assertThat(two.all()).containsOnly(s1, s2);
+        assertThat(two.find(WisdomVertxServer.id(s2))).isSameAs(s2);
+        assertThat(two.find("missing")).isNull();
+
+        Subscribers back = two.without(s2);
+        assertThat(back.all()).containsExactly(s1);
+        assertThat(two.size()).isEqualTo(2);
+        assertThat(back.without(s2)).isSameAs(back);
+        assertThat(back.without(s1)).isNull();
+    }
+
+    @Test
+    public void testOneTaskPerContext() {
+        Context c1 = immediateContext();
+        Context c2 = immediateContext();
+        ServerWebSocket w1 = mock(ServerWebSocket.class);
+        ServerWebSocket w2 = mock(ServerWebSocket.class);
+        ServerWebSocket w3 = mock(ServerWebSocket.class);
+
+        Subscribers subscribers = Subscribers.of(new Socket(w1, c1, Socket.SlowConsumerPolicy.DROP))
+                .with(new Socket(w2, c1, Socket.SlowConsumerPolicy.DROP))
+                .with(new Socket(w3, c2, Socket.SlowConsumerPolicy.DROP));
+
+        Buffer payload = Socket.encode(new byte[]{1, 2, 3});
+        subscribers.write(payload, false);
+
+        verify(c1, times(1)).runOnContext(any());
+        verify(c2, times(1)).runOnContext(any());
+        // The same payload is written to all sockets.
+        verify(w1).writeFinalBinaryFrame(payload);
+        verify(w2).writeFinalBinaryFrame(payload);
+        verify(w3).writeFinalBinaryFrame(payload);
+
+        subscribers.write(Socket.encode("hello"), true);
+        verify(w1).writeFrame(any(WebSocketFrame.class));
+        verify(w3).writeFrame(any(WebSocketFrame.class));
+    }
+
+    @Test
+    public void testSlowConsumers() {
+        ServerWebSocket dropped = mock(ServerWebSocket.class);
+        when(dropped.writeQueueFull()).thenReturn(true);
+        ServerWebSocket disconnected = mock(ServerWebSocket.class);
+        when(disconnected.writeQueueFull()).thenReturn(true);
+        ServerWebSocket fast = mock(ServerWebSocket.class);
+
+        Buffer payload = Socket.encode("hello");
+        assertThat(new Socket(dropped, null, Socket.SlowConsumerPolicy.DROP).write(payload, true)).isFalse();
+        assertThat(new Socket(disconnected, null, Socket.SlowConsumerPolicy.DISCONNECT).write(payload, true))
+                .isFalse();
+        assertThat(new Socket(fast, null, Socket.SlowConsumerPolicy.DISCONNECT).write(payload, true)).isTrue();
+
+        verify(dropped, never()).writeFrame(any(WebSocketFrame.class));
+        verify(dropped, never()).close();
+        verify(disconnected, never()).writeFrame(any(WebSocketFrame.class));
+        verify(disconnected).close();
+        verify(fast).writeFrame(any(WebSocketFrame.class));
+    }
+
+    @Test
+    public void testPolicyParsing() {
+        assertThat(Socket.SlowConsumerPolicy.from(null, Socket.SlowConsumerPolicy.DROP))
+                .isEqualTo(Socket.SlowConsumerPolicy.DROP);
+        assertThat(Socket.SlowConsumerPolicy.from("disconnect", Socket.SlowConsumerPolicy.DROP))
+                .isEqualTo(Socket.SlowConsumerPolicy.DISCONNECT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Context immediateContext() {
+        Context context = mock(Context.class);
+        doAnswer(invocation -> {
+            ((Handler<Void>) invocation.getArguments()[0]).handle(null);
+            return null;
+        }).when(context).runOnContext(any());
+        return context;
+    }
+}
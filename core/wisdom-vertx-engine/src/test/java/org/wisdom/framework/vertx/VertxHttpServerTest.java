@@ -20,11 +20,13 @@
 package org.wisdom.framework.vertx;
 
 import io.vertx.core.http.HttpClientOptions;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Test;
 import org.wisdom.api.Controller;
 import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.StreamedBody;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.exceptions.ExceptionMapper;
 import org.wisdom.api.http.*;
@@ -33,12 +35,22 @@ import org.wisdom.api.router.RouteBuilder;
 import org.wisdom.api.router.Router;
 import org.wisdom.framework.vertx.ssl.SSLServerContext;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.*;
@@ -108,6 +120,47 @@ public class VertxHttpServerTest extends VertxBaseTest {
         assertThat(body).isEqualTo("Alright");
     }
 
+    @Test
+    public void testRequestTimingsAreReportedToTheListeners() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<RequestTimings> timings = new AtomicReference<>();
+        final AtomicInteger status = new AtomicInteger();
+        RequestTimingListener listener = (r, s, t) -> {
+            status.set(s);
+            timings.set(t);
+            latch.countDown();
+        };
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(), null,
+                null, Collections.<ExceptionMapper>emptyList(), Collections.singletonList(listener));
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok("Alright");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo("Alright");
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(status.get()).isEqualTo(200);
+        assertThat(timings.get().get(RequestTimings.Phase.SERIALIZATION)).isPositive();
+        assertThat(timings.get().get(RequestTimings.Phase.WRITE)).isPositive();
+        assertThat(timings.get().total()).isGreaterThanOrEqualTo(
+                timings.get().get(RequestTimings.Phase.SERIALIZATION) + timings.get().get(RequestTimings.Phase.WRITE));
+    }
+
     @Test
     public void testInternalError() throws InterruptedException, IOException {
         Router router = prepareServer();
@@ -134,6 +187,280 @@ public class VertxHttpServerTest extends VertxBaseTest {
         assertThat(connection.getResponseCode()).isEqualTo(500);
     }
 
+    @Test
+    public void testOkWithInMemoryContent() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        final byte[] content = new byte[50 * 1024];
+        new Random().nextBytes(content);
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(content, false).as(MimeTypes.BINARY);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField(HeaderNames.CONTENT_LENGTH)).isEqualTo(Integer.toString(content.length));
+        assertThat(connection.getHeaderField(HeaderNames.TRANSFER_ENCODING)).isNull();
+        assertThat(IOUtils.toByteArray(connection.getInputStream())).isEqualTo(content);
+    }
+
+    @Test
+    public void testChunkedResponsesOnPersistentConnection() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        // Streams are read from a worker thread.
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(), executor,
+                null, Collections.<ExceptionMapper>emptyList());
+
+        final byte[] content = new byte[100 * 1024];
+        new Random().nextBytes(content);
+        // Prepare the router with a controller returning a stream, and so a chunked response
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(new ByteArrayInputStream(content)).as(MimeTypes.BINARY);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        for (int i = 0; i < 5; i++) {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getHeaderField(HeaderNames.TRANSFER_ENCODING)).isEqualTo("chunked");
+            assertThat(connection.getHeaderField(HeaderNames.CONNECTION)).isEqualTo(HttpUtils.KEEP_ALIVE);
+            // Reading the whole content and closing the stream gives the connection back to the pool.
+            try (InputStream stream = connection.getInputStream()) {
+                assertThat(IOUtils.toByteArray(stream)).isEqualTo(content);
+            }
+        }
+
+        ConnectionMetrics metrics = server.servers.get(0).connectionMetrics();
+        // The server also received the request checking that it has started.
+        assertThat(metrics.getRequests()).isGreaterThanOrEqualTo(5);
+        assertThat(metrics.getClosedConnections()).isEqualTo(0);
+        assertThat(metrics.getReusedConnections()).isGreaterThan(0);
+        // The connection kept alive by the client is still open.
+        assertThat(metrics.getActiveConnections()).isGreaterThan(0);
+        assertThat(metrics.getOpenedConnections()).isLessThan(metrics.getRequests());
+        assertThat(server.connectionStatistics().getRequests()).isEqualTo(metrics.getRequests());
+    }
+
+    @Test
+    public void testCompletionStageResult() throws InterruptedException, IOException {
+        // No executor is given to the server, the result is not computed by a thread of the executor.
+        Router router = prepareServer();
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                // Simulate a non-blocking call to a remote service.
+                vertx.setTimer(100, id -> future.complete(ok("Done")));
+                return async(future).with("X-Initial", "true");
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(connection.getHeaderField("X-Initial")).isEqualTo("true");
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo("Done");
+    }
+
+    @Test
+    public void testCompletionStageResultFailure() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                vertx.setTimer(10, id -> future.completeExceptionally(new IOException("My bad")));
+                return async(future);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(500);
+    }
+
+    @Test
+    public void testCompletionStageResultTimeout() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                // Never completed.
+                return async(future, 200, TimeUnit.MILLISECONDS);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        // Only serve '/', as the stage never completes.
+        when(router.getRouteFor(anyString(), eq("/"), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        URL url = new URL("http://localhost:" + server.httpPort() + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(Status.GATEWAY_TIMEOUT);
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testCompletionStageResultCancelledWhenTheClientDisconnects() throws InterruptedException,
+            IOException {
+        Router router = prepareServer();
+
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        final CountDownLatch invoked = new CountDownLatch(1);
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                invoked.countDown();
+                return async(future);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        // Only serve '/', as the stage never completes.
+        when(router.getRouteFor(anyString(), eq("/"), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        try (Socket socket = new Socket("localhost", server.httpPort())) {
+            socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(
+                    StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            assertThat(invoked.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        for (int i = 0; i < 100 && !future.isCancelled(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(future.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void testOkWithFile() throws InterruptedException, IOException {
+        Router router = prepareServer();
+
+        final File file = new File("src/test/resources/owl.png");
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            public Result index() {
+                return ok(file);
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.GET)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        // Files are sent directly, and so are not chunked.
+        assertThat(connection.getHeaderField(HeaderNames.CONTENT_LENGTH)).isEqualTo(Long.toString(file.length()));
+        assertThat(connection.getHeaderField(HeaderNames.CONTENT_TYPE)).isEqualTo("image/png");
+        assertThat(IOUtils.toByteArray(connection.getInputStream())).isEqualTo(FileUtils.readFileToByteArray(file));
+    }
+
+    @Test
+    public void testStreamedBody() throws InterruptedException, IOException {
+        Router router = prepareServer();
+        when(server.configuration.getIntegerWithDefault("request.body.stream.buffer.size", 64 * 1024))
+                .thenReturn(64 * 1024);
+        // Streamed bodies are read from a worker thread.
+        server.accessor = new ServiceAccessor(null, server.configuration, router, getMockContentEngine(), executor,
+                null, Collections.<ExceptionMapper>emptyList());
+
+        // Prepare the router with a controller
+        Controller controller = new DefaultController() {
+            @SuppressWarnings("unused")
+            @StreamedBody
+            public Result index() throws IOException {
+                assertThat(context().raw()).isEmpty();
+                long count = 0;
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = request().stream().read(buffer)) != -1) {
+                    count += read;
+                }
+                return ok(Long.toString(count));
+            }
+        };
+        Route route = new RouteBuilder().route(HttpMethod.POST)
+                .on("/")
+                .to(controller, "index");
+        when(router.getRouteFor(anyString(), anyString(), any(Request.class))).thenReturn(route);
+
+        server.start();
+        waitForStart(server);
+
+        // 5 MB, way above the max body size.
+        byte[] content = new byte[5 * 1024 * 1024];
+        new Random().nextBytes(content);
+        int port = server.httpPort();
+        URL url = new URL("http://localhost:" + port + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setChunkedStreamingMode(8192);
+        connection.setRequestProperty(HeaderNames.CONTENT_TYPE, MimeTypes.BINARY);
+        try (OutputStream os = connection.getOutputStream()) {
+            os.write(content);
+        }
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        assertThat(IOUtils.toString(connection.getInputStream())).isEqualTo(Integer.toString(content.length));
+    }
+
     private Router prepareServer() {
         // Prepare the configuration
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
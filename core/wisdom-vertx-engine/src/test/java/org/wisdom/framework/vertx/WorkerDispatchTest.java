@@ -0,0 +1,242 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.framework.vertx;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wisdom.api.Controller;
+import org.wisdom.api.DefaultController;
+import org.wisdom.api.annotations.Blocking;
+import org.wisdom.api.annotations.NonBlocking;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.exceptions.ExceptionMapper;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.Request;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.router.Route;
+import org.wisdom.api.router.RouteBuilder;
+import org.wisdom.api.router.Router;
+import org.wisdom.framework.vertx.ssl.SSLServerContext;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the dispatching of the action methods on worker threads.
+ */
+public class WorkerDispatchTest extends VertxBaseTest {
+
+    private static final long SLOW_ACTION_DURATION = 300;
+
+    private WisdomVertxServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+
+        SSLServerContext.reset();
+    }
+
+    @Test
+    public void testDispatchModeParsing() {
+        assertThat(DispatchMode.from(null, DispatchMode.WORKER)).isEqualTo(DispatchMode.WORKER);
+        assertThat(DispatchMode.from("worker", DispatchMode.EVENT_LOOP)).isEqualTo(DispatchMode.WORKER);
+        assertThat(DispatchMode.from("event-loop", DispatchMode.WORKER)).isEqualTo(DispatchMode.EVENT_LOOP);
+        assertThat(DispatchMode.from("EVENT_LOOP", DispatchMode.WORKER)).isEqualTo(DispatchMode.EVENT_LOOP);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDispatchMode() {
+        DispatchMode.from("whatever", DispatchMode.WORKER);
+    }
+
+    @Test
+    public void testAnnotationsInWorkerMode() throws InterruptedException, IOException {
+        Router router = prepareServer("worker");
+        bindRoutes(router, new ThreadController());
+        server.start();
+        waitForStart(server);
+
+        assertThat(get("/default")).doesNotStartWith("vert.x-eventloop-thread");
+        assertThat(get("/blocking")).doesNotStartWith("vert.x-eventloop-thread");
+        assertThat(get("/non-blocking")).startsWith("vert.x-eventloop-thread");
+    }
+
+    @Test
+    public void testAnnotationsInEventLoopMode() throws InterruptedException, IOException {
+        Router router = prepareServer(null);
+        bindRoutes(router, new ThreadController());
+        server.start();
+        waitForStart(server);
+
+        assertThat(get("/default")).startsWith("vert.x-eventloop-thread");
+        assertThat(get("/blocking")).doesNotStartWith("vert.x-eventloop-thread");
+        assertThat(get("/non-blocking")).startsWith("vert.x-eventloop-thread");
+    }
+
+    /**
+     * Checks that, in worker mode, slow (blocking) actions do not delay the fast ones: the slowest fast request
+     * must be served before a slow action completes.
+     */
+    @Test
+    public void testFastRoutesAreNotDelayedBySlowRoutesOnWorkers() throws InterruptedException, IOException {
+        Router router = prepareServer("worker");
+        bindRoutes(router, new SlowAndFastController());
+        server.start();
+        waitForStart(server);
+
+        // Hit the slow route continuously.
+        AtomicBoolean running = new AtomicBoolean(true);
+        for (int i = 0; i < 3; i++) {
+            clients.submit(() -> {
+                while (running.get()) {
+                    try {
+                        get("/slow");
+                    } catch (IOException e) {
+                        // Ignore it.
+                    }
+                }
+            });
+        }
+        // Wait until the slow requests are in progress.
+        Thread.sleep(SLOW_ACTION_DURATION);
+
+        long max = 0;
+        try {
+            for (int i = 0; i < 10; i++) {
+                long begin = System.nanoTime();
+                assertThat(get("/fast")).isEqualTo("fast");
+                max = Math.max(max, (System.nanoTime() - begin) / 1000000);
+            }
+        } finally {
+            running.set(false);
+        }
+        assertThat(max).isLessThan(SLOW_ACTION_DURATION);
+    }
+
+    private String get(String path) throws IOException {
+        URL url = new URL("http://localhost:" + server.httpPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(200);
+        return IOUtils.toString(connection.getInputStream());
+    }
+
+    private void bindRoutes(Router router, Controller controller) {
+        List<Route> routes = new ArrayList<>();
+        for (String method : new String[]{"slow", "fast", "blocking", "nonBlocking", "byDefault"}) {
+            try {
+                controller.getClass().getMethod(method);
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+            routes.add(new RouteBuilder().route(HttpMethod.GET)
+                    .on("/" + method.replace("nonBlocking", "non-blocking").replace("byDefault", "default"))
+                    .to(controller, method));
+        }
+        doAnswer(new Answer<Route>() {
+            @Override
+            public Route answer(InvocationOnMock mock) throws Throwable {
+                String url = (String) mock.getArguments()[1];
+                for (Route route : routes) {
+                    if (route.getUrl().equals(url)) {
+                        return route;
+                    }
+                }
+                return new Route(HttpMethod.GET, url, 404);
+            }
+        }).when(router).getRouteFor(anyString(), anyString(), any(Request.class));
+    }
+
+    private Router prepareServer(String mode) {
+        // Prepare the configuration
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault(eq("vertx.http.port"), anyInt())).thenReturn(0);
+        when(configuration.getIntegerWithDefault(eq("vertx.https.port"), anyInt())).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("request.body.max.size", 100 * 1024)).thenReturn(100 * 1024);
+        when(configuration.getIntegerWithDefault("vertx.acceptBacklog", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.receiveBufferSize", -1)).thenReturn(-1);
+        when(configuration.getIntegerWithDefault("vertx.sendBufferSize", -1)).thenReturn(-1);
+        when(configuration.getStringArray("wisdom.websocket.subprotocols")).thenReturn(new String[0]);
+        when(configuration.getStringArray("vertx.websocket-subprotocols")).thenReturn(new String[0]);
+        when(configuration.get("vertx.dispatch")).thenReturn(mode);
+
+        Router router = mock(Router.class);
+
+        // Configure the server.
+        server = new WisdomVertxServer();
+        server.configuration = configuration;
+        server.accessor = new ServiceAccessor(
+                null,
+                configuration,
+                router,
+                getMockContentEngine(),
+                executor,
+                null,
+                Collections.<ExceptionMapper>emptyList()
+        );
+        server.vertx = vertx;
+        return router;
+    }
+
+    public static class ThreadController extends DefaultController {
+
+        public Result byDefault() {
+            return ok(Thread.currentThread().getName());
+        }
+
+        @Blocking
+        public Result blocking() {
+            return ok(Thread.currentThread().getName());
+        }
+
+        @NonBlocking
+        public Result nonBlocking() {
+            return ok(Thread.currentThread().getName());
+        }
+    }
+
+    public static class SlowAndFastController extends DefaultController {
+
+        public Result slow() throws InterruptedException {
+            Thread.sleep(SLOW_ACTION_DURATION);
+            return ok("slow");
+        }
+
+        @NonBlocking
+        public Result fast() {
+            return ok("fast");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.google.common.collect.ImmutableMap;
+import org.wisdom.api.engine.ConnectionStatistics;
+import org.wisdom.api.engine.WisdomEngine;
+
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes the statistics about the connections of the engine.
+ */
+public class ConnectionGaugeSet implements MetricSet {
+
+    private final WisdomEngine engine;
+
+    /**
+     * Creates the gauge set.
+     *
+     * @param engine the engine
+     */
+    public ConnectionGaugeSet(WisdomEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return a map containing the number of requests, and of opened, active, reused and closed connections.
+     */
+    public Map<String, Metric> getMetrics() {
+        return ImmutableMap.<String, Metric>of(
+                "requests", gauge(ConnectionStatistics::getRequests),
+                "opened", gauge(ConnectionStatistics::getOpenedConnections),
+                "active", gauge(ConnectionStatistics::getActiveConnections),
+                "reused", gauge(ConnectionStatistics::getReusedConnections),
+                "closed", gauge(ConnectionStatistics::getClosedConnections)
+        );
+    }
+
+    private Gauge<Long> gauge(ToLongFunction<ConnectionStatistics> value) {
+        return () -> {
+            ConnectionStatistics statistics = engine.connectionStatistics();
+            if (statistics == null) {
+                return 0L;
+            }
+            return value.applyAsLong(statistics);
+        };
+    }
+}
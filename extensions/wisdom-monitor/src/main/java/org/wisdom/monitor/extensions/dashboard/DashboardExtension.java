@@ -43,6 +43,7 @@ import org.wisdom.api.annotations.View;
 import org.wisdom.api.concurrent.ManagedScheduledExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.content.Json;
+import org.wisdom.api.engine.WisdomEngine;
 import org.wisdom.api.http.HttpMethod;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.http.websockets.Publisher;
@@ -87,6 +88,9 @@ public class DashboardExtension extends DefaultController implements MonitorExte
     @Requires(specification = HealthCheck.class, optional = true)
     List<HealthCheck> healthChecks;
 
+    @Requires(optional = true)
+    WisdomEngine engine;
+
     @View("monitor/dashboard")
     Template monitor;
 
@@ -97,6 +101,7 @@ public class DashboardExtension extends DefaultController implements MonitorExte
 
     private ScheduledFuture task;
     private HttpMetricFilter httpMetricFilter;
+    private RouteMetrics routeMetrics;
     private ServiceRegistration<MetricRegistry> reg;
 
     /**
@@ -123,6 +128,16 @@ public class DashboardExtension extends DefaultController implements MonitorExte
             logger().info("Registering HTTP metrics");
             this.httpMetricFilter = new HttpMetricFilter(bc, configuration, registry);
             httpMetricFilter.start();
+
+            if (engine != null) {
+                registry.register("http.connections", new ConnectionGaugeSet(engine));
+            }
+
+            if (configuration.getBooleanWithDefault("monitor.http.routes.enabled", true)) {
+                logger().info("Registering per-route HTTP metrics");
+                this.routeMetrics = new RouteMetrics(bc, configuration, registry);
+                routeMetrics.start();
+            }
         }
 
         if (configuration.getBooleanWithDefault("monitor.jmx.enabled", true)) {
@@ -186,6 +201,7 @@ public class DashboardExtension extends DefaultController implements MonitorExte
                 .put("meters", registry.getMeters())
                 .put("histograms", registry.getHistograms())
                 .put("health", getHealth())
+                .put("routes", routeMetrics == null ? ImmutableMap.of() : routeMetrics.getData())
                 .build();
     }
 
@@ -266,6 +282,11 @@ public class DashboardExtension extends DefaultController implements MonitorExte
             httpMetricFilter.stop();
         }
 
+        if (routeMetrics != null) {
+            routeMetrics.stop();
+            routeMetrics = null;
+        }
+
         registry.removeMatching(new MetricFilter() {
             /**
              * Returns true to remove all metrics.
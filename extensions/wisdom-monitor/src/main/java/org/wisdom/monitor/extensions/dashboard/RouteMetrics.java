@@ -0,0 +1,204 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.google.common.collect.ImmutableMap;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.RequestTimingListener;
+import org.wisdom.api.http.RequestTimings;
+import org.wisdom.api.router.Route;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the latency histograms of each route, per phase of the request processing (queue, filters, action,
+ * serialization and write). The timings are reported by the engine and the router once the response is written.
+ * <p>
+ * Routes are identified by their HTTP method and url template, so the number of histograms does not depend on the
+ * requested urls. Requests that did not match a route share the {@link #UNBOUND} entry. Once the maximum number of
+ * routes is reached, the other routes share the {@link #OTHERS} entry.
+ * <p>
+ * The histograms are registered in the metric registry (and so exposed on JMX) as
+ * {@code http.routes.METHOD url.phase}. Values are in microseconds.
+ */
+public class RouteMetrics implements RequestTimingListener {
+
+    /**
+     * The prefix of the metric names.
+     */
+    public static final String PREFIX = "http.routes";
+
+    /**
+     * The entry used for requests not matching any route.
+     */
+    public static final String UNBOUND = "unbound";
+
+    /**
+     * The entry used once the maximum number of routes is reached.
+     */
+    public static final String OTHERS = "others";
+
+    private static final String TOTAL = "total";
+
+    private final BundleContext context;
+    private final MetricRegistry registry;
+    private final int maxRoutes;
+    private final ConcurrentMap<String, RouteHistograms> routes = new ConcurrentHashMap<>();
+    private ServiceRegistration<RequestTimingListener> reg;
+
+    /**
+     * Creates a new instance of the listener.
+     *
+     * @param context       the bundle context
+     * @param configuration the application configuration
+     * @param registry      the metric registry
+     */
+    public RouteMetrics(BundleContext context, ApplicationConfiguration configuration, MetricRegistry registry) {
+        this.context = context;
+        this.registry = registry;
+        this.maxRoutes = configuration.getIntegerWithDefault("monitor.http.routes.max", 100);
+    }
+
+    /**
+     * Registers the listener, the engine starts reporting the timings of the requests.
+     */
+    public void start() {
+        reg = context.registerService(RequestTimingListener.class, this, null);
+    }
+
+    /**
+     * Unregisters the listener.
+     */
+    public void stop() {
+        if (reg != null) {
+            reg.unregister();
+            reg = null;
+        }
+    }
+
+    /**
+     * Records the timings of a request.
+     *
+     * @param route   the route
+     * @param status  the status of the response
+     * @param timings the timings
+     */
+    @Override
+    public void onRequestCompleted(Route route, int status, RequestTimings timings) {
+        RouteHistograms histograms = histograms(key(route));
+        histograms.update(timings);
+        if (status >= 500) {
+            histograms.errors.mark();
+        }
+    }
+
+    /**
+     * Builds a summary of the histograms of each route: the number of requests, of server errors, and the mean and
+     * percentiles of each phase (in microseconds).
+     *
+     * @return the summary, sorted by route
+     */
+    public SortedMap<String, Map<String, Object>> getData() {
+        SortedMap<String, Map<String, Object>> data = new TreeMap<>();
+        for (Map.Entry<String, RouteHistograms> entry : routes.entrySet()) {
+            data.put(entry.getKey(), entry.getValue().summary());
+        }
+        return data;
+    }
+
+    private static String key(Route route) {
+        if (route.isUnbound()) {
+            return UNBOUND;
+        }
+        return route.getHttpMethod() + " " + route.getUrl();
+    }
+
+    private RouteHistograms histograms(String key) {
+        RouteHistograms histograms = routes.get(key);
+        if (histograms != null) {
+            return histograms;
+        }
+        if (routes.size() >= maxRoutes) {
+            key = OTHERS;
+        }
+        return routes.computeIfAbsent(key, RouteHistograms::new);
+    }
+
+    private static String name(RequestTimings.Phase phase) {
+        return phase.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * The metrics of a route.
+     */
+    private class RouteHistograms {
+
+        private final Histogram[] phases = new Histogram[RequestTimings.Phase.values().length];
+        private final Histogram total;
+        private final Meter errors;
+
+        RouteHistograms(String key) {
+            for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+                phases[phase.ordinal()] = registry.histogram(MetricRegistry.name(PREFIX, key, name(phase)));
+            }
+            total = registry.histogram(MetricRegistry.name(PREFIX, key, TOTAL));
+            errors = registry.meter(MetricRegistry.name(PREFIX, key, "errors"));
+        }
+
+        void update(RequestTimings timings) {
+            for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+                phases[phase.ordinal()].update(TimeUnit.NANOSECONDS.toMicros(timings.get(phase)));
+            }
+            total.update(TimeUnit.NANOSECONDS.toMicros(timings.total()));
+        }
+
+        Map<String, Object> summary() {
+            ImmutableMap.Builder<String, Object> builder = ImmutableMap.<String, Object>builder()
+                    .put("count", total.getCount())
+                    .put("errors", errors.getCount());
+            for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+                builder.put(name(phase), summary(phases[phase.ordinal()]));
+            }
+            return builder.put(TOTAL, summary(total)).build();
+        }
+
+        private Map<String, Object> summary(Histogram histogram) {
+            Snapshot snapshot = histogram.getSnapshot();
+            return ImmutableMap.<String, Object>of(
+                    "mean", snapshot.getMean(),
+                    "p50", snapshot.getMedian(),
+                    "p95", snapshot.get95thPercentile(),
+                    "p99", snapshot.get99thPercentile(),
+                    "max", snapshot.getMax());
+        }
+    }
+}
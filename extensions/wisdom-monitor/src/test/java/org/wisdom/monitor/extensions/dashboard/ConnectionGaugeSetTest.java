@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.junit.Test;
+import org.wisdom.api.engine.ConnectionStatistics;
+import org.wisdom.api.engine.WisdomEngine;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConnectionGaugeSetTest {
+
+    @Test
+    public void testConnectionStatisticsRetrieval() {
+        WisdomEngine engine = mock(WisdomEngine.class);
+        when(engine.connectionStatistics()).thenReturn(new ConnectionStatistics(10, 3, 2, 1));
+        Map<String, Metric> metrics = new ConnectionGaugeSet(engine).getMetrics();
+
+        assertThat(metrics.keySet()).containsOnly("requests", "opened", "active", "reused", "closed");
+        assertThat(((Gauge<Long>) metrics.get("requests")).getValue()).isEqualTo(10);
+        assertThat(((Gauge<Long>) metrics.get("opened")).getValue()).isEqualTo(3);
+        assertThat(((Gauge<Long>) metrics.get("active")).getValue()).isEqualTo(2);
+        assertThat(((Gauge<Long>) metrics.get("reused")).getValue()).isEqualTo(7);
+        assertThat(((Gauge<Long>) metrics.get("closed")).getValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEngineWithoutStatistics() {
+        WisdomEngine engine = mock(WisdomEngine.class);
+        Map<String, Metric> metrics = new ConnectionGaugeSet(engine).getMetrics();
+
+        assertThat(((Gauge<Long>) metrics.get("requests")).getValue()).isEqualTo(0);
+    }
+}
@@ -22,11 +22,18 @@ package org.wisdom.monitor.extensions.dashboard;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.engine.ConnectionStatistics;
+import org.wisdom.api.engine.WisdomEngine;
+import org.wisdom.api.http.RequestTimingListener;
 
+import java.util.Dictionary;
 import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class DashboardExtensionTest {
@@ -35,6 +42,7 @@ public class DashboardExtensionTest {
     public void testStartAndStop() throws Exception {
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
         when(configuration.getBooleanWithDefault("monitor.http.enabled", true)).thenReturn(true);
+        when(configuration.getBooleanWithDefault("monitor.http.routes.enabled", true)).thenReturn(true);
         when(configuration.getBooleanWithDefault("monitor.jmx.enabled", true)).thenReturn(true);
 
         when(configuration.getIntegerWithDefault("monitor.period", 10)).thenReturn(10);
@@ -53,6 +61,8 @@ public class DashboardExtensionTest {
         extension.configuration = configuration;
         extension.bc = context;
         extension.scheduler = Executors.newSingleThreadScheduledExecutor();
+        extension.engine = mock(WisdomEngine.class);
+        when(extension.engine.connectionStatistics()).thenReturn(new ConnectionStatistics(10, 2, 1, 0));
         extension.start();
 
         assertThat(extension.registry.getGauges())
@@ -64,10 +74,13 @@ public class DashboardExtensionTest {
                         );
 
         assertThat(extension.registry.getGauges().get("jvm.runtime.uptime")).isNotNull();
+        assertThat(extension.registry.getGauges().get("http.connections.reused").getValue()).isEqualTo(8L);
 
         assertThat(extension.registry.counter("http.activeRequests")).isNotNull();
         assertThat(extension.registry.meter("http.responseCodes.others")).isNotNull();
         assertThat(extension.registry.timer("http.requests")).isNotNull();
+        verify(context).registerService(eq(RequestTimingListener.class), any(RouteMetrics.class),
+                any(Dictionary.class));
 
         extension.stop();
     }
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.monitor.extensions.dashboard;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.http.HttpMethod;
+import org.wisdom.api.http.RequestTimings;
+import org.wisdom.api.router.Route;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RouteMetricsTest {
+
+    private final MetricRegistry registry = new MetricRegistry();
+
+    private RouteMetrics create(int max) {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getIntegerWithDefault("monitor.http.routes.max", 100)).thenReturn(max);
+        return new RouteMetrics(mock(BundleContext.class), configuration, registry);
+    }
+
+    private static Route route(HttpMethod method, String url) {
+        Route route = mock(Route.class);
+        when(route.getHttpMethod()).thenReturn(method);
+        when(route.getUrl()).thenReturn(url);
+        return route;
+    }
+
+    private static RequestTimings timings(long actionInMs) {
+        RequestTimings timings = new RequestTimings();
+        timings.add(RequestTimings.Phase.QUEUE, TimeUnit.MILLISECONDS.toNanos(1));
+        timings.add(RequestTimings.Phase.ACTION, TimeUnit.MILLISECONDS.toNanos(actionInMs));
+        return timings;
+    }
+
+    @Test
+    public void testHistogramsPerRouteAndPhase() {
+        RouteMetrics metrics = create(100);
+        Route route = route(HttpMethod.GET, "/items/{id}");
+        metrics.onRequestCompleted(route, 200, timings(10));
+        metrics.onRequestCompleted(route, 500, timings(30));
+
+        assertThat(registry.getHistograms()).containsKeys(
+                "http.routes.GET /items/{id}.queue",
+                "http.routes.GET /items/{id}.filters",
+                "http.routes.GET /items/{id}.action",
+                "http.routes.GET /items/{id}.serialization",
+                "http.routes.GET /items/{id}.write",
+                "http.routes.GET /items/{id}.total");
+        assertThat(registry.histogram("http.routes.GET /items/{id}.action").getCount()).isEqualTo(2);
+        assertThat(registry.histogram("http.routes.GET /items/{id}.action").getSnapshot().getMax())
+                .isEqualTo(30000);
+        assertThat(registry.histogram("http.routes.GET /items/{id}.total").getSnapshot().getMin())
+                .isEqualTo(11000);
+
+        Map<String, Object> data = metrics.getData().get("GET /items/{id}");
+        assertThat(data.get("count")).isEqualTo(2L);
+        assertThat(data.get("errors")).isEqualTo(1L);
+        assertThat(((Map<?, ?>) data.get("action")).keySet()).containsOnly("mean", "p50", "p95", "p99", "max");
+    }
+
+    @Test
+    public void testUnboundRoutesShareTheSameEntry() {
+        RouteMetrics metrics = create(100);
+        Route first = route(HttpMethod.GET, "/missing");
+        when(first.isUnbound()).thenReturn(true);
+        Route second = route(HttpMethod.POST, "/other");
+        when(second.isUnbound()).thenReturn(true);
+
+        metrics.onRequestCompleted(first, 404, timings(1));
+        metrics.onRequestCompleted(second, 404, timings(1));
+
+        assertThat(metrics.getData()).containsOnlyKeys(RouteMetrics.UNBOUND);
+        assertThat(registry.histogram("http.routes.unbound.total").getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTheNumberOfRoutesIsBounded() {
+        RouteMetrics metrics = create(2);
+        for (int i = 0; i < 10; i++) {
+            metrics.onRequestCompleted(route(HttpMethod.GET, "/route" + i), 200, timings(1));
+        }
+        // Already known routes are still recorded in their own entry.
+        metrics.onRequestCompleted(route(HttpMethod.GET, "/route0"), 200, timings(1));
+
+        assertThat(metrics.getData()).containsOnlyKeys("GET /route0", "GET /route1", RouteMetrics.OTHERS);
+        assertThat(metrics.getData().get("GET /route0").get("count")).isEqualTo(2L);
+        assertThat(metrics.getData().get(RouteMetrics.OTHERS).get("count")).isEqualTo(8L);
+    }
+}
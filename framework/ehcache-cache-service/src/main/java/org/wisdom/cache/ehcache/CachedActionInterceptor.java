@@ -20,6 +20,8 @@
 package org.wisdom.cache.ehcache;
 
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
 import org.apache.felix.ipojo.annotations.Component;
 import org.apache.felix.ipojo.annotations.Instantiate;
 import org.apache.felix.ipojo.annotations.Provides;
@@ -27,15 +29,37 @@ import org.apache.felix.ipojo.annotations.Requires;
 import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wisdom.api.bodies.NoHttpBody;
 import org.wisdom.api.cache.Cache;
 import org.wisdom.api.cache.Cached;
-import org.wisdom.api.http.HeaderNames;
-import org.wisdom.api.http.Result;
+import org.wisdom.api.cache.CachedResponse;
+import org.wisdom.api.concurrent.ManagedExecutorService;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.http.*;
 import org.wisdom.api.interception.Interceptor;
 import org.wisdom.api.interception.RequestContext;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.*;
+
 /**
  * An action interceptor caching the result of an action and returning the cached result if it was cached already.
+ * <p>
+ * Results are cached fully rendered (serialized, and gzipped when it's worth it) as {@link CachedResponse}, so
+ * returning a cached result costs neither serialization nor rendering. Results setting cookies and asynchronous
+ * results are not cached.
+ * <p>
+ * A result is cached per variant: if the result sets the {@literal Vary} header, or if its content type is
+ * negotiated using the {@literal Accept} header, the values of these request headers are part of the cache key.
+ * Concurrent requests missing the cache wait for a single invocation of the action. They do not hold their thread
+ * while waiting: they return a {@link CompletionStageResult} completed with the shared result. Requests whose last
+ * result could not be cached do not wait, they invoke the action in parallel. If the
+ * {@link Cached#staleWhileRevalidate()} is set, the first request finding an expired result refreshes it, while the
+ * concurrent requests are served the expired result.
  */
 @Component
 @Provides(specifications = Interceptor.class)
@@ -45,6 +69,40 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
     @Requires
     protected Cache cache;
 
+    /**
+     * The content engine used to serialize the results before caching them.
+     */
+    @Requires
+    protected ContentEngine engine;
+
+    /**
+     * The executor invoking the action for the requests that waited for a concurrent computation whose result cannot
+     * be shared, {@literal null} if not available (the action is then invoked from the thread having completed the
+     * computation).
+     */
+    @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")", proxy = false, optional = true,
+            nullable = false)
+    protected ManagedExecutorService executor;
+
+    /**
+     * How long (in seconds) a variant whose result could not be cached is remembered.
+     */
+    private static final long UNCACHEABLE_DURATION = 10;
+
+    /**
+     * The ongoing computations (invocations of actions) by cache key.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Entry>> computations = new ConcurrentHashMap<>();
+
+    /**
+     * The variants whose last result could not be cached. Misses on these variants are not coalesced, as their
+     * result could not be shared anyway.
+     */
+    private final ConcurrentMap<String, Boolean> uncacheable = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(UNCACHEABLE_DURATION, TimeUnit.SECONDS)
+            .<String, Boolean>build()
+            .asMap();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CachedActionInterceptor.class);
 
@@ -54,7 +112,8 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
      * In this case, the interception chain is cut.
      * <p>
      * If the result is not yet cached, the interception chain continues, and the result is cached to be used during
-     * the next invocation.
+     * the next invocation. If another request is already computing it, this method returns a result waiting for this
+     * computation.
      *
      * @param configuration the interception configuration
      * @param context       the interception context
@@ -74,33 +133,316 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
             key = configuration.key();
         }
 
-        Result result = null;
-        if (!nocache) {
-            result = (Result) cache.get(key);
+        if (nocache) {
+            return invoke(key, key, configuration, context);
+        }
+
+        String variant = key;
+        Object value = cache.get(key);
+        if (value instanceof Variants) {
+            variant = ((Variants) value).key(key, context.context());
+            value = cache.get(variant);
+        }
+
+        if (value instanceof Entry) {
+            Entry entry = (Entry) value;
+            long now = System.currentTimeMillis();
+            if (now < entry.expiration) {
+                LOGGER.debug("Returning cached result for {} (key:{})", context.request().uri(), variant);
+                return serve(entry, null, context);
+            }
+            if (now < entry.staleExpiration) {
+                // Refreshed by this request, unless a concurrent request is already refreshing it.
+                return compute(key, variant, configuration, context, entry);
+            }
+        }
+
+        return compute(key, variant, configuration, context, null);
+    }
+
+    /**
+     * Invokes the action and caches the result, without coalescing with concurrent requests.
+     *
+     * @param key           the cache key of the action
+     * @param variant       the cache key of the requested variant
+     * @param configuration the interception configuration
+     * @param context       the interception context
+     * @return the result
+     * @throws Exception if the action failed
+     */
+    private Result invoke(String key, String variant, Cached configuration, RequestContext context)
+            throws Exception {
+        Result result = context.proceed();
+        return serve(stored(variant, store(key, result, configuration, context)), result, context);
+    }
+
+    /**
+     * Remembers whether or not the result of the given variant could be cached.
+     *
+     * @param variant the cache key of the requested variant
+     * @param entry   the entry built from the computed result
+     * @return the entry
+     */
+    private Entry stored(String variant, Entry entry) {
+        if (entry.response == null) {
+            uncacheable.put(variant, Boolean.TRUE);
+        } else {
+            uncacheable.remove(variant);
+        }
+        return entry;
+    }
+
+    /**
+     * Invokes the action and caches the result, unless the same variant is already being computed. In this case, the
+     * stale entry is served if any, otherwise the returned result waits (without holding the thread) for the result
+     * of this computation. Variants whose last result could not be cached are computed directly.
+     *
+     * @param key           the cache key of the action
+     * @param variant       the cache key of the variant, computed from the cached variants if any
+     * @param configuration the interception configuration
+     * @param context       the interception context
+     * @param stale         the expired entry that can be served while the variant is computed, {@literal null} if
+     *                      none
+     * @return the result
+     * @throws Exception if the action failed
+     */
+    private Result compute(String key, String variant, Cached configuration, RequestContext context, Entry stale)
+            throws Exception {
+        if (uncacheable.containsKey(variant)) {
+            return invoke(key, variant, configuration, context);
+        }
+        CompletableFuture<Entry> computation = new CompletableFuture<>();
+        CompletableFuture<Entry> pending = computations.putIfAbsent(variant, computation);
+        if (pending == null) {
+            Result result;
+            Entry entry;
+            try {
+                result = context.proceed();
+                entry = stored(variant, store(key, result, configuration, context));
+            } catch (Throwable e) { //NOSONAR the exception is rethrown
+                computations.remove(variant, computation);
+                computation.completeExceptionally(e);
+                throw e;
+            }
+            // Removed before being completed, so waiting requests needing another computation do not find it.
+            computations.remove(variant, computation);
+            computation.complete(entry);
+            return serve(entry, result, context);
+        }
+
+        if (stale != null) {
+            LOGGER.debug("Returning stale result for {} (key:{}), a concurrent request is refreshing it",
+                    context.request().uri(), variant);
+            return serve(stale, null, context);
+        }
+
+        final Context ctx = context.context();
+        return new CompletionStageResult(pending.thenCompose(entry -> {
+            if (entry.response == null) {
+                // The result cannot be cached, and so cannot be shared.
+                return later(() -> invoke(key, variant, configuration, context), ctx);
+            }
+            // The variants were not known when we computed the key, the computed result may be another variant.
+            String expected = entry.variants == null ? key : entry.variants.key(key, ctx);
+            if (entry.key.equals(expected)) {
+                LOGGER.debug("Returning result computed by a concurrent request for {} (key:{})",
+                        context.request().uri(), entry.key);
+                return CompletableFuture.completedFuture(serve(entry, null, context));
+            }
+            return later(() -> compute(key, expected, configuration, context, null), ctx);
+        }));
+    }
+
+    /**
+     * Invokes the given action for a request that waited for a concurrent computation. The action is invoked from
+     * the executor (or from the current thread if there is none), with the HTTP context of the waiting request.
+     *
+     * @param action the action
+     * @param ctx    the HTTP context of the waiting request
+     * @return the stage completed with the result of the action (once computed if the action returns an
+     * asynchronous result)
+     */
+    private CompletionStage<Result> later(Callable<Result> action, Context ctx) {
+        final CompletableFuture<Result> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            Context previous = Context.CONTEXT.get();
+            Context.CONTEXT.set(ctx);
+            try {
+                complete(future, action.call());
+            } catch (Throwable e) { //NOSONAR the failure is reported to the waiting request
+                future.completeExceptionally(e);
+            } finally {
+                if (previous == null) {
+                    Context.CONTEXT.remove();
+                } else {
+                    Context.CONTEXT.set(previous);
+                }
+            }
+        };
+        if (executor == null) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Completes the given future with the given result. Asynchronous results are computed first, the headers they set
+     * are added to the computed result.
+     *
+     * @param future the future
+     * @param result the result
+     * @throws Exception if the result of an {@link AsyncResult} cannot be computed
+     */
+    private static void complete(CompletableFuture<Result> future, Result result) throws Exception {
+        if (result instanceof CompletionStageResult) {
+            ((CompletionStageResult) result).stage().whenComplete((computed, failure) -> {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(merge(result, computed));
+                }
+            });
+        } else if (result instanceof AsyncResult) {
+            future.complete(merge(result, ((AsyncResult) result).callable().call()));
+        } else {
+            future.complete(result);
+        }
+    }
+
+    private static Result merge(Result initial, Result computed) {
+        if (computed != null) {
+            for (Map.Entry<String, String> header : initial.getHeaders().entrySet()) {
+                computed.getHeaders().putIfAbsent(header.getKey(), header.getValue());
+            }
         }
+        return computed;
+    }
 
-        if (result == null) {
-            result = context.proceed();
+    /**
+     * Builds the result to return from the given entry.
+     *
+     * @param entry    the entry
+     * @param computed the result from which the entry was built, {@literal null} if the entry comes from the cache
+     * @param context  the interception context
+     * @return a new result serving the cached response, or the computed result if it was not cached
+     */
+    private static Result serve(Entry entry, Result computed, RequestContext context) {
+        if (entry.response == null) {
+            return computed;
+        }
+        return entry.response.toResult(
+                CachedResponse.acceptsGzip(context.context().header(HeaderNames.ACCEPT_ENCODING)));
+    }
+
+    /**
+     * Renders the given result. The body is serialized if required, following the same rules as the server (the
+     * serializer is selected from the content type of the result, or from the {@literal Accept} header).
+     *
+     * @param result  the result
+     * @param context the interception context
+     * @return the rendered response, {@literal null} if the result cannot be cached
+     * @throws Exception if the result cannot be rendered
+     */
+    private CachedResponse render(Result result, RequestContext context) throws Exception {
+        if (result instanceof AsyncResult || result instanceof CompletionStageResult) {
+            return null;
+        }
+        if (!result.getCookies().isEmpty()) {
+            // Cookies are specific to a client.
+            return null;
+        }
+        Renderable<?> renderable = result.getRenderable();
+        if (renderable == null) {
+            renderable = NoHttpBody.INSTANCE;
+        }
+        if (renderable.requireSerializer()) {
+            ContentSerializer serializer = null;
+            if (result.getContentType() != null) {
+                serializer = engine.getContentSerializerForContentType(result.getContentType());
+            }
+            if (serializer == null) {
+                serializer = engine.getBestSerializer(context.request().mediaTypes());
+                if (serializer != null) {
+                    result.with(HeaderNames.CONTENT_TYPE, serializer.getContentType());
+                }
+            }
+            if (serializer == null) {
+                // Let the server handle it.
+                return null;
+            }
+            serializer.serialize(renderable);
+        }
+
+        byte[] body;
+        if (renderable instanceof InMemoryRenderable) {
+            body = ((InMemoryRenderable<?>) renderable).renderToBytes(context.context(), result);
         } else {
-            LOGGER.info("Returning cached result for {} (key:{})",
-                    context.request().uri(), key);
-            return result;
+            body = read(renderable.render(context.context(), result));
         }
+        return new CachedResponse(result, body, renderable.mimetype());
+    }
 
-        Duration duration;
+    private static byte[] read(InputStream stream) throws IOException {
+        if (stream == null) {
+            return NoHttpBody.empty();
+        }
+        try (InputStream in = stream) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    /**
+     * Renders the given result and stores it in the cache.
+     *
+     * @param key           the cache key of the action
+     * @param result        the result to cache
+     * @param configuration the interception configuration
+     * @param context       the interception context of the request having computed the result
+     * @return the entry, stored in the cache unless the result varies on all headers ({@literal Vary: *}) or cannot be
+     * cached (its response is {@literal null} then)
+     * @throws Exception if the result cannot be rendered
+     */
+    private Entry store(String key, Result result, Cached configuration, RequestContext context) throws Exception {
+        // Computed before the serialization, as the serialization sets the content type.
+        Variants variants = Variants.of(result);
+        long duration;
         if (configuration.duration() == 0) {
             // Eternity == 1 year.
-            duration = Duration.standardDays(365);
+            duration = Duration.standardDays(365).getStandardSeconds();
         } else {
-            duration = Duration.standardSeconds(configuration.duration());
+            duration = configuration.duration();
         }
+        long stale = Math.max(0, configuration.staleWhileRevalidate());
+        long now = System.currentTimeMillis();
 
+        if (variants == Variants.ANY) {
+            LOGGER.debug("Not caching result of {}, it varies on all headers (key:{})", context.request().uri(), key);
+            return new Entry(key, variants, null, now, now);
+        }
+        CachedResponse response = render(result, context);
+        if (response == null) {
+            LOGGER.debug("Not caching result of {}, it cannot be cached (key:{})", context.request().uri(), key);
+            return new Entry(key, variants, null, now, now);
+        }
 
-        cache.set(key, result, duration);
-        LoggerFactory.getLogger(this.getClass()).info("Caching result of {} for {} seconds (key:{})",
-                context.request().uri(), configuration.duration(), key);
-
-        return result;
+        String variant = key;
+        Duration ttl = Duration.standardSeconds(duration + stale);
+        if (variants != null) {
+            cache.set(key, variants, ttl);
+            variant = variants.key(key, context.context());
+        }
+        Entry entry = new Entry(variant, variants, response, now + duration * 1000,
+                now + (duration + stale) * 1000);
+        cache.set(variant, entry, ttl);
+        LOGGER.debug("Caching result of {} for {} seconds (key:{})",
+                context.request().uri(), configuration.duration(), variant);
+        return entry;
     }
 
     /**
@@ -110,4 +452,122 @@ public class CachedActionInterceptor extends Interceptor<Cached> {
     public Class<Cached> annotation() {
         return Cached.class;
     }
+
+    /**
+     * A cached result. It's serializable, so can be stored off-heap.
+     */
+    static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The cache key of the variant.
+         */
+        final String key;
+        /**
+         * The variants of the result, {@literal null} if it does not vary.
+         */
+        final Variants variants;
+        /**
+         * The rendered result, {@literal null} if the result cannot be cached.
+         */
+        final CachedResponse response;
+        /**
+         * The time (in ms) at which the result expires.
+         */
+        final long expiration;
+        /**
+         * The time (in ms) until which the expired result can be returned while being refreshed.
+         */
+        final long staleExpiration;
+
+        Entry(String key, Variants variants, CachedResponse response, long expiration, long staleExpiration) {
+            this.key = key;
+            this.variants = variants;
+            this.response = response;
+            this.expiration = expiration;
+            this.staleExpiration = staleExpiration;
+        }
+    }
+
+    /**
+     * The request headers on which a result varies. It's stored in the cache under the key of the action, so the key
+     * of the variant matching a request can be computed.
+     */
+    static final class Variants implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The variants of a result varying on all headers ({@literal Vary: *}), such results are not cached.
+         */
+        static final Variants ANY = new Variants(Collections.<String>emptyList(), false);
+
+        /**
+         * The (lower case and sorted) names of the headers.
+         */
+        private final List<String> headers;
+
+        /**
+         * Whether or not the content type is negotiated from the {@literal Accept} header.
+         */
+        private final boolean negotiated;
+
+        private Variants(List<String> headers, boolean negotiated) {
+            this.headers = headers;
+            this.negotiated = negotiated;
+        }
+
+        /**
+         * Computes the variants of the given result.
+         *
+         * @param result the result
+         * @return the variants, {@literal null} if the result does not vary, {@link #ANY} if it varies on all
+         * headers
+         */
+        static Variants of(Result result) {
+            // The serializer, and so the content type, is chosen from the Accept header when not set.
+            boolean negotiated = result.getContentType() == null
+                    && result.getRenderable() != null && result.getRenderable().requireSerializer();
+            String vary = result.getHeaders().get(HeaderNames.VARY);
+            SortedSet<String> headers = new TreeSet<>();
+            if (vary != null) {
+                for (String header : vary.split(",")) {
+                    String name = header.trim().toLowerCase(Locale.ENGLISH);
+                    if ("*".equals(name)) {
+                        return ANY;
+                    }
+                    if (!name.isEmpty()) {
+                        headers.add(name);
+                    }
+                }
+            }
+            if (headers.remove(HeaderNames.ACCEPT.toLowerCase(Locale.ENGLISH))) {
+                negotiated = true;
+            }
+            if (headers.isEmpty() && !negotiated) {
+                return null;
+            }
+            return new Variants(new ArrayList<>(headers), negotiated);
+        }
+
+        /**
+         * Computes the key of the variant matching the given request.
+         *
+         * @param key     the cache key of the action
+         * @param context the HTTP context
+         * @return the key of the variant
+         */
+        String key(String key, Context context) {
+            StringBuilder builder = new StringBuilder(key);
+            if (negotiated) {
+                builder.append("#accept=").append(Strings.nullToEmpty(context.header(HeaderNames.ACCEPT)));
+            }
+            for (String header : headers) {
+                builder.append('#').append(header).append('=')
+                        .append(Strings.nullToEmpty(context.header(header)));
+            }
+            return builder.toString();
+        }
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.cache.ehcache;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+import org.joda.time.Duration;
+import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A region of the EhCache-based cache service, backed by its own EhCache cache, so regions do not evict each other
+ * entries.
+ * <p>
+ * Concurrent computations of the same missing key are de-duplicated: the loader is invoked once, and the other
+ * callers wait for (or receive) its result. Asynchronous operations run on the system executor if available.
+ */
+class EhCacheRegion implements Cache {
+
+    private final Ehcache cache;
+    private final EhCacheService service;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The ongoing computations by key.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> computations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the region.
+     *
+     * @param cache   the EhCache cache backing the region
+     * @param service the service having created the region
+     */
+    EhCacheRegion(Ehcache cache, EhCacheService service) {
+        this.cache = cache;
+        this.service = service;
+        cache.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+            @Override
+            public void notifyElementEvicted(Ehcache cache, Element element) {
+                evictions.increment();
+            }
+        });
+    }
+
+    /**
+     * @return the name of the region.
+     */
+    String name() {
+        return cache.getName();
+    }
+
+    private static Element element(String key, Object value, Duration expiration) {
+        Element element = new Element(key, value);
+        if (expiration == null) {
+            element.setEternal(true);
+        } else {
+            element.setTimeToLive((int) expiration.getStandardSeconds());
+        }
+        return element;
+    }
+
+    /**
+     * Adds an entry in the cache.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time in seconds (0 second means eternity).
+     */
+    @Override
+    public <T> void set(String key, T value, int expiration) {
+        Element element = new Element(key, value);
+        if (expiration == 0) {
+            element.setEternal(true);
+        }
+        element.setTimeToLive(expiration);
+        cache.put(element);
+    }
+
+    /**
+     * Adds an entry in the cache.
+     *
+     * @param key        Item key.
+     * @param value      Item value.
+     * @param expiration Expiration time, {@literal null} means eternity.
+     */
+    @Override
+    public <T> void set(String key, T value, Duration expiration) {
+        cache.put(element(key, value, expiration));
+    }
+
+    /**
+     * Gets an entry from the cache.
+     *
+     * @param key Item key.
+     * @return the stored object, {@literal null} if none of expired.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        Element element = cache.get(key);
+        if (element != null) {
+            hits.increment();
+            return (T) element.getObjectValue();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Removes an object from the cache.
+     *
+     * @param key Item key
+     * @return {@literal true} if the object was removed, {@literal false} otherwise.
+     */
+    @Override
+    public boolean remove(String key) {
+        return cache.remove(key);
+    }
+
+    @Override
+    public Cache region(String name) {
+        return service.region(name);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getAll(Collection<String> keys) {
+        Map<String, T> values = new HashMap<>();
+        for (Map.Entry<Object, Element> entry : cache.getAll(keys).entrySet()) {
+            if (entry.getValue() != null) {
+                values.put((String) entry.getKey(), (T) entry.getValue().getObjectValue());
+            }
+        }
+        hits.add(values.size());
+        misses.add(keys.size() - values.size());
+        return values;
+    }
+
+    @Override
+    public <T> void setAll(Map<String, ? extends T> values, Duration expiration) {
+        List<Element> elements = new ArrayList<>(values.size());
+        for (Map.Entry<String, ? extends T> entry : values.entrySet()) {
+            elements.add(element(entry.getKey(), entry.getValue(), expiration));
+        }
+        cache.putAll(elements);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        cache.removeAll(keys);
+    }
+
+    /**
+     * Retrieves a value from the cache, computing and caching it if not cached. Concurrent calls for the same key
+     * invoke the loader once, the other callers wait for its result.
+     *
+     * @param key        Item key.
+     * @param expiration Expiration time of the computed value.
+     * @param loader     the function computing the value, if it returns {@literal null} nothing is cached
+     * @param <T>        the type of the value.
+     * @return the cached or computed value
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(String key, Duration expiration, Function<String, ? extends T> loader) {
+        T value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<Object> computation = new CompletableFuture<>();
+        CompletableFuture<Object> pending = computations.putIfAbsent(key, computation);
+        if (pending != null) {
+            return (T) join(pending);
+        }
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            computations.remove(key, computation);
+            computation.completeExceptionally(e);
+            throw e;
+        }
+        complete(key, value, expiration, computation);
+        return value;
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Caches the computed value and completes the computation. The value is cached before the computation is
+     * removed, so a value is either cached or being computed.
+     */
+    private void complete(String key, Object value, Duration expiration, CompletableFuture<Object> computation) {
+        try {
+            if (value != null) {
+                set(key, value, expiration);
+            }
+        } finally {
+            computations.remove(key, computation);
+            computation.complete(value);
+        }
+    }
+
+    /**
+     * Retrieves a value from the cache, computing it asynchronously if not cached. Concurrent calls for the same key
+     * invoke the loader once, the other callers receive its result. Each caller receives its own stage, so
+     * completing it does not affect the other callers.
+     *
+     * @param key        Item key.
+     * @param expiration Expiration time of the computed value.
+     * @param loader     the function computing the value, if the value is {@literal null} nothing is cached
+     * @param <T>        the type of the value.
+     * @return a stage completed with the cached or computed value
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<T> getOrComputeAsync(String key, Duration expiration,
+                                                    Function<String, ? extends CompletionStage<? extends T>> loader) {
+        T value = get(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<Object> computation = new CompletableFuture<>();
+        CompletableFuture<Object> pending = computations.putIfAbsent(key, computation);
+        if (pending != null) {
+            return (CompletionStage<T>) pending.thenApply(Function.identity());
+        }
+        try {
+            loader.apply(key).whenComplete((computed, error) -> {
+                if (error != null) {
+                    computations.remove(key, computation);
+                    computation.completeExceptionally(error);
+                } else {
+                    complete(key, computed, expiration, computation);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            computations.remove(key, computation);
+            computation.completeExceptionally(e);
+        }
+        // The computation is shared by all callers, return a dependent stage they cannot complete.
+        return (CompletionStage<T>) computation.thenApply(Function.identity());
+    }
+
+    @Override
+    public <T> CompletionStage<T> getAsync(String key) {
+        Executor executor = service.executor();
+        if (executor == null) {
+            return CompletableFuture.completedFuture(get(key));
+        }
+        return CompletableFuture.supplyAsync(() -> get(key), executor);
+    }
+
+    @Override
+    public <T> CompletionStage<Void> setAsync(String key, T value, Duration expiration) {
+        Executor executor = service.executor();
+        if (executor == null) {
+            set(key, value, expiration);
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> set(key, value, expiration), executor);
+    }
+
+    @Override
+    public CacheStatistics statistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), cache.getSize());
+    }
+}
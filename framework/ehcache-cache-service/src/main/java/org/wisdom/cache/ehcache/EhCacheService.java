@@ -20,20 +20,45 @@
 package org.wisdom.cache.ehcache;
 
 import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Element;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.MemoryUnit;
 import org.apache.felix.ipojo.annotations.*;
 import org.joda.time.Duration;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.concurrent.ManagedExecutorService;
 import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.configuration.Configuration;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Collection;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * An implementation of the cache service based on EhCache.
+ * <p>
+ * Each region is backed by its own EhCache cache. Regions can be configured in the {@code application.conf} file
+ * under the {@code ehcache.regions.<name>} key, using the following keys:
+ * <ul>
+ * <li>{@code maxEntries}: the maximum number of entries kept in the heap</li>
+ * <li>{@code maxHeapSize}: the maximum amount of heap used by the region (such as {@code 64m}), cannot be used
+ * with {@code maxEntries}</li>
+ * <li>{@code maxOffHeapSize}: the maximum amount of off-heap memory used by the region (requires BigMemory)</li>
+ * <li>{@code evictionPolicy}: the eviction policy ({@code LRU}, {@code LFU} or {@code FIFO})</li>
+ * <li>{@code timeToLive} and {@code timeToIdle}: the default expiration of the entries (such as {@code 10m})</li>
+ * </ul>
+ * Regions without configuration use the default cache configuration of the {@code ehcache.xml} file. The cache
+ * service itself delegates to the {@code wisdom} region.
  */
 @Component(immediate = true)
 @Instantiate
@@ -41,6 +66,11 @@ public class EhCacheService implements Cache {
 
     private static final String WISDOM_KEY = "wisdom";
 
+    /**
+     * The prefix of the region configurations.
+     */
+    public static final String REGIONS_PREFIX = "ehcache.regions";
+
     /**
      * The custom configuration path.
      * To customize the ehcache configuration, creates the 'ehcache.xml' file in the 'conf' directory of the Wisdom
@@ -53,12 +83,24 @@ public class EhCacheService implements Cache {
      */
     public static final String INTERNAL_CONFIGURATION = "org/wisdom/cache/ehcache/ehcache-default.xml";
 
-    private net.sf.ehcache.Cache cache;
+    private EhCacheRegion cache;
     private CacheManager manager;
 
+    /**
+     * The created regions, by name.
+     */
+    private final ConcurrentMap<String, EhCacheRegion> regions = new ConcurrentHashMap<>();
+
     @Requires
     ApplicationConfiguration configuration;
 
+    /**
+     * The executor used by the asynchronous operations.
+     */
+    @Requires(filter = "(name=" + ManagedExecutorService.SYSTEM + ")", proxy = false, optional = true,
+            nullable = false)
+    ManagedExecutorService executor;
+
     @Context
     BundleContext context;
     ServiceRegistration<Cache> registration;
@@ -89,8 +131,7 @@ public class EhCacheService implements Cache {
                             "cannot load " + INTERNAL_CONFIGURATION + " file");
                 }
             }
-            manager.addCache(WISDOM_KEY);
-            cache = manager.getCache(WISDOM_KEY);
+            cache = region(WISDOM_KEY);
 
             registration = context.registerService(Cache.class, this, new Hashtable<String, Object>());
         } finally {
@@ -111,8 +152,75 @@ public class EhCacheService implements Cache {
             registration = null;
         }
         if (manager != null) {
-            manager.removeCache(WISDOM_KEY);
+            for (String name : regions.keySet()) {
+                manager.removeCache(name);
+            }
+        }
+        regions.clear();
+        cache = null;
+    }
+
+    /**
+     * Gets the region having the given name, creating it if needed.
+     *
+     * @param name the name of the region
+     * @return the region
+     */
+    @Override
+    public EhCacheRegion region(String name) {
+        if (manager == null) {
+            throw new IllegalStateException("The EhCache cache service is not started");
+        }
+        return regions.computeIfAbsent(name, this::createRegion);
+    }
+
+    private EhCacheRegion createRegion(String name) {
+        if (!manager.cacheExists(name)) {
+            Configuration conf = configuration.getConfiguration(REGIONS_PREFIX + "." + name);
+            if (conf == null) {
+                manager.addCacheIfAbsent(name);
+            } else {
+                manager.addCacheIfAbsent(new net.sf.ehcache.Cache(createCacheConfiguration(name, conf)));
+            }
+        }
+        return new EhCacheRegion(manager.getEhcache(name), this);
+    }
+
+    /**
+     * Creates the EhCache configuration of a region from the application configuration.
+     *
+     * @param name the name of the region
+     * @param conf the configuration of the region
+     * @return the EhCache configuration
+     */
+    static CacheConfiguration createCacheConfiguration(String name, Configuration conf) {
+        CacheConfiguration config = new CacheConfiguration().name(name);
+        Long heap = conf.getBytes("maxHeapSize");
+        if (heap != null && heap > 0) {
+            config.maxBytesLocalHeap(heap, MemoryUnit.BYTES);
+        } else {
+            config.maxEntriesLocalHeap(conf.getIntegerWithDefault("maxEntries", 10000));
+        }
+        Long offHeap = conf.getBytes("maxOffHeapSize");
+        if (offHeap != null && offHeap > 0) {
+            config.overflowToOffHeap(true).maxBytesLocalOffHeap(offHeap, MemoryUnit.BYTES);
+        }
+        config.memoryStoreEvictionPolicy(conf.getWithDefault("evictionPolicy", "LRU"));
+        Long ttl = conf.getDuration("timeToLive", TimeUnit.SECONDS);
+        Long tti = conf.getDuration("timeToIdle", TimeUnit.SECONDS);
+        if (ttl == null && tti == null) {
+            config.eternal(true);
+        } else {
+            config.timeToLiveSeconds(ttl == null ? 0 : ttl).timeToIdleSeconds(tti == null ? 0 : tti);
         }
+        return config;
+    }
+
+    /**
+     * @return the executor used by the asynchronous operations, {@literal null} if none.
+     */
+    Executor executor() {
+        return executor;
     }
 
     /**
@@ -124,12 +232,7 @@ public class EhCacheService implements Cache {
      */
     @Override
     public void set(String key, Object value, int expiration) {
-        Element element = new Element(key, value);
-        if (expiration == 0) {
-            element.setEternal(true);
-        }
-        element.setTimeToLive(expiration);
-        cache.put(element);
+        cache.set(key, value, expiration);
     }
 
     /**
@@ -141,13 +244,7 @@ public class EhCacheService implements Cache {
      */
     @Override
     public void set(String key, Object value, Duration expiration) {
-        Element element = new Element(key, value);
-        if (expiration == null) {
-            element.setEternal(true);
-        } else {
-            element.setTimeToLive((int) expiration.getStandardSeconds());
-        }
-        cache.put(element);
+        cache.set(key, value, expiration);
     }
 
     /**
@@ -158,11 +255,7 @@ public class EhCacheService implements Cache {
      */
     @Override
     public Object get(String key) {
-        Element element = cache.get(key);
-        if (element != null) {
-            return element.getObjectValue();
-        }
-        return null;
+        return cache.get(key);
     }
 
     /**
@@ -175,4 +268,45 @@ public class EhCacheService implements Cache {
     public boolean remove(String key) {
         return cache.remove(key);
     }
+
+    @Override
+    public <T> Map<String, T> getAll(Collection<String> keys) {
+        return cache.getAll(keys);
+    }
+
+    @Override
+    public <T> void setAll(Map<String, ? extends T> values, Duration expiration) {
+        cache.setAll(values, expiration);
+    }
+
+    @Override
+    public void removeAll(Collection<String> keys) {
+        cache.removeAll(keys);
+    }
+
+    @Override
+    public <T> T getOrCompute(String key, Duration expiration, Function<String, ? extends T> loader) {
+        return cache.getOrCompute(key, expiration, loader);
+    }
+
+    @Override
+    public <T> CompletionStage<T> getAsync(String key) {
+        return cache.getAsync(key);
+    }
+
+    @Override
+    public <T> CompletionStage<Void> setAsync(String key, T value, Duration expiration) {
+        return cache.setAsync(key, value, expiration);
+    }
+
+    @Override
+    public <T> CompletionStage<T> getOrComputeAsync(String key, Duration expiration,
+                                                    Function<String, ? extends CompletionStage<? extends T>> loader) {
+        return cache.getOrComputeAsync(key, expiration, loader);
+    }
+
+    @Override
+    public CacheStatistics statistics() {
+        return cache.statistics();
+    }
 }
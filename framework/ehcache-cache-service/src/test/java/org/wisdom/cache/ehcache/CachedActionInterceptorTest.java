@@ -20,20 +20,31 @@
 package org.wisdom.cache.ehcache;
 
 import org.joda.time.Duration;
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.wisdom.api.cache.Cache;
+import org.wisdom.api.bodies.RenderableByteArray;
 import org.wisdom.api.cache.Cached;
+import org.wisdom.api.cache.CachedResponse;
 import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.content.ContentEngine;
+import org.wisdom.api.content.ContentSerializer;
+import org.wisdom.api.cookies.Cookie;
 import org.wisdom.api.http.*;
 import org.wisdom.api.interception.RequestContext;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -60,17 +71,21 @@ public class CachedActionInterceptorTest {
         when(context.proceed()).thenReturn(r);
 
         Result result = interceptor.call(cached, context);
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo("Result");
+        assertThat(body(result)).isEqualTo(body(r));
         // Check that the result was put in cache.
         verify(interceptor.cache, times(1)).get("key");
-        verify(interceptor.cache, times(1)).set("key", r, Duration.standardSeconds(10));
+        ArgumentCaptor<CachedActionInterceptor.Entry> captor = ArgumentCaptor.forClass(CachedActionInterceptor.Entry
+                .class);
+        verify(interceptor.cache, times(1)).set(eq("key"), captor.capture(), eq(Duration.standardSeconds(10)));
+        assertThat(new String(captor.getValue().response.body(), Charsets.UTF_8)).isEqualTo("Result");
 
-        when(interceptor.cache.get("key")).thenReturn(r);
+        when(interceptor.cache.get("key")).thenReturn(captor.getValue());
         result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo(body(r));
 
         verify(interceptor.cache, times(2)).get("key");
+        verify(context, times(1)).proceed();
     }
 
     @Test
@@ -92,15 +107,15 @@ public class CachedActionInterceptorTest {
         when(context.proceed()).thenReturn(r);
 
         Result result = interceptor.call(cached, context);
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo("Result");
+        assertThat(body(result)).isEqualTo(body(r));
         // Check that the result was put in cache.
         verify(interceptor.cache, times(1)).get("/my/url?withquery");
-        verify(interceptor.cache, times(1)).set("/my/url?withquery", r, Duration.standardSeconds(10));
+        verify(interceptor.cache, times(1)).set(eq("/my/url?withquery"), any(CachedActionInterceptor.Entry.class),
+                eq(Duration.standardSeconds(10)));
 
-        when(interceptor.cache.get("key")).thenReturn(r);
         result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo(body(r));
 
         verify(interceptor.cache, times(2)).get("/my/url?withquery");
     }
@@ -123,21 +138,21 @@ public class CachedActionInterceptorTest {
 
         Result result = interceptor.call(cached, context);
 
-        assertThat(result.getRenderable().<String>content()).isEqualTo("Result");
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo("Result");
+        assertThat(body(result)).isEqualTo(body(r));
 
         final Result r2 = Results.ok("Result2");
         when(context.proceed()).thenReturn(r2);
 
         result = interceptor.call(cached, context);
         // r is cached return r even is r2 is the new result.
-        assertThat(result).isEqualTo(r);
+        assertThat(body(result)).isEqualTo(body(r));
 
         // The object is cached, let's use NO CACHE
         when(context.context().header(HeaderNames.CACHE_CONTROL)).thenReturn(HeaderNames.NOCACHE_VALUE);
 
         result = interceptor.call(cached, context);
-        assertThat(result).isNotEqualTo(r).isEqualTo(r2);
+        assertThat(body(result)).isEqualTo("Result2");
 
         final Result r3 = Results.ok("Result3");
         when(context.proceed()).thenReturn(r3);
@@ -145,7 +160,7 @@ public class CachedActionInterceptorTest {
         // Remove the cache-control
         when(context.context().header(HeaderNames.CACHE_CONTROL)).thenReturn(null);
         result = interceptor.call(cached, context);
-        assertThat(result).isEqualTo(r2).isNotEqualTo(r3);
+        assertThat(body(result)).isEqualTo("Result2");
     }
 
     @Test
@@ -203,6 +218,349 @@ public class CachedActionInterceptorTest {
         svc.stop();
     }
 
+    @Test
+    public void testVariantsFromTheVaryHeader() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        final Result english = Results.ok("Hello").with(HeaderNames.VARY, "Accept-Language");
+        final Result french = Results.ok("Bonjour").with(HeaderNames.VARY, "Accept-Language");
+        when(context.proceed()).thenReturn(english).thenReturn(french);
+
+        when(ctx.header("accept-language")).thenReturn("en");
+        assertThat(body(interceptor.call(cached, context))).isEqualTo(body(english));
+        when(ctx.header("accept-language")).thenReturn("fr");
+        assertThat(body(interceptor.call(cached, context))).isEqualTo(body(french));
+
+        // Both variants are cached.
+        assertThat(body(interceptor.call(cached, context))).isEqualTo(body(french));
+        when(ctx.header("accept-language")).thenReturn("en");
+        assertThat(body(interceptor.call(cached, context))).isEqualTo(body(english));
+        verify(context, times(2)).proceed();
+    }
+
+    @Test
+    public void testVariantsFromTheNegotiatedContentType() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        // The serializer is selected from the Accept header, and serializes the content as the Accept header.
+        interceptor.engine = mock(ContentEngine.class);
+        when(interceptor.engine.getBestSerializer(any())).thenAnswer(invocation -> {
+            final String accept = ctx.header(HeaderNames.ACCEPT);
+            ContentSerializer serializer = mock(ContentSerializer.class);
+            when(serializer.getContentType()).thenReturn(accept);
+            doAnswer(serialization -> {
+                ((Renderable) serialization.getArguments()[0]).setSerializedForm(accept);
+                return null;
+            }).when(serializer).serialize(any(Renderable.class));
+            return serializer;
+        });
+        // The content type is not set, it will be negotiated using the Accept header.
+        final Result json = Results.ok(ImmutableMap.of("message", "hello"));
+        final Result xml = Results.ok(ImmutableMap.of("message", "hello"));
+        assertThat(json.getContentType()).isNull();
+        when(context.proceed()).thenReturn(json).thenReturn(xml);
+
+        when(ctx.header(HeaderNames.ACCEPT)).thenReturn("application/json");
+        assertThat(body(interceptor.call(cached, context))).isEqualTo("application/json");
+        when(ctx.header(HeaderNames.ACCEPT)).thenReturn("application/xml");
+        Result result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo("application/xml");
+        assertThat(result.getContentType()).startsWith("application/xml");
+        when(ctx.header(HeaderNames.ACCEPT)).thenReturn("application/json");
+        assertThat(body(interceptor.call(cached, context))).isEqualTo("application/json");
+        verify(context, times(2)).proceed();
+    }
+
+    @Test
+    public void testThatResultsVaryingOnAllHeadersAreNotCached() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        when(context.proceed()).thenReturn(Results.ok("Result").with(HeaderNames.VARY, "*"));
+
+        interceptor.call(cached, context);
+        interceptor.call(cached, context);
+        verify(context, times(2)).proceed();
+        assertThat((DummyCache) interceptor.cache).isEmpty();
+    }
+
+    @Test
+    public void testThatConcurrentMissesInvokeTheActionOnce() throws Exception {
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        final Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        final CountDownLatch computing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invocations = new AtomicInteger();
+        final Result r = Results.ok("Result");
+        final RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        when(context.proceed()).thenAnswer(invocation -> {
+            invocations.incrementAndGet();
+            computing.countDown();
+            release.await();
+            return r;
+        });
+
+        ExecutorService clients = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<Result>> results = new ArrayList<>();
+            results.add(clients.submit(() -> interceptor.call(cached, context)));
+            computing.await();
+            for (int i = 0; i < 9; i++) {
+                results.add(clients.submit(() -> interceptor.call(cached, context)));
+            }
+            // Let the other clients reach the cache.
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Result> result : results) {
+                assertThat(body(result.get())).isEqualTo(body(r));
+            }
+            assertThat(invocations.get()).isEqualTo(1);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThatWaitingForAConcurrentMissDoesNotHoldTheThread() throws Exception {
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        final Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        final CountDownLatch computing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invocations = new AtomicInteger();
+        final Result r = Results.ok("Result");
+        final RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        when(context.proceed()).thenAnswer(invocation -> {
+            invocations.incrementAndGet();
+            computing.countDown();
+            release.await();
+            return r;
+        });
+
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<Result> slow = clients.submit(() -> interceptor.call(cached, context));
+            computing.await();
+            // Returns immediately, the result is completed by the slow computation.
+            Result waiting = interceptor.call(cached, context);
+            assertThat(waiting).isInstanceOf(CompletionStageResult.class);
+            assertThat(((CompletionStageResult) waiting).stage().toCompletableFuture().isDone()).isFalse();
+            release.countDown();
+            assertThat(body(slow.get())).isEqualTo(body(r));
+            assertThat(body(waiting)).isEqualTo(body(r));
+            assertThat(invocations.get()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThatConcurrentMissesOnUncacheableResultsAreNotCoalesced() throws Exception {
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        final Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        final AtomicInteger invocations = new AtomicInteger();
+        final RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        when(context.proceed()).thenAnswer(invocation -> {
+            if (invocations.incrementAndGet() > 1) {
+                // Only passes if the 3 requests invoke the action at the same time.
+                barrier.await(5, TimeUnit.SECONDS);
+            }
+            return Results.ok("Result").with(Cookie.builder("name", "value").build());
+        });
+
+        // The first result cannot be cached.
+        interceptor.call(cached, context);
+
+        ExecutorService clients = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Result>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(clients.submit(() -> interceptor.call(cached, context)));
+            }
+            for (Future<Result> result : results) {
+                assertThat(body(result.get())).isEqualTo("Result");
+            }
+            assertThat(invocations.get()).isEqualTo(4);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        final CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        final Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.staleWhileRevalidate()).thenReturn(60);
+        when(cached.key()).thenReturn("key");
+
+        final CountDownLatch computing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        final Result stale = Results.ok("Stale");
+        final Result fresh = Results.ok("Fresh");
+        when(context.proceed()).thenAnswer(invocation -> {
+            computing.countDown();
+            release.await();
+            return fresh;
+        });
+
+        // Expired, but still in the stale-while-revalidate window.
+        long now = System.currentTimeMillis();
+        interceptor.cache.set("key", new CachedActionInterceptor.Entry("key", null,
+                new CachedResponse(stale, "Stale".getBytes(Charsets.UTF_8), null), now - 1000, now + 60000), 70);
+
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            // The first request refreshes the result.
+            Future<Result> refreshing = clients.submit(() -> interceptor.call(cached, context));
+            computing.await();
+            // The concurrent requests are served the stale result.
+            assertThat(body(interceptor.call(cached, context))).isEqualTo(body(stale));
+            release.countDown();
+            assertThat(body(refreshing.get())).isEqualTo(body(fresh));
+            assertThat(body(interceptor.call(cached, context))).isEqualTo(body(fresh));
+            verify(context, times(1)).proceed();
+        } finally {
+            release.countDown();
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testThatStaleResultsAreRefreshedByTheFirstRequest() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.staleWhileRevalidate()).thenReturn(60);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        final Result fresh = Results.ok("Fresh");
+        when(context.proceed()).thenReturn(fresh);
+
+        long now = System.currentTimeMillis();
+        interceptor.cache.set("key", new CachedActionInterceptor.Entry("key", null,
+                new CachedResponse(Results.ok("Stale"), "Stale".getBytes(Charsets.UTF_8), null),
+                now - 1000, now + 60000), 70);
+        assertThat(body(interceptor.call(cached, context))).isEqualTo(body(fresh));
+    }
+
+    @Test
+    public void testThatStreamsAreCachedAsBytes() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        Context ctx = mock(Context.class);
+        when(context.context()).thenReturn(ctx);
+        when(context.proceed()).thenReturn(Results.ok(new ByteArrayInputStream(
+                Strings.repeat("hello ", 100).getBytes(Charsets.UTF_8))).as(MimeTypes.TEXT));
+
+        // The stream can be read only once, but is cached as bytes.
+        Result result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo(Strings.repeat("hello ", 100));
+        assertThat(result.getRenderable().mustBeChunked()).isFalse();
+        result = interceptor.call(cached, context);
+        assertThat(body(result)).isEqualTo(Strings.repeat("hello ", 100));
+        assertThat(result.getContentType()).startsWith(MimeTypes.TEXT);
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_ENCODING);
+
+        // The gzipped version is served to client accepting it.
+        when(ctx.header(HeaderNames.ACCEPT_ENCODING)).thenReturn("gzip, deflate");
+        result = interceptor.call(cached, context);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CONTENT_ENCODING, "gzip");
+        byte[] gzipped = ((RenderableByteArray) result.getRenderable()).content();
+        assertThat(new String(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped))),
+                Charsets.UTF_8)).isEqualTo(Strings.repeat("hello ", 100));
+        verify(context, times(1)).proceed();
+    }
+
+    @Test
+    public void testThatResultsWithCookiesAreNotCached() throws Exception {
+        CachedActionInterceptor interceptor = new CachedActionInterceptor();
+        interceptor.cache = new DummyCache();
+        Cached cached = mock(Cached.class);
+        when(cached.duration()).thenReturn(10);
+        when(cached.key()).thenReturn("key");
+
+        RequestContext context = mock(RequestContext.class);
+        when(context.request()).thenReturn(mock(Request.class));
+        when(context.context()).thenReturn(mock(Context.class));
+        final Result r = Results.ok("Result").with(Cookie.builder("name", "value").build());
+        when(context.proceed()).thenReturn(r);
+
+        assertThat(interceptor.call(cached, context)).isSameAs(r);
+        assertThat(interceptor.call(cached, context)).isSameAs(r);
+        verify(context, times(2)).proceed();
+        assertThat((DummyCache) interceptor.cache).isEmpty();
+    }
+
+    /**
+     * Gets the body of the given result as String.
+     */
+    private static String body(Result result) throws Exception {
+        if (result instanceof CompletionStageResult) {
+            result = ((CompletionStageResult) result).stage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        }
+        if (result.getRenderable() instanceof RenderableByteArray) {
+            return new String(((RenderableByteArray) result.getRenderable()).content(), Charsets.UTF_8);
+        }
+        return result.getRenderable().content().toString();
+    }
+
     private class DummyCache extends TreeMap<String, Object> implements Cache {
         @Override
         public void set(String key, Object value, int expiration) {
@@ -0,0 +1,211 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.cache.ehcache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.wisdom.api.cache.Cache;
+import org.wisdom.api.cache.CacheStatistics;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.configuration.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the regions, bulk operations, computations and statistics of the EhCache-based cache service.
+ */
+public class EhCacheRegionTest {
+
+    private EhCacheService svc;
+
+    @Before
+    public void setUp() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBooleanWithDefault("ehcache.enabled", true)).thenReturn(true);
+        Configuration small = mock(Configuration.class);
+        when(small.getIntegerWithDefault("maxEntries", 10000)).thenReturn(2);
+        when(small.getWithDefault("evictionPolicy", "LRU")).thenReturn("FIFO");
+        when(configuration.getConfiguration("ehcache.regions.small")).thenReturn(small);
+        svc = new EhCacheService();
+        svc.configuration = configuration;
+        svc.context = mock(BundleContext.class);
+        svc.start();
+    }
+
+    @After
+    public void tearDown() {
+        svc.stop();
+    }
+
+    @Test
+    public void testRegionsAreIsolated() {
+        Cache users = svc.region("users");
+        Cache products = svc.region("products");
+        assertThat(svc.region("users")).isSameAs(users);
+
+        users.set("key", "user", 0);
+        products.set("key", "product", 0);
+        svc.set("key", "default", 0);
+
+        assertThat(users.<String>get("key")).isEqualTo("user");
+        assertThat(products.<String>get("key")).isEqualTo("product");
+        assertThat(svc.get("key")).isEqualTo("default");
+        assertThat(users.region("products")).isSameAs(products);
+    }
+
+    @Test
+    public void testConfiguredRegion() {
+        Cache small = svc.region("small");
+        small.set("a", 1, 0);
+        small.set("b", 2, 0);
+        small.set("c", 3, 0);
+
+        CacheStatistics statistics = small.statistics();
+        assertThat(statistics.getSize()).isEqualTo(2);
+        assertThat(statistics.getEvictions()).isEqualTo(1);
+        assertThat(small.<Integer>get("c")).isEqualTo(3);
+    }
+
+    @Test
+    public void testBulkOperations() {
+        Cache cache = svc.region("bulk");
+        cache.setAll(ImmutableMap.of("a", "1", "b", "2"), Duration.standardMinutes(1));
+
+        Map<String, String> values = cache.getAll(ImmutableList.of("a", "b", "c"));
+        assertThat(values).hasSize(2).containsEntry("a", "1").containsEntry("b", "2");
+
+        cache.removeAll(ImmutableList.of("a", "c"));
+        assertThat(cache.<String>get("a")).isNull();
+        assertThat(cache.<String>get("b")).isEqualTo("2");
+
+        CacheStatistics statistics = cache.statistics();
+        assertThat(statistics.getHits()).isEqualTo(3);
+        assertThat(statistics.getMisses()).isEqualTo(2);
+        assertThat(statistics.getHitRatio()).isEqualTo(0.6);
+    }
+
+    @Test
+    public void testGetOrComputeInvokesTheLoaderOnce() throws Exception {
+        final Cache cache = svc.region("compute");
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> cache.getOrCompute("key", null, key -> {
+                calls.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "value";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> second = executor.submit(() -> cache.getOrCompute("key", null, key -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(cache.<String>get("key")).isEqualTo("value");
+    }
+
+    @Test
+    public void testGetOrComputeFailure() {
+        Cache cache = svc.region("failure");
+        try {
+            cache.getOrCompute("key", null, key -> {
+                throw new IllegalStateException("boom");
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertThat(cache.<String>getOrCompute("key", null, key -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    public void testAsyncOperations() throws Exception {
+        Cache cache = svc.region("async");
+        CompletableFuture<String> loader = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.<String>getOrComputeAsync("key", null, key -> loader)
+                .toCompletableFuture();
+        CompletableFuture<String> second = cache.<String>getOrComputeAsync("key", null,
+                key -> CompletableFuture.completedFuture("other")).toCompletableFuture();
+        assertThat(first.isDone()).isFalse();
+
+        loader.complete("value");
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+
+        cache.setAsync("other", "async", null).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertThat(cache.<String>getAsync("other").toCompletableFuture().get(5, TimeUnit.SECONDS))
+                .isEqualTo("async");
+    }
+
+    @Test
+    public void testThatCallersCannotCompleteTheSharedComputation() throws Exception {
+        Cache cache = svc.region("isolation");
+        CompletableFuture<String> loader = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.<String>getOrComputeAsync("key", null, key -> loader)
+                .toCompletableFuture();
+        CompletableFuture<String> second = cache.<String>getOrComputeAsync("key", null,
+                key -> CompletableFuture.completedFuture("other")).toCompletableFuture();
+        assertThat(first).isNotSameAs(second);
+
+        // Completing the stage of a caller affects neither the other callers nor the cached value.
+        first.complete("hijacked");
+        second.cancel(false);
+        CompletableFuture<String> third = cache.<String>getOrComputeAsync("key", null,
+                key -> CompletableFuture.completedFuture("other")).toCompletableFuture();
+        assertThat(third.isDone()).isFalse();
+
+        loader.complete("value");
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(cache.<String>get("key")).isEqualTo("value");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
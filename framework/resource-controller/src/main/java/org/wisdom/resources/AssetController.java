@@ -21,17 +21,21 @@ package org.wisdom.resources;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.felix.ipojo.annotations.*;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.util.tracker.BundleTracker;
+import org.osgi.util.tracker.BundleTrackerCustomizer;
+import org.ow2.chameleon.core.services.AbstractDeployer;
+import org.ow2.chameleon.core.services.Deployer;
+import org.ow2.chameleon.core.services.Watcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.asset.Asset;
 import org.wisdom.api.asset.AssetProvider;
-import org.wisdom.api.asset.DefaultAsset;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.http.HttpMethod;
@@ -40,11 +44,16 @@ import org.wisdom.api.router.Route;
 import org.wisdom.api.router.RouteBuilder;
 
 import java.io.File;
-import java.net.URL;
 import java.util.*;
 
 /**
  * A controller publishing the resources found in a folder and in bundles.
+ * <p>
+ * Assets are served from an in-memory index (see {@link AssetIndex}), built when the controller starts and kept up
+ * to date by watching the directory and tracking the active bundles. If the directory cannot be watched,
+ * the file system is checked on each request. Assets that are not indexed are looked up in all the bundles (using
+ * {@link Bundle#getResource(String)}), as {@link #assetAt(String)} always did, even when the controller does not
+ * manage the assets from bundles.
  */
 @Component(immediate = true)
 @Provides
@@ -68,6 +77,19 @@ public class AssetController extends DefaultController implements AssetProvider
     @Requires
     Crypto crypto;
 
+    @Requires(optional = true, proxy = false, nullable = false)
+    Watcher watcher;
+
+    private AssetIndex index;
+
+    /**
+     * Whether or not the directory is watched, and so the index of the file system is up to date.
+     */
+    private volatile boolean watched;
+
+    private BundleTracker<Bundle> tracker;
+    private ServiceRegistration<Deployer> registration;
+
     /**
      * Constructor used for testing purpose only.
      *
@@ -100,6 +122,7 @@ public class AssetController extends DefaultController implements AssetProvider
         this.manageAssetsFromBundles = manageAssetsFromBundles;
         this.pathInBundles = computePathInBundle(pathInBundles);
         this.root = computeRoot(url);
+        start();
     }
 
     /**
@@ -131,6 +154,49 @@ public class AssetController extends DefaultController implements AssetProvider
                 path, root);
     }
 
+    /**
+     * Builds the index and starts watching the directory and tracking bundles.
+     */
+    @Validate
+    public void start() {
+        index = new AssetIndex(root, directory, pathInBundles, configuration, crypto);
+        index.indexDirectory();
+        if (directory != null && directory.isDirectory() && watcher != null && context != null) {
+            registration = context.registerService(Deployer.class, new AssetDeployer(), null);
+            watched = watcher.add(directory, true);
+        }
+        if (manageAssetsFromBundles) {
+            tracker = new BundleTracker<>(context, Bundle.ACTIVE, new AssetBundleTracker());
+            tracker.open();
+        }
+    }
+
+    /**
+     * Stops watching the directory and tracking bundles.
+     */
+    @Invalidate
+    public void stop() {
+        if (tracker != null) {
+            // Reset the field first, so removed bundles do not trigger the re-indexing of the other bundles.
+            BundleTracker<Bundle> closing = tracker;
+            tracker = null;
+            closing.close();
+        }
+        if (registration != null) {
+            registration.unregister();
+            registration = null;
+        }
+        if (watched) {
+            watched = false;
+            try {
+                watcher.removeAndStopIfNeeded(directory);
+            } catch (RuntimeException e) { //NOSONAR
+                // An exception can be thrown when the platform is shutting down.
+                // ignore it.
+            }
+        }
+    }
+
     private String computeRoot(String url) {
         if (url != null) {
             if (!url.startsWith("/")) {
@@ -173,118 +239,118 @@ public class AssetController extends DefaultController implements AssetProvider
             path = path.substring(1);
         }
 
-        Asset<?> asset = getAssetFromFS(path);
-        if (asset == null && manageAssetsFromBundles) {
-            asset = getAssetFromBundle(path);
+        AssetIndex.Entry entry = index.get(path, watched);
+        if (entry == null && manageAssetsFromBundles) {
+            entry = lookupInBundles(path);
         }
-
-        if (asset != null) {
-            return CacheUtils.fromAsset(context(), asset, configuration);
+        if (entry != null) {
+            return index.serve(context(), entry);
         }
         return notFound();
     }
 
-    private Asset<URL> getAssetFromBundle(String path) {
-        Bundle[] bundles = context.getBundles();
-        // Skip bundle 0 as it cannot contain assets
-        for (int i = 1; i < bundles.length; i++) {
-            URL url = bundles[i].getResource(pathInBundles + path);
-            if (url != null) {
-                return new DefaultAsset<>(root + "/" + path, url, bundles[i].getSymbolicName(),
-                        bundles[i].getLastModified(),
-                        CacheUtils.computeEtag(bundles[i].getLastModified(), configuration, crypto));
-            }
+    /**
+     * @return the list of provided assets.
+     */
+    @Override
+    public Collection<Asset<?>> assets() {
+        if (!watched) {
+            index.indexDirectory();
         }
-        return null; // Asset not found, just returning null.
+        return index.assets();
     }
 
-    private Asset<File> getAssetFromFS(String path) {
-        if (directory == null) {
+    /**
+     * Retrieves an asset.
+     *
+     * @param path the asset path
+     * @return the Asset object, or {@literal null} if the current provider can't serve this asset.
+     */
+    @Override
+    public Asset<?> assetAt(String path) {
+        AssetIndex.Entry entry = index.get(path, watched);
+        if (entry == null) {
+            // Not indexed, or bundles are not tracked: look into all the bundles.
+            entry = lookupInBundles(path);
+        }
+        if (entry == null) {
             return null;
         }
-        File file = new File(directory, path);
-        if (!file.exists()) {
+        return entry.asset;
+    }
+
+    /**
+     * Looks up an asset in all the bundles, including the bundles that are not active (and so not indexed),
+     * fragments and bundle class paths.
+     *
+     * @param path the asset path
+     * @return the entry, {@literal null} if not found
+     */
+    private AssetIndex.Entry lookupInBundles(String path) {
+        if (context == null) {
             return null;
         }
-        return new DefaultAsset<>(root + "/" + path, file, file.getAbsolutePath(), file.lastModified(),
-                CacheUtils.computeEtag(file.lastModified(), configuration, crypto));
+        return index.lookup(path, context.getBundles());
     }
 
     /**
-     * @return the list of provided assets.
+     * Updates the index when files from the directory are created, updated or deleted.
      */
-    @Override
-    public Collection<Asset<?>> assets() {
-        Map<String, Asset<?>> map = new HashMap<>();
-        if (directory != null && directory.isDirectory()) {
-            // First insert the FS assets
-            // For this iterate over the file present on the file system.
-            Collection<File> files = FileUtils.listFiles(directory, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
-            for (File file : files) {
-                if (file.getName().startsWith(".")) {
-                    // Skip file starting with . - there are hidden.
-                    continue;
-                }
-                if (file.getName().startsWith(".")) {
-                    // Skip file starting with . - there are hidden.
-                    continue;
-                }
+    private class AssetDeployer extends AbstractDeployer {
 
-                // The path is computed as follows:
-                // root (ending with /) and the path of the file relative to the directory. As these path may contain
-                // \ on Windows we replace them by /.
-                String path = root
-                        + file.getAbsolutePath().substring(directory.getAbsolutePath().length()).replace("\\", "/");
-                // TODO Do we really need computing the ETAG here ?
-                map.put(path, new DefaultAsset<>(path, file, file.getAbsolutePath(), file.lastModified(), null));
-            }
+        @Override
+        public boolean accept(File file) {
+            return index.contains(file);
         }
 
-        if (!manageAssetsFromBundles) {
-            return map.values();
+        @Override
+        public void onFileCreate(File file) {
+            index.addFile(file);
         }
 
-        // No add the bundle things.
-        Bundle[] bundles = context.getBundles();
-        // Skip bundle 0
-        for (int i = 1; i < bundles.length; i++) {
-            // Remove the last "/" - we are sure to have one.
-            URL root = bundles[i].getEntry(pathInBundles.substring(0, pathInBundles.length() - 1));
-            Enumeration<URL> urls = bundles[i].findEntries(pathInBundles, "*", true);
-
-            if (urls != null) {
-                while (urls.hasMoreElements()) {
-                    URL url = urls.nextElement();
-                    String path = url.toExternalForm().substring(root.toExternalForm().length());
-                    if (path.startsWith("/")) {
-                        path = this.root + path;
-                    } else {
-                        path = this.root + "/" + path;
-                    }
-                    if (!map.containsKey(path)) {
-                        // We should not replace assets overridden by files.
-                        map.put(path, new DefaultAsset<>(path, url, url.toExternalForm(),
-                                bundles[i].getLastModified(), null));
-                    }
-                }
-            }
+        @Override
+        public void onFileChange(File file) {
+            index.addFile(file);
         }
 
-        return map.values();
+        @Override
+        public void onFileDelete(File file) {
+            index.removeFile(file);
+        }
     }
 
     /**
-     * Retrieves an asset.
-     *
-     * @param path the asset path
-     * @return the Asset object, or {@literal null} if the current provider can't serve this asset.
+     * Indexes the assets of the active bundles.
      */
-    @Override
-    public Asset<?> assetAt(String path) {
-        Asset<?> asset = getAssetFromFS(path);
-        if (asset == null) {
-            asset = getAssetFromBundle(path);
+    private class AssetBundleTracker implements BundleTrackerCustomizer<Bundle> {
+
+        @Override
+        public Bundle addingBundle(Bundle bundle, BundleEvent event) {
+            if (bundle.getBundleId() == 0) {
+                // Bundle 0 cannot contain assets
+                return null;
+            }
+            index.addBundle(bundle);
+            return bundle;
+        }
+
+        @Override
+        public void modifiedBundle(Bundle bundle, BundleEvent event, Bundle object) {
+            // Nothing to do.
+        }
+
+        @Override
+        public void removedBundle(Bundle bundle, BundleEvent event, Bundle object) {
+            index.removeBundle(bundle);
+            // Assets hidden by the removed bundle may be provided by other bundles.
+            Bundle[] bundles = tracker == null ? null : tracker.getBundles();
+            if (bundles != null) {
+                for (Bundle other : bundles) {
+                    if (other != bundle) {
+                        index.addBundle(other);
+                    }
+                }
+            }
         }
-        return asset;
     }
 }
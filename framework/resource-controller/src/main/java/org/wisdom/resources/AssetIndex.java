@@ -0,0 +1,573 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.io.ByteStreams;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.osgi.framework.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.bodies.RenderableByteArray;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.*;
+import org.wisdom.api.utils.DateUtil;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-memory index of the assets served by an {@link AssetController}. It maps the path of each asset (relative
+ * to the root url) to its metadata, and the headers that do not depend on the request (ETag, Last-Modified,
+ * Cache-Control) are computed once, when the asset is indexed.
+ * <p>
+ * Assets from the file system take precedence over assets from bundles. Pre-compressed variants placed next to an
+ * asset ({@code script.js.gz} and {@code script.js.br}) are served to the clients accepting the encoding. In
+ * addition, small assets are kept in memory (with a gzipped copy for compressible content) the first time they are
+ * served.
+ * <p>
+ * The index is kept up to date by the controller, using the file watcher and a bundle tracker. The tracker only
+ * indexes the entries of active bundles, so assets missing from the index can still be looked up in all the bundles
+ * (see {@link #lookup(String, Bundle[])}).
+ */
+class AssetIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetIndex.class);
+
+    /**
+     * Configures the maximum length (in bytes) of the assets kept in memory, 0 disables the in-memory cache.
+     */
+    public static final String HTTP_ASSETS_IN_MEMORY_MAX_LENGTH = "http.assets.in_memory_max_length";
+
+    /**
+     * Default maximum length of the assets kept in memory.
+     */
+    public static final long HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT = 16 * 1024;
+
+    /**
+     * Enables / disables the gzipped copies of the assets kept in memory.
+     */
+    public static final String HTTP_ASSETS_GZIP = "http.assets.gzip";
+
+    static final String GZIP = "gzip";
+    static final String BROTLI = "br";
+
+    /**
+     * Assets smaller than this length (in bytes) are not gzipped.
+     */
+    private static final int GZIP_MIN_LENGTH = 256;
+
+    private final ConcurrentMap<String, Entry> files = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Entry> bundles = new ConcurrentHashMap<>();
+
+    private final String root;
+    private final File directory;
+    private final String pathInBundles;
+    private final ApplicationConfiguration configuration;
+    private final Crypto crypto;
+
+    private final String cacheControl;
+    private final boolean useEtag;
+    private final long inMemoryMaxLength;
+    private final boolean gzip;
+
+    /**
+     * Creates the index.
+     *
+     * @param root          the root url
+     * @param directory     the directory containing the assets, {@literal null} if none
+     * @param pathInBundles the path of the assets in bundles (starting and ending with `/`)
+     * @param configuration the application configuration
+     * @param crypto        the crypto service
+     */
+    AssetIndex(String root, File directory, String pathInBundles, ApplicationConfiguration configuration,
+               Crypto crypto) {
+        this.root = root;
+        this.directory = directory;
+        this.pathInBundles = pathInBundles;
+        this.configuration = configuration;
+        this.crypto = crypto;
+
+        String maxAge = configuration.getWithDefault(CacheUtils.HTTP_CACHE_CONTROL_MAX_AGE,
+                CacheUtils.HTTP_CACHE_CONTROL_DEFAULT);
+        this.cacheControl = "0".equals(maxAge) ? "no-cache" : "max-age=" + maxAge;
+        this.useEtag = configuration.getBooleanWithDefault(CacheUtils.HTTP_USE_ETAG,
+                CacheUtils.HTTP_USE_ETAG_DEFAULT);
+        Long max = configuration.getBytes(HTTP_ASSETS_IN_MEMORY_MAX_LENGTH, HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT);
+        this.inMemoryMaxLength = max == null ? HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT : max;
+        this.gzip = configuration.getBooleanWithDefault(HTTP_ASSETS_GZIP, true);
+    }
+
+    /**
+     * Gets the entry of the given asset.
+     *
+     * @param path  the path of the asset, relative to the root url
+     * @param fresh whether or not the index of the file system is known to be up to date. If not, entries from the
+     *              file system are checked against the file, and missing entries are looked up on the file system
+     * @return the entry, {@literal null} if the asset does not exist
+     */
+    Entry get(String path, boolean fresh) {
+        Entry entry = files.get(path);
+        if (!fresh) {
+            if (entry == null || entry.isStale()) {
+                entry = refresh(path);
+            }
+        }
+        if (entry == null) {
+            entry = bundles.get(path);
+        }
+        if (entry != null && !entry.loaded) {
+            Entry loaded = load(entry);
+            (entry.bundle == null ? files : bundles).replace(path, entry, loaded);
+            entry = loaded;
+        }
+        return entry;
+    }
+
+    private Entry refresh(String path) {
+        if (directory == null) {
+            return null;
+        }
+        File file = new File(directory, path);
+        if (file.isFile()) {
+            return addFile(file);
+        }
+        files.remove(path);
+        return null;
+    }
+
+    /**
+     * @return the indexed assets.
+     */
+    Collection<Asset<?>> assets() {
+        Map<String, Asset<?>> assets = new LinkedHashMap<>();
+        for (Entry entry : files.values()) {
+            assets.put(entry.asset.getPath(), entry.asset);
+        }
+        for (Entry entry : bundles.values()) {
+            if (!assets.containsKey(entry.asset.getPath())) {
+                // We should not replace assets overridden by files.
+                assets.put(entry.asset.getPath(), entry.asset);
+            }
+        }
+        return assets.values();
+    }
+
+    /**
+     * Indexes all the files from the directory, and removes the entries of the files that do not exist anymore.
+     */
+    void indexDirectory() {
+        Set<String> found = new HashSet<>();
+        if (directory != null && directory.isDirectory()) {
+            Collection<File> list = FileUtils.listFiles(directory, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+            for (File file : list) {
+                Entry entry = addFile(file);
+                if (entry != null) {
+                    found.add(relativePath(file));
+                }
+            }
+        }
+        files.keySet().retainAll(found);
+    }
+
+    /**
+     * Computes the path of the given file relative to the directory. As these path may contain \ on Windows we
+     * replace them by /.
+     */
+    private String relativePath(File file) {
+        String path = file.getAbsolutePath().substring(directory.getAbsolutePath().length()).replace("\\", "/");
+        if (path.startsWith("/")) {
+            return path.substring(1);
+        }
+        return path;
+    }
+
+    /**
+     * Checks whether the given file is contained in the directory.
+     *
+     * @param file the file
+     * @return {@literal true} if the file is in the directory (or one of its sub-directory)
+     */
+    boolean contains(File file) {
+        return directory != null
+                && file.getAbsolutePath().startsWith(directory.getAbsolutePath() + File.separator);
+    }
+
+    /**
+     * Indexes (or re-indexes) the given file. If the file is a pre-compressed variant, the original file is
+     * re-indexed.
+     *
+     * @param file the file
+     * @return the entry, {@literal null} if the file is not served
+     */
+    Entry addFile(File file) {
+        if (file.getName().startsWith(".") || !file.isFile()) {
+            // Skip file starting with . - there are hidden.
+            return null;
+        }
+        String path = relativePath(file);
+        Entry entry = new Entry(this, path, file, file.lastModified(), file.length(), null,
+                variant(file, ".gz"), variant(file, ".br"));
+        files.put(path, entry);
+        updateOriginal(file);
+        return entry;
+    }
+
+    /**
+     * Removes the given file from the index.
+     *
+     * @param file the file
+     */
+    void removeFile(File file) {
+        files.remove(relativePath(file));
+        updateOriginal(file);
+    }
+
+    private void updateOriginal(File file) {
+        String name = file.getName();
+        for (String extension : new String[]{".gz", ".br"}) {
+            if (name.endsWith(extension)) {
+                File original = new File(file.getParentFile(), name.substring(0, name.length() - extension.length()));
+                if (files.containsKey(relativePath(original))) {
+                    addFile(original);
+                }
+            }
+        }
+    }
+
+    private static File variant(File file, String extension) {
+        File variant = new File(file.getParentFile(), file.getName() + extension);
+        // Ignore outdated variants.
+        if (variant.isFile() && variant.lastModified() >= file.lastModified()) {
+            return variant;
+        }
+        return null;
+    }
+
+    /**
+     * Indexes the assets contained in the given bundle. When several bundles contain the same asset, the one from
+     * the bundle with the lowest id is served.
+     *
+     * @param bundle the bundle
+     */
+    void addBundle(Bundle bundle) {
+        // Remove the last "/" - we are sure to have one.
+        URL base = bundle.getEntry(pathInBundles.substring(0, pathInBundles.length() - 1));
+        Enumeration<URL> urls = bundle.findEntries(pathInBundles, "*", true);
+        if (base == null || urls == null) {
+            return;
+        }
+        Map<String, URL> found = new LinkedHashMap<>();
+        while (urls.hasMoreElements()) {
+            URL url = urls.nextElement();
+            String path = url.toExternalForm().substring(base.toExternalForm().length());
+            if (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            if (!path.isEmpty() && !path.endsWith("/")) {
+                found.put(path, url);
+            }
+        }
+        for (Map.Entry<String, URL> url : found.entrySet()) {
+            final String path = url.getKey();
+            final Entry entry = new Entry(this, path, url.getValue(), bundle.getLastModified(), -1, bundle,
+                    found.get(path + ".gz"), found.get(path + ".br"));
+            bundles.merge(path, entry, (current, candidate) ->
+                    current.bundle.getBundleId() <= candidate.bundle.getBundleId() ? current : candidate);
+        }
+    }
+
+    /**
+     * Looks up an asset in the given bundles using {@link Bundle#getResource(String)}, so fragments and the bundle
+     * class path are searched, whatever the state of the bundles. The entry is not indexed, as these bundles are
+     * not tracked. The first bundle containing the asset provides it.
+     *
+     * @param path       the path of the asset, relative to the root url
+     * @param candidates the bundles, may be {@literal null}
+     * @return the entry, {@literal null} if none of the bundles contains the asset
+     */
+    Entry lookup(String path, Bundle[] candidates) {
+        if (candidates == null) {
+            return null;
+        }
+        for (Bundle bundle : candidates) {
+            if (bundle.getBundleId() == 0) {
+                // Bundle 0 cannot contain assets
+                continue;
+            }
+            URL url = bundle.getResource(pathInBundles + path);
+            if (url != null) {
+                return new Entry(this, path, url, bundle.getLastModified(), -1, bundle,
+                        bundle.getResource(pathInBundles + path + ".gz"),
+                        bundle.getResource(pathInBundles + path + ".br"));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the assets provided by the given bundle.
+     *
+     * @param bundle the bundle
+     */
+    void removeBundle(Bundle bundle) {
+        bundles.values().removeIf(entry -> entry.bundle.getBundleId() == bundle.getBundleId());
+    }
+
+    /**
+     * Loads the content of the given entry in memory if it is small enough.
+     *
+     * @param entry the entry
+     * @return the loaded entry
+     */
+    private Entry load(Entry entry) {
+        if (inMemoryMaxLength <= 0) {
+            return entry.withContent(null, null);
+        }
+        try {
+            byte[] content = read(entry.asset.getContent());
+            if (content == null) {
+                return entry.withContent(null, null);
+            }
+            byte[] compressed = null;
+            if (gzip && entry.gzipVariant == null && content.length >= GZIP_MIN_LENGTH
+                    && isCompressible(entry.mimetype)) {
+                compressed = gzip(content);
+                if (compressed.length >= content.length) {
+                    compressed = null;
+                }
+            }
+            return entry.withContent(content, compressed);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot load the content of the asset {}", entry.asset.getPath(), e);
+            return entry.withContent(null, null);
+        }
+    }
+
+    private byte[] read(Object content) throws IOException {
+        if (content instanceof File) {
+            File file = (File) content;
+            if (file.length() > inMemoryMaxLength) {
+                return null;
+            }
+            return FileUtils.readFileToByteArray(file);
+        }
+        URLConnection connection = ((URL) content).openConnection();
+        long length = connection.getContentLengthLong();
+        if (length < 0 || length > inMemoryMaxLength) {
+            return null;
+        }
+        try (InputStream stream = connection.getInputStream()) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private static boolean isCompressible(String mimetype) {
+        return mimetype.startsWith("text/")
+                || mimetype.contains("javascript")
+                || mimetype.contains("json")
+                || mimetype.contains("xml");
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream stream = new GZIPOutputStream(out)) {
+            stream.write(content);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Computes the result serving the given asset. The result is a {@literal 304 - NOT MODIFIED} result if the
+     * client already has the asset.
+     *
+     * @param context the HTTP context
+     * @param entry   the entry
+     * @return the result
+     */
+    Result serve(Context context, Entry entry) {
+        String encoding = entry.encoding(context.header(HeaderNames.ACCEPT_ENCODING));
+        String etag = entry.etag(encoding);
+        if (CacheUtils.isNotModified(context, entry.asset.getLastModified(), etag)) {
+            return new Result(Status.NOT_MODIFIED);
+        }
+
+        Result result;
+        if (encoding == null) {
+            if (entry.content != null) {
+                result = Results.status(Status.OK).render(new RenderableByteArray(entry.content, false));
+            } else {
+                result = content(entry.asset.getContent());
+            }
+        } else {
+            if (GZIP.equals(encoding) && entry.gzipped != null) {
+                result = Results.status(Status.OK).render(new RenderableByteArray(entry.gzipped, false));
+            } else {
+                result = content(GZIP.equals(encoding) ? entry.gzipVariant : entry.brotliVariant);
+            }
+            // Already compressed, so the server must not compress it again.
+            result.with(HeaderNames.CONTENT_ENCODING, encoding).withoutCompression();
+        }
+        result.as(entry.mimetype)
+                .with(HeaderNames.LAST_MODIFIED, entry.lastModified)
+                .with(HeaderNames.CACHE_CONTROL,
+                        CacheUtils.isFingerprinted(context, configuration, entry.asset.getContent(),
+                                entry.asset.getLastModified()) ? CacheUtils.IMMUTABLE_CACHE_CONTROL : cacheControl);
+        if (etag != null) {
+            result.with(HeaderNames.ETAG, etag);
+        }
+        if (entry.hasVariants()) {
+            result.with(HeaderNames.VARY, HeaderNames.ACCEPT_ENCODING);
+        }
+        return result;
+    }
+
+    private static Result content(Object content) {
+        if (content instanceof File) {
+            // Sent without copy by the engine.
+            return Results.ok((File) content);
+        }
+        return Results.ok((URL) content);
+    }
+
+    /**
+     * An indexed asset. Instances are immutable, loading the content creates a new entry.
+     */
+    static final class Entry {
+
+        final Asset<?> asset;
+        final String gzipEtag;
+        final String brotliEtag;
+        final String mimetype;
+        final String lastModified;
+        final long length;
+
+        /**
+         * The bundle containing the asset, {@literal null} for files.
+         */
+        final Bundle bundle;
+
+        /**
+         * The pre-compressed variants (file or url), {@literal null} if none.
+         */
+        final Object gzipVariant;
+        final Object brotliVariant;
+
+        /**
+         * Whether or not the content was loaded, if so {@link #content} is {@literal null} if the asset is too
+         * large to be kept in memory.
+         */
+        final boolean loaded;
+        final byte[] content;
+        final byte[] gzipped;
+
+        private Entry(AssetIndex index, String path, Object content, long lastModified, long length, Bundle bundle,
+                      Object gzipVariant, Object brotliVariant) {
+            String etag = CacheUtils.computeEtag(lastModified, index.configuration, index.crypto);
+            String source = content instanceof File ? ((File) content).getAbsolutePath()
+                    : bundle.getSymbolicName();
+            this.asset = new DefaultAsset<>(index.root + "/" + path, content, source, lastModified, etag);
+            this.gzipEtag = etag == null ? null : etag + "-" + GZIP;
+            this.brotliEtag = etag == null ? null : etag + "-" + BROTLI;
+            this.mimetype = content instanceof File ? MimeTypes.getMimeTypeForFile((File) content)
+                    : MimeTypes.getMimeTypeForFile((URL) content);
+            this.lastModified = DateUtil.formatForHttpHeader(lastModified);
+            this.length = length;
+            this.bundle = bundle;
+            this.gzipVariant = gzipVariant;
+            this.brotliVariant = brotliVariant;
+            this.loaded = false;
+            this.content = null;
+            this.gzipped = null;
+        }
+
+        private Entry(Entry entry, byte[] content, byte[] gzipped) {
+            this.asset = entry.asset;
+            this.gzipEtag = entry.gzipEtag;
+            this.brotliEtag = entry.brotliEtag;
+            this.mimetype = entry.mimetype;
+            this.lastModified = entry.lastModified;
+            this.length = entry.length;
+            this.bundle = entry.bundle;
+            this.gzipVariant = entry.gzipVariant;
+            this.brotliVariant = entry.brotliVariant;
+            this.loaded = true;
+            this.content = content;
+            this.gzipped = gzipped;
+        }
+
+        private Entry withContent(byte[] content, byte[] gzipped) {
+            return new Entry(this, content, gzipped);
+        }
+
+        /**
+         * @return whether or not the file has been modified or deleted since it was indexed.
+         */
+        boolean isStale() {
+            if (bundle != null) {
+                return false;
+            }
+            File file = (File) asset.getContent();
+            return file.lastModified() != asset.getLastModified() || file.length() != length;
+        }
+
+        boolean hasVariants() {
+            return gzipVariant != null || brotliVariant != null || gzipped != null;
+        }
+
+        /**
+         * Selects the encoding used to serve the asset.
+         *
+         * @param acceptEncoding the {@literal Accept-Encoding} header
+         * @return {@code br}, {@code gzip}, or {@literal null} to serve the asset as it is
+         */
+        String encoding(String acceptEncoding) {
+            if (!hasVariants()) {
+                return null;
+            }
+            if (brotliVariant != null && RequestHeader.acceptsEncoding(acceptEncoding, BROTLI)) {
+                return BROTLI;
+            }
+            if ((gzipVariant != null || gzipped != null) && RequestHeader.acceptsEncoding(acceptEncoding, GZIP)) {
+                return GZIP;
+            }
+            return null;
+        }
+
+        /**
+         * @param encoding the encoding, {@literal null} if none
+         * @return the ETag of the variant using the given encoding, {@literal null} if ETags are disabled
+         */
+        String etag(String encoding) {
+            if (encoding == null) {
+                return asset.getEtag();
+            }
+            return GZIP.equals(encoding) ? gzipEtag : brotliEtag;
+        }
+    }
+}
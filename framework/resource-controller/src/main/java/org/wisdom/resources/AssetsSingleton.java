@@ -20,10 +20,17 @@
 package org.wisdom.resources;
 
 import com.google.common.collect.ImmutableMap;
-import org.apache.felix.ipojo.annotations.Component;
-import org.apache.felix.ipojo.annotations.Instantiate;
-import org.apache.felix.ipojo.annotations.Provides;
-import org.apache.felix.ipojo.annotations.Requires;
+import org.apache.felix.ipojo.annotations.*;
+import org.apache.felix.ipojo.annotations.Context;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+import org.osgi.framework.ServiceRegistration;
+import org.ow2.chameleon.core.services.AbstractDeployer;
+import org.ow2.chameleon.core.services.Deployer;
+import org.ow2.chameleon.core.services.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wisdom.api.DefaultController;
 import org.wisdom.api.annotations.Route;
 import org.wisdom.api.asset.Asset;
@@ -33,20 +40,51 @@ import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.http.*;
 import org.wisdom.api.templates.Template;
 
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation of the main asset control point.
+ * <p>
+ * Resolving an asset asks every provider in turn, which may require file system probes and bundle lookups. So,
+ * the resolved assets (or the absence of asset) are kept in a cache, cleared every time a provider arrives or
+ * leaves, a bundle event is fired, or a watched file changes. The cache is only used when the file system is
+ * watched (i.e. when the {@link Watcher} service is available), as file changes would not be noticed otherwise.
+ * <p>
+ * When {@link #HTTP_ASSETS_FINGERPRINT} is enabled, the urls returned by {@link #url(String)} contain a hash of the
+ * asset content (as {@code ?v=...}), letting the asset be served with far-future cache headers.
  */
 @Component
 @Provides
 @Instantiate
 public class AssetsSingleton extends DefaultController implements Assets {
 
+    /**
+     * Enables / disables the fingerprinted urls. Disabled by default.
+     */
+    public static final String HTTP_ASSETS_FINGERPRINT = "http.assets.fingerprint";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetsSingleton.class);
+
     private Collection<Asset<?>> cache = new ArrayList<>();
 
-    @Requires(optional = true)
-    AssetProvider[] providers;
+    /**
+     * The resolved assets, indexed by the requested path.
+     */
+    private final ConcurrentMap<String, Resolution> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented every time the resolved assets are invalidated. Each resolution records the generation in which
+     * its lookup started, and resolutions from previous generations are ignored. So a resolution computed
+     * concurrently with an invalidation is never used once the invalidation is done.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<AssetProvider> providers = new CopyOnWriteArrayList<>();
 
     @Requires
     ApplicationConfiguration configuration;
@@ -54,6 +92,77 @@ public class AssetsSingleton extends DefaultController implements Assets {
     @Requires(filter = "(name=assets/list)")
     Template template;
 
+    @Requires(optional = true, proxy = false, nullable = false)
+    Watcher watcher;
+
+    @Context
+    BundleContext bundleContext;
+
+    private final BundleListener listener = new BundleListener() {
+        @Override
+        public void bundleChanged(BundleEvent event) {
+            invalidate();
+        }
+    };
+
+    private ServiceRegistration<Deployer> registration;
+
+    /**
+     * Starts listening for bundle events and watched file changes.
+     */
+    @Validate
+    public void start() {
+        if (bundleContext != null) {
+            bundleContext.addBundleListener(listener);
+            registration = bundleContext.registerService(Deployer.class, new InvalidatingDeployer(), null);
+        }
+    }
+
+    /**
+     * Stops listening for bundle events and watched file changes.
+     */
+    @Invalidate
+    public void stop() {
+        if (bundleContext != null) {
+            bundleContext.removeBundleListener(listener);
+        }
+        if (registration != null) {
+            registration.unregister();
+            registration = null;
+        }
+        invalidate();
+    }
+
+    /**
+     * A new asset provider is available.
+     *
+     * @param provider the provider
+     */
+    @Bind(aggregate = true, optional = true)
+    public void bindProvider(AssetProvider provider) {
+        providers.add(provider);
+        invalidate();
+    }
+
+    /**
+     * An asset provider has left.
+     *
+     * @param provider the provider
+     */
+    @Unbind
+    public void unbindProvider(AssetProvider provider) {
+        providers.remove(provider);
+        invalidate();
+    }
+
+    /**
+     * Clears the resolved asset cache.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        resolved.clear();
+    }
+
     /**
      * Serves the asset list page, or a JSON form depending on the {@literal ACCEPT} header.
      * @return the page, the json form or a bad request. Bad request are returned in "PROD" mode.
@@ -102,14 +211,67 @@ public class AssetsSingleton extends DefaultController implements Assets {
      */
     @Override
     public Asset assetAt(String path) {
+        return resolve(path).asset;
+    }
+
+    /**
+     * Gets the url to use to retrieve the asset identified by its file name. If
+     * {@link #HTTP_ASSETS_FINGERPRINT} is enabled, the url contains a hash of the asset content.
+     *
+     * @param path the path
+     * @return the url of the asset or {@literal null} if not found. If there are several matches, return the url
+     * of the first one.
+     */
+    @Override
+    public String url(String path) {
+        return resolve(path).url;
+    }
+
+    private Resolution resolve(String path) {
+        if (watcher == null) {
+            // File changes would not be noticed, don't cache.
+            return lookup(path, generation.get());
+        }
+        final long current = generation.get();
+        Resolution resolution = resolved.get(path);
+        if (resolution == null || resolution.generation != current) {
+            resolution = lookup(path, current);
+            if (generation.get() == current) {
+                resolved.put(path, resolution);
+            }
+        }
+        return resolution;
+    }
+
+    private Resolution lookup(String path, long generation) {
         // The simplest implementation is to delegate to the provider and see if they return something.
         for (AssetProvider provider : providers) {
             Asset asset = provider.assetAt(path);
             if (asset != null) {
-                return asset;
+                String url = asset.getPath();
+                if (configuration.getBooleanWithDefault(HTTP_ASSETS_FINGERPRINT, false)) {
+                    String fingerprint = fingerprint(asset);
+                    if (fingerprint != null) {
+                        url = url + (url.contains("?") ? "&" : "?") + CacheUtils.FINGERPRINT_PARAMETER + "="
+                                + fingerprint;
+                    }
+                }
+                return new Resolution(asset, url, generation);
             }
         }
-        return null;
+        // Also cache the absence of asset.
+        return new Resolution(null, null, generation);
+    }
+
+    /**
+     * Computes the hash of the asset content. The hash is memoized until the content changes, so it is not
+     * recomputed when the resolved assets are not cached.
+     *
+     * @param asset the asset
+     * @return the hash, {@literal null} if the content cannot be read
+     */
+    static String fingerprint(Asset<?> asset) {
+        return Fingerprints.of(asset.getContent(), asset.getLastModified());
     }
 
     /**
@@ -136,4 +298,51 @@ public class AssetsSingleton extends DefaultController implements Assets {
         return assets();
 
     }
+
+    /**
+     * The result of the resolution of a path.
+     */
+    private static final class Resolution {
+        private final Asset<?> asset;
+        private final String url;
+
+        /**
+         * The generation in which the lookup started.
+         */
+        private final long generation;
+
+        private Resolution(Asset<?> asset, String url, long generation) {
+            this.asset = asset;
+            this.url = url;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Clears the resolved asset cache when a watched file is created, updated or deleted. All the files from the
+     * watched directories are accepted: the file may be served by any provider, and the resolution of a missing
+     * asset is cached too.
+     */
+    private class InvalidatingDeployer extends AbstractDeployer {
+
+        @Override
+        public boolean accept(File file) {
+            return true;
+        }
+
+        @Override
+        public void onFileCreate(File file) {
+            invalidate();
+        }
+
+        @Override
+        public void onFileChange(File file) {
+            invalidate();
+        }
+
+        @Override
+        public void onFileDelete(File file) {
+            invalidate();
+        }
+    }
 }
@@ -19,6 +19,7 @@
  */
 package org.wisdom.resources;
 
+import org.apache.commons.io.FileUtils;
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +28,11 @@ import org.wisdom.api.crypto.Crypto;
 import org.wisdom.api.http.Context;
 import org.wisdom.api.http.Result;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.net.URLConnection;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Map;
@@ -35,6 +40,9 @@ import java.util.TreeMap;
 
 /**
  * Represents and serves a web jar library embedded in a bundle.
+ * <p>
+ * The library can be extracted to the file system (see {@link #extract(File)}). In this case, the resources are
+ * served from the extracted files, and so can be sent without copy by the engine.
  */
 class BundleWebJarLib extends WebJarLib {
 
@@ -44,6 +52,11 @@ class BundleWebJarLib extends WebJarLib {
 
     private Map<String, URL> index = new TreeMap<>();
 
+    /**
+     * The directory in which the library has been extracted, {@literal null} if not extracted.
+     */
+    private volatile File extracted;
+
     BundleWebJarLib(String name, String version, Bundle bundle) {
         super(name, version);
         this.bundle = bundle;
@@ -56,15 +69,78 @@ class BundleWebJarLib extends WebJarLib {
     }
 
     public Result get(String path, Context context, ApplicationConfiguration configuration, Crypto crypto) {
+        File file = file(path);
+        if (file != null) {
+            return CacheUtils.fromFile(file, context, configuration, crypto);
+        }
         URL url = index.get(path);
         return CacheUtils.fromBundle(bundle, url, context, configuration, crypto);
     }
 
     @Override
     public Object get(String path) {
+        File file = file(path);
+        if (file != null) {
+            return file;
+        }
         return index.get(path);
     }
 
+    private File file(String path) {
+        final File dir = extracted;
+        if (dir == null || !index.containsKey(path) || path.endsWith("/")) {
+            return null;
+        }
+        return new File(dir, path);
+    }
+
+    /**
+     * Copies the resources of the library to the given directory. Once extracted, the resources are served from
+     * the file system. The extracted files keep the modification date of the entries (or of the bundle if unknown).
+     *
+     * @param directory the directory
+     * @return {@literal true} if the library was extracted, {@literal false} otherwise
+     */
+    boolean extract(File directory) {
+        for (Map.Entry<String, URL> entry : index.entrySet()) {
+            if (entry.getKey().endsWith("/")) {
+                // Directory
+                continue;
+            }
+            File file = new File(directory, entry.getKey());
+            URLConnection connection;
+            try {
+                connection = entry.getValue().openConnection();
+                try (InputStream stream = connection.getInputStream()) {
+                    FileUtils.copyInputStreamToFile(stream, file);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Cannot extract {} from the WebJar library {}-{} contained in bundle {} [{}]",
+                        entry.getKey(), name, version, bundle.getSymbolicName(), bundle.getBundleId(), e);
+                FileUtils.deleteQuietly(directory);
+                return false;
+            }
+            // Keep the date of the entry, so the Last-Modified and ETag headers do not change at each extraction.
+            long lastModified = connection.getLastModified();
+            if (!file.setLastModified(lastModified > 0 ? lastModified : bundle.getLastModified())) {
+                LOGGER.debug("Cannot set the last modification date of {}", file.getAbsolutePath());
+            }
+        }
+        extracted = directory;
+        return true;
+    }
+
+    /**
+     * Deletes the extracted files, if any. The resources are then served from the bundle.
+     */
+    void cleanup() {
+        final File dir = extracted;
+        extracted = null;
+        if (dir != null) {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
     @Override
     public long lastModified() {
         return bundle.getLastModified();
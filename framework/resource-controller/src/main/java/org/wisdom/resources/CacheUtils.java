@@ -51,6 +51,16 @@ public class CacheUtils {
      * Default value / etag enabled by default.
      */
     public static final boolean HTTP_USE_ETAG_DEFAULT = true;
+    /**
+     * The query parameter containing the fingerprint of the asset content in fingerprinted urls (see
+     * {@link AssetsSingleton#HTTP_ASSETS_FINGERPRINT}).
+     */
+    public static final String FINGERPRINT_PARAMETER = "v";
+    /**
+     * The Cache-Control value used for fingerprinted urls. As the url changes when the content changes,
+     * the browser can keep the resource forever.
+     */
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
 
     /**
      * Add the last modified header to the given result. This method handle the HTTP Date format.
@@ -99,6 +109,44 @@ public class CacheUtils {
         return false;
     }
 
+    /**
+     * Checks whether the request uses the fingerprinted url of the given content: fingerprinted urls must be enabled
+     * (see {@link AssetsSingleton#HTTP_ASSETS_FINGERPRINT}), and the fingerprint must be the one of the current
+     * content. Other values of the {@link #FINGERPRINT_PARAMETER} parameter (set by the application, or outdated)
+     * are ignored.
+     *
+     * @param context       the context
+     * @param configuration the application configuration
+     * @param content       the served content, a {@link File} or an {@link URL}
+     * @param lastModified  the last modification date of the content
+     * @return {@literal true} if the url contains the fingerprint of the content
+     */
+    public static boolean isFingerprinted(Context context, ApplicationConfiguration configuration, Object content,
+                                          long lastModified) {
+        String fingerprint = context.parameter(FINGERPRINT_PARAMETER);
+        return fingerprint != null
+                && configuration.getBooleanWithDefault(AssetsSingleton.HTTP_ASSETS_FINGERPRINT, false)
+                && fingerprint.equals(Fingerprints.of(content, lastModified));
+    }
+
+    /**
+     * Replaces the Cache-Control header of the given result by {@link #IMMUTABLE_CACHE_CONTROL} if the request uses
+     * the fingerprinted url of the given content.
+     *
+     * @param context       the context
+     * @param result        the result
+     * @param configuration the application configuration
+     * @param content       the served content, a {@link File} or an {@link URL}
+     * @param lastModified  the last modification date of the content
+     */
+    public static void makeImmutableIfFingerprinted(Context context, Result result,
+                                                    ApplicationConfiguration configuration, Object content,
+                                                    long lastModified) {
+        if (isFingerprinted(context, configuration, content, lastModified)) {
+            result.with(HeaderNames.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        }
+    }
+
     /**
      * Computes the ETAG value based on the last modification date passed as parameter.
      *
@@ -162,6 +210,7 @@ public class CacheUtils {
             Result result = Results.ok(file);
             addLastModified(result, lastModified);
             addCacheControlAndEtagToResult(result, etag, configuration);
+            makeImmutableIfFingerprinted(context, result, configuration, file, lastModified);
             return result;
         }
     }
@@ -176,6 +225,7 @@ public class CacheUtils {
             Result result = Results.ok(url);
             addLastModified(result, lastModified);
             addCacheControlAndEtagToResult(result, etag, configuration);
+            makeImmutableIfFingerprinted(context, result, configuration, url, lastModified);
             return result;
         }
     }
@@ -195,6 +245,8 @@ public class CacheUtils {
             }
             addLastModified(result, asset.getLastModified());
             addCacheControlAndEtagToResult(result, asset.getEtag(), configuration);
+            makeImmutableIfFingerprinted(context, result, configuration, asset.getContent(),
+                    asset.getLastModified());
             return result;
         }
     }
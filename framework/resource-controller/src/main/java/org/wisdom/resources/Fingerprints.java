@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Computes the fingerprints (hash of the content) used in fingerprinted asset urls. Fingerprints are memoized per
+ * location and version (last modification date, and length for files), so the content is only read again when it
+ * changes.
+ */
+final class Fingerprints {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Fingerprints.class);
+
+    /**
+     * The memoized fingerprints, indexed by location and version.
+     */
+    private static final ConcurrentMap<String, String> FINGERPRINTS = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .<String, String>build()
+            .asMap();
+
+    private Fingerprints() {
+        // Avoid direct instantiation.
+    }
+
+    /**
+     * Gets the fingerprint of the given content.
+     *
+     * @param content      the content, a {@link File} or an {@link URL}
+     * @param lastModified the last modification date of the content, only used for urls
+     * @return the fingerprint, {@literal null} if the content cannot be read
+     */
+    static String of(Object content, long lastModified) {
+        final String key;
+        final ByteSource source;
+        if (content instanceof File) {
+            File file = (File) content;
+            key = file.getAbsolutePath() + "@" + file.lastModified() + ":" + file.length();
+            source = Files.asByteSource(file);
+        } else if (content instanceof URL) {
+            key = ((URL) content).toExternalForm() + "@" + lastModified;
+            source = Resources.asByteSource((URL) content);
+        } else {
+            return null;
+        }
+
+        String fingerprint = FINGERPRINTS.get(key);
+        if (fingerprint == null) {
+            try {
+                fingerprint = source.hash(Hashing.sha1()).toString().substring(0, 16);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot compute the fingerprint of {}", content, e);
+                return null;
+            }
+            FINGERPRINTS.put(key, fingerprint);
+        }
+        return fingerprint;
+    }
+}
@@ -20,6 +20,7 @@
 package org.wisdom.resources;
 
 import com.google.common.collect.ImmutableList;
+import org.apache.commons.io.FileUtils;
 import org.apache.felix.ipojo.annotations.*;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -56,6 +57,11 @@ import java.util.regex.Pattern;
  * <li>/libs/libraryname/path</li>
  * <li>/libs/path</li>
  * </ol>
+ * <p>
+ * The resources of all libraries are indexed in a {@link WebJarIndex}, updated when libraries arrive and leave,
+ * so requests are resolved without iterating over the libraries. When {@link #HTTP_WEBJARS_EXTRACT} is enabled,
+ * the libraries embedded in bundles are extracted to the file system when the bundle is deployed,
+ * so they are served without copy like the exploded libraries.
  */
 @Component(immediate = true)
 @Provides(specifications = {Controller.class, AssetProvider.class})
@@ -79,23 +85,14 @@ public class WebJarController extends DefaultController implements BundleTracker
     public static final Pattern WEBJAR_REGEX = Pattern.compile(".*META-INF/resources/webjars/([^/]+)/([^/]+)/.*");
 
     /**
-     * The RegEx pattern to identify the shape of the url.
-     */
-    static Pattern PATTERN = Pattern.compile("([^/]+)(/([^/]+))?/(.*)");
-
-    /**
-     * The instance of deployer.
+     * Enables / disables the extraction of the libraries embedded in bundles. Disabled by default.
      */
-    private final WebJarDeployer deployer;
+    public static final String HTTP_WEBJARS_EXTRACT = "http.webjars.extract";
 
     /**
-     * The default instance handle the `assets/libs` folder.
+     * The order of the libraries. Exploded libraries are preferred to the libraries embedded in bundles.
      */
-    private final File directory;
-
-    private final BundleTracker<List<BundleWebJarLib>> tracker;
-
-    Set<WebJarLib> libraries = new TreeSet<>(new Comparator<WebJarLib>() {
+    private static final Comparator<WebJarLib> LIBRARY_ORDER = new Comparator<WebJarLib>() {
         @Override
         public int compare(WebJarLib o1, WebJarLib o2) {
             if (o1 instanceof FileWebJarLib && o2 instanceof BundleWebJarLib) {
@@ -106,7 +103,33 @@ public class WebJarController extends DefaultController implements BundleTracker
             }
             return o1.toString().compareTo(o2.toString());
         }
-    });
+    };
+
+    /**
+     * The instance of deployer.
+     */
+    private final WebJarDeployer deployer;
+
+    /**
+     * The default instance handle the `assets/libs` folder.
+     */
+    private final File directory;
+
+    private final BundleTracker<List<BundleWebJarLib>> tracker;
+
+    Set<WebJarLib> libraries = new TreeSet<>(LIBRARY_ORDER);
+
+    /**
+     * The index of the resources provided by the libraries. It is updated while holding the lock on the controller,
+     * and read without lock.
+     */
+    private final WebJarIndex index = new WebJarIndex(LIBRARY_ORDER);
+
+    /**
+     * The directory in which the libraries embedded in bundles are extracted, {@literal null} if they cannot be
+     * extracted.
+     */
+    File extractionDirectory;
 
     @Requires
     Crypto crypto;
@@ -141,6 +164,10 @@ public class WebJarController extends DefaultController implements BundleTracker
         directory = new File(configuration.getBaseDir(), path); //NOSONAR Injected field
         tracker = new BundleTracker<>(context, Bundle.ACTIVE, this);
         deployer = new WebJarDeployer(context, this);
+        File data = context.getBundle().getDataFile("webjars");
+        if (data != null) {
+            extractionDirectory = new File(data, "bundles");
+        }
     }
 
     /**
@@ -170,7 +197,10 @@ public class WebJarController extends DefaultController implements BundleTracker
         if (tracker != null) {
             tracker.close();
         }
-        libraries.clear();
+        synchronized (this) {
+            libraries.clear();
+            index.clear();
+        }
     }
 
     private void buildFileIndex() {
@@ -193,22 +223,22 @@ public class WebJarController extends DefaultController implements BundleTracker
         }
 
         // Build index from files
-        synchronized (this) {
-            for (File dir : names) {
-                String library = dir.getName();
-                File[] versions = dir.listFiles(isDirectory);
-                if (versions == null) {
-                    // versions is null if dir does not denote a valid file.
-                    continue;
-                }
-                for (File ver : versions) {
-                    String version = ver.getName();
-                    FileWebJarLib lib = new FileWebJarLib(library, version, ver);
-                    logger().info("Exploded web jar libraries detected : {}", lib);
-                    libraries.add(lib);
-                }
+        List<FileWebJarLib> list = new ArrayList<>();
+        for (File dir : names) {
+            String library = dir.getName();
+            File[] versions = dir.listFiles(isDirectory);
+            if (versions == null) {
+                // versions is null if dir does not denote a valid file.
+                continue;
+            }
+            for (File ver : versions) {
+                String version = ver.getName();
+                FileWebJarLib lib = new FileWebJarLib(library, version, ver);
+                logger().info("Exploded web jar libraries detected : {}", lib);
+                list.add(lib);
             }
         }
+        addWebJarLibs(list);
 
     }
 
@@ -224,26 +254,6 @@ public class WebJarController extends DefaultController implements BundleTracker
         return new ArrayList<>(libraries);
     }
 
-    private List<WebJarLib> findLibsContaining(String path) {
-        List<WebJarLib> list = new ArrayList<>();
-        for (WebJarLib lib : libs()) {
-            if (lib.contains(path)) {
-                list.add(lib);
-            }
-        }
-        return list;
-    }
-
-    private List<WebJarLib> find(String name) {
-        List<WebJarLib> list = new ArrayList<>();
-        for (WebJarLib lib : libs()) {
-            if (lib.name.equals(name)) {
-                list.add(lib);
-            }
-        }
-        return list;
-    }
-
     /**
      * @return the router serving the assets embedded in WebJars.
      */
@@ -275,15 +285,6 @@ public class WebJarController extends DefaultController implements BundleTracker
         return CacheUtils.fromAsset(context(), asset, configuration);
     }
 
-    private WebJarLib find(String name, String version) {
-        for (WebJarLib lib : libs()) {
-            if (lib.name.equals(name) && lib.version.equals(version)) {
-                return lib;
-            }
-        }
-        return null;
-    }
-
     /**
      * A bundle just arrived (and / or just becomes ACTIVE). We need to check if it contains 'webjar libraries'.
      *
@@ -310,6 +311,7 @@ public class WebJarController extends DefaultController implements BundleTracker
                     logger().info("Web Jar library ({}) found in {} [{}]", lib,
                             bundle.getSymbolicName(),
                             bundle.getBundleId());
+                    extract(lib);
                     list.add(lib);
                 }
             }
@@ -326,7 +328,29 @@ public class WebJarController extends DefaultController implements BundleTracker
      */
     public void addWebJarLibs(Collection<? extends WebJarLib> list) {
         synchronized (this) {
-            libraries.addAll(list);
+            for (WebJarLib lib : list) {
+                if (libraries.add(lib)) {
+                    index.add(lib);
+                }
+            }
+        }
+    }
+
+    /**
+     * Extracts the given library if {@link #HTTP_WEBJARS_EXTRACT} is enabled.
+     *
+     * @param lib the library
+     */
+    private void extract(BundleWebJarLib lib) {
+        if (extractionDirectory == null
+                || !configuration.getBooleanWithDefault(HTTP_WEBJARS_EXTRACT, false)) {
+            return;
+        }
+        File directory = new File(extractionDirectory,
+                lib.bundle.getBundleId() + "/" + lib.name + "/" + lib.version);
+        FileUtils.deleteQuietly(directory);
+        if (lib.extract(directory)) {
+            logger().info("Web Jar library ({}) extracted to {}", lib, directory.getAbsolutePath());
         }
     }
 
@@ -356,11 +380,22 @@ public class WebJarController extends DefaultController implements BundleTracker
     @Override
     public void removedBundle(Bundle bundle, BundleEvent bundleEvent, List<BundleWebJarLib> webJarLibs) {
         removeWebJarLibs(webJarLibs);
+        for (BundleWebJarLib lib : webJarLibs) {
+            lib.cleanup();
+        }
     }
 
+    /**
+     * Removes the given set of {@link WebJarLib} from the managed libraries.
+     * @param webJarLibs the set to remove
+     */
     public void removeWebJarLibs(Collection<? extends WebJarLib> webJarLibs) {
         synchronized (this) {
-            libraries.removeAll(webJarLibs);
+            for (WebJarLib lib : webJarLibs) {
+                if (libraries.remove(lib)) {
+                    index.remove(lib);
+                }
+            }
         }
     }
 
@@ -394,106 +429,56 @@ public class WebJarController extends DefaultController implements BundleTracker
      */
     @Override
     public Asset<?> assetAt(String path) {
-        List<WebJarLib> candidates = findLibsContaining(path);
+        List<WebJarLib> candidates = index.withPath(path);
+        if (!candidates.isEmpty()) {
+            if (candidates.size() > 1) {
+                // Several candidates
+                logger().warn("{} WebJars provide '{}' - returning the one from {}-{}", candidates.size(), path,
+                        candidates.get(0).name, candidates.get(0).version);
+            }
+            return asset(candidates.get(0), path);
+        }
+
+        // Try with the library name and version: name/version/path
+        candidates = index.withNameVersionAndPath(path);
+        if (!candidates.isEmpty()) {
+            WebJarLib lib = candidates.get(0);
+            return asset(lib, path.substring(lib.name.length() + lib.version.length() + 2));
+        }
 
+        // If we reach this point it means that the name/version lookup has failed, try without the version:
+        // name/path
+        candidates = index.withNameAndPath(path);
         if (candidates.size() == 1) {
-            // Perfect ! only one match
-            return new DefaultAsset<>(
-                    "/libs/" + candidates.get(0).name + "/" + candidates.get(0).version + "/" + path,
-                    candidates.get(0).get(path),
-                    candidates.get(0).toString(),
-                    candidates.get(0).lastModified(),
-                    CacheUtils.computeEtag(candidates.get(0).lastModified(), configuration, crypto)
-            );
+            // Only on library has the given name
+            WebJarLib lib = candidates.get(0);
+            return asset(lib, path.substring(lib.name.length() + 1));
         } else if (candidates.size() > 1) {
             // Several candidates
-            logger().warn("{} WebJars provide '{}' - returning the one from {}-{}", candidates.size(), path,
-                    candidates.get(0).name, candidates.get(0).version);
-            return new DefaultAsset<>(
-                    "/libs/" + candidates.get(0).name + "/" + candidates.get(0).version + "/" + path,
-                    candidates.get(0).get(path),
-                    candidates.get(0).toString(),
-                    candidates.get(0).lastModified(),
-                    CacheUtils.computeEtag(candidates.get(0).lastModified(), configuration, crypto)
-            );
-        } else {
-            Matcher matcher = PATTERN.matcher(path);
-            if (!matcher.matches()) {
-                // It should have been handled by the path match.
-                return null;
-            }
-
-            final String name = matcher.group(1);
-            final String version = matcher.group(3);
-            if (version != null) {
-                String rel = matcher.group(4);
-                // We have a name and a version
-                // Try to find the matching library
-                WebJarLib lib = find(name, version);
-                if (lib != null) {
-                    return new DefaultAsset<>(
-                            rel,
-                            lib.get(rel),
-                            lib.toString(),
-                            lib.lastModified(),
-                            CacheUtils.computeEtag(lib.lastModified(), configuration, crypto)
-                    );
+            WebJarLib higher = null;
+            ComparableVersion higherVersion = null;
+            for (WebJarLib lib : candidates) {
+                ComparableVersion newVersion = new ComparableVersion(lib.version);
+                if (higher == null || newVersion.compareTo(higherVersion) > 0) {
+                    higher = lib;
+                    higherVersion = newVersion;
                 }
-                // If not found, it may be because the version is not really the version but a segment of the path.
-            }
-            // If we reach this point it means that the name/version lookup has failed, try without the version
-            String rel = matcher.group(4);
-            if (version != null) {
-                // We have a group 3
-                rel = version + "/" + rel;
             }
+            logger().warn("{} WebJars match the request '{}' - returning the resource from {}-{}",
+                    candidates.size(), path, higher.name, higher.version);
+            return asset(higher, path.substring(higher.name.length() + 1));
+        }
 
-            List<WebJarLib> libs = find(name);
-            if (libs.size() == 1) {
-                // Only on library has the given name
-                if (libs.get(0).contains(rel)) {
-                    WebJarLib lib = libs.get(0);
-                    return new DefaultAsset<>(
-                            "/libs/" + lib.name + "/" + lib.version + "/" + rel,
-                            lib.get(rel),
-                            lib.toString(),
-                            lib.lastModified(),
-                            CacheUtils.computeEtag(lib.lastModified(), configuration, crypto)
-                    );
-                }
-            } else if (libs.size() > 1) {
-                // Several candidates
-                WebJarLib higher = null;
-                ComparableVersion higherVersion = null;
-                for (WebJarLib lib: libs) {
-                    if (lib.contains(rel)) {
-                        if(higher == null) {
-                            higher = lib;
-                            higherVersion = new ComparableVersion(higher.version);
-                        } else {
-                            ComparableVersion newVersion = new ComparableVersion(lib.version);
-                            if(newVersion.compareTo(higherVersion) > 0) {
-                                higher = lib;
-                                higherVersion = new ComparableVersion(higher.version);
-                            }
-                        }
-                    }
-                }
-                if(higher != null) {
-                    logger().warn("{} WebJars match the request '{}' - returning the resource from {}-{}",
-                            libs.size(), path, higher.name, higher.version);
-                    return new DefaultAsset<>(
-                            "/libs/" + higher.name + "/" + higher.version + "/" + rel,
-                            higher.get(rel),
-                            higher.toString(),
-                            higher.lastModified(),
-                            CacheUtils.computeEtag(higher.lastModified(), configuration, crypto)
-                    );
-                }
-
-            }
+        return null;
+    }
 
-            return null;
-        }
+    private Asset<?> asset(WebJarLib lib, String path) {
+        return new DefaultAsset<>(
+                "/libs/" + lib.name + "/" + lib.version + "/" + path,
+                lib.get(path),
+                lib.toString(),
+                lib.lastModified(),
+                CacheUtils.computeEtag(lib.lastModified(), configuration, crypto)
+        );
     }
 }
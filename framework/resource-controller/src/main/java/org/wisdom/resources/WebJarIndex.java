@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the resources provided by all the web jar libraries. Each resource is indexed under three aliases:
+ * <ol>
+ * <li>its path in the library (such as {@code jquery.js}),</li>
+ * <li>the library name followed by the path (such as {@code jquery/jquery.js}),</li>
+ * <li>the library name, the version and the path (such as {@code jquery/2.1.3/jquery.js}).</li>
+ * </ol>
+ * So, resolving a request is a couple of map lookups instead of a scan of all the libraries. For each alias, the
+ * libraries are sorted using the order given at construction time, the first one being the preferred one.
+ * <p>
+ * Lookups do not lock. Updates must be serialized by the caller. The lists stored in the index are never
+ * modified, they are replaced.
+ */
+final class WebJarIndex {
+
+    private final Comparator<WebJarLib> order;
+
+    /**
+     * Path in the library -&gt; libraries.
+     */
+    private final ConcurrentMap<String, List<WebJarLib>> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Library name / path -&gt; libraries.
+     */
+    private final ConcurrentMap<String, List<WebJarLib>> unqualified = new ConcurrentHashMap<>();
+
+    /**
+     * Library name / version / path -&gt; libraries.
+     */
+    private final ConcurrentMap<String, List<WebJarLib>> qualified = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param order the order used to sort the libraries providing the same resource
+     */
+    WebJarIndex(Comparator<WebJarLib> order) {
+        this.order = order;
+    }
+
+    /**
+     * Indexes the resources of the given library.
+     *
+     * @param lib the library
+     */
+    void add(WebJarLib lib) {
+        for (String path : lib.names()) {
+            add(paths, path, lib);
+            add(unqualified, lib.name + "/" + path, lib);
+            add(qualified, lib.name + "/" + lib.version + "/" + path, lib);
+        }
+    }
+
+    /**
+     * Removes the resources of the given library from the index.
+     *
+     * @param lib the library
+     */
+    void remove(WebJarLib lib) {
+        for (String path : lib.names()) {
+            remove(paths, path, lib);
+            remove(unqualified, lib.name + "/" + path, lib);
+            remove(qualified, lib.name + "/" + lib.version + "/" + path, lib);
+        }
+    }
+
+    /**
+     * Clears the index.
+     */
+    void clear() {
+        paths.clear();
+        unqualified.clear();
+        qualified.clear();
+    }
+
+    /**
+     * @param path the path of a resource in the libraries
+     * @return the libraries containing the given resource, empty if none
+     */
+    List<WebJarLib> withPath(String path) {
+        return get(paths, path);
+    }
+
+    /**
+     * @param path the library name followed by the path of the resource
+     * @return the libraries having the given name and containing the resource, empty if none
+     */
+    List<WebJarLib> withNameAndPath(String path) {
+        return get(unqualified, path);
+    }
+
+    /**
+     * @param path the library name and version followed by the path of the resource
+     * @return the libraries having the given name and version and containing the resource, empty if none
+     */
+    List<WebJarLib> withNameVersionAndPath(String path) {
+        return get(qualified, path);
+    }
+
+    private static List<WebJarLib> get(Map<String, List<WebJarLib>> map, String key) {
+        List<WebJarLib> list = map.get(key);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list;
+    }
+
+    private void add(ConcurrentMap<String, List<WebJarLib>> map, String key, WebJarLib lib) {
+        List<WebJarLib> current = map.get(key);
+        if (current == null) {
+            map.put(key, Collections.singletonList(lib));
+            return;
+        }
+        List<WebJarLib> list = new ArrayList<>(current.size() + 1);
+        for (WebJarLib l : current) {
+            if (order.compare(l, lib) == 0) {
+                // Already there.
+                return;
+            }
+            list.add(l);
+        }
+        list.add(lib);
+        Collections.sort(list, order);
+        map.put(key, Collections.unmodifiableList(list));
+    }
+
+    private void remove(ConcurrentMap<String, List<WebJarLib>> map, String key, WebJarLib lib) {
+        List<WebJarLib> current = map.get(key);
+        if (current == null) {
+            return;
+        }
+        List<WebJarLib> list = new ArrayList<>(current.size());
+        for (WebJarLib l : current) {
+            if (order.compare(l, lib) != 0) {
+                list.add(l);
+            }
+        }
+        if (list.isEmpty()) {
+            map.remove(key);
+        } else if (list.size() != current.size()) {
+            map.put(key, Collections.unmodifiableList(list));
+        }
+    }
+}
@@ -19,23 +19,49 @@
  */
 package org.wisdom.resources;
 
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.wisdom.api.configuration.ApplicationConfiguration;
 import org.wisdom.api.crypto.Crypto;
+import org.wisdom.api.http.HeaderNames;
+import org.wisdom.api.http.Result;
+import org.wisdom.api.http.Status;
+import org.wisdom.test.parents.Action;
+import org.wisdom.test.parents.Invocation;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.wisdom.test.parents.Action.action;
 
 /**
  * Checks the Asset Controller behavior
  */
 public class AssetControllerTest {
 
+    private File root = new File("target/asset-index-test");
+    private File directory = new File(root, "assets");
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(root);
+    }
+
     @Test
     public void testExternalAssets() {
         ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
@@ -111,4 +137,246 @@ public class AssetControllerTest {
                 "/foo");
     }
 
-}
\ No newline at end of file
+
+    private ApplicationConfiguration configuration() {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        when(configuration.getBaseDir()).thenReturn(root);
+        when(configuration.getWithDefault(CacheUtils.HTTP_CACHE_CONTROL_MAX_AGE,
+                CacheUtils.HTTP_CACHE_CONTROL_DEFAULT)).thenReturn("3600");
+        when(configuration.getBooleanWithDefault(CacheUtils.HTTP_USE_ETAG, CacheUtils.HTTP_USE_ETAG_DEFAULT))
+                .thenReturn(true);
+        when(configuration.getBooleanWithDefault(AssetIndex.HTTP_ASSETS_GZIP, true)).thenReturn(true);
+        when(configuration.getBytes(AssetIndex.HTTP_ASSETS_IN_MEMORY_MAX_LENGTH,
+                AssetIndex.HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT))
+                .thenReturn(AssetIndex.HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT);
+        return configuration;
+    }
+
+    private AssetController controller(BundleContext context, boolean bundles) {
+        Crypto crypto = mock(Crypto.class);
+        when(crypto.hexSHA1(anyString())).thenReturn("etag");
+        return new AssetController(configuration(), crypto, context, "assets", bundles, "/assets/", "/assets");
+    }
+
+    private static BundleContext context(Bundle... bundles) {
+        BundleContext context = mock(BundleContext.class);
+        // The framework returns a new array on each call, the bundle tracker modifies it.
+        when(context.getBundles()).thenAnswer(invocation -> bundles.clone());
+        return context;
+    }
+
+    private static Action.ActionResult serve(final AssetController controller, String path, String encoding,
+                                             String etag) {
+        Action action = action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.serve();
+            }
+        }).parameter("path", path);
+        if (encoding != null) {
+            action.header(HeaderNames.ACCEPT_ENCODING, encoding);
+        }
+        if (etag != null) {
+            action.header(HeaderNames.IF_NONE_MATCH, etag);
+        }
+        return action.invoke();
+    }
+
+    private static byte[] body(Result result) throws Exception {
+        try (InputStream stream = result.getRenderable().render(null, result)) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    private static String text(int length) {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            builder.append("var wisdom = 'wisdom';\n");
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testServingSmallAssetsFromMemory() throws Exception {
+        String content = text(2048);
+        FileUtils.write(new File(directory, "js/app.js"), content);
+        AssetController controller = controller(context(), false);
+
+        Result result = serve(controller, "js/app.js", null, null).getResult();
+        assertThat(result.getStatusCode()).isEqualTo(200);
+        assertThat(result.getContentType()).isEqualTo("application/javascript");
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.ETAG, "etag")
+                .containsEntry(HeaderNames.CACHE_CONTROL, "max-age=3600")
+                .containsEntry(HeaderNames.VARY, HeaderNames.ACCEPT_ENCODING)
+                .containsKey(HeaderNames.LAST_MODIFIED);
+        assertThat(new String(body(result), Charsets.UTF_8)).isEqualTo(content);
+
+        // Pre-built gzip variant
+        result = serve(controller, "js/app.js", "gzip, deflate", null).getResult();
+        assertThat(result.getStatusCode()).isEqualTo(200);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CONTENT_ENCODING, "gzip")
+                .containsEntry(HeaderNames.ETAG, "etag-gzip");
+        byte[] gzipped = body(result);
+        assertThat(gzipped.length).isLessThan(content.length());
+        assertThat(new String(ByteStreams.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(gzipped))), Charsets.UTF_8)).isEqualTo(content);
+
+        // Not modified
+        assertThat(serve(controller, "js/app.js", null, "etag").getResult().getStatusCode()).isEqualTo(304);
+        assertThat(serve(controller, "js/app.js", "gzip", "etag-gzip").getResult().getStatusCode())
+                .isEqualTo(304);
+        assertThat(serve(controller, "js/app.js", "gzip", "etag").getResult().getStatusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void testServingFingerprintedAssets() throws Exception {
+        File file = new File(directory, "js/app.js");
+        FileUtils.write(file, text(128));
+        ApplicationConfiguration configuration = configuration();
+        when(configuration.getBooleanWithDefault(AssetsSingleton.HTTP_ASSETS_FINGERPRINT, false)).thenReturn(true);
+        Crypto crypto = mock(Crypto.class);
+        when(crypto.hexSHA1(anyString())).thenReturn("etag");
+        AssetController controller = new AssetController(configuration, crypto, context(), "assets", false,
+                "/assets/", "/assets");
+        String fingerprint = Fingerprints.of(file, file.lastModified());
+
+        Result result = fingerprinted(controller, "js/app.js", fingerprint);
+        assertThat(result.getStatusCode()).isEqualTo(200);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CACHE_CONTROL, CacheUtils.IMMUTABLE_CACHE_CONTROL);
+
+        // Outdated or foreign values of the parameter do not make the response immutable.
+        result = fingerprinted(controller, "js/app.js", "0123456789abcdef");
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CACHE_CONTROL, "max-age=3600");
+
+        // Nor when fingerprinted urls are disabled.
+        controller = controller(context(), false);
+        result = fingerprinted(controller, "js/app.js", fingerprint);
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CACHE_CONTROL, "max-age=3600");
+    }
+
+    private static Result fingerprinted(final AssetController controller, String path, String fingerprint) {
+        return action(new Invocation() {
+            @Override
+            public Result invoke() throws Throwable {
+                return controller.serve();
+            }
+        }).parameter("path", path).parameter(CacheUtils.FINGERPRINT_PARAMETER, fingerprint).invoke().getResult();
+    }
+
+    @Test
+    public void testPrecompressedVariants() throws Exception {
+        File css = new File(directory, "style.css");
+        FileUtils.write(css, text(128));
+        FileUtils.write(new File(directory, "style.css.gz"), "gzipped");
+        FileUtils.write(new File(directory, "style.css.br"), "brotli");
+        AssetController controller = controller(context(), false);
+
+        Result result = serve(controller, "style.css", "gzip, br", null).getResult();
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CONTENT_ENCODING, "br")
+                .containsEntry(HeaderNames.ETAG, "etag-br");
+        assertThat(result.getContentType()).isEqualTo("text/css");
+        assertThat(new String(body(result), Charsets.UTF_8)).isEqualTo("brotli");
+
+        result = serve(controller, "style.css", "gzip;q=1.0, br;q=0", null).getResult();
+        assertThat(result.getHeaders()).containsEntry(HeaderNames.CONTENT_ENCODING, "gzip");
+        assertThat(new String(body(result), Charsets.UTF_8)).isEqualTo("gzipped");
+
+        result = serve(controller, "style.css", null, null).getResult();
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_ENCODING);
+        assertThat(new String(body(result), Charsets.UTF_8)).isEqualTo(text(128));
+    }
+
+    @Test
+    public void testLargeAssetsAreSentAsFiles() throws Exception {
+        File file = new File(directory, "large.js");
+        FileUtils.write(file, text((int) AssetIndex.HTTP_ASSETS_IN_MEMORY_MAX_LENGTH_DEFAULT + 1));
+        AssetController controller = controller(context(), false);
+
+        Result result = serve(controller, "large.js", "gzip", null).getResult();
+        assertThat(result.getStatusCode()).isEqualTo(200);
+        assertThat(result.getRenderable().content()).isEqualTo(file);
+        assertThat(result.getHeaders()).doesNotContainKey(HeaderNames.CONTENT_ENCODING);
+    }
+
+    @Test
+    public void testIndexIsRefreshedWhenTheDirectoryIsNotWatched() throws IOException {
+        directory.mkdirs();
+        AssetController controller = controller(context(), false);
+        assertThat(controller.assets()).isEmpty();
+        assertThat(serve(controller, "new.js", null, null).getResult().getStatusCode()).isEqualTo(404);
+
+        File file = new File(directory, "new.js");
+        FileUtils.write(file, "var a = 1;");
+        assertThat(serve(controller, "new.js", null, null).getResult().getStatusCode()).isEqualTo(200);
+        assertThat(controller.assets()).hasSize(1);
+
+        FileUtils.deleteQuietly(file);
+        assertThat(serve(controller, "new.js", null, null).getResult().getStatusCode()).isEqualTo(404);
+        assertThat(controller.assetAt("new.js")).isNull();
+        assertThat(controller.assets()).isEmpty();
+    }
+
+    @Test
+    public void testAssetsFromBundles() throws Exception {
+        File bundleRoot = new File(root, "bundle/assets");
+        FileUtils.write(new File(bundleRoot, "from-bundle.js"), "bundle");
+        FileUtils.write(new File(bundleRoot, "overridden.js"), "bundle");
+        FileUtils.write(new File(directory, "overridden.js"), "file");
+
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getBundleId()).thenReturn(1L);
+        when(bundle.getState()).thenReturn(Bundle.ACTIVE);
+        when(bundle.getSymbolicName()).thenReturn("bundle");
+        when(bundle.getLastModified()).thenReturn(1000L);
+        when(bundle.getEntry("/assets")).thenReturn(bundleRoot.toURI().toURL());
+        when(bundle.findEntries("/assets/", "*", true)).thenReturn(Collections.enumeration(
+                Arrays.asList(new File(bundleRoot, "from-bundle.js").toURI().toURL(),
+                        new File(bundleRoot, "overridden.js").toURI().toURL())));
+
+        AssetController controller = controller(context(bundle), true);
+
+        assertThat(controller.assets()).hasSize(2);
+        assertThat(controller.assetAt("from-bundle.js").getContent()).isInstanceOf(URL.class);
+        assertThat(new String(body(serve(controller, "from-bundle.js", null, null).getResult()),
+                Charsets.UTF_8)).isEqualTo("bundle");
+        // Files override the assets from bundles.
+        assertThat(new String(body(serve(controller, "overridden.js", null, null).getResult()),
+                Charsets.UTF_8)).isEqualTo("file");
+
+        // Closing the tracker removes the assets from the bundle.
+        controller.stop();
+        assertThat(controller.assets()).hasSize(1);
+        assertThat(controller.assetAt("from-bundle.js")).isNull();
+    }
+
+    @Test
+    public void testAssetsFromBundlesThatAreNotIndexed() throws Exception {
+        // The asset comes from a fragment (or the bundle class path) of a resolved bundle: it is only visible using
+        // getResource.
+        File bundleRoot = new File(root, "fragment/assets");
+        FileUtils.write(new File(bundleRoot, "from-fragment.js"), "fragment");
+
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getBundleId()).thenReturn(1L);
+        when(bundle.getState()).thenReturn(Bundle.RESOLVED);
+        when(bundle.getSymbolicName()).thenReturn("fragment-host");
+        when(bundle.getLastModified()).thenReturn(1000L);
+        when(bundle.getResource("/assets/from-fragment.js"))
+                .thenReturn(new File(bundleRoot, "from-fragment.js").toURI().toURL());
+
+        // Even if the controller does not serve the assets from bundles, they are still retrieved by assetAt.
+        AssetController controller = controller(context(bundle), false);
+        assertThat(controller.assetAt("from-fragment.js").getContent()).isInstanceOf(URL.class);
+        assertThat(controller.assetAt("missing.js")).isNull();
+        assertThat(serve(controller, "from-fragment.js", null, null).getResult().getStatusCode())
+                .isEqualTo(Status.NOT_FOUND);
+        controller.stop();
+
+        controller = controller(context(bundle), true);
+        assertThat(controller.assetAt("from-fragment.js").getSource()).isEqualTo("fragment-host");
+        assertThat(new String(body(serve(controller, "from-fragment.js", null, null).getResult()),
+                Charsets.UTF_8)).isEqualTo("fragment");
+        controller.stop();
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.resources;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.ow2.chameleon.core.services.Deployer;
+import org.ow2.chameleon.core.services.Watcher;
+import org.wisdom.api.asset.Asset;
+import org.wisdom.api.asset.AssetProvider;
+import org.wisdom.api.asset.DefaultAsset;
+import org.wisdom.api.configuration.ApplicationConfiguration;
+
+import java.io.File;
+import java.util.Dictionary;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the resolved asset cache of the {@link AssetsSingleton}.
+ */
+public class AssetsSingletonTest {
+
+    private File root = new File("target/assets-singleton-test");
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(root);
+    }
+
+    private AssetsSingleton assets(boolean fingerprint, boolean watched) {
+        AssetsSingleton assets = new AssetsSingleton();
+        assets.configuration = mock(ApplicationConfiguration.class);
+        when(assets.configuration.getBooleanWithDefault(AssetsSingleton.HTTP_ASSETS_FINGERPRINT, false))
+                .thenReturn(fingerprint);
+        if (watched) {
+            assets.watcher = mock(Watcher.class);
+        }
+        return assets;
+    }
+
+    private static AssetProvider provider(String path, Asset<?> asset) {
+        AssetProvider provider = mock(AssetProvider.class);
+        doReturn(asset).when(provider).assetAt(path);
+        return provider;
+    }
+
+    @Test
+    public void testResolvedAssetsAreCached() {
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 0L, null);
+        AssetProvider provider = provider("app.js", asset);
+        AssetsSingleton assets = assets(false, true);
+        assets.bindProvider(provider);
+
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        assertThat(assets.url("app.js")).isEqualTo("/assets/app.js");
+        assertThat(assets.assetAt("missing.js")).isNull();
+        assertThat(assets.url("missing.js")).isNull();
+        verify(provider, times(1)).assetAt("app.js");
+        verify(provider, times(1)).assetAt("missing.js");
+
+        assets.invalidate();
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        verify(provider, times(2)).assetAt("app.js");
+    }
+
+    @Test
+    public void testProviderArrivalAndDepartureInvalidateTheCache() {
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 0L, null);
+        AssetProvider provider = provider("app.js", asset);
+        AssetsSingleton assets = assets(false, true);
+
+        assertThat(assets.assetAt("app.js")).isNull();
+        assets.bindProvider(provider);
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        assets.unbindProvider(provider);
+        assertThat(assets.assetAt("app.js")).isNull();
+    }
+
+    @Test
+    public void testNoCacheWhenTheFileSystemIsNotWatched() {
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 0L, null);
+        AssetProvider provider = provider("app.js", asset);
+        AssetsSingleton assets = assets(false, false);
+        assets.bindProvider(provider);
+
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        verify(provider, times(2)).assetAt("app.js");
+    }
+
+    @Test
+    public void testFingerprintedUrls() throws Exception {
+        File file = new File(root, "app.js");
+        FileUtils.write(file, "var wisdom = 'wisdom';");
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", file, "test", file.lastModified(), null);
+        AssetsSingleton assets = assets(true, true);
+        assets.bindProvider(provider("app.js", asset));
+
+        String url = assets.url("app.js");
+        assertThat(url).startsWith("/assets/app.js?" + CacheUtils.FINGERPRINT_PARAMETER + "=");
+        assertThat(url.substring(url.indexOf('=') + 1)).hasSize(16).matches("[0-9a-f]+");
+        // The asset path is not changed.
+        assertThat(assets.assetAt("app.js").getPath()).isEqualTo("/assets/app.js");
+
+        // The fingerprint depends on the content.
+        FileUtils.write(file, "var wisdom = 'changed';");
+        assertThat(assets.url("app.js")).isEqualTo(url);
+        assets.invalidate();
+        assertThat(assets.url("app.js")).isNotEqualTo(url).startsWith("/assets/app.js?v=");
+    }
+
+    @Test
+    public void testFingerprintsFollowTheContentWhenTheFileSystemIsNotWatched() throws Exception {
+        File file = new File(root, "app.js");
+        FileUtils.write(file, "var wisdom = 'wisdom';");
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", file, "test", file.lastModified(), null);
+        AssetsSingleton assets = assets(true, false);
+        assets.bindProvider(provider("app.js", asset));
+
+        String url = assets.url("app.js");
+        assertThat(assets.url("app.js")).isEqualTo(url);
+
+        // Not cached, so the new content is noticed without invalidation.
+        FileUtils.write(file, "var wisdom = 'changed';");
+        assertThat(assets.url("app.js")).isNotEqualTo(url).startsWith("/assets/app.js?v=");
+    }
+
+    @Test
+    public void testThatResolutionsConcurrentWithAnInvalidationAreNotCached() {
+        Asset<?> outdated = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 0L, null);
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 1L, null);
+        AssetsSingleton assets = assets(false, true);
+        AssetProvider provider = mock(AssetProvider.class);
+        // The assets are invalidated while the first lookup is running.
+        when(provider.assetAt("app.js")).thenAnswer(invocation -> {
+            assets.invalidate();
+            return outdated;
+        }).thenReturn(asset);
+        assets.bindProvider(provider);
+
+        assertThat(assets.assetAt("app.js")).isSameAs(outdated);
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        verify(provider, times(2)).assetAt("app.js");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testThatWatchedFilesAlwaysInvalidateTheCache() {
+        BundleContext context = mock(BundleContext.class);
+        ArgumentCaptor<Deployer> deployer = ArgumentCaptor.forClass(Deployer.class);
+        when(context.registerService(eq(Deployer.class), deployer.capture(), any(Dictionary.class)))
+                .thenReturn(mock(ServiceRegistration.class));
+        Asset<?> asset = new DefaultAsset<>("/assets/app.js", new File("app.js"), "test", 0L, null);
+        AssetProvider provider = provider("app.js", asset);
+        AssetsSingleton assets = assets(false, true);
+        assets.bundleContext = context;
+        assets.start();
+        assets.bindProvider(provider);
+
+        // The cache is empty, the files are accepted anyway.
+        File file = new File(root, "app.js");
+        assertThat(deployer.getValue().accept(file)).isTrue();
+
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        assertThat(deployer.getValue().accept(file)).isTrue();
+        deployer.getValue().onFileChange(file);
+        assertThat(assets.assetAt("app.js")).isSameAs(asset);
+        verify(provider, times(2)).assetAt("app.js");
+        assets.stop();
+    }
+}
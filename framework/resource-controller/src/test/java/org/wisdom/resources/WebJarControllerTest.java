@@ -43,6 +43,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
 import java.security.MessageDigest;
 import java.util.List;
 
@@ -848,4 +850,76 @@ public class WebJarControllerTest {
         assertThat(FileUtils.readFileToString((File) result.getResult().getRenderable().content())).contains("0.2.5");
     }
 
+    @Test
+    public void testAliasesResolveToTheCanonicalUrl() throws IOException {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        Crypto crypto = mock(Crypto.class);
+        webjars.mkdirs();
+        FileUtils.copyDirectory(new File("target/test-classes/mocklib/0.1.2"), new File(webjars,
+                "mocklib/0.1.2"));
+        FileUtils.copyDirectory(new File("target/test-classes/mocklib/0.2.5"), new File(webjars,
+                "mocklib/0.2.5"));
+        when(configuration.getBaseDir()).thenReturn(root);
+
+        final WebJarController controller = new WebJarController(crypto, configuration, "assets/libs");
+        assertThat(controller.assetAt("mocklib/0.1.2/mocklib.js").getPath())
+                .isEqualTo("/libs/mocklib/0.1.2/mocklib.js");
+        assertThat(controller.assetAt("mocklib/mocklib.js").getPath())
+                .isEqualTo("/libs/mocklib/0.2.5/mocklib.js");
+        assertThat(controller.assetAt("mocklib/0.1.x/mocklib.js")).isNull();
+
+        // Remove the most recent version
+        List<WebJarLib> libs = controller.libs();
+        controller.removeWebJarLibs(libs.subList(1, 2));
+        assertThat(controller.assetAt("mocklib/mocklib.js").getPath())
+                .isEqualTo("/libs/mocklib/0.1.2/mocklib.js");
+        assertThat(controller.assetAt("mocklib/0.2.5/mocklib.js")).isNull();
+    }
+
+    @Test
+    public void testExtractionOfLibrariesEmbeddedInBundles() throws IOException {
+        ApplicationConfiguration configuration = mock(ApplicationConfiguration.class);
+        Crypto crypto = mock(Crypto.class);
+        when(configuration.getBaseDir()).thenReturn(root);
+        when(configuration.getBooleanWithDefault(WebJarController.HTTP_WEBJARS_EXTRACT, false)).thenReturn(true);
+
+        // The entry of the bundle, last modified on January 1st 2015.
+        final File content = new File(root, "bundle/autobahn.min.js");
+        FileUtils.copyFile(new File("target/test-classes/autobahnjs/0.8.2/autobahn.min.js"), content);
+        assertThat(content.setLastModified(1420070400000L)).isTrue();
+        URLStreamHandler handler = new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL u) throws IOException {
+                return content.toURI().toURL().openConnection();
+            }
+        };
+        final URL url = new URL("bundle", "61", -1,
+                "/" + WebJarController.WEBJAR_LOCATION + "autobahnjs/0.8.2/autobahn.min.js", handler);
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getBundleId()).thenReturn(61l);
+        when(bundle.findEntries(WebJarController.WEBJAR_LOCATION, "*", true)).thenReturn(
+                Iterators.asEnumeration(ImmutableList.of(
+                        new URL("file://61/" + WebJarController.WEBJAR_LOCATION + "autobahnjs/0.8.2/"),
+                        url
+                ).iterator())
+        );
+        when(bundle.findEntries(WebJarController.WEBJAR_LOCATION + "autobahnjs/0.8.2", "*", true)).thenReturn(
+                Iterators.asEnumeration(ImmutableList.of(url).iterator())
+        );
+
+        WebJarController controller = new WebJarController(crypto, configuration, "assets/libs");
+        controller.extractionDirectory = new File(root, "extracted");
+        List<BundleWebJarLib> added = controller.addingBundle(bundle, null);
+        assertThat(added).hasSize(1);
+
+        File extracted = new File(root, "extracted/61/autobahnjs/0.8.2/autobahn.min.js");
+        assertThat(extracted).isFile().hasContentEqualTo(content);
+        // The extracted file keeps the date of the entry, so the cache headers do not change at each extraction.
+        assertThat(extracted.lastModified()).isEqualTo(content.lastModified());
+        assertThat(controller.assetAt("autobahn.min.js").getContent()).isEqualTo(extracted);
+
+        controller.removedBundle(bundle, null, added);
+        assertThat(extracted).doesNotExist();
+        assertThat(controller.assetAt("autobahn.min.js")).isNull();
+    }
 }
@@ -243,6 +243,10 @@ public class ThymeleafTemplateCollector implements TemplateEngine {
         engine.setTemplateResolver(resolver);
 
         engine.setMessageResolver(messageResolver);
+        engine.setBufferedRendering(
+                configuration.getBooleanWithDefault("application.template.thymeleaf.buffered", true));
+        engine.setChunkedThreshold(configuration.getBytes("application.template.thymeleaf.chunked-threshold",
+                WisdomTemplateEngine.DEFAULT_CHUNKED_THRESHOLD));
         engine.initialize();
     }
 
@@ -22,7 +22,6 @@ package org.wisdom.template.thymeleaf.dialect;
 import com.google.common.collect.ImmutableMap;
 import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.wisdom.api.Controller;
-import org.wisdom.api.asset.Asset;
 import org.wisdom.api.asset.Assets;
 import org.wisdom.api.router.Router;
 
@@ -375,8 +374,8 @@ public class Routes {
      * @return the url
      */
     public String asset(String path) {
-        Asset asset = assets.assetAt(path);
-        if (asset == null) {
+        String url = assets.url(path);
+        if (url == null) {
             // If the path starts with "/", try without
             if (path.startsWith("/")) {
                 return asset(path.substring(1));
@@ -384,6 +383,6 @@ public class Routes {
             // Not found.
             throw new TemplateProcessingException("Cannot find the URL of the asset " + path);
         }
-        return asset.getPath();
+        return url;
     }
 }
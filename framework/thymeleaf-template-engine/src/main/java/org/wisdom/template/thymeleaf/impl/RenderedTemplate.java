@@ -0,0 +1,202 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.impl;
+
+import com.google.common.base.Charsets;
+import org.wisdom.api.http.Context;
+import org.wisdom.api.http.InMemoryRenderable;
+import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Result;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of the rendering of a template, encoded in UTF-8. Small pages are held in a single array written
+ * without copy by the server, while large pages are kept in the segments they were rendered into and sent as
+ * chunks.
+ * <p>
+ * If the result uses another charset, the content is re-encoded.
+ */
+final class RenderedTemplate implements InMemoryRenderable<String> {
+
+    private final List<byte[]> segments;
+    private final long length;
+    private final boolean chunked;
+
+    /**
+     * The content re-encoded using the charset of the result, {@literal null} if UTF-8 is used.
+     */
+    private byte[] encoded;
+
+    /**
+     * The content as String, only computed on demand.
+     */
+    private String content;
+
+    /**
+     * Creates a rendered template from the given output.
+     *
+     * @param output           the output in which the template was rendered
+     * @param chunkedThreshold the size above which the page is sent as chunks
+     * @return the rendered template
+     */
+    static RenderedTemplate from(TemplateOutput output, long chunkedThreshold) {
+        long size = output.size();
+        if (size > chunkedThreshold) {
+            return new RenderedTemplate(output.detach(), size, true);
+        }
+        return new RenderedTemplate(Collections.singletonList(output.toByteArray()), size, false);
+    }
+
+    private RenderedTemplate(List<byte[]> segments, long length, boolean chunked) {
+        this.segments = segments;
+        this.length = length;
+        this.chunked = chunked;
+    }
+
+    /**
+     * Checks the charset of the result, if none, UTF-8 is set, otherwise the content is re-encoded if needed.
+     *
+     * @return {@literal true} if the content is sent in UTF-8
+     */
+    private boolean isUtf8(Result result) {
+        if (result == null) {
+            return true;
+        }
+        Charset charset = result.getCharset();
+        if (charset == null) {
+            result.with(Charsets.UTF_8);
+            return true;
+        }
+        if (!Charsets.UTF_8.equals(charset) && encoded == null) {
+            encoded = content().getBytes(charset);
+        }
+        return encoded == null;
+    }
+
+    /**
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return a stream on the rendered content
+     */
+    @Override
+    public InputStream render(Context context, Result result) {
+        if (!isUtf8(result)) {
+            return new ByteArrayInputStream(encoded);
+        }
+        if (segments.size() == 1) {
+            return new ByteArrayInputStream(segments.get(0), 0, (int) length);
+        }
+        List<InputStream> streams = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            streams.add(new ByteArrayInputStream(segments.get(i), 0, segmentLength(i)));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    private int segmentLength(int i) {
+        if (i < segments.size() - 1) {
+            return TemplateOutput.SEGMENT_SIZE;
+        }
+        return (int) (length - (long) i * TemplateOutput.SEGMENT_SIZE);
+    }
+
+    /**
+     * @param context the HTTP context
+     * @param result  the result having built this renderable object
+     * @return the rendered content, not a copy if the page is small and sent in UTF-8
+     */
+    @Override
+    public byte[] renderToBytes(Context context, Result result) {
+        if (!isUtf8(result)) {
+            return encoded;
+        }
+        if (!chunked) {
+            return segments.get(0);
+        }
+        byte[] bytes = new byte[(int) length];
+        for (int i = 0; i < segments.size(); i++) {
+            System.arraycopy(segments.get(i), 0, bytes, i * TemplateOutput.SEGMENT_SIZE, segmentLength(i));
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the length of the content in bytes.
+     */
+    @Override
+    public long length() {
+        if (encoded != null) {
+            return encoded.length;
+        }
+        return length;
+    }
+
+    /**
+     * @return {@literal text/html}.
+     */
+    @Override
+    public String mimetype() {
+        return MimeTypes.HTML;
+    }
+
+    /**
+     * @return the rendered content, decoded on demand.
+     */
+    @Override
+    public String content() {
+        if (content == null) {
+            content = new String(chunked ? renderToBytes(null, null) : segments.get(0), Charsets.UTF_8);
+        }
+        return content;
+    }
+
+    /**
+     * @return {@literal false}, as no external processing is required.
+     */
+    @Override
+    public boolean requireSerializer() {
+        return false;
+    }
+
+    /**
+     * Not used.
+     *
+     * @param serialized the serialized form
+     */
+    @Override
+    public void setSerializedForm(String serialized) {
+        // Nothing to do.
+    }
+
+    /**
+     * @return {@literal true} for large pages, sent as chunks.
+     */
+    @Override
+    public boolean mustBeChunked() {
+        return chunked;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.impl;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Writer} encoding the rendered template in UTF-8 directly into a list of fixed-size byte segments, so the
+ * page is never materialized as a {@link String}, and large pages do not require a large contiguous array.
+ * <p>
+ * Instances are pooled per thread (see {@link #acquire()}): the segments are reused by the next rendering on the
+ * same thread, unless they were handed to a response (see {@link #detach()}).
+ */
+final class TemplateOutput extends Writer {
+
+    /**
+     * The size of the segments.
+     */
+    static final int SEGMENT_SIZE = 32 * 1024;
+
+    /**
+     * The maximum number of segments kept by a pooled instance between two renderings.
+     */
+    private static final int MAX_POOLED_SEGMENTS = 16;
+
+    private static final ThreadLocal<TemplateOutput> POOL = new ThreadLocal<TemplateOutput>() {
+        @Override
+        protected TemplateOutput initialValue() {
+            return new TemplateOutput();
+        }
+    };
+
+    private final List<byte[]> segments = new ArrayList<>();
+
+    /**
+     * The index of the segment being written.
+     */
+    private int index;
+
+    /**
+     * The segment being written, and the position in this segment.
+     */
+    private byte[] current;
+    private int position;
+
+    /**
+     * A high surrogate waiting for the low surrogate of the pair.
+     */
+    private char high;
+
+    private boolean inUse;
+
+    private TemplateOutput() {
+        current = new byte[SEGMENT_SIZE];
+        segments.add(current);
+    }
+
+    /**
+     * Gets the output of the current thread. If it is already used (nested rendering), a new instance is returned.
+     *
+     * @return an empty output, to be released once the rendered content has been retrieved
+     */
+    static TemplateOutput acquire() {
+        TemplateOutput output = POOL.get();
+        if (output.inUse) {
+            output = new TemplateOutput();
+        }
+        output.inUse = true;
+        return output;
+    }
+
+    /**
+     * Resets the output, so it can be reused by the next rendering.
+     */
+    void release() {
+        while (segments.size() > MAX_POOLED_SEGMENTS) {
+            segments.remove(segments.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            segments.add(new byte[SEGMENT_SIZE]);
+        }
+        index = 0;
+        current = segments.get(0);
+        position = 0;
+        high = 0;
+        inUse = false;
+    }
+
+    /**
+     * @return the number of bytes written.
+     */
+    long size() {
+        return (long) index * SEGMENT_SIZE + position;
+    }
+
+    /**
+     * @return a copy of the written bytes, as a single array.
+     */
+    byte[] toByteArray() {
+        byte[] bytes = new byte[(int) size()];
+        for (int i = 0; i < index; i++) {
+            System.arraycopy(segments.get(i), 0, bytes, i * SEGMENT_SIZE, SEGMENT_SIZE);
+        }
+        System.arraycopy(current, 0, bytes, index * SEGMENT_SIZE, position);
+        return bytes;
+    }
+
+    /**
+     * Hands the written segments over to the caller, without copy. The output does not reuse them anymore.
+     *
+     * @return the written segments, all full except the last one
+     */
+    List<byte[]> detach() {
+        List<byte[]> written = new ArrayList<>(segments.subList(0, index + 1));
+        segments.clear();
+        return written;
+    }
+
+    private void next() {
+        index++;
+        if (index == segments.size()) {
+            segments.add(new byte[SEGMENT_SIZE]);
+        }
+        current = segments.get(index);
+        position = 0;
+    }
+
+    private void put(int b) {
+        if (position == SEGMENT_SIZE) {
+            next();
+        }
+        current[position++] = (byte) b;
+    }
+
+    private void encode(char c) {
+        if (high != 0) {
+            char h = high;
+            high = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(h, c);
+                put(0xF0 | (code >> 18));
+                put(0x80 | ((code >> 12) & 0x3F));
+                put(0x80 | ((code >> 6) & 0x3F));
+                put(0x80 | (code & 0x3F));
+                return;
+            }
+            // Unpaired surrogate, replaced as the UTF-8 encoder does.
+            put('?');
+        }
+        if (c < 0x80) {
+            put(c);
+        } else if (c < 0x800) {
+            put(0xC0 | (c >> 6));
+            put(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            high = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put('?');
+        } else {
+            put(0xE0 | (c >> 12));
+            put(0x80 | ((c >> 6) & 0x3F));
+            put(0x80 | (c & 0x3F));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (c < 0x80 && high == 0 && position < SEGMENT_SIZE) {
+                // Fast path for ASCII characters.
+                current[position++] = (byte) c;
+            } else {
+                encode(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80 && high == 0 && position < SEGMENT_SIZE) {
+                // Fast path for ASCII characters.
+                current[position++] = (byte) c;
+            } else {
+                encode(c);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush, everything is written in memory.
+    }
+
+    /**
+     * Completes the output. A trailing unpaired surrogate is replaced by {@literal ?}.
+     */
+    @Override
+    public void close() {
+        if (high != 0) {
+            high = 0;
+            put('?');
+        }
+    }
+}
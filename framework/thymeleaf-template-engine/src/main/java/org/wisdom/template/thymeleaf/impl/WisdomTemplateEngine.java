@@ -28,12 +28,14 @@ import org.wisdom.api.Controller;
 import org.wisdom.api.asset.Assets;
 import org.wisdom.api.bodies.RenderableString;
 import org.wisdom.api.http.MimeTypes;
+import org.wisdom.api.http.Renderable;
 import org.wisdom.api.router.Router;
 import org.wisdom.api.templates.Template;
 import org.wisdom.template.thymeleaf.dialect.Routes;
 import org.wisdom.template.thymeleaf.dialect.WisdomStandardDialect;
 
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,6 +45,18 @@ import java.util.Set;
  */
 public class WisdomTemplateEngine extends TemplateEngine {
 
+    /**
+     * The default size (in bytes) above which rendered pages are sent as chunks.
+     */
+    public static final long DEFAULT_CHUNKED_THRESHOLD = 1024 * 1024;
+
+    /**
+     * Whether or not templates are rendered directly as UTF-8 bytes.
+     */
+    private boolean buffered = true;
+
+    private long chunkedThreshold = DEFAULT_CHUNKED_THRESHOLD;
+
     public WisdomTemplateEngine(Set<IDialect> dialects) {
         super();
         // We clear the dialects as we are using our own standard dialect.
@@ -55,6 +69,27 @@ public class WisdomTemplateEngine extends TemplateEngine {
         }
     }
 
+    /**
+     * Enables or disables the buffered rendering. When enabled (default), templates are encoded in UTF-8 while being
+     * rendered, into a buffer reused by the next renderings of the same thread. Otherwise,
+     * templates are rendered as String.
+     *
+     * @param buffered whether or not the buffered rendering is enabled
+     */
+    public void setBufferedRendering(boolean buffered) {
+        this.buffered = buffered;
+    }
+
+    /**
+     * Sets the size above which pages rendered with the buffered rendering are sent as chunks, instead of being
+     * copied into a single array.
+     *
+     * @param threshold the size in bytes
+     */
+    public void setChunkedThreshold(long threshold) {
+        this.chunkedThreshold = threshold;
+    }
+
     /**
      * Renders the given template.
      * <p>
@@ -66,7 +101,7 @@ public class WisdomTemplateEngine extends TemplateEngine {
      * @param variables  the template parameters
      * @return the rendered HTML page
      */
-    public RenderableString process(Template template, Controller controller, Router router, Assets assets, Map<String,
+    public Renderable<String> process(Template template, Controller controller, Router router, Assets assets, Map<String,
             Object> variables) {
         Context ctx = new Context();
         // Add session
@@ -96,7 +131,23 @@ public class WisdomTemplateEngine extends TemplateEngine {
         // This variable let us resolve template using relative path (in the same directory as the current template).
         // It's mainly used for 'layout', so we can compute the full url.
         ctx.setVariable("__TEMPLATE__", template);
-        StringWriter writer = new StringWriter();
+        if (!buffered) {
+            StringWriter writer = new StringWriter();
+            processTemplate(template, ctx, writer);
+            return new RenderableString(writer, MimeTypes.HTML);
+        }
+
+        TemplateOutput output = TemplateOutput.acquire();
+        try {
+            processTemplate(template, ctx, output);
+            output.close();
+            return RenderedTemplate.from(output, chunkedThreshold);
+        } finally {
+            output.release();
+        }
+    }
+
+    private void processTemplate(Template template, Context ctx, Writer writer) {
         try {
             this.process(template.fullName(), ctx, writer);
         } catch (TemplateProcessingException e) {
@@ -111,7 +162,6 @@ public class WisdomTemplateEngine extends TemplateEngine {
                 throw e;
             }
         }
-        return new RenderableString(writer, MimeTypes.HTML);
     }
 
 }
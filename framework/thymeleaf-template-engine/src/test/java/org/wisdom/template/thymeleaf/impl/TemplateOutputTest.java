@@ -0,0 +1,86 @@
+/*
+ * #%L
+ * Wisdom-Framework
+ * %%
+ * Copyright (C) 2013 - 2014 Wisdom Framework
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wisdom.template.thymeleaf.impl;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the UTF-8 encoding of the template output.
+ */
+public class TemplateOutputTest {
+
+    @Test
+    public void testEncodingAcrossSegments() throws IOException {
+        // Place a surrogate pair and multi-bytes characters on the boundary of the first segment.
+        String text = Strings.repeat("a", TemplateOutput.SEGMENT_SIZE - 3) + "\ud83d\ude00\u20ac\u00e9"
+                + Strings.repeat("b", TemplateOutput.SEGMENT_SIZE);
+        TemplateOutput output = TemplateOutput.acquire();
+        try {
+            output.write(text.substring(0, TemplateOutput.SEGMENT_SIZE - 2));
+            output.write(text.toCharArray(), TemplateOutput.SEGMENT_SIZE - 2, 3);
+            output.write(text.substring(TemplateOutput.SEGMENT_SIZE + 1));
+            output.close();
+
+            byte[] expected = text.getBytes(Charsets.UTF_8);
+            assertThat(output.size()).isEqualTo(expected.length);
+            assertThat(output.toByteArray()).isEqualTo(expected);
+
+            List<byte[]> segments = output.detach();
+            assertThat(segments).hasSize(3);
+        } finally {
+            output.release();
+        }
+        assertThat(TemplateOutput.acquire().size()).isZero();
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws IOException {
+        TemplateOutput output = TemplateOutput.acquire();
+        try {
+            output.write("a\udc00b\ud800");
+            output.close();
+            assertThat(new String(output.toByteArray(), Charsets.UTF_8)).isEqualTo("a?b?");
+        } finally {
+            output.release();
+        }
+    }
+
+    @Test
+    public void testNestedAcquisition() {
+        TemplateOutput output = TemplateOutput.acquire();
+        try {
+            TemplateOutput nested = TemplateOutput.acquire();
+            assertThat(nested).isNotSameAs(output);
+            nested.release();
+        } finally {
+            output.release();
+        }
+        TemplateOutput reused = TemplateOutput.acquire();
+        assertThat(reused).isSameAs(output);
+        reused.release();
+    }
+}
@@ -19,16 +19,22 @@
  */
 package org.wisdom.template.thymeleaf.impl;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
 import com.google.common.collect.ImmutableSet;
 import org.junit.After;
 import org.junit.Test;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.exceptions.TemplateProcessingException;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 import org.wisdom.api.Controller;
 import org.wisdom.api.asset.Assets;
+import org.wisdom.api.bodies.RenderableString;
+import org.wisdom.api.http.InMemoryRenderable;
+import org.wisdom.api.http.Renderable;
 import org.wisdom.api.http.Result;
 import org.wisdom.api.templates.Template;
 import org.wisdom.template.thymeleaf.dialect.Routes;
@@ -37,11 +43,13 @@ import org.wisdom.test.parents.FakeContext;
 import org.wisdom.test.parents.Invocation;
 
 import java.io.File;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.util.Collections;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.wisdom.api.http.Results.ok;
@@ -258,6 +266,104 @@ public class WisdomTemplateEngineTest {
                 .contains("<span>request</span>");
     }
 
+    private Renderable<String> render(WisdomTemplateEngine engine, String name, String value) {
+        org.wisdom.api.http.Context.CONTEXT.set(new FakeContext());
+        final Template template = mock(Template.class);
+        when(template.fullName()).thenReturn(name);
+        final FakeRouter router = new FakeRouter();
+        final Controller controller = new FakeController();
+        router.addController(controller);
+        return engine.process(template, controller, router, mock(Assets.class),
+                ImmutableMap.<String, Object>of("key", value));
+    }
+
+    @Test
+    public void testBufferedRendering() throws Exception {
+        final WisdomTemplateEngine engine = createWisdomEngine();
+        engine.initialize();
+        String value = "h\u00e9llo \u20ac \ud83d\ude00";
+
+        Renderable<String> renderable = render(engine, "templates/var.thl.html", value);
+        assertThat(renderable).isInstanceOf(InMemoryRenderable.class);
+        assertThat(renderable.mustBeChunked()).isFalse();
+        assertThat(renderable.content()).contains("<span>KEY</span> = <span>" + value + "</span>");
+
+        Result result = ok(renderable);
+        byte[] bytes = ((InMemoryRenderable<?>) renderable).renderToBytes(null, result);
+        assertThat(result.getCharset()).isEqualTo(Charsets.UTF_8);
+        assertThat(bytes).isEqualTo(renderable.content().getBytes(Charsets.UTF_8));
+        assertThat(renderable.length()).isEqualTo(bytes.length);
+
+        // The buffer is reused by the next rendering.
+        Renderable<String> other = render(engine, "templates/var.thl.html", "other");
+        assertThat(other.content()).contains("<span>KEY</span> = <span>other</span>").doesNotContain(value);
+        assertThat(renderable.content()).contains(value);
+    }
+
+    @Test
+    public void testLargePagesAreChunked() throws Exception {
+        final WisdomTemplateEngine engine = createWisdomEngine();
+        engine.setChunkedThreshold(1024);
+        engine.initialize();
+        StringBuilder value = new StringBuilder();
+        while (value.length() < 3 * TemplateOutput.SEGMENT_SIZE) {
+            value.append("\u00e9t\u00e9 ");
+        }
+
+        Renderable<String> renderable = render(engine, "templates/var.thl.html", value.toString());
+        assertThat(renderable.mustBeChunked()).isTrue();
+        assertThat(renderable.content()).contains(value);
+
+        byte[] expected = renderable.content().getBytes(Charsets.UTF_8);
+        assertThat(renderable.length()).isEqualTo(expected.length);
+        try (InputStream stream = renderable.render(null, ok(renderable))) {
+            assertThat(ByteStreams.toByteArray(stream)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testStringRendering() {
+        final WisdomTemplateEngine engine = createWisdomEngine();
+        engine.setBufferedRendering(false);
+        engine.initialize();
+
+        Renderable<String> renderable = render(engine, "templates/var.thl.html", "test");
+        assertThat(renderable).isInstanceOf(RenderableString.class);
+        assertThat(renderable.content()).contains("<span>KEY</span> = <span>test</span>");
+    }
+
+    @Test
+    public void testOtherCharsets() throws Exception {
+        final WisdomTemplateEngine engine = createWisdomEngine();
+        engine.initialize();
+
+        Renderable<String> renderable = render(engine, "templates/var.thl.html", "\u00e9t\u00e9");
+        Result result = ok(renderable).with(Charsets.ISO_8859_1);
+        try (InputStream stream = renderable.render(null, result)) {
+            assertThat(ByteStreams.toByteArray(stream))
+                    .isEqualTo(renderable.content().getBytes(Charsets.ISO_8859_1));
+        }
+        assertThat(renderable.length()).isEqualTo(renderable.content().length());
+    }
+
+    @Test
+    public void testErrorsAreUnwrapped() {
+        final WisdomTemplateEngine engine = createWisdomEngine();
+        engine.initialize();
+
+        try {
+            render(engine, "templates/error.thl.html", "test");
+            fail("Exception expected");
+        } catch (TemplateProcessingException e) {
+            assertThat(e.getTemplateName()).isEqualTo("templates/error.thl.html");
+            assertThat(e.getMessage()).contains("doesNotExist");
+        }
+
+        // The buffer was released.
+        assertThat(render(engine, "templates/var.thl.html", "test").content())
+                .contains("<span>KEY</span> = <span>test</span>");
+    }
+
     private WisdomTemplateEngine createWisdomEngine(Set<IDialect> dialects) {
         WisdomTemplateEngine engine = new WisdomTemplateEngine(dialects);
         engine.setTemplateResolver(new ClassLoaderTemplateResolver());